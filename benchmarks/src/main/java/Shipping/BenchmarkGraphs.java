@@ -0,0 +1,57 @@
+package Shipping;
+
+import java.util.Random;
+
+/**
+ * Seeded synthetic graphs for the benchmarks: a jittered lat/lon lattice with
+ * two-way edges to the right and lower neighbours, weighted by rounded
+ * great-circle distance plus noise, so every node is reachable.
+ */
+final class BenchmarkGraphs {
+    private BenchmarkGraphs() {
+    }
+
+    static PortGraph lattice(int nodeCount, long seed) {
+        Random random = new Random(seed);
+        int columns = (int) Math.ceil(Math.sqrt(nodeCount));
+        double step = 120.0 / columns;
+        PortGraph.Builder builder = new PortGraph.Builder();
+        double[] latitudes = new double[nodeCount];
+        double[] longitudes = new double[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            double latitude = -60 + (i / columns) * step + random.nextDouble() * step * 0.5;
+            double longitude = -180 + (i % columns) * step * 3 + random.nextDouble() * step;
+            builder.addNode("Node " + i, latitude, longitude);
+            latitudes[i] = latitude;
+            longitudes[i] = longitude;
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            if ((i + 1) % columns != 0 && i + 1 < nodeCount) {
+                connect(builder, random, latitudes, longitudes, i, i + 1);
+            }
+            if (i + columns < nodeCount) {
+                connect(builder, random, latitudes, longitudes, i, i + columns);
+            }
+        }
+        return builder.build();
+    }
+
+    // Random query pairs drawn with their own seed so every run sees the same sequence.
+    static int[][] queries(int nodeCount, int count, long seed) {
+        Random random = new Random(seed);
+        int[][] queries = new int[count][2];
+        for (int[] query : queries) {
+            query[0] = random.nextInt(nodeCount);
+            query[1] = random.nextInt(nodeCount);
+        }
+        return queries;
+    }
+
+    private static void connect(PortGraph.Builder builder, Random random,
+                                double[] latitudes, double[] longitudes, int a, int b) {
+        double nm = GreatCircleHeuristic.distanceNm(latitudes[a], longitudes[a], latitudes[b], longitudes[b]);
+        int weight = 1 + (int) Math.round(nm * (1 + random.nextDouble() * 0.3));
+        builder.addEdge(a, b, weight);
+        builder.addEdge(b, a, weight);
+    }
+}
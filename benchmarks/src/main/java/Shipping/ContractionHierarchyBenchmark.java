@@ -0,0 +1,71 @@
+package Shipping;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Contraction hierarchy preprocessing time and query latency against plain
+ * Dijkstra on the same graphs and query pairs.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContractionHierarchyBenchmark {
+    private static final int QUERY_COUNT = 256;
+
+    @Param({"1000", "10000"})
+    public int nodes;
+
+    private PortGraph graph;
+    private DijkstraSearch dijkstra;
+    private ContractionHierarchySearch hierarchySearch;
+    private int[][] queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        graph = BenchmarkGraphs.lattice(nodes, 42);
+        dijkstra = new DijkstraSearch(graph);
+        hierarchySearch = new ContractionHierarchySearch(new ContractionHierarchyBuilder(graph).build());
+        queries = BenchmarkGraphs.queries(nodes, QUERY_COUNT, 7);
+    }
+
+    private int[] nextQuery() {
+        int[] query = queries[next];
+        next = (next + 1) % QUERY_COUNT;
+        return query;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public ContractionHierarchy preprocess() {
+        return new ContractionHierarchyBuilder(graph).build();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public int[] dijkstraQuery() {
+        int[] query = nextQuery();
+        return dijkstra.shortestPath(query[0], query[1]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public int[] hierarchyQuery() {
+        int[] query = nextQuery();
+        return hierarchySearch.shortestPath(query[0], query[1]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public int hierarchyDistanceOnly() {
+        int[] query = nextQuery();
+        return hierarchySearch.distance(query[0], query[1]);
+    }
+}
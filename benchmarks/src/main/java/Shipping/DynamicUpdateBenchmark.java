@@ -0,0 +1,98 @@
+package Shipping;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Update-plus-query throughput of a standing shortest-path tree: each
+ * operation reweights a batch of random edges, as a weather or congestion
+ * feed would, then reads a distance. The tree is either repaired
+ * incrementally or recomputed with a full Dijkstra from its source.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DynamicUpdateBenchmark {
+    private static final int UPDATE_COUNT = 1024;
+
+    @Param({"10000", "100000"})
+    public int nodes;
+
+    @Param({"1", "16"})
+    public int batch;
+
+    private PortNetwork incrementalNetwork;
+    private PortNetwork recomputedNetwork;
+    private ShortestPathTree tree;
+    private int source;
+    private int[][] updateFrom;
+    private int[][] updateTo;
+    private int[][] updateWeights;
+    private int[][] originalWeights;
+    private int[] targets;
+    private int next;
+    private boolean restoring;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        PortGraph graph = BenchmarkGraphs.lattice(nodes, 42);
+        incrementalNetwork = new PortNetwork(graph);
+        recomputedNetwork = new PortNetwork(graph);
+        source = nodes / 2;
+        tree = ShortestPathTree.attach(incrementalNetwork, source);
+
+        // Every update scales edges of the original graph by 0.5 to 2.0; alternate passes restore them.
+        Random random = new Random(7);
+        updateFrom = new int[UPDATE_COUNT][batch];
+        updateTo = new int[UPDATE_COUNT][batch];
+        updateWeights = new int[UPDATE_COUNT][batch];
+        originalWeights = new int[UPDATE_COUNT][batch];
+        targets = new int[UPDATE_COUNT];
+        for (int i = 0; i < UPDATE_COUNT; i++) {
+            for (int j = 0; j < batch; j++) {
+                int from = random.nextInt(nodes);
+                while (graph.degree(from) == 0) {
+                    from = random.nextInt(nodes);
+                }
+                int edge = graph.offsets[from] + random.nextInt(graph.degree(from));
+                updateFrom[i][j] = from;
+                updateTo[i][j] = graph.targets[edge];
+                originalWeights[i][j] = graph.weights.get(edge);
+                updateWeights[i][j] = Math.max(1, (int) (graph.weights.get(edge) * (0.5 + random.nextDouble() * 1.5)));
+            }
+            targets[i] = random.nextInt(nodes);
+        }
+    }
+
+    // Returns the index of the next update; re-applying a pass unchanged would make every update a no-op.
+    private int nextUpdate() {
+        int i = next;
+        next = (next + 1) % UPDATE_COUNT;
+        if (next == 0) {
+            restoring = !restoring;
+        }
+        return i;
+    }
+
+    @Benchmark
+    public int incrementalRepair() {
+        int i = nextUpdate();
+        incrementalNetwork.updateWeights(updateFrom[i], updateTo[i], restoring ? originalWeights[i] : updateWeights[i]);
+        return tree.distance(targets[i]);
+    }
+
+    @Benchmark
+    public int fullRecomputation() {
+        int i = nextUpdate();
+        recomputedNetwork.updateWeights(updateFrom[i], updateTo[i], restoring ? originalWeights[i] : updateWeights[i]);
+        PortGraph graph = recomputedNetwork.graph();
+        SearchContext context = SearchContext.current(graph.nodeCount());
+        new DijkstraSearch(graph).run(context, source, DijkstraSearch.ALL_NODES);
+        return context.distance(targets[i]);
+    }
+}
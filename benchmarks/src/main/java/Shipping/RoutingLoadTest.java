@@ -0,0 +1,155 @@
+package Shipping;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-loop load test of {@link RoutingServer}: a number of concurrent
+ * clients, each on a virtual thread, send route requests between random
+ * nodes back to back. After a warm-up the latency of every request is kept,
+ * and the run reports throughput and latency percentiles.
+ *
+ * Without --url it starts a server in-process on a synthetic lattice.
+ *
+ * Usage: java Shipping.RoutingLoadTest [--url http://host:port] [--nodes 100000]
+ *        [--clients 64] [--seconds 10] [--warmup 3] [--endpoint route] [--strategy A_STAR]
+ */
+final class RoutingLoadTest {
+    private static final Pattern NODE_COUNT = Pattern.compile("\"nodes\":(\\d+)");
+
+    private RoutingLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String url = null;
+        int nodes = 100_000;
+        int clients = 64;
+        int seconds = 10;
+        int warmup = 3;
+        String endpoint = "route";
+        String strategy = "A_STAR";
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--url" -> url = args[i + 1];
+                case "--nodes" -> nodes = Integer.parseInt(args[i + 1]);
+                case "--clients" -> clients = Integer.parseInt(args[i + 1]);
+                case "--seconds" -> seconds = Integer.parseInt(args[i + 1]);
+                case "--warmup" -> warmup = Integer.parseInt(args[i + 1]);
+                case "--endpoint" -> endpoint = args[i + 1];
+                case "--strategy" -> strategy = args[i + 1];
+                default -> {
+                    System.err.println("Unknown option " + args[i]);
+                    System.exit(2);
+                }
+            }
+        }
+
+        RoutingServer server = null;
+        if (url == null) {
+            PortGraph graph = BenchmarkGraphs.lattice(nodes, 42);
+            server = new RoutingServer(new RoutingEngine(new PortNetwork(graph)),
+                    new InetSocketAddress("localhost", 0));
+            server.start();
+            url = "http://localhost:" + server.port();
+        }
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        try {
+            nodes = nodeCount(client, url);
+            System.out.printf("%s: %d nodes, %d clients, /%s, %d s warm-up, %d s measured%n",
+                    url, nodes, clients, endpoint, warmup, seconds);
+            run(client, url, endpoint, strategy, nodes, clients, warmup, false);
+            run(client, url, endpoint, strategy, nodes, clients, seconds, true);
+        } finally {
+            if (server != null) {
+                server.stop();
+            }
+        }
+    }
+
+    private static int nodeCount(HttpClient client, String url) throws IOException, InterruptedException {
+        String body = client.send(HttpRequest.newBuilder(URI.create(url + "/network")).build(),
+                HttpResponse.BodyHandlers.ofString()).body();
+        Matcher matcher = NODE_COUNT.matcher(body);
+        if (!matcher.find()) {
+            throw new IOException("Unexpected /network response: " + body);
+        }
+        return Integer.parseInt(matcher.group(1));
+    }
+
+    private static void run(HttpClient client, String url, String endpoint, String strategy, int nodes,
+                            int clients, int seconds, boolean report) throws Exception {
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        List<Future<long[]>> results = new ArrayList<>();
+        int[] errors = new int[clients];
+        long started = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                int clientId = c;
+                results.add(executor.submit(() -> {
+                    Random random = new Random(clientId);
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    while (System.nanoTime() < deadline) {
+                        URI uri = URI.create(url + "/" + endpoint + "?from=" + random.nextInt(nodes)
+                                + "&to=" + random.nextInt(nodes) + "&strategy=" + strategy);
+                        long sent = System.nanoTime();
+                        HttpResponse<byte[]> response = client.send(HttpRequest.newBuilder(uri).build(),
+                                HttpResponse.BodyHandlers.ofByteArray());
+                        long latency = System.nanoTime() - sent;
+                        // A 404 is a valid answer for an unreachable pair.
+                        if (response.statusCode() != 200 && response.statusCode() != 404) {
+                            errors[clientId]++;
+                        }
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = latency;
+                    }
+                    return Arrays.copyOf(latencies, count);
+                }));
+            }
+        }
+        long elapsed = System.nanoTime() - started;
+        if (!report) {
+            return;
+        }
+
+        int total = 0;
+        for (Future<long[]> result : results) {
+            total += result.get().length;
+        }
+        long[] all = new long[total];
+        int at = 0;
+        for (Future<long[]> result : results) {
+            long[] latencies = result.get();
+            System.arraycopy(latencies, 0, all, at, latencies.length);
+            at += latencies.length;
+        }
+        Arrays.sort(all);
+        System.out.printf("%d requests, %d errors, %.0f req/s%n", total, Arrays.stream(errors).sum(), total / (elapsed / 1e9));
+        System.out.printf("latency ms: p50 %.2f  p90 %.2f  p99 %.2f  p99.9 %.2f  max %.2f%n",
+                percentile(all, 0.50), percentile(all, 0.90), percentile(all, 0.99), percentile(all, 0.999),
+                total == 0 ? 0 : all[total - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(fraction * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
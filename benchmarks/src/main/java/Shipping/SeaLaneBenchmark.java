@@ -0,0 +1,130 @@
+package Shipping;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The engine's queries between ports of generated sea-lane networks (see
+ * {@link SeaLaneGenerator}): shortest paths, alternative routes, distance
+ * matrices and costing a route in distance, fuel and time. Graphs, queries
+ * and JVM settings are fixed, so results of different commits compare;
+ * the setup prints each graph's fingerprint to confirm it. Ten million edges
+ * need about 3 GB of heap: -p edges=10000000.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms3g", "-Xmx3g"})
+public class SeaLaneBenchmark {
+    private static final long GRAPH_SEED = 42;
+    private static final long QUERY_SEED = 7;
+    private static final int QUERY_COUNT = 256;
+    private static final int MATRIX_SIZE = 16;
+
+    @Param({"1000", "100000", "1000000"})
+    public int edges;
+
+    private AStarSearch aStar;
+    private BidirectionalSearch bidirectional;
+    private AlternativeRouteFinder alternatives;
+    private DistanceMatrix matrix;
+    private EdgeCriteria criteria;
+    private int[][] queries;
+    private int[][] paths;
+    private int[][] matrixPorts;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        PortGraph graph = SeaLaneGenerator.generate(edges, GRAPH_SEED);
+        System.out.printf("%nSea lanes: %d nodes, %d edges, fingerprint %016x%n",
+                graph.nodeCount(), graph.edgeCount(), graph.fingerprint());
+        aStar = new AStarSearch(graph);
+        bidirectional = new BidirectionalSearch(graph);
+        alternatives = new AlternativeRouteFinder(graph, RoutingEngine.ALTERNATIVE_ROUTE_COUNT,
+                RoutingEngine.MAX_ROUTE_OVERLAP, RoutingEngine.MAX_DETOUR_RATIO,
+                RoutingEngine.ALTERNATIVE_ROUTE_BUDGET_MILLIS);
+        matrix = new DistanceMatrix(graph);
+        criteria = new EdgeCriteria.Builder(graph, RoutingEngine.CRUISING_SPEED_KNOTS,
+                RoutingEngine.FUEL_KG_PER_NM).build();
+
+        int[] ports = SeaLaneGenerator.ports(graph);
+        Random random = new Random(QUERY_SEED);
+        queries = new int[QUERY_COUNT][2];
+        paths = new int[QUERY_COUNT][];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            queries[i][0] = ports[random.nextInt(ports.length)];
+            queries[i][1] = ports[random.nextInt(ports.length)];
+            paths[i] = aStar.shortestPath(queries[i][0], queries[i][1]);
+        }
+        matrixPorts = new int[2][MATRIX_SIZE];
+        for (int[] side : matrixPorts) {
+            for (int i = 0; i < MATRIX_SIZE; i++) {
+                side[i] = ports[random.nextInt(ports.length)];
+            }
+        }
+    }
+
+    /**
+     * Routes the alternative route finder returns. On large meshes it runs
+     * out of its time budget before finding all alternatives, so its time
+     * per query levels off at the budget and the routes found per query
+     * show the difference.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class FoundRoutes {
+        public long routes;
+        public long queries;
+
+        @Setup(Level.Iteration)
+        public void clear() {
+            routes = 0;
+            queries = 0;
+        }
+    }
+
+    private int nextQuery() {
+        int query = next;
+        next = (next + 1) % QUERY_COUNT;
+        return query;
+    }
+
+    @Benchmark
+    public int[] shortestPathAStar() {
+        int[] query = queries[nextQuery()];
+        return aStar.shortestPath(query[0], query[1]);
+    }
+
+    @Benchmark
+    public int[] shortestPathBidirectional() {
+        int[] query = queries[nextQuery()];
+        return bidirectional.shortestPath(query[0], query[1]);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Route> alternativeRoutes(FoundRoutes found) {
+        int[] query = queries[nextQuery()];
+        List<Route> routes = alternatives.find(query[0], query[1]);
+        found.routes += routes.size();
+        found.queries++;
+        return routes;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int[] distanceMatrix() {
+        return matrix.compute(matrixPorts[0], matrixPorts[1]);
+    }
+
+    @Benchmark
+    public ParetoRoute routeCost() {
+        return criteria.cost(paths[nextQuery()]);
+    }
+}
@@ -0,0 +1,433 @@
+package Shipping;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Seeded synthetic sea-lane networks of realistic shape at any size, from
+ * about a thousand to ten million edges: an ocean mesh of waypoints spread
+ * evenly over the sea, each joined to its nearest neighbours, and ports in
+ * clusters along the coasts, each joined to the nearest ports of its cluster
+ * and to the closest offshore waypoints. No lane crosses land, which is a
+ * coarse model of the continents made of spherical caps. Lanes are two-way
+ * and weighted in nautical miles; only the largest connected part is kept.
+ *
+ * The same size and seed give the same graph on any JVM: all geometry uses
+ * StrictMath, so benchmark results stay comparable across commits and
+ * machines, and {@link PortGraph#fingerprint()} identifies the graph.
+ */
+final class SeaLaneGenerator {
+    private static final int MESH_NEIGHBOURS = 4;
+    private static final int PORT_NEIGHBOURS = 2;
+    private static final int PORT_WAYPOINTS = 2;
+    private static final int PORTS_PER_CLUSTER = 8;
+    private static final double PORT_FRACTION = 0.1;
+    // Directed edges per node, measured on generated graphs, to size the mesh for an edge count.
+    private static final double EDGES_PER_NODE = 5.3;
+    private static final double OCEAN_FRACTION = 0.62;
+    private static final double SAMPLE_STEP_DEGREES = 0.5;
+    private static final double EARTH_RADIUS_NM = 3440.065;
+
+    // Continents as caps: centre latitude, longitude and angular radius in degrees.
+    private static final double[][] LAND = {
+            {-90, 0, 24},                                                   // Antarctica
+            {50, -100, 20}, {64, -125, 14}, {35, -92, 12}, {22, -102, 8},    // North America
+            {72, -40, 10},                                                  // Greenland
+            {-8, -58, 17}, {-30, -63, 11}, {-45, -69, 6},                   // South America
+            {9, 18, 19}, {-14, 26, 13}, {-27, 24, 8}, {25, 8, 11},          // Africa
+            {24, 46, 9},                                                    // Arabia
+            {53, 30, 16}, {57, 62, 20}, {48, 90, 24}, {63, 115, 18},        // Europe and Asia
+            {30, 105, 15}, {21, 79, 9}, {16, 102, 7},                       // China, India, Indochina
+            {-25, 134, 15},                                                 // Australia
+    };
+    private static final double[][] LAND_VECTORS = new double[LAND.length][];
+    private static final double[] LAND_COSINES = new double[LAND.length];
+
+    static {
+        for (int i = 0; i < LAND.length; i++) {
+            LAND_VECTORS[i] = unitVector(LAND[i][0], LAND[i][1]);
+            LAND_COSINES[i] = StrictMath.cos(StrictMath.toRadians(LAND[i][2]));
+        }
+    }
+
+    private final Random random;
+    private double[] latitudes;
+    private double[] longitudes;
+    private double[] xs;
+    private double[] ys;
+    private double[] zs;
+    private int nodeCount;
+    private long[] lanes = new long[1024];
+    private int laneCount;
+
+    private SeaLaneGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /** A network of about edgeCount directed edges, at least a thousand. */
+    static PortGraph generate(int edgeCount, long seed) {
+        if (edgeCount < 1000) {
+            throw new IllegalArgumentException("Sea-lane graphs start at 1,000 edges");
+        }
+        return new SeaLaneGenerator(seed).build(edgeCount);
+    }
+
+    private PortGraph build(int edgeCount) {
+        int targetNodes = (int) Math.ceil(edgeCount / EDGES_PER_NODE);
+        int portCount = (int) Math.ceil(targetNodes * PORT_FRACTION);
+        int waypointCount = targetNodes - portCount;
+        int capacity = (int) (waypointCount / OCEAN_FRACTION) + portCount + 16;
+        latitudes = new double[capacity];
+        longitudes = new double[capacity];
+        xs = new double[capacity];
+        ys = new double[capacity];
+        zs = new double[capacity];
+
+        // Ocean mesh: a Fibonacci lattice, rotated and jittered by the seed, without the points on land.
+        int candidates = (int) (waypointCount / OCEAN_FRACTION);
+        double spacing = StrictMath.sqrt(4 * Math.PI / candidates);
+        double rotation = random.nextDouble() * 360;
+        double goldenAngle = 180 * (3 - StrictMath.sqrt(5));
+        for (int i = 0; i < candidates; i++) {
+            double z = 1 - (2 * i + 1.0) / candidates;
+            double latitude = StrictMath.toDegrees(StrictMath.asin(z)) + jitter(spacing);
+            double longitude = rotation + i * goldenAngle + jitter(spacing) / Math.max(0.05, StrictMath.sqrt(1 - z * z));
+            latitude = Math.max(-89.9, Math.min(89.9, latitude));
+            if (!onLand(unitVector(latitude, longitude))) {
+                addNode(latitude, wrap(longitude));
+            }
+        }
+        int waypoints = nodeCount;
+        SpatialGrid grid = new SpatialGrid(spacing * 2);
+        for (int node = 0; node < waypoints; node++) {
+            grid.add(node);
+        }
+        for (int node = 0; node < waypoints; node++) {
+            for (int neighbour : grid.nearest(node, MESH_NEIGHBOURS)) {
+                addLaneIfAtSea(node, neighbour);
+            }
+        }
+
+        // Ports: clusters round coastal waypoints, each port just offshore of its cluster's centre.
+        int clusterCount = Math.max(1, portCount / PORTS_PER_CLUSTER);
+        int[] coastal = coastalWaypoints(waypoints, spacing);
+        for (int cluster = 0; cluster < clusterCount && coastal.length > 0; cluster++) {
+            int centre = coastal[random.nextInt(coastal.length)];
+            int first = nodeCount;
+            for (int p = 0; p < PORTS_PER_CLUSTER && nodeCount - waypoints < portCount; p++) {
+                for (int attempt = 0; attempt < 8; attempt++) {
+                    double latitude = latitudes[centre] + random.nextGaussian() * StrictMath.toDegrees(spacing) * 0.4;
+                    double longitude = longitudes[centre] + random.nextGaussian() * StrictMath.toDegrees(spacing) * 0.4;
+                    latitude = Math.max(-89.9, Math.min(89.9, latitude));
+                    if (!onLand(unitVector(latitude, longitude))) {
+                        addNode(latitude, wrap(longitude));
+                        break;
+                    }
+                }
+            }
+            for (int port = first; port < nodeCount; port++) {
+                for (int waypoint : grid.nearest(port, PORT_WAYPOINTS)) {
+                    addLaneIfAtSea(port, waypoint);
+                }
+                int[] mates = nearestInRange(port, first, nodeCount, PORT_NEIGHBOURS);
+                for (int mate : mates) {
+                    addLaneIfAtSea(port, mate);
+                }
+            }
+        }
+        return toGraph(waypoints);
+    }
+
+    private double jitter(double spacing) {
+        return (random.nextDouble() - 0.5) * StrictMath.toDegrees(spacing) * 0.6;
+    }
+
+    private void addNode(double latitude, double longitude) {
+        double[] vector = unitVector(latitude, longitude);
+        latitudes[nodeCount] = latitude;
+        longitudes[nodeCount] = longitude;
+        xs[nodeCount] = vector[0];
+        ys[nodeCount] = vector[1];
+        zs[nodeCount] = vector[2];
+        nodeCount++;
+    }
+
+    // Waypoints with land within about two mesh spacings, where ports can cluster.
+    private int[] coastalWaypoints(int waypoints, double spacing) {
+        int[] coastal = new int[waypoints];
+        int count = 0;
+        double reach = StrictMath.toDegrees(spacing) * 2;
+        for (int node = 0; node < waypoints; node++) {
+            for (int direction = 0; direction < 4; direction++) {
+                double latitude = latitudes[node] + (direction == 0 ? reach : direction == 1 ? -reach : 0);
+                double longitude = longitudes[node] + (direction == 2 ? reach : direction == 3 ? -reach : 0);
+                if (onLand(unitVector(Math.max(-89.9, Math.min(89.9, latitude)), longitude))) {
+                    coastal[count++] = node;
+                    break;
+                }
+            }
+        }
+        return Arrays.copyOf(coastal, count);
+    }
+
+    private int[] nearestInRange(int node, int from, int to, int k) {
+        int[] best = new int[k];
+        double[] bestDistances = new double[k];
+        Arrays.fill(best, -1);
+        Arrays.fill(bestDistances, Double.MAX_VALUE);
+        for (int other = from; other < to; other++) {
+            if (other != node) {
+                insertNearest(best, bestDistances, other, chord(node, other));
+            }
+        }
+        return compact(best);
+    }
+
+    private static void insertNearest(int[] best, double[] bestDistances, int node, double distance) {
+        int i = best.length - 1;
+        if (distance >= bestDistances[i]) {
+            return;
+        }
+        while (i > 0 && bestDistances[i - 1] > distance) {
+            best[i] = best[i - 1];
+            bestDistances[i] = bestDistances[i - 1];
+            i--;
+        }
+        best[i] = node;
+        bestDistances[i] = distance;
+    }
+
+    private static int[] compact(int[] nodes) {
+        int count = 0;
+        while (count < nodes.length && nodes[count] >= 0) {
+            count++;
+        }
+        return count == nodes.length ? nodes : Arrays.copyOf(nodes, count);
+    }
+
+    private double chord(int a, int b) {
+        double dx = xs[a] - xs[b];
+        double dy = ys[a] - ys[b];
+        double dz = zs[a] - zs[b];
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    // Keeps a lane if points every half degree along its great circle are all at sea.
+    private void addLaneIfAtSea(int a, int b) {
+        if (a == b) {
+            return;
+        }
+        double angle = 2 * StrictMath.asin(Math.min(1, StrictMath.sqrt(chord(a, b)) / 2));
+        int steps = (int) Math.ceil(StrictMath.toDegrees(angle) / SAMPLE_STEP_DEGREES);
+        double sine = StrictMath.sin(angle);
+        for (int step = 1; step < steps; step++) {
+            double fraction = (double) step / steps;
+            double wa = StrictMath.sin((1 - fraction) * angle) / sine;
+            double wb = StrictMath.sin(fraction * angle) / sine;
+            if (onLand(new double[] {wa * xs[a] + wb * xs[b], wa * ys[a] + wb * ys[b], wa * zs[a] + wb * zs[b]})) {
+                return;
+            }
+        }
+        if (laneCount == lanes.length) {
+            lanes = Arrays.copyOf(lanes, laneCount * 2);
+        }
+        lanes[laneCount++] = (long) Math.min(a, b) << 32 | Math.max(a, b);
+    }
+
+    private static boolean onLand(double[] vector) {
+        for (int i = 0; i < LAND.length; i++) {
+            double[] centre = LAND_VECTORS[i];
+            if (vector[0] * centre[0] + vector[1] * centre[1] + vector[2] * centre[2] > LAND_COSINES[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Deduplicates the lanes, keeps the largest connected part and numbers its nodes in order.
+    private PortGraph toGraph(int waypoints) {
+        long[] unique = Arrays.copyOf(lanes, laneCount);
+        Arrays.sort(unique);
+        int count = 0;
+        for (int i = 0; i < unique.length; i++) {
+            if (i == 0 || unique[i] != unique[i - 1]) {
+                unique[count++] = unique[i];
+            }
+        }
+        int[] parents = new int[nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            parents[node] = node;
+        }
+        for (int i = 0; i < count; i++) {
+            int a = find(parents, (int) (unique[i] >>> 32));
+            int b = find(parents, (int) unique[i]);
+            if (a != b) {
+                parents[Math.max(a, b)] = Math.min(a, b);
+            }
+        }
+        int[] sizes = new int[nodeCount];
+        int largest = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            int root = find(parents, node);
+            if (++sizes[root] > sizes[largest]) {
+                largest = root;
+            }
+        }
+
+        PortGraph.Builder builder = new PortGraph.Builder();
+        int[] ids = new int[nodeCount];
+        int ports = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            ids[node] = -1;
+            if (find(parents, node) != largest) {
+                continue;
+            }
+            if (node < waypoints) {
+                ids[node] = builder.addNode("Waypoint " + node, latitudes[node], longitudes[node]);
+            } else {
+                ids[node] = builder.addNode("Port " + ports, locode(ports), latitudes[node], longitudes[node]);
+                ports++;
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            int u = (int) (unique[i] >>> 32);
+            int v = (int) unique[i];
+            int a = ids[u];
+            int b = ids[v];
+            if (a >= 0) {
+                int weight = Math.max(1, (int) Math.round(distanceNm(u, v)));
+                builder.addEdge(a, b, weight);
+                builder.addEdge(b, a, weight);
+            }
+        }
+        return builder.build();
+    }
+
+    // The ports of a generated graph, in node order: the nodes with a locode.
+    static int[] ports(PortGraph graph) {
+        int[] ports = new int[graph.nodeCount()];
+        int count = 0;
+        for (int node = 0; node < graph.nodeCount(); node++) {
+            if (graph.locode(node) != null) {
+                ports[count++] = node;
+            }
+        }
+        return Arrays.copyOf(ports, count);
+    }
+
+    private static int find(int[] parents, int node) {
+        while (parents[node] != node) {
+            parents[node] = parents[parents[node]];
+            node = parents[node];
+        }
+        return node;
+    }
+
+    // Distinct codes in the user-assigned XA-XZ country range, which no real port uses; null once exhausted.
+    private static String locode(int port) {
+        String symbols = "23456789ABCDEFGHIJKLMNOPQRSTUVWXYZ"; // as UN/LOCODE allows in the location part
+        int base = symbols.length();
+        int perCountry = base * base * base;
+        if (port >= 26 * perCountry) {
+            return null;
+        }
+        int location = port % perCountry;
+        return "X" + (char) ('A' + port / perCountry) + symbols.charAt(location / (base * base))
+                + symbols.charAt(location / base % base) + symbols.charAt(location % base);
+    }
+
+    private double distanceNm(int a, int b) {
+        return 2 * StrictMath.asin(Math.min(1, StrictMath.sqrt(chord(a, b)) / 2)) * EARTH_RADIUS_NM;
+    }
+
+    private static double[] unitVector(double latitude, double longitude) {
+        double phi = StrictMath.toRadians(latitude);
+        double lambda = StrictMath.toRadians(longitude);
+        return new double[] {StrictMath.cos(phi) * StrictMath.cos(lambda), StrictMath.cos(phi) * StrictMath.sin(lambda),
+                StrictMath.sin(phi)};
+    }
+
+    private static double wrap(double longitude) {
+        double wrapped = ((longitude + 180) % 360 + 360) % 360 - 180;
+        return wrapped == 180 ? -180 : wrapped;
+    }
+
+    /**
+     * Nodes bucketed by latitude and longitude for nearest-neighbour queries;
+     * cells are at least the search radius wide, so the 3 x 3 block round a
+     * node holds everything within it.
+     */
+    private final class SpatialGrid {
+        private final int rows;
+        private final int columns;
+        private int[][] cells;
+        private int[] cellSizes;
+        private final double cellDegrees;
+
+        SpatialGrid(double radius) {
+            cellDegrees = Math.min(30, StrictMath.toDegrees(radius));
+            rows = (int) Math.ceil(180 / cellDegrees);
+            columns = (int) Math.ceil(360 / cellDegrees);
+            cells = new int[rows * columns][];
+            cellSizes = new int[rows * columns];
+        }
+
+        private int row(double latitude) {
+            return Math.min(rows - 1, (int) ((latitude + 90) / cellDegrees));
+        }
+
+        private int column(double longitude) {
+            return Math.min(columns - 1, (int) ((longitude + 180) / cellDegrees));
+        }
+
+        void add(int node) {
+            int cell = row(latitudes[node]) * columns + column(longitudes[node]);
+            if (cells[cell] == null) {
+                cells[cell] = new int[4];
+            } else if (cellSizes[cell] == cells[cell].length) {
+                cells[cell] = Arrays.copyOf(cells[cell], cellSizes[cell] * 2);
+            }
+            cells[cell][cellSizes[cell]++] = node;
+        }
+
+        // The k nearest gridded nodes to node, nearest first, without node itself.
+        int[] nearest(int node, int k) {
+            int[] best = new int[k];
+            double[] bestDistances = new double[k];
+            Arrays.fill(best, -1);
+            Arrays.fill(bestDistances, Double.MAX_VALUE);
+            int row = row(latitudes[node]);
+            // Columns narrow towards the poles, so more of them are searched there.
+            double cosine = StrictMath.cos(StrictMath.toRadians(Math.min(89, Math.abs(latitudes[node]) + cellDegrees)));
+            int span = Math.min(columns / 2, (int) Math.ceil(1 / Math.max(cosine, 1e-3)));
+            int column = column(longitudes[node]);
+            for (int r = Math.max(0, row - 1); r <= Math.min(rows - 1, row + 1); r++) {
+                for (int c = column - span; c <= column + span; c++) {
+                    int cell = r * columns + Math.floorMod(c, columns);
+                    for (int i = 0; i < cellSizes[cell]; i++) {
+                        int other = cells[cell][i];
+                        if (other != node) {
+                            insertNearest(best, bestDistances, other, chord(node, other));
+                        }
+                    }
+                }
+            }
+            return compact(best);
+        }
+    }
+
+    // Writes a generated network file for the server and the UI: <edges> <seed> <file.snet>.
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.err.println("Usage: java Shipping.SeaLaneGenerator <edges> <seed> <network.snet>");
+            System.exit(2);
+        }
+        long started = System.nanoTime();
+        PortGraph graph = generate(Integer.parseInt(args[0]), Long.parseLong(args[1]));
+        NetworkFile.write(graph, Paths.get(args[2]));
+        System.out.printf("%d nodes, %d edges, fingerprint %016x, in %.1f s%n", graph.nodeCount(), graph.edgeCount(),
+                graph.fingerprint(), (System.nanoTime() - started) / 1e9);
+    }
+}
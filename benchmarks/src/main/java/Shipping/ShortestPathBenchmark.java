@@ -0,0 +1,78 @@
+package Shipping;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the original HashMap Dijkstra with the CSR/indexed-heap searches
+ * (Dijkstra, A*, bidirectional A*) on lattice graphs of increasing size. Run with -prof gc to see the
+ * per-query allocation difference.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShortestPathBenchmark {
+    private static final int QUERY_COUNT = 256;
+
+    @Param({"1000", "100000", "1000000"})
+    public int nodes;
+
+    private PortGraph graph;
+    private DijkstraSearch search;
+    private AStarSearch aStar;
+    private BidirectionalSearch bidirectional;
+    private LegacyDijkstra legacy;
+    private int[][] queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        graph = BenchmarkGraphs.lattice(nodes, 42);
+        search = new DijkstraSearch(graph);
+        aStar = new AStarSearch(graph);
+        bidirectional = new BidirectionalSearch(graph);
+        legacy = new LegacyDijkstra(graph);
+        queries = BenchmarkGraphs.queries(nodes, QUERY_COUNT, 7);
+    }
+
+    private int[] nextQuery() {
+        int[] query = queries[next];
+        next = (next + 1) % QUERY_COUNT;
+        return query;
+    }
+
+    @Benchmark
+    public List<LegacyDijkstra.Node> legacyHashMap() {
+        int[] query = nextQuery();
+        return legacy.findShortestRoute(legacy.node(query[0]), legacy.node(query[1]));
+    }
+
+    @Benchmark
+    public int[] csrIndexedHeap() {
+        int[] query = nextQuery();
+        return search.shortestPath(query[0], query[1]);
+    }
+
+    @Benchmark
+    public int csrIndexedHeapDistanceOnly() {
+        int[] query = nextQuery();
+        return search.distance(query[0], query[1]);
+    }
+
+    @Benchmark
+    public int[] aStar() {
+        int[] query = nextQuery();
+        return aStar.shortestPath(query[0], query[1]);
+    }
+
+    @Benchmark
+    public int[] bidirectionalAStar() {
+        int[] query = nextQuery();
+        return bidirectional.shortestPath(query[0], query[1]);
+    }
+}
@@ -0,0 +1,56 @@
+package Shipping;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SeaLaneGeneratorTest {
+    // Hash of the node positions, which the fingerprint leaves out.
+    private static long positions(PortGraph graph) {
+        long hash = 0xcbf29ce484222325L;
+        for (int node = 0; node < graph.nodeCount(); node++) {
+            hash = (hash ^ Double.doubleToLongBits(graph.latitude(node))) * 0x100000001b3L;
+            hash = (hash ^ Double.doubleToLongBits(graph.longitude(node))) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    // Benchmark results are only comparable across commits and machines while these stay put.
+    @Test
+    void sizeAndSeedPinTheGraph() {
+        PortGraph small = SeaLaneGenerator.generate(1000, 42);
+        assertEquals(214, small.nodeCount());
+        assertEquals(994, small.edgeCount());
+        assertEquals(0xf4707f1455aa36efL, small.fingerprint());
+        assertEquals(0xb387b0954333feabL, positions(small));
+
+        PortGraph large = SeaLaneGenerator.generate(50_000, 7);
+        assertEquals(10_670, large.nodeCount());
+        assertEquals(50_100, large.edgeCount());
+        assertEquals(0x1c2f4b06ae2a0453L, large.fingerprint());
+        assertEquals(0x0b8e6c91619759f0L, positions(large));
+    }
+
+    @Test
+    void seedsGiveDifferentGraphs() {
+        PortGraph graph = SeaLaneGenerator.generate(1000, 42);
+        assertEquals(graph.fingerprint(), SeaLaneGenerator.generate(1000, 42).fingerprint());
+        assertNotEquals(graph.fingerprint(), SeaLaneGenerator.generate(1000, 43).fingerprint());
+        assertThrows(IllegalArgumentException.class, () -> SeaLaneGenerator.generate(999, 42));
+    }
+
+    @Test
+    void lanesAreTwoWayAndConnected() {
+        PortGraph graph = SeaLaneGenerator.generate(5000, 3);
+        for (int from = 0; from < graph.nodeCount(); from++) {
+            for (int e = graph.offsets[from]; e < graph.offsets[from + 1]; e++) {
+                int to = graph.targets[e];
+                assertEquals(graph.weights.get(e), graph.weight(to, from), "lane " + from + " -> " + to);
+            }
+        }
+        DijkstraSearch search = new DijkstraSearch(graph);
+        for (int node = 1; node < graph.nodeCount(); node += 97) {
+            assertNotEquals(0, search.shortestPath(0, node).length, "node " + node + " unreachable");
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package Shipping;
+
+/**
+ * A* over a {@link PortGraph}, guided by the {@link GreatCircleHeuristic}
+ * towards the target so that far fewer nodes are settled than by Dijkstra.
+ */
+final class AStarSearch implements RouteSearch {
+    private final PortGraph graph;
+    private final GreatCircleHeuristic heuristic;
+
+    AStarSearch(PortGraph graph) {
+        this.graph = graph;
+        this.heuristic = graph.heuristic();
+    }
+
+    @Override
+    public int[] shortestPath(int source, int target) {
+        SearchContext context = SearchContext.current(graph.nodeCount());
+        run(context, source, target);
+        return context.path(target);
+    }
+
+    @Override
+    public int distance(int source, int target) {
+        SearchContext context = SearchContext.current(graph.nodeCount());
+        run(context, source, target);
+        return context.distance(target);
+    }
+
+    private void run(SearchContext context, int source, int target) {
+        int[] offsets = graph.offsets;
+        int[] targets = graph.targets;
+        EdgeWeights weights = graph.weights;
+        IndexedMinHeap heap = context.heap;
+
+        context.begin();
+        context.label(source, 0, -1);
+        heap.insertOrDecrease(source, heuristic.lowerBound(source, target));
+        while (!heap.isEmpty()) {
+            int current = heap.poll();
+            if (current == target) {
+                break;
+            }
+            int distance = context.distance(current);
+            context.relaxedEdges += offsets[current + 1] - offsets[current];
+            for (int e = offsets[current]; e < offsets[current + 1]; e++) {
+                int neighbor = targets[e];
+                int newDist = distance + weights.get(e);
+                if (newDist < context.distance(neighbor)) {
+                    context.label(neighbor, newDist, current);
+                    heap.insertOrDecrease(neighbor, newDist + heuristic.lowerBound(neighbor, target));
+                }
+            }
+        }
+    }
+}
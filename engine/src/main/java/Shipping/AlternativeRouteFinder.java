@@ -0,0 +1,296 @@
+package Shipping;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Finds up to k distinct alternatives to the shortest route for contingency
+ * planning, using Yen's k-shortest loopless paths. The spur searches of each
+ * round are independent and run in parallel on a ForkJoinPool.
+ *
+ * A path is only accepted if it is at most maxDetourRatio times the shortest
+ * distance and shares at most maxOverlap of its length with every route
+ * accepted before it. The search stops after timeBudgetMillis, returning the
+ * routes found so far.
+ */
+final class AlternativeRouteFinder {
+    private final PortGraph graph;
+    private final int k;
+    private final double maxOverlap;
+    private final double maxDetourRatio;
+    private final long timeBudgetMillis;
+    private final ForkJoinPool pool;
+
+    AlternativeRouteFinder(PortGraph graph, int k, double maxOverlap, double maxDetourRatio, long timeBudgetMillis) {
+        this(graph, k, maxOverlap, maxDetourRatio, timeBudgetMillis, ForkJoinPool.commonPool());
+    }
+
+    AlternativeRouteFinder(PortGraph graph, int k, double maxOverlap, double maxDetourRatio,
+                           long timeBudgetMillis, ForkJoinPool pool) {
+        if (k < 1 || maxOverlap < 0 || maxOverlap > 1 || maxDetourRatio < 1) {
+            throw new IllegalArgumentException("Invalid alternative route limits");
+        }
+        this.graph = graph;
+        this.k = k;
+        this.maxOverlap = maxOverlap;
+        this.maxDetourRatio = maxDetourRatio;
+        this.timeBudgetMillis = timeBudgetMillis;
+        this.pool = pool;
+    }
+
+    // Returns the shortest route followed by up to k alternatives, or an empty list if unreachable.
+    List<Route> find(int source, int target) {
+        long deadline = System.nanoTime() + timeBudgetMillis * 1_000_000L;
+        List<Route> accepted = new ArrayList<>();
+        List<int[]> acceptedEdges = new ArrayList<>();
+
+        Route shortest = new SpurSearch(graph, source, target, deadline, Integer.MAX_VALUE)
+                .run(new int[0], new int[0], 0);
+        if (shortest.isEmpty()) {
+            return accepted;
+        }
+        long distanceLimit = (long) Math.floor(shortest.distance * maxDetourRatio);
+
+        // Every loopless path popped so far, in order; Yen blocks edges against all of them.
+        List<Route> generated = new ArrayList<>();
+        List<Route> candidates = new ArrayList<>();
+        LongMinHeap candidateQueue = new LongMinHeap(16);
+        Set<PathKey> seen = new HashSet<>();
+        seen.add(new PathKey(shortest.nodes));
+
+        Route current = shortest;
+        while (current != null) {
+            generated.add(current);
+            if (accept(current, shortest, accepted, acceptedEdges) && accepted.size() == k + 1) {
+                break;
+            }
+            if (System.nanoTime() > deadline) {
+                break;
+            }
+            for (Route spur : spurRoutes(current, generated, source, target, deadline, distanceLimit)) {
+                if (seen.add(new PathKey(spur.nodes))) {
+                    candidateQueue.add(LongMinHeap.pack(spur.distance, candidates.size()));
+                    candidates.add(spur);
+                }
+            }
+            current = candidateQueue.isEmpty() ? null : candidates.get(LongMinHeap.node(candidateQueue.poll()));
+        }
+        return accepted;
+    }
+
+    private boolean accept(Route route, Route shortest, List<Route> accepted, List<int[]> acceptedEdges) {
+        if (route.distance > shortest.distance * maxDetourRatio) {
+            return false;
+        }
+        int[] edges = edgeSlots(route.nodes);
+        for (int[] other : acceptedEdges) {
+            long shared = 0;
+            for (int edge : edges) {
+                if (Arrays.binarySearch(other, edge) >= 0) {
+                    shared += graph.weights.get(edge);
+                }
+            }
+            if (route.distance > 0 && shared > maxOverlap * route.distance) {
+                return false;
+            }
+        }
+        Arrays.sort(edges);
+        accepted.add(route);
+        acceptedEdges.add(edges);
+        return true;
+    }
+
+    // One Yen round: a spur search from every node of the previous path, run in parallel.
+    private List<Route> spurRoutes(Route previous, List<Route> generated, int source, int target,
+                                   long deadline, long distanceLimit) {
+        int[] path = previous.nodes;
+        List<Callable<Route>> tasks = new ArrayList<>(path.length - 1);
+        Thread caller = Thread.currentThread();
+        long[] poolWork = new long[3];
+        int rootDistance = 0;
+        for (int i = 0; i < path.length - 1; i++) {
+            int[] root = Arrays.copyOf(path, i + 1);
+            int[] bannedEdges = bannedEdges(root, generated);
+            int distanceSoFar = rootDistance;
+            long spurLimit = distanceLimit - distanceSoFar;
+            tasks.add(() -> {
+                SpurSearch search = new SpurSearch(graph, root[root.length - 1], target, deadline, spurLimit);
+                if (Thread.currentThread() == caller) {
+                    return search.run(root, bannedEdges, distanceSoFar);
+                }
+                // Work on pool threads is counted for the caller, whose query it is.
+                long[] before = new long[3];
+                long[] after = new long[3];
+                SearchContext.work(before);
+                Route route = search.run(root, bannedEdges, distanceSoFar);
+                SearchContext.work(after);
+                synchronized (poolWork) {
+                    for (int j = 0; j < poolWork.length; j++) {
+                        poolWork[j] += after[j] - before[j];
+                    }
+                }
+                return route;
+            });
+            rootDistance += graph.weight(path[i], path[i + 1]);
+        }
+
+        List<Route> routes = new ArrayList<>();
+        for (Future<Route> future : pool.invokeAll(tasks)) {
+            try {
+                Route route = future.get();
+                if (!route.isEmpty()) {
+                    routes.add(route);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Spur search failed", e.getCause());
+            }
+        }
+        synchronized (poolWork) {
+            SearchContext.current(graph.nodeCount()).addWork(poolWork[0], poolWork[1], poolWork[2]);
+        }
+        return routes;
+    }
+
+    // Edges leaving the spur node along any generated path that shares this root.
+    private int[] bannedEdges(int[] root, List<Route> generated) {
+        int spur = root[root.length - 1];
+        int[] banned = new int[generated.size()];
+        int count = 0;
+        for (Route route : generated) {
+            int[] nodes = route.nodes;
+            if (nodes.length > root.length && Arrays.equals(nodes, 0, root.length, root, 0, root.length)) {
+                banned[count++] = graph.edgeIndex(spur, nodes[root.length]);
+            }
+        }
+        return Arrays.copyOf(banned, count);
+    }
+
+    private int[] edgeSlots(int[] nodes) {
+        int[] edges = new int[Math.max(0, nodes.length - 1)];
+        for (int i = 1; i < nodes.length; i++) {
+            edges[i - 1] = graph.edgeIndex(nodes[i - 1], nodes[i]);
+        }
+        return edges;
+    }
+
+    /**
+     * A* from the spur node to the target that avoids the root path nodes and
+     * the banned edges, and gives up beyond the distance limit or the deadline.
+     */
+    private static final class SpurSearch {
+        private static final ThreadLocal<int[]> BANNED_NODES = ThreadLocal.withInitial(() -> new int[0]);
+        private static final ThreadLocal<int[]> BAN_STAMP = ThreadLocal.withInitial(() -> new int[1]);
+        private static final int DEADLINE_CHECK_INTERVAL = 1024;
+
+        private final PortGraph graph;
+        private final GreatCircleHeuristic heuristic;
+        private final int spur;
+        private final int target;
+        private final long deadline;
+        private final long distanceLimit;
+
+        SpurSearch(PortGraph graph, int spur, int target, long deadline, long distanceLimit) {
+            this.graph = graph;
+            this.heuristic = graph.heuristic();
+            this.spur = spur;
+            this.target = target;
+            this.deadline = deadline;
+            this.distanceLimit = distanceLimit;
+        }
+
+        // Returns root + spur path as one route, or Route.NONE.
+        Route run(int[] root, int[] bannedEdges, int rootDistance) {
+            int[] bannedNodes = BANNED_NODES.get();
+            if (bannedNodes.length < graph.nodeCount()) {
+                bannedNodes = new int[graph.nodeCount()];
+                BANNED_NODES.set(bannedNodes);
+            }
+            int[] stampHolder = BAN_STAMP.get();
+            int stamp = ++stampHolder[0];
+            for (int i = 0; i < root.length - 1; i++) {
+                bannedNodes[root[i]] = stamp;
+            }
+
+            SearchContext context = SearchContext.current(graph.nodeCount());
+            IndexedMinHeap heap = context.heap;
+            context.begin();
+            context.label(spur, 0, -1);
+            heap.insertOrDecrease(spur, heuristic.lowerBound(spur, target));
+            int settled = 0;
+            while (!heap.isEmpty()) {
+                if (heap.peekKey() > distanceLimit) {
+                    return Route.NONE;
+                }
+                if (++settled % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() > deadline) {
+                    return Route.NONE;
+                }
+                int current = heap.poll();
+                if (current == target) {
+                    return join(root, context.path(target), rootDistance + context.distance(target));
+                }
+                int distance = context.distance(current);
+                context.relaxedEdges += graph.offsets[current + 1] - graph.offsets[current];
+                for (int e = graph.offsets[current]; e < graph.offsets[current + 1]; e++) {
+                    int neighbor = graph.targets[e];
+                    if (bannedNodes[neighbor] == stamp || (current == spur && contains(bannedEdges, e))) {
+                        continue;
+                    }
+                    int newDist = distance + graph.weights.get(e);
+                    if (newDist < context.distance(neighbor)) {
+                        context.label(neighbor, newDist, current);
+                        heap.insertOrDecrease(neighbor, newDist + heuristic.lowerBound(neighbor, target));
+                    }
+                }
+            }
+            return Route.NONE;
+        }
+
+        private static boolean contains(int[] values, int value) {
+            for (int v : values) {
+                if (v == value) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static Route join(int[] root, int[] spurPath, int distance) {
+            if (root.length == 0) {
+                return new Route(spurPath, distance);
+            }
+            int[] nodes = Arrays.copyOf(root, root.length - 1 + spurPath.length);
+            System.arraycopy(spurPath, 0, nodes, root.length - 1, spurPath.length);
+            return new Route(nodes, distance);
+        }
+    }
+
+    private static final class PathKey {
+        private final int[] nodes;
+        private final int hash;
+
+        PathKey(int[] nodes) {
+            this.nodes = nodes;
+            this.hash = Arrays.hashCode(nodes);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof PathKey && Arrays.equals(nodes, ((PathKey) other).nodes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
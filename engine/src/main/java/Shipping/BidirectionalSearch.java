@@ -0,0 +1,109 @@
+package Shipping;
+
+import java.util.Arrays;
+
+/**
+ * Bidirectional A* that grows a forward search from the source and a backward
+ * search over the reversed graph from the target until they meet.
+ *
+ * Both sides use the average potential p(v) = (h_t(v) - h_s(v)) / 2, which is
+ * consistent for both directions. Heap keys are doubled to stay integral, and
+ * the search stops once the two smallest keys sum to at least twice the best
+ * meeting distance found so far.
+ */
+final class BidirectionalSearch implements RouteSearch {
+    private static final int[] NO_PATH = new int[0];
+
+    private final PortGraph graph;
+    private final PortGraph reverse;
+    private final GreatCircleHeuristic heuristic;
+    private int meetingNode;
+
+    BidirectionalSearch(PortGraph graph) {
+        this.graph = graph;
+        this.reverse = graph.reverse();
+        this.heuristic = graph.heuristic();
+    }
+
+    @Override
+    public int[] shortestPath(int source, int target) {
+        SearchContext forward = SearchContext.current(graph.nodeCount());
+        SearchContext backward = SearchContext.currentBackward(graph.nodeCount());
+        if (run(forward, backward, source, target) == SearchContext.UNREACHABLE) {
+            return NO_PATH;
+        }
+        int[] head = forward.path(meetingNode);
+        int tailLength = 0;
+        for (int at = backward.previous(meetingNode); at != -1; at = backward.previous(at)) {
+            tailLength++;
+        }
+        int[] path = Arrays.copyOf(head, head.length + tailLength);
+        int i = head.length;
+        for (int at = backward.previous(meetingNode); at != -1; at = backward.previous(at)) {
+            path[i++] = at;
+        }
+        return path;
+    }
+
+    @Override
+    public int distance(int source, int target) {
+        return run(SearchContext.current(graph.nodeCount()),
+                SearchContext.currentBackward(graph.nodeCount()), source, target);
+    }
+
+    private int run(SearchContext forward, SearchContext backward, int source, int target) {
+        forward.begin();
+        backward.begin();
+        meetingNode = -1;
+        if (source == target) {
+            forward.label(source, 0, -1);
+            backward.label(target, 0, -1);
+            meetingNode = source;
+            return 0;
+        }
+
+        IndexedMinHeap forwardHeap = forward.heap;
+        IndexedMinHeap backwardHeap = backward.heap;
+        forward.label(source, 0, -1);
+        forwardHeap.insertOrDecrease(source, potential(source, source, target));
+        backward.label(target, 0, -1);
+        backwardHeap.insertOrDecrease(target, -potential(target, source, target));
+
+        long best = SearchContext.UNREACHABLE;
+        while (!forwardHeap.isEmpty() && !backwardHeap.isEmpty()) {
+            if ((long) forwardHeap.peekKey() + backwardHeap.peekKey() >= 2 * best) {
+                break;
+            }
+            boolean forwardTurn = forwardHeap.size() <= backwardHeap.size();
+            SearchContext side = forwardTurn ? forward : backward;
+            SearchContext other = forwardTurn ? backward : forward;
+            PortGraph sideGraph = forwardTurn ? graph : reverse;
+            int sign = forwardTurn ? 1 : -1;
+
+            int current = side.heap.poll();
+            int distance = side.distance(current);
+            side.relaxedEdges += sideGraph.offsets[current + 1] - sideGraph.offsets[current];
+            for (int e = sideGraph.offsets[current]; e < sideGraph.offsets[current + 1]; e++) {
+                int neighbor = sideGraph.targets[e];
+                int newDist = distance + sideGraph.weights.get(e);
+                if (newDist < side.distance(neighbor)) {
+                    side.label(neighbor, newDist, current);
+                    side.heap.insertOrDecrease(neighbor, 2 * newDist + sign * potential(neighbor, source, target));
+                }
+                if (other.reached(neighbor)) {
+                    long through = (long) side.distance(neighbor) + other.distance(neighbor);
+                    if (through < best) {
+                        best = through;
+                        meetingNode = neighbor;
+                    }
+                }
+            }
+        }
+        return (int) best;
+    }
+
+    // Twice the average potential, h_t(v) - h_s(v).
+    private int potential(int node, int source, int target) {
+        return heuristic.lowerBound(node, target) - heuristic.lowerBound(node, source);
+    }
+}
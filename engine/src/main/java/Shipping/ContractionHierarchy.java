@@ -0,0 +1,173 @@
+package Shipping;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A contraction hierarchy over a {@link PortGraph}, produced offline by
+ * {@link ContractionHierarchyBuilder} and queried by
+ * {@link ContractionHierarchySearch}.
+ *
+ * Every original edge and shortcut is stored once, at its lower-ranked
+ * endpoint: the up graph holds u -> v with rank(v) > rank(u), sorted by v;
+ * the down graph holds x -> u with rank(x) > rank(u) at u, sorted by x. A
+ * shortcut remembers the contracted middle node it bypasses, or NO_MIDDLE.
+ */
+final class ContractionHierarchy {
+    static final int NO_MIDDLE = -1;
+
+    private static final int MAGIC = 0x53524348; // "SRCH"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+
+    final int[] ranks;
+    final int[] upOffsets;
+    final int[] upTargets;
+    final int[] upWeights;
+    final int[] upMiddles;
+    final int[] downOffsets;
+    final int[] downSources;
+    final int[] downWeights;
+    final int[] downMiddles;
+    final long graphFingerprint;
+
+    ContractionHierarchy(int[] ranks,
+                         int[] upOffsets, int[] upTargets, int[] upWeights, int[] upMiddles,
+                         int[] downOffsets, int[] downSources, int[] downWeights, int[] downMiddles,
+                         long graphFingerprint) {
+        this.ranks = ranks;
+        this.upOffsets = upOffsets;
+        this.upTargets = upTargets;
+        this.upWeights = upWeights;
+        this.upMiddles = upMiddles;
+        this.downOffsets = downOffsets;
+        this.downSources = downSources;
+        this.downWeights = downWeights;
+        this.downMiddles = downMiddles;
+        this.graphFingerprint = graphFingerprint;
+    }
+
+    int nodeCount() {
+        return ranks.length;
+    }
+
+    int shortcutCount() {
+        int count = 0;
+        for (int middle : upMiddles) {
+            if (middle != NO_MIDDLE) {
+                count++;
+            }
+        }
+        for (int middle : downMiddles) {
+            if (middle != NO_MIDDLE) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Returns the middle node of the hierarchy edge from -> to, NO_MIDDLE for an original edge.
+    int middle(int from, int to) {
+        if (ranks[from] < ranks[to]) {
+            int index = Arrays.binarySearch(upTargets, upOffsets[from], upOffsets[from + 1], to);
+            return upMiddles[index];
+        }
+        int index = Arrays.binarySearch(downSources, downOffsets[to], downOffsets[to + 1], from);
+        return downMiddles[index];
+    }
+
+    void write(Path file) throws IOException {
+        long size = HEADER_BYTES + 4L * ranks.length
+                + 4L * (upOffsets.length + 3 * upTargets.length)
+                + 4L * (downOffsets.length + 3 * downSources.length);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(graphFingerprint);
+            buffer.putInt(ranks.length).putInt(upTargets.length).putInt(downSources.length).putInt(0);
+            IntBuffer ints = buffer.asIntBuffer();
+            ints.put(ranks);
+            ints.put(upOffsets).put(upTargets).put(upWeights).put(upMiddles);
+            ints.put(downOffsets).put(downSources).put(downWeights).put(downMiddles);
+            buffer.force();
+        }
+    }
+
+    static ContractionHierarchy read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(file + " is too large for a single mapping");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC) {
+                throw new IOException(file + " is not a contraction hierarchy file");
+            }
+            int version = buffer.getInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException(file + " has unsupported contraction hierarchy format version " + version);
+            }
+            long fingerprint = buffer.getLong();
+            int nodeCount = buffer.getInt();
+            int upCount = buffer.getInt();
+            int downCount = buffer.getInt();
+            buffer.getInt(); // reserved
+            long expectedSize = HEADER_BYTES + 4L * nodeCount
+                    + 4L * (nodeCount + 1 + 3L * upCount) + 4L * (nodeCount + 1 + 3L * downCount);
+            if (nodeCount < 0 || upCount < 0 || downCount < 0 || channel.size() != expectedSize) {
+                throw new IOException(file + " is truncated or corrupt");
+            }
+
+            IntBuffer ints = buffer.asIntBuffer();
+            int[] ranks = take(ints, nodeCount);
+            int[] upOffsets = take(ints, nodeCount + 1);
+            int[] upTargets = take(ints, upCount);
+            int[] upWeights = take(ints, upCount);
+            int[] upMiddles = take(ints, upCount);
+            int[] downOffsets = take(ints, nodeCount + 1);
+            int[] downSources = take(ints, downCount);
+            int[] downWeights = take(ints, downCount);
+            int[] downMiddles = take(ints, downCount);
+
+            NetworkFile.checkNodes(file, "rank", ranks, nodeCount);
+            boolean[] ranked = new boolean[nodeCount];
+            for (int rank : ranks) {
+                if (ranked[rank]) {
+                    throw new IOException(file + " is corrupt: rank " + rank + " is given twice");
+                }
+                ranked[rank] = true;
+            }
+            NetworkFile.checkOffsets(file, "up edge", upOffsets, upCount);
+            NetworkFile.checkOffsets(file, "down edge", downOffsets, downCount);
+            NetworkFile.checkNodes(file, "up edge target", upTargets, nodeCount);
+            NetworkFile.checkNodes(file, "down edge source", downSources, nodeCount);
+            NetworkFile.checkNonNegative(file, "up edge weight", upWeights);
+            NetworkFile.checkNonNegative(file, "down edge weight", downWeights);
+            checkMiddles(file, upMiddles, nodeCount);
+            checkMiddles(file, downMiddles, nodeCount);
+            return new ContractionHierarchy(ranks, upOffsets, upTargets, upWeights, upMiddles,
+                    downOffsets, downSources, downWeights, downMiddles, fingerprint);
+        }
+    }
+
+    private static void checkMiddles(Path file, int[] middles, int nodeCount) throws IOException {
+        for (int i = 0; i < middles.length; i++) {
+            if (middles[i] != NO_MIDDLE && (middles[i] < 0 || middles[i] >= nodeCount)) {
+                throw new IOException(file + " is corrupt: shortcut " + i + " bypasses node " + middles[i]);
+            }
+        }
+    }
+
+    private static int[] take(IntBuffer ints, int length) {
+        int[] values = new int[length];
+        ints.get(values);
+        return values;
+    }
+}
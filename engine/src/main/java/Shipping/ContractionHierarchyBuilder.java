@@ -0,0 +1,292 @@
+package Shipping;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * Offline preprocessing that contracts the nodes of a {@link PortGraph} one by
+ * one, least important first, adding a shortcut u -> w whenever removing v
+ * would break the only shortest path u -> v -> w. Importance is the edge
+ * difference plus the number of already contracted neighbours and the
+ * hierarchy depth, updated lazily.
+ *
+ * Run as a tool to write the hierarchy of the demo network to disk:
+ * java Shipping.ContractionHierarchyBuilder demo.ch
+ */
+final class ContractionHierarchyBuilder {
+    private static final int SIMULATION_SETTLE_LIMIT = 16;
+    private static final int CONTRACTION_SETTLE_LIMIT = 1000;
+    private static final int EDGE_DIFFERENCE_WEIGHT = 2;
+    private static final int DELETED_NEIGHBORS_WEIGHT = 1;
+    private static final int LEVEL_WEIGHT = 1;
+
+    private final PortGraph graph;
+    private final int nodeCount;
+
+    // Live adjacency of the remaining graph, as (neighbor, weight, middle) triples.
+    private final int[][] out;
+    private final int[][] in;
+    private final int[] outSize;
+    private final int[] inSize;
+
+    private final int[] deletedNeighbors;
+    private final int[] levels;
+    private final SearchContext witness;
+    private final int[] targetMarks;
+    private int targetMark;
+    private final int[] touchMarks;
+
+    ContractionHierarchyBuilder(PortGraph graph) {
+        this.graph = graph;
+        this.nodeCount = graph.nodeCount();
+        this.out = new int[nodeCount][];
+        this.in = new int[nodeCount][];
+        this.outSize = new int[nodeCount];
+        this.inSize = new int[nodeCount];
+        this.deletedNeighbors = new int[nodeCount];
+        this.levels = new int[nodeCount];
+        this.witness = new SearchContext(nodeCount);
+        this.targetMarks = new int[nodeCount];
+        this.touchMarks = new int[nodeCount];
+
+        for (int u = 0; u < nodeCount; u++) {
+            out[u] = new int[3 * Math.max(2, graph.degree(u))];
+        }
+        PortGraph reverse = graph.reverse();
+        for (int u = 0; u < nodeCount; u++) {
+            in[u] = new int[3 * Math.max(2, reverse.degree(u))];
+        }
+        for (int u = 0; u < nodeCount; u++) {
+            for (int e = graph.offsets[u]; e < graph.offsets[u + 1]; e++) {
+                int v = graph.targets[e];
+                if (v != u) {
+                    addOrImprove(u, v, graph.weights.get(e), ContractionHierarchy.NO_MIDDLE);
+                }
+            }
+        }
+    }
+
+    ContractionHierarchy build() {
+        int[] ranks = new int[nodeCount];
+        IndexedMinHeap queue = new IndexedMinHeap(nodeCount);
+        for (int v = 0; v < nodeCount; v++) {
+            queue.insertOrDecrease(v, priority(v));
+        }
+
+        int rank = 0;
+        while (!queue.isEmpty()) {
+            int v = queue.poll();
+            int current = priority(v);
+            if (!queue.isEmpty() && current > queue.peekKey()) {
+                queue.insertOrDecrease(v, current); // stale priority, try the new minimum first
+                continue;
+            }
+            ranks[v] = rank++;
+            contract(v, false);
+            disconnect(v);
+
+            for (int i = 0; i < outSize[v]; i++) {
+                touchNeighbor(queue, v, out[v][3 * i]);
+            }
+            for (int i = 0; i < inSize[v]; i++) {
+                touchNeighbor(queue, v, in[v][3 * i]);
+            }
+        }
+
+        // What is left at each node after its contraction are exactly its edges to higher ranks.
+        int[] upOffsets = new int[nodeCount + 1];
+        int[] downOffsets = new int[nodeCount + 1];
+        for (int v = 0; v < nodeCount; v++) {
+            upOffsets[v + 1] = upOffsets[v] + outSize[v];
+            downOffsets[v + 1] = downOffsets[v] + inSize[v];
+        }
+        int[] upTargets = new int[upOffsets[nodeCount]];
+        int[] upWeights = new int[upTargets.length];
+        int[] upMiddles = new int[upTargets.length];
+        int[] downSources = new int[downOffsets[nodeCount]];
+        int[] downWeights = new int[downSources.length];
+        int[] downMiddles = new int[downSources.length];
+        for (int v = 0; v < nodeCount; v++) {
+            copySorted(out[v], outSize[v], upOffsets[v], upTargets, upWeights, upMiddles);
+            copySorted(in[v], inSize[v], downOffsets[v], downSources, downWeights, downMiddles);
+            out[v] = null;
+            in[v] = null;
+        }
+        return new ContractionHierarchy(ranks, upOffsets, upTargets, upWeights, upMiddles,
+                downOffsets, downSources, downWeights, downMiddles, graph.fingerprint());
+    }
+
+    // Updates a neighbour of the node just contracted, once even if it is linked both ways.
+    private void touchNeighbor(IndexedMinHeap queue, int contracted, int neighbor) {
+        if (touchMarks[neighbor] == contracted + 1) {
+            return;
+        }
+        touchMarks[neighbor] = contracted + 1;
+        deletedNeighbors[neighbor]++;
+        levels[neighbor] = Math.max(levels[neighbor], levels[contracted] + 1);
+        queue.update(neighbor, priority(neighbor));
+    }
+
+    private int priority(int v) {
+        int shortcuts = contract(v, true);
+        int edgeDifference = shortcuts - inSize[v] - outSize[v];
+        // Weighted so sparse shortcuts come first while contraction still spreads evenly over the graph.
+        return EDGE_DIFFERENCE_WEIGHT * edgeDifference + DELETED_NEIGHBORS_WEIGHT * deletedNeighbors[v]
+                + LEVEL_WEIGHT * levels[v];
+    }
+
+    // Counts, and unless simulating adds, the shortcuts needed to bypass v.
+    private int contract(int v, boolean simulate) {
+        int settleLimit = simulate ? SIMULATION_SETTLE_LIMIT : CONTRACTION_SETTLE_LIMIT;
+        int maxOut = 0;
+        targetMark++;
+        for (int j = 0; j < outSize[v]; j++) {
+            maxOut = Math.max(maxOut, out[v][3 * j + 1]);
+            targetMarks[out[v][3 * j]] = targetMark;
+        }
+
+        int shortcuts = 0;
+        for (int i = 0; i < inSize[v]; i++) {
+            int u = in[v][3 * i];
+            int toV = in[v][3 * i + 1];
+            witnessSearch(u, v, toV + maxOut, settleLimit, outSize[v]);
+            for (int j = 0; j < outSize[v]; j++) {
+                int w = out[v][3 * j];
+                if (w == u) {
+                    continue;
+                }
+                int via = toV + out[v][3 * j + 1];
+                if (witness.distance(w) > via) {
+                    shortcuts++;
+                    if (!simulate) {
+                        addOrImprove(u, w, via, v);
+                    }
+                }
+            }
+        }
+        return shortcuts;
+    }
+
+    // Bounded Dijkstra from source in the remaining graph, never passing through the excluded node.
+    // It stops early once every marked target is settled.
+    private void witnessSearch(int source, int excluded, int maxDistance, int settleLimit, int targets) {
+        IndexedMinHeap heap = witness.heap;
+        witness.begin();
+        witness.label(source, 0, -1);
+        heap.insertOrDecrease(source, 0);
+        int settled = 0;
+        while (!heap.isEmpty() && settled++ < settleLimit) {
+            int distance = heap.peekKey();
+            if (distance > maxDistance) {
+                break;
+            }
+            int current = heap.poll();
+            if (targetMarks[current] == targetMark && --targets == 0) {
+                break;
+            }
+            int[] edges = out[current];
+            for (int j = 0; j < outSize[current]; j++) {
+                int neighbor = edges[3 * j];
+                if (neighbor == excluded) {
+                    continue;
+                }
+                int newDist = distance + edges[3 * j + 1];
+                if (newDist < witness.distance(neighbor)) {
+                    witness.label(neighbor, newDist, current);
+                    heap.insertOrDecrease(neighbor, newDist);
+                }
+            }
+        }
+    }
+
+    // Removes v from the adjacency of its remaining neighbours.
+    private void disconnect(int v) {
+        for (int i = 0; i < inSize[v]; i++) {
+            int u = in[v][3 * i];
+            outSize[u] = removeTriple(out[u], outSize[u], v);
+        }
+        for (int j = 0; j < outSize[v]; j++) {
+            int w = out[v][3 * j];
+            inSize[w] = removeTriple(in[w], inSize[w], v);
+        }
+    }
+
+    private void addOrImprove(int from, int to, int weight, int middle) {
+        int[] edges = out[from];
+        for (int j = 0; j < outSize[from]; j++) {
+            if (edges[3 * j] == to) {
+                if (weight < edges[3 * j + 1]) {
+                    edges[3 * j + 1] = weight;
+                    edges[3 * j + 2] = middle;
+                    int[] reverseEdges = in[to];
+                    for (int i = 0; i < inSize[to]; i++) {
+                        if (reverseEdges[3 * i] == from) {
+                            reverseEdges[3 * i + 1] = weight;
+                            reverseEdges[3 * i + 2] = middle;
+                            break;
+                        }
+                    }
+                }
+                return;
+            }
+        }
+        out[from] = appendTriple(out[from], outSize[from]++, to, weight, middle);
+        in[to] = appendTriple(in[to], inSize[to]++, from, weight, middle);
+    }
+
+    private static int[] appendTriple(int[] edges, int size, int neighbor, int weight, int middle) {
+        if (3 * size == edges.length) {
+            edges = Arrays.copyOf(edges, edges.length * 2);
+        }
+        edges[3 * size] = neighbor;
+        edges[3 * size + 1] = weight;
+        edges[3 * size + 2] = middle;
+        return edges;
+    }
+
+    private static int removeTriple(int[] edges, int size, int neighbor) {
+        for (int j = 0; j < size; j++) {
+            if (edges[3 * j] == neighbor) {
+                size--;
+                edges[3 * j] = edges[3 * size];
+                edges[3 * j + 1] = edges[3 * size + 1];
+                edges[3 * j + 2] = edges[3 * size + 2];
+                return size;
+            }
+        }
+        return size;
+    }
+
+    private static void copySorted(int[] edges, int size, int offset, int[] neighbors, int[] weights, int[] middles) {
+        long[] keys = new long[size];
+        for (int j = 0; j < size; j++) {
+            keys[j] = ((long) edges[3 * j] << 32) | j;
+        }
+        Arrays.sort(keys);
+        for (int j = 0; j < size; j++) {
+            int slot = (int) keys[j];
+            neighbors[offset + j] = edges[3 * slot];
+            weights[offset + j] = edges[3 * slot + 1];
+            middles[offset + j] = edges[3 * slot + 2];
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: java Shipping.ContractionHierarchyBuilder [network.snet] <output.ch>");
+            System.exit(2);
+        }
+        PortGraph graph = args.length == 2
+                ? NetworkFile.read(Paths.get(args[0]))
+                : SampleNetwork.graph();
+        long started = System.nanoTime();
+        ContractionHierarchy hierarchy = new ContractionHierarchyBuilder(graph).build();
+        long elapsed = System.nanoTime() - started;
+        Path output = Paths.get(args[args.length - 1]);
+        hierarchy.write(output);
+        System.out.printf("Contracted %d nodes, %d edges, %d shortcuts in %.1f ms -> %s%n",
+                graph.nodeCount(), graph.edgeCount(), hierarchy.shortcutCount(), elapsed / 1e6, output);
+    }
+}
@@ -0,0 +1,140 @@
+package Shipping;
+
+import java.util.Arrays;
+
+/**
+ * Point-to-point queries on a {@link ContractionHierarchy}: a forward search
+ * from the source over upward edges and a backward search from the target
+ * over downward edges, each pruned by stall-on-demand. Shortcuts on the
+ * resulting path are unpacked back into original graph nodes.
+ */
+final class ContractionHierarchySearch implements RouteSearch {
+    private static final int[] NO_PATH = new int[0];
+
+    private final ContractionHierarchy hierarchy;
+    private int meetingNode;
+
+    ContractionHierarchySearch(ContractionHierarchy hierarchy) {
+        this.hierarchy = hierarchy;
+    }
+
+    @Override
+    public int[] shortestPath(int source, int target) {
+        SearchContext forward = SearchContext.current(hierarchy.nodeCount());
+        SearchContext backward = SearchContext.currentBackward(hierarchy.nodeCount());
+        if (run(forward, backward, source, target) == SearchContext.UNREACHABLE) {
+            return NO_PATH;
+        }
+
+        // Hierarchy path: forward predecessors up to the meeting node, then backward ones down to the target.
+        int[] packed = forward.path(meetingNode);
+        int tailLength = 0;
+        for (int at = backward.previous(meetingNode); at != -1; at = backward.previous(at)) {
+            tailLength++;
+        }
+        packed = Arrays.copyOf(packed, packed.length + tailLength);
+        int i = packed.length - tailLength;
+        for (int at = backward.previous(meetingNode); at != -1; at = backward.previous(at)) {
+            packed[i++] = at;
+        }
+        return unpack(packed);
+    }
+
+    @Override
+    public int distance(int source, int target) {
+        return run(SearchContext.current(hierarchy.nodeCount()),
+                SearchContext.currentBackward(hierarchy.nodeCount()), source, target);
+    }
+
+    private int run(SearchContext forward, SearchContext backward, int source, int target) {
+        forward.begin();
+        backward.begin();
+        forward.label(source, 0, -1);
+        forward.heap.insertOrDecrease(source, 0);
+        backward.label(target, 0, -1);
+        backward.heap.insertOrDecrease(target, 0);
+
+        int best = SearchContext.UNREACHABLE;
+        meetingNode = -1;
+        while (true) {
+            boolean forwardOpen = !forward.heap.isEmpty() && forward.heap.peekKey() < best;
+            boolean backwardOpen = !backward.heap.isEmpty() && backward.heap.peekKey() < best;
+            if (!forwardOpen && !backwardOpen) {
+                break;
+            }
+            boolean forwardTurn = forwardOpen
+                    && (!backwardOpen || forward.heap.peekKey() <= backward.heap.peekKey());
+            SearchContext side = forwardTurn ? forward : backward;
+            SearchContext other = forwardTurn ? backward : forward;
+
+            int distance = side.heap.peekKey();
+            int current = side.heap.poll();
+            if (other.reached(current) && (long) distance + other.distance(current) < best) {
+                best = distance + other.distance(current);
+                meetingNode = current;
+            }
+            if (forwardTurn) {
+                if (!stalled(side, current, distance, hierarchy.downOffsets, hierarchy.downSources, hierarchy.downWeights)) {
+                    relax(side, current, distance, hierarchy.upOffsets, hierarchy.upTargets, hierarchy.upWeights);
+                }
+            } else if (!stalled(side, current, distance, hierarchy.upOffsets, hierarchy.upTargets, hierarchy.upWeights)) {
+                relax(side, current, distance, hierarchy.downOffsets, hierarchy.downSources, hierarchy.downWeights);
+            }
+        }
+        return best;
+    }
+
+    private static void relax(SearchContext side, int current, int distance, int[] offsets, int[] neighbors, int[] weights) {
+        side.relaxedEdges += offsets[current + 1] - offsets[current];
+        for (int e = offsets[current]; e < offsets[current + 1]; e++) {
+            int neighbor = neighbors[e];
+            int newDist = distance + weights[e];
+            if (newDist < side.distance(neighbor)) {
+                side.label(neighbor, newDist, current);
+                side.heap.insertOrDecrease(neighbor, newDist);
+            }
+        }
+    }
+
+    // A node is stalled if a higher-ranked node already reaches it more cheaply against the search direction.
+    private static boolean stalled(SearchContext side, int current, int distance, int[] offsets, int[] neighbors, int[] weights) {
+        for (int e = offsets[current]; e < offsets[current + 1]; e++) {
+            int higher = neighbors[e];
+            if (side.reached(higher) && (long) side.distance(higher) + weights[e] < distance) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Expands every shortcut into the original nodes it bypasses.
+    private int[] unpack(int[] packed) {
+        int[] path = new int[packed.length];
+        int size = 0;
+        int[] stack = new int[16];
+        path[size++] = packed[0];
+        for (int k = 1; k < packed.length; k++) {
+            int top = 0;
+            stack[top++] = packed[k];
+            int from = packed[k - 1];
+            while (top > 0) {
+                int to = stack[top - 1];
+                int middle = hierarchy.middle(from, to);
+                if (middle == ContractionHierarchy.NO_MIDDLE) {
+                    if (size == path.length) {
+                        path = Arrays.copyOf(path, size * 2);
+                    }
+                    path[size++] = to;
+                    from = to;
+                    top--;
+                } else {
+                    if (top == stack.length) {
+                        stack = Arrays.copyOf(stack, top * 2);
+                    }
+                    stack[top++] = middle;
+                }
+            }
+        }
+        return Arrays.copyOf(path, size);
+    }
+}
@@ -0,0 +1,67 @@
+package Shipping;
+
+/**
+ * Dijkstra over a {@link PortGraph} with an indexed decrease-key heap. The
+ * labels live in the calling thread's {@link SearchContext}, so a query
+ * allocates nothing beyond the returned path.
+ */
+final class DijkstraSearch implements RouteSearch {
+    static final int UNREACHABLE = SearchContext.UNREACHABLE;
+    static final int ALL_NODES = -1;
+
+    private final PortGraph graph;
+
+    DijkstraSearch(PortGraph graph) {
+        this.graph = graph;
+    }
+
+    @Override
+    public int[] shortestPath(int source, int target) {
+        SearchContext context = SearchContext.current(graph.nodeCount());
+        run(context, source, target);
+        return context.path(target);
+    }
+
+    @Override
+    public int distance(int source, int target) {
+        SearchContext context = SearchContext.current(graph.nodeCount());
+        run(context, source, target);
+        return context.distance(target);
+    }
+
+    // Labels the context from source, stopping once target (or ALL_NODES) is settled.
+    void run(SearchContext context, int source, int target) {
+        run(context, source, target, UNREACHABLE);
+    }
+
+    // As run, but also stops before settling any node farther than maxDistance.
+    void run(SearchContext context, int source, int target, int maxDistance) {
+        int[] offsets = graph.offsets;
+        int[] targets = graph.targets;
+        EdgeWeights weights = graph.weights;
+        IndexedMinHeap heap = context.heap;
+
+        context.begin();
+        context.label(source, 0, -1);
+        heap.insertOrDecrease(source, 0);
+        while (!heap.isEmpty()) {
+            int distance = heap.peekKey();
+            if (distance > maxDistance) {
+                break;
+            }
+            int current = heap.poll();
+            if (current == target) {
+                break;
+            }
+            context.relaxedEdges += offsets[current + 1] - offsets[current];
+            for (int e = offsets[current]; e < offsets[current + 1]; e++) {
+                int neighbor = targets[e];
+                int newDist = distance + weights.get(e);
+                if (newDist < context.distance(neighbor)) {
+                    context.label(neighbor, newDist, current);
+                    heap.insertOrDecrease(neighbor, newDist);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package Shipping;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Many-to-many distances for fleet planning. Each source gets one one-to-many
+ * Dijkstra that stops as soon as every target is settled; sources are handed
+ * out to one worker per core, and each worker reuses its SearchContext, target
+ * marks and row buffer for all of its rows. The work of all rows is counted
+ * for the calling thread, and a failing row or sink stops the other workers
+ * from taking further rows.
+ */
+final class DistanceMatrix {
+    static final int UNREACHABLE = SearchContext.UNREACHABLE;
+
+    /**
+     * Receives finished rows in completion order, one call at a time. The row
+     * array is reused by the worker after the call returns.
+     */
+    interface RowSink {
+        void accept(int sourceIndex, int[] row) throws IOException;
+    }
+
+    private final PortGraph graph;
+    private final ForkJoinPool pool;
+
+    DistanceMatrix(PortGraph graph) {
+        this(graph, ForkJoinPool.commonPool());
+    }
+
+    DistanceMatrix(PortGraph graph, ForkJoinPool pool) {
+        this.graph = graph;
+        this.pool = pool;
+    }
+
+    // Returns the row-major sources x targets distances, UNREACHABLE where there is no route.
+    int[] compute(int[] sources, int[] targets) {
+        long cells = (long) sources.length * targets.length;
+        if (cells > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Matrix of " + cells + " cells is too large, stream it instead");
+        }
+        int[] matrix = new int[(int) cells];
+        run(sources, targets, (sourceIndex, row) ->
+                System.arraycopy(row, 0, matrix, sourceIndex * targets.length, targets.length), false);
+        return matrix;
+    }
+
+    // Computes the matrix without holding it, passing each row to the sink as soon as it is done.
+    void stream(int[] sources, int[] targets, RowSink sink) throws IOException {
+        try {
+            run(sources, targets, sink, true);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // A sink writing "source,d1,d2,..." lines, leaving unreachable cells empty.
+    static RowSink csvSink(Writer writer, int[] sources) {
+        return (sourceIndex, row) -> {
+            StringBuilder line = new StringBuilder(row.length * 6);
+            line.append(sources[sourceIndex]);
+            for (int distance : row) {
+                line.append(',');
+                if (distance != UNREACHABLE) {
+                    line.append(distance);
+                }
+            }
+            writer.write(line.append('\n').toString());
+        };
+    }
+
+    private void run(int[] sources, int[] targets, RowSink sink, boolean serialize) {
+        AtomicInteger nextSource = new AtomicInteger();
+        Thread caller = Thread.currentThread();
+        long[] poolWork = new long[3];
+        // The pool wraps checked exceptions of tasks on other threads, so the sink's is kept here.
+        AtomicReference<IOException> sinkFailure = new AtomicReference<>();
+        int workers = Math.max(1, Math.min(pool.getParallelism(), sources.length));
+        List<Callable<Void>> tasks = new ArrayList<>(workers);
+        for (int w = 0; w < workers; w++) {
+            tasks.add(() -> {
+                long[] before = new long[3];
+                SearchContext.work(before);
+                try {
+                    Worker worker = new Worker(targets);
+                    for (int i = nextSource.getAndIncrement(); i < sources.length; i = nextSource.getAndIncrement()) {
+                        int[] row = worker.row(sources[i]);
+                        if (serialize) {
+                            synchronized (sink) {
+                                sink.accept(i, row);
+                            }
+                        } else {
+                            sink.accept(i, row);
+                        }
+                    }
+                } catch (IOException e) {
+                    // Hands out no more rows, so the other workers stop after their current one.
+                    sinkFailure.compareAndSet(null, e);
+                    nextSource.set(sources.length);
+                    return null;
+                } catch (Throwable e) {
+                    nextSource.set(sources.length);
+                    throw e;
+                } finally {
+                    // Work on pool threads is counted for the caller, whose query it is.
+                    if (Thread.currentThread() != caller) {
+                        long[] after = new long[3];
+                        SearchContext.work(after);
+                        synchronized (poolWork) {
+                            for (int j = 0; j < poolWork.length; j++) {
+                                poolWork[j] += after[j] - before[j];
+                            }
+                        }
+                    }
+                }
+                return null;
+            });
+        }
+
+        List<Future<Void>> futures = pool.invokeAll(tasks);
+        synchronized (poolWork) {
+            SearchContext.current(graph.nodeCount()).addWork(poolWork[0], poolWork[1], poolWork[2]);
+        }
+        if (sinkFailure.get() != null) {
+            throw new UncheckedIOException(sinkFailure.get());
+        }
+        for (Future<Void> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Distance matrix interrupted", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Distance matrix worker failed", e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Per-worker state: target marks with their column index and the row buffer.
+     */
+    private final class Worker {
+        private final int[] targets;
+        private final int[] columnOf;
+        private final int[] row;
+        private final int distinctTargets;
+
+        Worker(int[] targets) {
+            this.targets = targets;
+            this.columnOf = new int[graph.nodeCount()];
+            this.row = new int[targets.length];
+            int distinct = 0;
+            for (int column = 0; column < targets.length; column++) {
+                if (columnOf[targets[column]] == 0) {
+                    distinct++;
+                }
+                columnOf[targets[column]] = column + 1;
+            }
+            this.distinctTargets = distinct;
+        }
+
+        int[] row(int source) {
+            SearchContext context = SearchContext.current(graph.nodeCount());
+            IndexedMinHeap heap = context.heap;
+            int[] offsets = graph.offsets;
+            int[] edgeTargets = graph.targets;
+            EdgeWeights weights = graph.weights;
+
+            context.begin();
+            context.label(source, 0, -1);
+            heap.insertOrDecrease(source, 0);
+            int remaining = distinctTargets;
+            while (!heap.isEmpty() && remaining > 0) {
+                int distance = heap.peekKey();
+                int current = heap.poll();
+                if (columnOf[current] != 0) {
+                    remaining--;
+                }
+                context.relaxedEdges += offsets[current + 1] - offsets[current];
+                for (int e = offsets[current]; e < offsets[current + 1]; e++) {
+                    int neighbor = edgeTargets[e];
+                    int newDist = distance + weights.get(e);
+                    if (newDist < context.distance(neighbor)) {
+                        context.label(neighbor, newDist, current);
+                        heap.insertOrDecrease(neighbor, newDist);
+                    }
+                }
+            }
+            for (int column = 0; column < targets.length; column++) {
+                row[column] = context.distance(targets[column]);
+            }
+            return row;
+        }
+    }
+}
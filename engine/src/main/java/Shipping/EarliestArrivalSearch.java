@@ -0,0 +1,97 @@
+package Shipping;
+
+/**
+ * Earliest-arrival query over {@link TimeDependentCosts}: time-dependent A*
+ * whose labels are arrival times, each edge costed at the time the ship
+ * actually reaches its tail. Because every profile is FIFO a settled arrival
+ * time is final.
+ *
+ * The A* potential of a node is a lower bound on its travel time to the
+ * target when every edge takes its fastest time of the period: the larger
+ * of the landmark bound and the great-circle one. Both are built once with
+ * the search, i.e. once per graph version, so a query costs no more than
+ * the A* itself whatever its target; nodes the landmarks prove cannot reach
+ * the target are never expanded.
+ */
+final class EarliestArrivalSearch {
+    private final TimeDependentCosts costs;
+    private final PortGraph graph;
+    private final LandmarkBounds landmarks;
+    private final GreatCircleHeuristic greatCircle;
+
+    EarliestArrivalSearch(TimeDependentCosts costs) {
+        this(costs, LandmarkBounds.DEFAULT_LANDMARKS);
+    }
+
+    EarliestArrivalSearch(TimeDependentCosts costs, int landmarkCount) {
+        this.costs = costs;
+        this.graph = costs.graph();
+        int[] minimums = new int[graph.edgeCount()];
+        for (int e = 0; e < minimums.length; e++) {
+            minimums[e] = costs.minTravelTime(e);
+        }
+        this.landmarks = new LandmarkBounds(graph, minimums, costs.reverseMinTravelTimes(), landmarkCount);
+        this.greatCircle = new GreatCircleHeuristic(graph, minimums);
+    }
+    PortGraph graph() {
+        return graph;
+    }
+
+    /**
+     * Returns the fastest route when leaving source at the given minute of the
+     * cost period; its distance is the travel time in minutes.
+     */
+    Route earliestArrival(int source, int target, int departure) {
+        SearchContext context = SearchContext.current(graph.nodeCount());
+        run(context, source, target, departure);
+        int arrival = context.distance(target);
+        return arrival == SearchContext.UNREACHABLE ? Route.NONE : new Route(context.path(target), arrival - departure);
+    }
+
+    // Minute of arrival at target, or SearchContext.UNREACHABLE.
+    int arrivalTime(int source, int target, int departure) {
+        SearchContext context = SearchContext.current(graph.nodeCount());
+        run(context, source, target, departure);
+        return context.distance(target);
+    }
+
+    private void run(SearchContext context, int source, int target, int departure) {
+        int[] offsets = graph.offsets;
+        int[] targets = graph.targets;
+        IndexedMinHeap heap = context.heap;
+
+        context.begin();
+        int sourcePotential = potential(source, target);
+        if (sourcePotential == SearchContext.UNREACHABLE) {
+            return;
+        }
+        context.label(source, departure, -1);
+        heap.insertOrDecrease(source, departure + sourcePotential);
+        while (!heap.isEmpty()) {
+            int current = heap.poll();
+            if (current == target) {
+                break;
+            }
+            int time = context.distance(current);
+            context.relaxedEdges += offsets[current + 1] - offsets[current];
+            for (int e = offsets[current]; e < offsets[current + 1]; e++) {
+                int neighbor = targets[e];
+                int arrival = time + costs.travelTime(e, time);
+                if (arrival < context.distance(neighbor)) {
+                    int potential = potential(neighbor, target);
+                    if (potential == SearchContext.UNREACHABLE) {
+                        continue;
+                    }
+                    context.label(neighbor, arrival, current);
+                    heap.insertOrDecrease(neighbor, arrival + potential);
+                }
+            }
+        }
+    }
+
+    // Lower bound on the fastest-case travel time from node to target, or UNREACHABLE if it cannot get there.
+    private int potential(int node, int target) {
+        int bound = landmarks.lowerBound(node, target);
+        return bound == SearchContext.UNREACHABLE ? bound : Math.max(bound, greatCircle.lowerBound(node, target));
+    }
+}
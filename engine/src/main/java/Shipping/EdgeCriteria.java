@@ -0,0 +1,77 @@
+package Shipping;
+
+/**
+ * Fuel burn and sailing time per edge of one {@link PortGraph}, next to the
+ * distance held in its weights, for {@link ParetoRouteSearch}. Values are
+ * aligned with the graph's edge slots. Edges without measured values are
+ * estimated from their distance at a nominal speed and burn rate, so only
+ * legs with currents, weather routing or emission-area fuel need overrides.
+ */
+final class EdgeCriteria {
+    final PortGraph graph;
+    final int[] fuel;
+    final int[] time;
+    final GreatCircleHeuristic fuelBound;
+    final GreatCircleHeuristic timeBound;
+
+    private EdgeCriteria(PortGraph graph, int[] fuel, int[] time) {
+        this.graph = graph;
+        this.fuel = fuel;
+        this.time = time;
+        this.fuelBound = new GreatCircleHeuristic(graph, fuel);
+        this.timeBound = new GreatCircleHeuristic(graph, time);
+    }
+
+    // Distance, fuel and time of a node path; the path must follow existing edges.
+    ParetoRoute cost(int[] nodes) {
+        int distance = 0;
+        int totalFuel = 0;
+        int totalTime = 0;
+        for (int i = 1; i < nodes.length; i++) {
+            int edge = graph.edgeIndex(nodes[i - 1], nodes[i]);
+            if (edge == PortGraph.NO_EDGE) {
+                throw new IllegalArgumentException("No edge " + nodes[i - 1] + " -> " + nodes[i]);
+            }
+            distance += graph.weights.get(edge);
+            totalFuel += fuel[edge];
+            totalTime += time[edge];
+        }
+        return new ParetoRoute(nodes, distance, totalFuel, totalTime);
+    }
+
+    static final class Builder {
+        private final PortGraph graph;
+        private final int[] fuel;
+        private final int[] time;
+
+        // Estimates every edge from its weight, read as nautical miles: fuel in kg, time in minutes.
+        Builder(PortGraph graph, double speedKnots, double fuelKgPerNm) {
+            if (!(speedKnots > 0) || fuelKgPerNm < 0) {
+                throw new IllegalArgumentException("Speed must be positive and fuel burn non-negative");
+            }
+            this.graph = graph;
+            fuel = new int[graph.edgeCount()];
+            time = new int[graph.edgeCount()];
+            for (int e = 0; e < fuel.length; e++) {
+                fuel[e] = (int) Math.round(graph.weights.get(e) * fuelKgPerNm);
+                time[e] = (int) Math.round(graph.weights.get(e) * 60 / speedKnots);
+            }
+        }
+
+        void set(int from, int to, int fuelKg, int minutes) {
+            int e = graph.edgeIndex(from, to);
+            if (e == PortGraph.NO_EDGE) {
+                throw new IllegalArgumentException("No edge " + from + " -> " + to);
+            }
+            if (fuelKg < 0 || minutes < 0) {
+                throw new IllegalArgumentException("Negative fuel or time on edge " + from + " -> " + to);
+            }
+            fuel[e] = fuelKg;
+            time[e] = minutes;
+        }
+
+        EdgeCriteria build() {
+            return new EdgeCriteria(graph, fuel.clone(), time.clone());
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package Shipping;
+
+import java.util.Arrays;
+
+/**
+ * The edge weights of a {@link PortGraph}, by edge slot, in fixed-size
+ * blocks that graph versions share copy-on-write. A reweight copies the
+ * block table and only the blocks it touches, so an edit of k edges costs
+ * O(E / BLOCK_SIZE + k * BLOCK_SIZE) instead of a copy of all E weights.
+ * Reads are one more array load than from a flat array.
+ */
+final class EdgeWeights {
+    static final int BLOCK_SHIFT = 12;
+    static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+    private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+
+    private final int[][] blocks;
+    private final int length;
+
+    EdgeWeights(int[] weights) {
+        length = weights.length;
+        blocks = new int[(length + BLOCK_MASK) >>> BLOCK_SHIFT][];
+        for (int b = 0; b < blocks.length; b++) {
+            int from = b << BLOCK_SHIFT;
+            blocks[b] = Arrays.copyOfRange(weights, from, Math.min(length, from + BLOCK_SIZE));
+        }
+    }
+
+    private EdgeWeights(int[][] blocks, int length) {
+        this.blocks = blocks;
+        this.length = length;
+    }
+
+    int get(int slot) {
+        return blocks[slot >>> BLOCK_SHIFT][slot & BLOCK_MASK];
+    }
+
+    int length() {
+        return length;
+    }
+
+    // Returns a copy with weights[i] at slots[i]; blocks without a changed slot are shared.
+    EdgeWeights with(int[] slots, int[] weights) {
+        int[][] newBlocks = blocks.clone();
+        boolean[] copied = new boolean[blocks.length];
+        for (int i = 0; i < slots.length; i++) {
+            int b = slots[i] >>> BLOCK_SHIFT;
+            if (!copied[b]) {
+                newBlocks[b] = blocks[b].clone();
+                copied[b] = true;
+            }
+            newBlocks[b][slots[i] & BLOCK_MASK] = weights[i];
+        }
+        return new EdgeWeights(newBlocks, length);
+    }
+
+    // Whether the block holding slot is the same array in both, i.e. shared and not copied.
+    boolean sharesBlock(EdgeWeights other, int slot) {
+        return blocks[slot >>> BLOCK_SHIFT] == other.blocks[slot >>> BLOCK_SHIFT];
+    }
+
+    // Copies the weights of slots from .. from + count - 1 into destination at offset.
+    void copyTo(int from, int[] destination, int offset, int count) {
+        while (count > 0) {
+            int b = from >>> BLOCK_SHIFT;
+            int start = from & BLOCK_MASK;
+            int chunk = Math.min(count, BLOCK_SIZE - start);
+            System.arraycopy(blocks[b], start, destination, offset, chunk);
+            from += chunk;
+            offset += chunk;
+            count -= chunk;
+        }
+    }
+
+    int[] toArray() {
+        int[] result = new int[length];
+        copyTo(0, result, 0, length);
+        return result;
+    }
+}
@@ -0,0 +1,385 @@
+package Shipping;
+
+import java.lang.invoke.VarHandle;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Discrete-event simulation of many ships sailing routes through one
+ * {@link PortGraph}. The only events are a ship leaving port and a ship
+ * reaching the end of a leg, kept in one time-ordered queue; between events a
+ * ship's position is interpolated along the great circle of its current leg.
+ * A step costs O(log n) per waypoint passed for the events, plus one
+ * interpolation of every ship slot to publish the frame, so O(n) per frame
+ * in the number of ships at sea. Slots of arrived ships are recycled for
+ * new ones, so n stays the most ships ever at sea at once rather than all
+ * ships ever added, and frames are written into two reused pairs of position
+ * arrays instead of allocating new ones.
+ *
+ * A leg takes its edge weight, read as nautical miles, at the ship's speed.
+ * Simulated time is in seconds. {@link #start} runs the clock on its own
+ * thread at a configurable time acceleration and publishes a {@link Snapshot}
+ * of all positions each frame, so a UI thread only ever reads a finished
+ * frame. A reader that may fall behind, such as a painter, takes a
+ * {@link #copySnapshot copy} instead, since a frame's arrays are reused.
+ */
+final class FleetSimulator {
+    private static final byte WAITING = 0;
+    private static final byte SAILING = 1;
+    private static final byte ARRIVED = 2;
+    private static final double MIN_LEG_SECONDS = 1;
+
+    private final PortGraph graph;
+    private final ArrayDeque<PendingShip> pending = new ArrayDeque<>();
+    // Ids handed out and free ones for reuse, guarded by pending.
+    private int nextShipId;
+    private int[] freeIds = new int[16];
+    private int freeCount;
+    // Ships arrived in this step, freed once a snapshot showing them arrived is out.
+    private int[] retiring = new int[16];
+    private int retiringCount;
+    private final LongMinHeap events = new LongMinHeap(64);
+    private double time;
+    private int shipCount;
+    private int activeCount;
+
+    // Per-ship state; a ship sails route[stop] -> route[stop + direction].
+    private int[][] routes = new int[16][];
+    private double[] speeds = new double[16];
+    private boolean[] roundTrips = new boolean[16];
+    private byte[] states = new byte[16];
+    private int[] stops = new int[16];
+    private int[] directions = new int[16];
+    private double[] legStarts = new double[16];
+    private double[] legEnds = new double[16];
+    // Unit vectors of the current leg's ends and the angle between them.
+    private double[] fromX = new double[16];
+    private double[] fromY = new double[16];
+    private double[] fromZ = new double[16];
+    private double[] toX = new double[16];
+    private double[] toY = new double[16];
+    private double[] toZ = new double[16];
+    private double[] angles = new double[16];
+
+    // Position buffers of the two most recent frames; each frame overwrites the older pair.
+    private float[][] latitudeBuffers = {new float[16], new float[16]};
+    private float[][] longitudeBuffers = {new float[16], new float[16]};
+    private long frame;
+    // The frame being written, over the buffers of the frame two before it.
+    private volatile long overwriting = -1;
+
+    private volatile Snapshot snapshot = new Snapshot(0, 0, 0, new float[0], new float[0], -1);
+    private volatile double timeAcceleration = 1;
+    private ScheduledExecutorService clock;
+
+    FleetSimulator(PortGraph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Positions of every ship at one simulated time, indexed by ship id below
+     * shipCount. A ship waiting to depart sits at its first port; arrived ships
+     * and free slots are NaN. The arrays of a published snapshot are
+     * overwritten two frames later, so a reader must be done with it within a
+     * frame, or read a copy from {@link #copySnapshot}.
+     */
+    static final class Snapshot {
+        final double time;
+        final int activeCount;
+        final int shipCount;
+        final float[] latitudes;
+        final float[] longitudes;
+        // Number of the frame, or -1 for a copy or the empty first snapshot, whose arrays are never reused.
+        private final long frame;
+
+        private Snapshot(double time, int activeCount, int shipCount, float[] latitudes, float[] longitudes, long frame) {
+            this.time = time;
+            this.activeCount = activeCount;
+            this.shipCount = shipCount;
+            this.latitudes = latitudes;
+            this.longitudes = longitudes;
+            this.frame = frame;
+        }
+    }
+
+    private static final class PendingShip {
+        final int id;
+        final int[] route;
+        final double speedKnots;
+        final double departure;
+        final boolean roundTrip;
+
+        PendingShip(int id, int[] route, double speedKnots, double departure, boolean roundTrip) {
+            this.id = id;
+            this.route = route;
+            this.speedKnots = speedKnots;
+            this.departure = departure;
+            this.roundTrip = roundTrip;
+        }
+    }
+
+    /**
+     * Schedules a ship along route, a node path with at least two nodes,
+     * leaving at the given simulated second. A round-trip ship turns back at
+     * each end instead of arriving. Safe to call from any thread; the ship
+     * joins at the next step. Returns its id, which may be that of a ship
+     * that arrived in an earlier step.
+     */
+    int addShip(int[] route, double speedKnots, double departure, boolean roundTrip) {
+        if (route.length < 2 || !(speedKnots > 0)) {
+            throw new IllegalArgumentException("A ship needs a route of two or more nodes and a positive speed");
+        }
+        int id;
+        synchronized (pending) {
+            id = freeCount > 0 ? freeIds[--freeCount] : nextShipId++;
+            pending.add(new PendingShip(id, route, speedKnots, departure, roundTrip));
+        }
+        return id;
+    }
+
+    // Simulated seconds per wall-clock second while running.
+    void setTimeAcceleration(double acceleration) {
+        if (!(acceleration >= 0)) {
+            throw new IllegalArgumentException("Time acceleration must not be negative");
+        }
+        timeAcceleration = acceleration;
+    }
+
+    double timeAcceleration() {
+        return timeAcceleration;
+    }
+
+    // The latest published frame, whose arrays are only stable for one frame.
+    Snapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Copies the latest published frame into arrays of its own, those of
+     * reuse where they are large enough, so the copy stays valid however long
+     * it is read. A copy taken while the simulator began to overwrite the
+     * frame is discarded and taken again from the newest frame.
+     */
+    Snapshot copySnapshot(Snapshot reuse) {
+        while (true) {
+            Snapshot latest = snapshot;
+            int count = latest.shipCount;
+            boolean reusable = reuse != null && reuse.frame < 0 && reuse.latitudes.length >= count;
+            float[] latitudes = reusable ? reuse.latitudes : new float[count];
+            float[] longitudes = reusable ? reuse.longitudes : new float[count];
+            System.arraycopy(latest.latitudes, 0, latitudes, 0, count);
+            System.arraycopy(latest.longitudes, 0, longitudes, 0, count);
+            // The copy must be read before the check below; together they form a sequence lock.
+            VarHandle.acquireFence();
+            if (latest.frame < 0 || overwriting < latest.frame + 2) {
+                return new Snapshot(latest.time, latest.activeCount, count, latitudes, longitudes, -1);
+            }
+        }
+    }
+
+    /**
+     * Advances the simulated clock by the given seconds, handling every event
+     * due in between in time order, and publishes a new snapshot.
+     */
+    synchronized Snapshot advance(double seconds) {
+        admitPending();
+        double until = time + seconds;
+        while (!events.isEmpty() && LongMinHeap.key(events.peek()) <= until) {
+            int ship = LongMinHeap.node(events.poll());
+            arrive(ship, legEnds[ship]);
+        }
+        time = until;
+        Snapshot result = positionsAt(until);
+        snapshot = result;
+        if (retiringCount > 0) {
+            synchronized (pending) {
+                if (freeCount + retiringCount > freeIds.length) {
+                    freeIds = Arrays.copyOf(freeIds, Math.max(freeCount + retiringCount, freeIds.length * 2));
+                }
+                System.arraycopy(retiring, 0, freeIds, freeCount, retiringCount);
+                freeCount += retiringCount;
+            }
+            retiringCount = 0;
+        }
+        return result;
+    }
+
+    /**
+     * Starts advancing the clock on a daemon thread, framesPerSecond times a
+     * wall-clock second; onFrame runs after each new snapshot while any ship
+     * is active, e.g. to request a repaint.
+     */
+    synchronized void start(int framesPerSecond, Runnable onFrame) {
+        if (clock != null) {
+            return;
+        }
+        clock = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "fleet-simulator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = 1_000_000_000L / framesPerSecond;
+        long[] last = {System.nanoTime()};
+        boolean[] wasActive = {false};
+        clock.scheduleAtFixedRate(() -> {
+            long now = System.nanoTime();
+            Snapshot frame = advance((now - last[0]) / 1e9 * timeAcceleration);
+            last[0] = now;
+            if (frame.activeCount > 0 || wasActive[0]) {
+                onFrame.run();
+            }
+            wasActive[0] = frame.activeCount > 0;
+        }, period, period, TimeUnit.NANOSECONDS);
+    }
+
+    synchronized void stop() {
+        if (clock != null) {
+            clock.shutdownNow();
+            clock = null;
+        }
+    }
+
+    private void admitPending() {
+        synchronized (pending) {
+            for (PendingShip ship = pending.poll(); ship != null; ship = pending.poll()) {
+                int id = ship.id;
+                ensureCapacity(id + 1);
+                routes[id] = ship.route;
+                speeds[id] = ship.speedKnots;
+                roundTrips[id] = ship.roundTrip;
+                states[id] = WAITING;
+                stops[id] = 0;
+                directions[id] = 1;
+                double departure = Math.max(ship.departure, time);
+                legStarts[id] = departure;
+                legEnds[id] = departure;
+                schedule(id);
+                shipCount = Math.max(shipCount, id + 1);
+                activeCount++;
+            }
+        }
+    }
+
+    // Handles a ship reaching route[stops[ship]] (or leaving it, if waiting) at the given time.
+    private void arrive(int ship, double at) {
+        if (states[ship] == SAILING) {
+            stops[ship] += directions[ship];
+            int[] route = routes[ship];
+            if (stops[ship] == 0 || stops[ship] == route.length - 1) {
+                if (!roundTrips[ship]) {
+                    states[ship] = ARRIVED;
+                    activeCount--;
+                    if (retiringCount == retiring.length) {
+                        retiring = Arrays.copyOf(retiring, retiringCount * 2);
+                    }
+                    retiring[retiringCount++] = ship;
+                    return;
+                }
+                directions[ship] = -directions[ship];
+            }
+        }
+        states[ship] = SAILING;
+        startLeg(ship, at);
+    }
+
+    private void startLeg(int ship, double at) {
+        int[] route = routes[ship];
+        int from = route[stops[ship]];
+        int to = route[stops[ship] + directions[ship]];
+        setUnitVector(from, ship, fromX, fromY, fromZ);
+        setUnitVector(to, ship, toX, toY, toZ);
+        double dot = fromX[ship] * toX[ship] + fromY[ship] * toY[ship] + fromZ[ship] * toZ[ship];
+        angles[ship] = Math.acos(Math.max(-1, Math.min(1, dot)));
+        int weight = graph.weight(from, to);
+        double nm = weight == PortGraph.NO_EDGE ? angles[ship] * GreatCircleHeuristic.EARTH_RADIUS_NM : weight;
+        legStarts[ship] = at;
+        legEnds[ship] = at + Math.max(MIN_LEG_SECONDS, nm / speeds[ship] * 3600);
+        schedule(ship);
+    }
+
+    // Queues the ship's next event, rounded up to whole seconds so it is never handled early.
+    private void schedule(int ship) {
+        events.add(LongMinHeap.pack((int) Math.min(Integer.MAX_VALUE, Math.ceil(legEnds[ship])), ship));
+    }
+
+    private void setUnitVector(int node, int ship, double[] x, double[] y, double[] z) {
+        double latitude = Math.toRadians(graph.latitude(node));
+        double longitude = Math.toRadians(graph.longitude(node));
+        x[ship] = Math.cos(latitude) * Math.cos(longitude);
+        y[ship] = Math.cos(latitude) * Math.sin(longitude);
+        z[ship] = Math.sin(latitude);
+    }
+
+    // Interpolates every active ship along its leg by spherical linear interpolation, into the older buffers.
+    private Snapshot positionsAt(double at) {
+        long current = frame++;
+        int buffer = (int) (current & 1);
+        overwriting = current;
+        // Readers copying the frame two before this one must see the mark before any of its buffers change.
+        VarHandle.storeStoreFence();
+        if (latitudeBuffers[buffer].length < shipCount) {
+            int capacity = Math.max(shipCount, latitudeBuffers[buffer].length * 2);
+            latitudeBuffers[buffer] = new float[capacity];
+            longitudeBuffers[buffer] = new float[capacity];
+        }
+        float[] latitudes = latitudeBuffers[buffer];
+        float[] longitudes = longitudeBuffers[buffer];
+        for (int ship = 0; ship < shipCount; ship++) {
+            if (states[ship] == ARRIVED) {
+                latitudes[ship] = Float.NaN;
+                longitudes[ship] = Float.NaN;
+                continue;
+            }
+            double fraction = states[ship] == WAITING ? 0
+                    : Math.min(1, (at - legStarts[ship]) / (legEnds[ship] - legStarts[ship]));
+            double angle = angles[ship];
+            double a;
+            double b;
+            if (angle < 1e-9) {
+                a = 1 - fraction;
+                b = fraction;
+            } else {
+                double sine = Math.sin(angle);
+                a = Math.sin((1 - fraction) * angle) / sine;
+                b = Math.sin(fraction * angle) / sine;
+            }
+            double x = a * fromX[ship] + b * toX[ship];
+            double y = a * fromY[ship] + b * toY[ship];
+            double z = a * fromZ[ship] + b * toZ[ship];
+            if (states[ship] == WAITING) {
+                int port = routes[ship][0];
+                latitudes[ship] = (float) graph.latitude(port);
+                longitudes[ship] = (float) graph.longitude(port);
+            } else {
+                latitudes[ship] = (float) Math.toDegrees(Math.atan2(z, Math.sqrt(x * x + y * y)));
+                longitudes[ship] = (float) Math.toDegrees(Math.atan2(y, x));
+            }
+        }
+        return new Snapshot(at, activeCount, shipCount, latitudes, longitudes, current);
+    }
+
+    private void ensureCapacity(int count) {
+        if (count <= routes.length) {
+            return;
+        }
+        int capacity = Math.max(count, routes.length * 2);
+        routes = Arrays.copyOf(routes, capacity);
+        speeds = Arrays.copyOf(speeds, capacity);
+        roundTrips = Arrays.copyOf(roundTrips, capacity);
+        states = Arrays.copyOf(states, capacity);
+        stops = Arrays.copyOf(stops, capacity);
+        directions = Arrays.copyOf(directions, capacity);
+        legStarts = Arrays.copyOf(legStarts, capacity);
+        legEnds = Arrays.copyOf(legEnds, capacity);
+        fromX = Arrays.copyOf(fromX, capacity);
+        fromY = Arrays.copyOf(fromY, capacity);
+        fromZ = Arrays.copyOf(fromZ, capacity);
+        toX = Arrays.copyOf(toX, capacity);
+        toY = Arrays.copyOf(toY, capacity);
+        toZ = Arrays.copyOf(toZ, capacity);
+        angles = Arrays.copyOf(angles, capacity);
+    }
+}
@@ -0,0 +1,79 @@
+package Shipping;
+
+/**
+ * Admissible A* lower bound from the great-circle distance between two nodes.
+ * Edge weights are in the graph's own units, so the bound is scaled by the
+ * smallest weight-per-nautical-mile ratio over all edges; by the triangle
+ * inequality on the sphere no path can then be shorter than the bound, and
+ * the rounded-down bound is also consistent.
+ */
+final class GreatCircleHeuristic {
+    static final double EARTH_RADIUS_NM = 3440.065;
+
+    private final double[] x;
+    private final double[] y;
+    private final double[] z;
+    private final double unitsPerRadian;
+
+    GreatCircleHeuristic(PortGraph graph) {
+        this(graph, graph.weights.toArray());
+    }
+
+    // Bounds another per-edge cost, aligned with the graph's edge slots, instead of the weights.
+    GreatCircleHeuristic(PortGraph graph, int[] edgeCosts) {
+        int n = graph.nodeCount();
+        x = new double[n];
+        y = new double[n];
+        z = new double[n];
+        for (int u = 0; u < n; u++) {
+            double lat = Math.toRadians(graph.latitude(u));
+            double lon = Math.toRadians(graph.longitude(u));
+            x[u] = Math.cos(lat) * Math.cos(lon);
+            y[u] = Math.cos(lat) * Math.sin(lon);
+            z[u] = Math.sin(lat);
+        }
+
+        double minUnitsPerNm = Double.POSITIVE_INFINITY;
+        for (int u = 0; u < n; u++) {
+            for (int e = graph.offsets[u]; e < graph.offsets[u + 1]; e++) {
+                double nm = angle(u, graph.targets[e]) * EARTH_RADIUS_NM;
+                if (nm > 1e-9) {
+                    minUnitsPerNm = Math.min(minUnitsPerNm, edgeCosts[e] / nm);
+                }
+            }
+        }
+        // The small safety margin absorbs floating-point error in the ratio.
+        unitsPerRadian = Double.isInfinite(minUnitsPerNm) ? 0 : minUnitsPerNm * EARTH_RADIUS_NM * (1 - 1e-9);
+    }
+
+    // Haversine distance in nautical miles.
+    static double distanceNm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_NM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    // Weight units per nautical mile used to scale the bound.
+    double unitsPerNm() {
+        return unitsPerRadian / EARTH_RADIUS_NM;
+    }
+
+    // Whether the bound stays admissible for a graph that also has the edge from -> to with this weight.
+    boolean admits(int from, int to, int weight) {
+        return angle(from, to) * unitsPerRadian <= weight;
+    }
+
+    int lowerBound(int from, int to) {
+        return (int) (angle(from, to) * unitsPerRadian);
+    }
+
+    private double angle(int a, int b) {
+        double dx = x[a] - x[b];
+        double dy = y[a] - y[b];
+        double dz = z[a] - z[b];
+        double chord = Math.sqrt(dx * dx + dy * dy + dz * dz);
+        return 2 * Math.asin(Math.min(1, chord / 2));
+    }
+}
@@ -0,0 +1,158 @@
+package Shipping;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap over node ids with int keys and real decrease-key.
+ * Positions are reset lazily, so clearing costs only the entries still queued.
+ * Polls and all operations are counted for instrumentation.
+ */
+final class IndexedMinHeap {
+    private static final int ABSENT = -1;
+
+    private int[] nodes;
+    private int[] keys;
+    private int[] positions;
+    private int size;
+    // Only grow; plain increments on a heap owned by one thread cost next to nothing.
+    long polls;
+    long operations;
+
+    IndexedMinHeap(int nodeCount) {
+        nodes = new int[16];
+        keys = new int[16];
+        positions = new int[nodeCount];
+        Arrays.fill(positions, ABSENT);
+    }
+
+    void ensureNodeCapacity(int nodeCount) {
+        if (positions.length < nodeCount) {
+            int old = positions.length;
+            positions = Arrays.copyOf(positions, nodeCount);
+            Arrays.fill(positions, old, nodeCount, ABSENT);
+        }
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean contains(int node) {
+        return positions[node] != ABSENT;
+    }
+
+    int peekKey() {
+        return keys[0];
+    }
+
+    int peekNode() {
+        return nodes[0];
+    }
+
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[nodes[i]] = ABSENT;
+        }
+        size = 0;
+    }
+
+    // Inserts the node, or lowers its key if it is already queued with a larger one.
+    void insertOrDecrease(int node, int key) {
+        int i = positions[node];
+        if (i == ABSENT) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+            siftUp(size++, node, key);
+            operations++;
+        } else if (key < keys[i]) {
+            siftUp(i, node, key);
+            operations++;
+        }
+    }
+
+    // Inserts the node or moves it to the new key, up or down.
+    void update(int node, int key) {
+        int i = positions[node];
+        if (i == ABSENT || key <= keys[i]) {
+            insertOrDecrease(node, key);
+        } else {
+            siftDown(i, node, key);
+            operations++;
+        }
+    }
+
+    // Removes the node with the smallest key and returns it.
+    int poll() {
+        int result = nodes[0];
+        positions[result] = ABSENT;
+        polls++;
+        operations++;
+        int lastNode = nodes[--size];
+        int lastKey = keys[size];
+        if (size > 0) {
+            siftDown(0, lastNode, lastKey);
+        }
+        return result;
+    }
+
+    // Removes a queued node regardless of its position.
+    void remove(int node) {
+        int i = positions[node];
+        if (i == ABSENT) {
+            return;
+        }
+        positions[node] = ABSENT;
+        operations++;
+        int lastNode = nodes[--size];
+        int lastKey = keys[size];
+        if (i < size) {
+            if (i > 0 && lastKey < keys[(i - 1) >>> 1]) {
+                siftUp(i, lastNode, lastKey);
+            } else {
+                siftDown(i, lastNode, lastKey);
+            }
+        }
+    }
+
+    private void siftUp(int i, int node, int key) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (keys[parent] <= key) {
+                break;
+            }
+            nodes[i] = nodes[parent];
+            keys[i] = keys[parent];
+            positions[nodes[i]] = i;
+            i = parent;
+        }
+        nodes[i] = node;
+        keys[i] = key;
+        positions[node] = i;
+    }
+
+    private void siftDown(int i, int node, int key) {
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && keys[child + 1] < keys[child]) {
+                child++;
+            }
+            if (key <= keys[child]) {
+                break;
+            }
+            nodes[i] = nodes[child];
+            keys[i] = keys[child];
+            positions[nodes[i]] = i;
+            i = child;
+        }
+        nodes[i] = node;
+        keys[i] = key;
+        positions[node] = i;
+    }
+}
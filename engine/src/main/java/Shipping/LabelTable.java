@@ -0,0 +1,54 @@
+package Shipping;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Node names or UN/LOCODEs of a {@link PortGraph}. Labels read from a network
+ * file stay UTF-8 in the mapping and are decoded on first access, so loading a
+ * large network does not materialise a million strings up front.
+ */
+final class LabelTable {
+    private final String[] decoded;
+    private final ByteBuffer utf8;
+    private final IntBuffer starts;
+    private final boolean emptyIsNull;
+
+    private LabelTable(String[] decoded, ByteBuffer utf8, IntBuffer starts, boolean emptyIsNull) {
+        this.decoded = decoded;
+        this.utf8 = utf8;
+        this.starts = starts;
+        this.emptyIsNull = emptyIsNull;
+    }
+
+    static LabelTable of(String[] labels) {
+        return new LabelTable(labels, null, null, false);
+    }
+
+    // Label i is utf8[starts[i] .. starts[i + 1]); empty labels read as null when emptyIsNull is set.
+    static LabelTable mapped(ByteBuffer utf8, IntBuffer starts, boolean emptyIsNull) {
+        return new LabelTable(new String[starts.limit() - 1], utf8, starts, emptyIsNull);
+    }
+
+    int size() {
+        return decoded.length;
+    }
+
+    String get(int index) {
+        String label = decoded[index];
+        if (label == null && utf8 != null) {
+            // Racing threads decode the same bytes to equal strings, so the plain write is harmless.
+            int start = starts.get(index);
+            int length = starts.get(index + 1) - start;
+            if (length == 0 && emptyIsNull) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            utf8.get(start, bytes);
+            label = new String(bytes, StandardCharsets.UTF_8);
+            decoded[index] = label;
+        }
+        return label;
+    }
+}
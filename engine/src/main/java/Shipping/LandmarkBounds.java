@@ -0,0 +1,132 @@
+package Shipping;
+
+import java.util.Arrays;
+
+/**
+ * Lower bounds on the cost between any two nodes of a {@link PortGraph} from
+ * a few landmarks and the triangle inequality (ALT): with d the shortest
+ * costs, d(v, t) >= d(L, t) - d(L, v) and d(v, t) >= d(v, L) - d(t, L) for
+ * every landmark L. Building them takes two Dijkstra passes per landmark,
+ * once for a graph and a set of edge costs; a bound is then a few array
+ * reads, whatever the target.
+ *
+ * Landmarks are picked farthest-first, each as far as possible from those
+ * already chosen, which spreads them to the rim of the network and into
+ * every part that the others do not reach. Bounds are consistent, so
+ * A* keeps settling each node once.
+ */
+final class LandmarkBounds {
+    static final int DEFAULT_LANDMARKS = 8;
+
+    private final int count;
+    // d(L_i, v) and d(v, L_i) at v * count + i, so the landmarks of a node are read together.
+    private final int[] fromLandmarks;
+    private final int[] toLandmarks;
+
+    /**
+     * Bounds over edgeCosts, aligned with the edge slots of graph, and
+     * reverseCosts, the same costs aligned with those of graph.reverse().
+     */
+    LandmarkBounds(PortGraph graph, int[] edgeCosts, int[] reverseCosts, int landmarks) {
+        int n = graph.nodeCount();
+        count = Math.min(landmarks, n);
+        fromLandmarks = new int[n * count];
+        toLandmarks = new int[n * count];
+        if (count == 0) {
+            return;
+        }
+        PortGraph reverse = graph.reverse();
+        SearchContext context = new SearchContext(n);
+        // Sum of forward and backward distance to the closest landmark so far; unreached counts as farthest.
+        long[] spread = new long[n];
+        Arrays.fill(spread, Long.MAX_VALUE);
+
+        // The first landmark is the node farthest from node 0, then each next one the farthest from all chosen.
+        distances(graph, edgeCosts, 0, context, null, 0);
+        int landmark = farthest(context, n);
+        for (int i = 0; i < count; i++) {
+            distances(graph, edgeCosts, landmark, context, fromLandmarks, i);
+            distances(reverse, reverseCosts, landmark, context, toLandmarks, i);
+            int next = 0;
+            for (int v = 0; v < n; v++) {
+                int from = fromLandmarks[v * count + i];
+                int to = toLandmarks[v * count + i];
+                long sum = from == SearchContext.UNREACHABLE || to == SearchContext.UNREACHABLE
+                        ? Long.MAX_VALUE : (long) from + to;
+                spread[v] = Math.min(spread[v], sum);
+                if (spread[v] > spread[next]) {
+                    next = v;
+                }
+            }
+            landmark = next;
+        }
+    }
+
+    // Lower bound on the cost from node to target, or SearchContext.UNREACHABLE if target is out of reach.
+    int lowerBound(int node, int target) {
+        int bound = 0;
+        int nodeBase = node * count;
+        int targetBase = target * count;
+        for (int i = 0; i < count; i++) {
+            int fromToTarget = fromLandmarks[targetBase + i];
+            int fromToNode = fromLandmarks[nodeBase + i];
+            if (fromToNode != SearchContext.UNREACHABLE) {
+                if (fromToTarget == SearchContext.UNREACHABLE) {
+                    // L reaches node but not target, so node cannot reach target either.
+                    return SearchContext.UNREACHABLE;
+                }
+                bound = Math.max(bound, fromToTarget - fromToNode);
+            }
+            int nodeToLandmark = toLandmarks[nodeBase + i];
+            int targetToLandmark = toLandmarks[targetBase + i];
+            if (targetToLandmark != SearchContext.UNREACHABLE) {
+                if (nodeToLandmark == SearchContext.UNREACHABLE) {
+                    // Target reaches L but node does not, so node cannot reach target.
+                    return SearchContext.UNREACHABLE;
+                }
+                bound = Math.max(bound, nodeToLandmark - targetToLandmark);
+            }
+        }
+        return bound;
+    }
+
+    int landmarkCount() {
+        return count;
+    }
+
+    // Dijkstra from source over costs; stores the distances as column of table unless table is null.
+    private static void distances(PortGraph graph, int[] costs, int source, SearchContext context, int[] table, int column) {
+        IndexedMinHeap heap = context.heap;
+        context.begin();
+        context.label(source, 0, -1);
+        heap.insertOrDecrease(source, 0);
+        while (!heap.isEmpty()) {
+            int distance = heap.peekKey();
+            int current = heap.poll();
+            for (int e = graph.offsets[current]; e < graph.offsets[current + 1]; e++) {
+                int neighbor = graph.targets[e];
+                int newDist = distance + costs[e];
+                if (newDist < context.distance(neighbor)) {
+                    context.label(neighbor, newDist, current);
+                    heap.insertOrDecrease(neighbor, newDist);
+                }
+            }
+        }
+        if (table != null) {
+            int stride = table.length / graph.nodeCount();
+            for (int v = 0; v < graph.nodeCount(); v++) {
+                table[v * stride + column] = context.distance(v);
+            }
+        }
+    }
+
+    private static int farthest(SearchContext context, int n) {
+        int farthest = 0;
+        for (int v = 0; v < n; v++) {
+            if (context.reached(v) && context.distance(v) > context.distance(farthest)) {
+                farthest = v;
+            }
+        }
+        return farthest;
+    }
+}
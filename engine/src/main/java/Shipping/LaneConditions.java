@@ -0,0 +1,304 @@
+package Shipping;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Sailing conditions on individual sea lanes: a speed of their own (a canal
+ * or a speed-restricted strait), a current along the lane, a seasonal factor
+ * on the speed such as the monsoon or winter storms, and a factor on the fuel
+ * burn, e.g. for low-sulphur fuel in emission areas or heavy weather. Lanes are keyed
+ * by their end nodes rather than edge slots, so one set of conditions
+ * carries over every version of a network; lanes missing from a version are
+ * skipped.
+ *
+ * {@link #timeCosts} turns them into the departure-dependent travel times
+ * that earliest-arrival queries run on, and {@link #criteria} into the fuel
+ * and time of Pareto queries. Lanes without conditions sail at the cruising
+ * speed.
+ */
+final class LaneConditions {
+    static final LaneConditions NONE = new Builder().build();
+    static final int MINUTES_PER_DAY = 24 * 60;
+    static final int PERIOD_MINUTES = 365 * MINUTES_PER_DAY; // seasons repeat yearly
+
+    // One lane's conditions; seasonTimes are minutes of the period and seasonPercents the speed at each.
+    private static final class Lane {
+        double speedKnots = Double.NaN;
+        double currentKnots;
+        double fuelFactor = 1;
+        int[] seasonTimes = {0};
+        int[] seasonPercents = {100};
+    }
+
+    private final Map<Long, Lane> lanes;
+
+    private LaneConditions(Map<Long, Lane> lanes) {
+        this.lanes = lanes;
+    }
+
+    int laneCount() {
+        return lanes.size();
+    }
+
+    /**
+     * Travel times over graph for a cost period of the given minutes: each
+     * conditioned lane gets a profile with a breakpoint per season, the
+     * rest take their weight, read as nautical miles, at cruisingKnots.
+     */
+    TimeDependentCosts timeCosts(PortGraph graph, int period, double cruisingKnots) {
+        TimeDependentCosts.Builder builder = new TimeDependentCosts.Builder(graph, period, cruisingKnots);
+        for (Map.Entry<Long, Lane> entry : lanes.entrySet()) {
+            int from = (int) (entry.getKey() >>> 32);
+            int to = (int) (long) entry.getKey();
+            if (from >= graph.nodeCount() || to >= graph.nodeCount()) {
+                continue;
+            }
+            int weight = graph.weight(from, to);
+            if (weight == PortGraph.NO_EDGE) {
+                continue;
+            }
+            Lane lane = entry.getValue();
+            int profile = builder.addProfile(lane.seasonTimes, durations(lane, from, to, weight, cruisingKnots));
+            builder.assign(from, to, profile);
+        }
+        return builder.build();
+    }
+
+    // Minutes to sail a lane of the given weight when departing at each season breakpoint.
+    private static int[] durations(Lane lane, int from, int to, int weight, double cruisingKnots) {
+        double speed = Double.isNaN(lane.speedKnots) ? cruisingKnots : lane.speedKnots;
+        int[] durations = new int[lane.seasonTimes.length];
+        for (int i = 0; i < durations.length; i++) {
+            double overGround = speed * lane.seasonPercents[i] / 100 + lane.currentKnots;
+            if (!(overGround > 0)) {
+                throw new IllegalArgumentException("Lane " + from + " -> " + to + " makes no headway");
+            }
+            durations[i] = (int) Math.round(weight * 60 / overGround);
+        }
+        return durations;
+    }
+
+    /**
+     * Fuel in kg and time in minutes over graph, for Pareto queries. A lane's
+     * speed is averaged over its seasons; as propulsion power grows with the
+     * cube of the speed through the water, its burn per hour is that of
+     * cruising scaled by (speed / cruisingKnots)^3, over the hours it takes
+     * at its speed over ground. Faster lanes thus trade fuel for time.
+     */
+    EdgeCriteria criteria(PortGraph graph, int period, double cruisingKnots, double fuelKgPerNm) {
+        EdgeCriteria.Builder builder = new EdgeCriteria.Builder(graph, cruisingKnots, fuelKgPerNm);
+        for (Map.Entry<Long, Lane> entry : lanes.entrySet()) {
+            int from = (int) (entry.getKey() >>> 32);
+            int to = (int) (long) entry.getKey();
+            if (from >= graph.nodeCount() || to >= graph.nodeCount()) {
+                continue;
+            }
+            int weight = graph.weight(from, to);
+            if (weight == PortGraph.NO_EDGE) {
+                continue;
+            }
+            Lane lane = entry.getValue();
+            double speed = (Double.isNaN(lane.speedKnots) ? cruisingKnots : lane.speedKnots)
+                    * meanPercent(lane, period) / 100;
+            double overGround = speed + lane.currentKnots;
+            if (!(overGround > 0)) {
+                throw new IllegalArgumentException("Lane " + from + " -> " + to + " makes no headway");
+            }
+            double hours = weight / overGround;
+            double ratio = speed / cruisingKnots;
+            double fuel = fuelKgPerNm * cruisingKnots * ratio * ratio * ratio * lane.fuelFactor * hours;
+            builder.set(from, to, (int) Math.round(fuel), (int) Math.round(hours * 60));
+        }
+        return builder.build();
+    }
+
+    // The lane's speed percent averaged over the period, interpolated as its seasons are.
+    private static double meanPercent(Lane lane, int period) {
+        int[] times = lane.seasonTimes;
+        int[] percents = lane.seasonPercents;
+        if (times.length == 1) {
+            return percents[0];
+        }
+        double area = 0;
+        for (int i = 0; i < times.length; i++) {
+            int next = (i + 1) % times.length;
+            long span = next == 0 ? times[0] + (long) period - times[i] : times[next] - times[i];
+            area += span * (percents[i] + percents[next]) / 2.0;
+        }
+        return area / period;
+    }
+
+    /**
+     * Reads conditions for graph, one lane per line:
+     * {@code <from> <to> [speed=<knots>] [current=<knots>] [fuel=<factor>] [season=<day>:<percent>,...]},
+     * with ports given by UN/LOCODE or node id and {@code #} starting a comment.
+     * Seasons give the speed in percent from each day of the year on. Every
+     * lane of graph must make headway in all seasons and, at the engine's
+     * cruising speed, never arrive earlier for leaving later; the error names
+     * the last line on the lane otherwise.
+     */
+    static LaneConditions read(Path file, PortGraph graph) throws IOException {
+        Builder builder = new Builder();
+        Map<Long, Integer> rows = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String line;
+            int row = 0;
+            while ((line = reader.readLine()) != null) {
+                row++;
+                int comment = line.indexOf('#');
+                String[] fields = (comment >= 0 ? line.substring(0, comment) : line).trim().split("\\s+");
+                if (fields[0].isEmpty()) {
+                    continue;
+                }
+                String where = file + ":" + row;
+                if (fields.length < 3) {
+                    throw new IOException(where + ": expected two ports and at least one condition");
+                }
+                try {
+                    int from = port(graph, fields[0], where);
+                    int to = port(graph, fields[1], where);
+                    rows.put((long) from << 32 | to, row);
+                    for (int i = 2; i < fields.length; i++) {
+                        int equals = fields[i].indexOf('=');
+                        String key = equals < 0 ? fields[i] : fields[i].substring(0, equals);
+                        String value = fields[i].substring(equals + 1);
+                        switch (key) {
+                            case "speed" -> builder.speed(from, to, Double.parseDouble(value));
+                            case "current" -> builder.current(from, to, Double.parseDouble(value));
+                            case "fuel" -> builder.fuel(from, to, Double.parseDouble(value));
+                            case "season" -> {
+                                String[] points = value.split(",");
+                                int[] minutes = new int[points.length];
+                                int[] percents = new int[points.length];
+                                for (int p = 0; p < points.length; p++) {
+                                    String[] point = points[p].split(":");
+                                    if (point.length != 2) {
+                                        throw new IllegalArgumentException("season point '" + points[p] + "' is not <day>:<percent>");
+                                    }
+                                    minutes[p] = Integer.parseInt(point[0]) * MINUTES_PER_DAY;
+                                    percents[p] = Integer.parseInt(point[1]);
+                                }
+                                builder.season(from, to, minutes, percents);
+                            }
+                            default -> throw new IllegalArgumentException("unknown condition '" + fields[i] + "'");
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    throw new IOException(where + ": " + e.getMessage(), e);
+                }
+            }
+        }
+        // Checks the profiles the engine will build, once all lines on a lane are in.
+        TimeDependentCosts.Builder costs = new TimeDependentCosts.Builder(graph, PERIOD_MINUTES,
+                RoutingEngine.CRUISING_SPEED_KNOTS);
+        for (Map.Entry<Long, Lane> entry : builder.lanes.entrySet()) {
+            int from = (int) (entry.getKey() >>> 32);
+            int to = (int) (long) entry.getKey();
+            int weight = graph.weight(from, to);
+            if (weight == PortGraph.NO_EDGE) {
+                continue;
+            }
+            Lane lane = entry.getValue();
+            try {
+                costs.addProfile(lane.seasonTimes,
+                        durations(lane, from, to, weight, RoutingEngine.CRUISING_SPEED_KNOTS));
+            } catch (IllegalArgumentException e) {
+                throw new IOException(file + ":" + rows.get(entry.getKey()) + ": lane " + graph.name(from) + " -> "
+                        + graph.name(to) + ": " + e.getMessage(), e);
+            }
+        }
+        return builder.build();
+    }
+
+    private static int port(PortGraph graph, String text, String where) throws IOException {
+        int node;
+        if (text.chars().allMatch(Character::isDigit)) {
+            int id = Integer.parseInt(text);
+            node = id < graph.nodeCount() ? id : PortRegistry.NOT_FOUND;
+        } else {
+            node = graph.registry().byLocode(text);
+        }
+        if (node == PortRegistry.NOT_FOUND) {
+            throw new IOException(where + ": unknown port '" + text + "'");
+        }
+        return node;
+    }
+
+    static final class Builder {
+        private final Map<Long, Lane> lanes = new HashMap<>();
+
+        // The lane's speed through the water, instead of the cruising speed.
+        Builder speed(int from, int to, double knots) {
+            if (!(knots > 0)) {
+                throw new IllegalArgumentException("Speed must be positive");
+            }
+            lane(from, to).speedKnots = knots;
+            return this;
+        }
+
+        // A current along the lane, added to the speed; negative against it.
+        Builder current(int from, int to, double knots) {
+            if (!Double.isFinite(knots)) {
+                throw new IllegalArgumentException("Current must be finite");
+            }
+            lane(from, to).currentKnots = knots;
+            return this;
+        }
+
+        // A factor on the lane's fuel burn, e.g. for low-sulphur fuel or heavy weather.
+        Builder fuel(int from, int to, double factor) {
+            if (!(factor > 0) || Double.isInfinite(factor)) {
+                throw new IllegalArgumentException("Fuel factor must be positive");
+            }
+            lane(from, to).fuelFactor = factor;
+            return this;
+        }
+
+        /**
+         * Speed in percent of the lane's own when departing at minutes[i] of the
+         * period, interpolated in between; minutes must be strictly increasing
+         * within the year of {@link #PERIOD_MINUTES}.
+         */
+        Builder season(int from, int to, int[] minutes, int[] speedPercents) {
+            if (minutes.length == 0 || speedPercents.length != minutes.length) {
+                throw new IllegalArgumentException("A season needs matching, non-empty breakpoints");
+            }
+            for (int i = 0; i < minutes.length; i++) {
+                if (minutes[i] < 0 || minutes[i] >= PERIOD_MINUTES || (i > 0 && minutes[i] <= minutes[i - 1])
+                        || speedPercents[i] <= 0) {
+                    throw new IllegalArgumentException("Season breakpoint " + i + " is out of order or out of range");
+                }
+            }
+            Lane lane = lane(from, to);
+            lane.seasonTimes = minutes.clone();
+            lane.seasonPercents = speedPercents.clone();
+            return this;
+        }
+
+        private Lane lane(int from, int to) {
+            if (from < 0 || to < 0) {
+                throw new IllegalArgumentException("No lane " + from + " -> " + to);
+            }
+            return lanes.computeIfAbsent((long) from << 32 | to, key -> new Lane());
+        }
+
+        LaneConditions build() {
+            Map<Long, Lane> copy = new HashMap<>();
+            for (Map.Entry<Long, Lane> entry : lanes.entrySet()) {
+                Lane lane = new Lane();
+                lane.speedKnots = entry.getValue().speedKnots;
+                lane.currentKnots = entry.getValue().currentKnots;
+                lane.fuelFactor = entry.getValue().fuelFactor;
+                lane.seasonTimes = entry.getValue().seasonTimes;
+                lane.seasonPercents = entry.getValue().seasonPercents;
+                copy.put(entry.getKey(), lane);
+            }
+            return new LaneConditions(copy);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package Shipping;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrent histogram of nanosecond latencies in the HdrHistogram layout:
+ * each power of two is split into 64 linear sub-buckets, so a percentile is
+ * reported within 1/64 of the recorded value from one nanosecond to over an
+ * hour, in a fixed array of about 2,400 counts. Recording is lock-free.
+ */
+final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_MAGNITUDE = 36; // 2^42 ns, about 73 minutes
+    static final long MAX_VALUE = (1L << (MAX_MAGNITUDE + SUB_BUCKET_BITS + 1)) - 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray((MAX_MAGNITUDE + 2) * SUB_BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    void record(long nanos) {
+        long value = Math.max(0, Math.min(MAX_VALUE, nanos));
+        counts.incrementAndGet(index(value));
+        count.increment();
+        sum.add(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    long count() {
+        return count.sum();
+    }
+
+    double meanNanos() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    long maxNanos() {
+        return max.get();
+    }
+
+    // The smallest recorded value that percentile percent of values do not exceed, or 0 if empty.
+    long percentileNanos(double percentile) {
+        long total = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            total += counts.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestValue(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    // Values below 128 get a slot each; above, the top seven bits select one of 64 slots per power of two.
+    static int index(long value) {
+        int magnitude = Math.max(0, 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS);
+        return (magnitude << SUB_BUCKET_BITS) + (int) (value >>> magnitude);
+    }
+
+    // The largest value that falls into the slot.
+    static long highestValue(int index) {
+        int magnitude = Math.max(0, (index >> SUB_BUCKET_BITS) - 1);
+        long subBucket = index - ((long) magnitude << SUB_BUCKET_BITS);
+        return (subBucket << magnitude) + (1L << magnitude) - 1;
+    }
+}
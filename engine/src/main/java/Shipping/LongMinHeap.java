@@ -0,0 +1,82 @@
+package Shipping;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of primitive longs. Searches pack (key << 32 | node) into
+ * one long so that ordering by value orders by key without any boxing.
+ */
+final class LongMinHeap {
+    private long[] heap;
+    private int size;
+
+    LongMinHeap(int capacity) {
+        heap = new long[Math.max(capacity, 16)];
+    }
+
+    static long pack(int key, int node) {
+        return ((long) key << 32) | (node & 0xFFFFFFFFL);
+    }
+
+    static int key(long entry) {
+        return (int) (entry >> 32);
+    }
+
+    static int node(long entry) {
+        return (int) entry;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    void add(long value) {
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= value) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = value;
+    }
+
+    long peek() {
+        return heap[0];
+    }
+
+    long poll() {
+        long result = heap[0];
+        long last = heap[--size];
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (last <= heap[child]) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        if (size > 0) {
+            heap[i] = last;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,444 @@
+package Shipping;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Converts a port network from CSV or GeoJSON into a {@link NetworkFile}.
+ *
+ * CSV input is two files with header rows: ports (name, locode, latitude,
+ * longitude; locode may be empty) and edges (from, to, weight), where from
+ * and to are port names. GeoJSON input is one FeatureCollection of Point
+ * features with name and locode properties, and LineString features with
+ * from, to and weight properties. A missing weight defaults to the
+ * great-circle length in nautical miles of the edge, or of its LineString.
+ *
+ * Edges are directed. Before anything is written the network is validated:
+ * edges to unknown ports, duplicate names, and edges whose reverse edge has
+ * a different weight are rejected; the last check can be relaxed with
+ * --allow-asymmetric for lanes that really differ by direction.
+ */
+final class NetworkConverter {
+    private final List<String> errors = new ArrayList<>();
+    private final List<String> names = new ArrayList<>();
+    private final List<String> locodes = new ArrayList<>();
+    private final List<double[]> positions = new ArrayList<>();
+    private final Map<String, Integer> portIds = new HashMap<>();
+    private final List<int[]> edges = new ArrayList<>();
+    private final List<String> edgeLabels = new ArrayList<>();
+
+    private void addPort(String name, String locode, double latitude, double longitude, String where) {
+        if (name == null || name.isEmpty()) {
+            errors.add(where + ": port without a name");
+            return;
+        }
+        if (portIds.putIfAbsent(name, names.size()) != null) {
+            errors.add(where + ": duplicate port name '" + name + "'");
+            return;
+        }
+        if (locode != null && !locode.isEmpty() && PortRegistry.normalizeLocode(locode) == null) {
+            errors.add(where + ": malformed UN/LOCODE '" + locode + "' for " + name);
+            locode = null;
+        }
+        if (!(latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180)) {
+            errors.add(where + ": position " + latitude + ", " + longitude + " of " + name + " is out of range");
+        }
+        names.add(name);
+        locodes.add(locode == null || locode.isEmpty() ? null : locode);
+        positions.add(new double[] {latitude, longitude});
+    }
+
+    // A negative weight asks for the great-circle distance between the endpoints.
+    private void addEdge(String from, String to, int weight, String where) {
+        Integer source = portIds.get(from);
+        Integer target = portIds.get(to);
+        if (source == null || target == null) {
+            errors.add(where + ": dangling edge " + from + " -> " + to + ", unknown port '"
+                    + (source == null ? from : to) + "'");
+            return;
+        }
+        if (weight < 0) {
+            double[] a = positions.get(source);
+            double[] b = positions.get(target);
+            weight = (int) Math.round(GreatCircleHeuristic.distanceNm(a[0], a[1], b[0], b[1]));
+        }
+        edges.add(new int[] {source, target, weight});
+        edgeLabels.add(where);
+    }
+
+    // Flags edges whose reverse edge exists with a different weight; one-way edges are allowed.
+    private void checkSymmetry() {
+        Map<Long, Integer> weights = new HashMap<>(edges.size() * 4 / 3 + 1);
+        for (int[] edge : edges) {
+            weights.put(((long) edge[0] << 32) | edge[1], edge[2]);
+        }
+        for (int i = 0; i < edges.size(); i++) {
+            int[] edge = edges.get(i);
+            Integer reverse = weights.get(((long) edge[1] << 32) | edge[0]);
+            if (edge[0] < edge[1] && reverse != null && reverse != edge[2]) {
+                errors.add(edgeLabels.get(i) + ": asymmetric weights " + names.get(edge[0]) + " -> "
+                        + names.get(edge[1]) + " = " + edge[2] + " but reverse = " + reverse);
+            }
+        }
+    }
+
+    private PortGraph build() {
+        PortGraph.Builder builder = new PortGraph.Builder();
+        for (int i = 0; i < names.size(); i++) {
+            builder.addNode(names.get(i), locodes.get(i), positions.get(i)[0], positions.get(i)[1]);
+        }
+        for (int[] edge : edges) {
+            builder.addEdge(edge[0], edge[1], edge[2]);
+        }
+        return builder.build();
+    }
+
+    void readCsv(Path portsFile, Path edgesFile) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(portsFile, StandardCharsets.UTF_8)) {
+            Map<String, Integer> columns = csvHeader(reader, portsFile, "name", "locode", "latitude", "longitude");
+            String line;
+            for (int row = 2; (line = reader.readLine()) != null; row++) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                String where = portsFile.getFileName() + ":" + row;
+                List<String> fields = csvFields(line);
+                try {
+                    addPort(field(fields, columns, "name"), field(fields, columns, "locode"),
+                            Double.parseDouble(field(fields, columns, "latitude")),
+                            Double.parseDouble(field(fields, columns, "longitude")), where);
+                } catch (RuntimeException e) {
+                    errors.add(where + ": unreadable port row: " + e.getMessage());
+                }
+            }
+        }
+        try (BufferedReader reader = Files.newBufferedReader(edgesFile, StandardCharsets.UTF_8)) {
+            Map<String, Integer> columns = csvHeader(reader, edgesFile, "from", "to", "weight");
+            String line;
+            for (int row = 2; (line = reader.readLine()) != null; row++) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                String where = edgesFile.getFileName() + ":" + row;
+                List<String> fields = csvFields(line);
+                try {
+                    String weight = field(fields, columns, "weight");
+                    addEdge(field(fields, columns, "from"), field(fields, columns, "to"),
+                            weight.isEmpty() ? -1 : parseWeight(weight), where);
+                } catch (RuntimeException e) {
+                    errors.add(where + ": unreadable edge row: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static Map<String, Integer> csvHeader(BufferedReader reader, Path file, String... required) throws IOException {
+        String header = reader.readLine();
+        if (header == null) {
+            throw new IOException(file + " is empty");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> fields = csvFields(header);
+        for (int i = 0; i < fields.size(); i++) {
+            columns.put(fields.get(i).trim().toLowerCase(), i);
+        }
+        for (String column : required) {
+            if (!columns.containsKey(column)) {
+                throw new IOException(file + " has no '" + column + "' column");
+            }
+        }
+        return columns;
+    }
+
+    private static String field(List<String> fields, Map<String, Integer> columns, String column) {
+        int index = columns.get(column);
+        return index < fields.size() ? fields.get(index).trim() : "";
+    }
+
+    // Splits one CSV line; fields may be double-quoted, with "" for a literal quote.
+    private static List<String> csvFields(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static int parseWeight(String text) {
+        long weight = Math.round(Double.parseDouble(text));
+        if (weight < 0 || weight > Integer.MAX_VALUE / 2) {
+            throw new IllegalArgumentException("weight " + text + " is out of range");
+        }
+        return (int) weight;
+    }
+
+    @SuppressWarnings("unchecked")
+    void readGeoJson(Path file) throws IOException {
+        Object root = new JsonReader(Files.readString(file, StandardCharsets.UTF_8)).read();
+        if (!(root instanceof Map) || !"FeatureCollection".equals(((Map<String, Object>) root).get("type"))) {
+            throw new IOException(file + " is not a GeoJSON FeatureCollection");
+        }
+        List<Object> features = (List<Object>) ((Map<String, Object>) root).get("features");
+        // Ports first, so edges may appear anywhere in the collection.
+        for (int pass = 0; pass < 2; pass++) {
+            for (int i = 0; i < features.size(); i++) {
+                String where = file.getFileName() + " feature " + i;
+                try {
+                    Map<String, Object> feature = (Map<String, Object>) features.get(i);
+                    Map<String, Object> geometry = (Map<String, Object>) feature.get("geometry");
+                    Map<String, Object> properties = (Map<String, Object>) feature.get("properties");
+                    String type = (String) geometry.get("type");
+                    List<Object> coordinates = (List<Object>) geometry.get("coordinates");
+                    if (pass == 0 && "Point".equals(type)) {
+                        addPort((String) properties.get("name"), (String) properties.get("locode"),
+                                ((Number) coordinates.get(1)).doubleValue(),
+                                ((Number) coordinates.get(0)).doubleValue(), where);
+                    } else if (pass == 1 && "LineString".equals(type)) {
+                        Object weight = properties.get("weight");
+                        addEdge((String) properties.get("from"), (String) properties.get("to"),
+                                weight == null ? lineLength(coordinates) : parseWeight(weight.toString()), where);
+                    } else if (pass == 0 && !"LineString".equals(type)) {
+                        errors.add(where + ": unsupported geometry " + type);
+                    }
+                } catch (RuntimeException e) {
+                    errors.add(where + ": unreadable feature: " + e);
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int lineLength(List<Object> coordinates) {
+        double length = 0;
+        for (int i = 1; i < coordinates.size(); i++) {
+            List<Number> a = (List<Number>) coordinates.get(i - 1);
+            List<Number> b = (List<Number>) coordinates.get(i);
+            length += GreatCircleHeuristic.distanceNm(a.get(1).doubleValue(), a.get(0).doubleValue(),
+                    b.get(1).doubleValue(), b.get(0).doubleValue());
+        }
+        return (int) Math.round(length);
+    }
+
+    /** Just enough JSON for GeoJSON: objects, arrays, strings, numbers, booleans and null. */
+    private static final class JsonReader {
+        private final String text;
+        private int pos;
+
+        JsonReader(String text) {
+            this.text = text;
+        }
+
+        Object read() throws IOException {
+            Object value = value();
+            skipWhitespace();
+            if (pos != text.length()) {
+                throw error("trailing content");
+            }
+            return value;
+        }
+
+        private Object value() throws IOException {
+            skipWhitespace();
+            if (pos == text.length()) {
+                throw error("unexpected end of input");
+            }
+            char c = text.charAt(pos);
+            if (c == '{') {
+                pos++;
+                Map<String, Object> object = new LinkedHashMap<>();
+                if (consume('}')) {
+                    return object;
+                }
+                do {
+                    skipWhitespace();
+                    String key = string();
+                    expect(':');
+                    object.put(key, value());
+                } while (consume(','));
+                expect('}');
+                return object;
+            }
+            if (c == '[') {
+                pos++;
+                List<Object> array = new ArrayList<>();
+                if (consume(']')) {
+                    return array;
+                }
+                do {
+                    array.add(value());
+                } while (consume(','));
+                expect(']');
+                return array;
+            }
+            if (c == '"') {
+                return string();
+            }
+            if (text.startsWith("true", pos)) {
+                pos += 4;
+                return Boolean.TRUE;
+            }
+            if (text.startsWith("false", pos)) {
+                pos += 5;
+                return Boolean.FALSE;
+            }
+            if (text.startsWith("null", pos)) {
+                pos += 4;
+                return null;
+            }
+            int start = pos;
+            while (pos < text.length() && "+-.eE0123456789".indexOf(text.charAt(pos)) >= 0) {
+                pos++;
+            }
+            try {
+                return Double.parseDouble(text.substring(start, pos));
+            } catch (NumberFormatException e) {
+                throw error("unexpected character '" + c + "'");
+            }
+        }
+
+        private String string() throws IOException {
+            if (pos == text.length() || text.charAt(pos) != '"') {
+                throw error("expected a string");
+            }
+            StringBuilder result = new StringBuilder();
+            for (pos++; pos < text.length(); pos++) {
+                char c = text.charAt(pos);
+                if (c == '"') {
+                    pos++;
+                    return result.toString();
+                }
+                if (c == '\\' && pos + 1 < text.length()) {
+                    char escape = text.charAt(++pos);
+                    switch (escape) {
+                        case 'n': result.append('\n'); break;
+                        case 't': result.append('\t'); break;
+                        case 'r': result.append('\r'); break;
+                        case 'b': result.append('\b'); break;
+                        case 'f': result.append('\f'); break;
+                        case 'u':
+                            if (pos + 4 >= text.length()) {
+                                throw error("truncated unicode escape");
+                            }
+                            result.append((char) Integer.parseInt(text.substring(pos + 1, pos + 5), 16));
+                            pos += 4;
+                            break;
+                        default: result.append(escape);
+                    }
+                } else {
+                    result.append(c);
+                }
+            }
+            throw error("unterminated string");
+        }
+
+        private void skipWhitespace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private boolean consume(char c) {
+            skipWhitespace();
+            if (pos < text.length() && text.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) throws IOException {
+            if (!consume(c)) {
+                throw error("expected '" + c + "'");
+            }
+        }
+
+        private IOException error(String message) {
+            return new IOException("Malformed JSON at offset " + pos + ": " + message);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        List<String> files = new ArrayList<>();
+        boolean allowAsymmetric = false;
+        for (String arg : args) {
+            if (arg.equals("--allow-asymmetric")) {
+                allowAsymmetric = true;
+            } else {
+                files.add(arg);
+            }
+        }
+        NetworkConverter converter = new NetworkConverter();
+        PortGraph graph;
+        Path output;
+        if (files.size() == 2 && files.get(0).equals("--builtin")) {
+            graph = SampleNetwork.graph();
+            output = Paths.get(files.get(1));
+        } else if (files.size() == 2) {
+            converter.readGeoJson(Paths.get(files.get(0)));
+            output = Paths.get(files.get(1));
+            graph = null;
+        } else if (files.size() == 3) {
+            converter.readCsv(Paths.get(files.get(0)), Paths.get(files.get(1)));
+            output = Paths.get(files.get(2));
+            graph = null;
+        } else {
+            System.err.println("Usage: java Shipping.NetworkConverter [--allow-asymmetric] <ports.csv> <edges.csv> <output.snet>");
+            System.err.println("       java Shipping.NetworkConverter [--allow-asymmetric] <network.geojson> <output.snet>");
+            System.err.println("       java Shipping.NetworkConverter --builtin <output.snet>");
+            System.exit(2);
+            return;
+        }
+
+        if (graph == null) {
+            int before = converter.errors.size();
+            converter.checkSymmetry();
+            if (allowAsymmetric) {
+                for (String warning : converter.errors.subList(before, converter.errors.size())) {
+                    System.err.println("warning: " + warning);
+                }
+                converter.errors.subList(before, converter.errors.size()).clear();
+            }
+            if (!converter.errors.isEmpty()) {
+                for (String error : converter.errors) {
+                    System.err.println("error: " + error);
+                }
+                System.err.println(converter.errors.size() + " problem(s), nothing written");
+                System.exit(1);
+            }
+            graph = converter.build();
+        }
+        long started = System.nanoTime();
+        NetworkFile.write(graph, output);
+        System.out.printf("Wrote %d ports, %d edges in %.1f ms -> %s%n",
+                graph.nodeCount(), graph.edgeCount(), (System.nanoTime() - started) / 1e6, output);
+    }
+}
@@ -0,0 +1,171 @@
+package Shipping;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Binary port network file, written by {@link NetworkConverter} and memory
+ * mapped at startup instead of building the network in code.
+ *
+ * Layout, little-endian: a 32-byte header (magic "SNET", version, node count,
+ * edge count, label byte count, reserved, graph fingerprint), then latitudes
+ * and longitudes as doubles, the CSR offsets, targets and weights as ints,
+ * 2n + 1 label start offsets (n names followed by n UN/LOCODEs, an empty
+ * UN/LOCODE meaning none) and finally the UTF-8 label bytes. The numeric
+ * arrays are bulk-copied out of the mapping; labels stay in it until used.
+ */
+final class NetworkFile {
+    private static final int MAGIC = 0x534e4554; // "SNET"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+
+    private NetworkFile() {
+    }
+
+    static void write(PortGraph graph, Path file) throws IOException {
+        int n = graph.nodeCount();
+        int m = graph.edgeCount();
+        int[] labelStarts = new int[2 * n + 1];
+        byte[] labels = new byte[Math.max(16, 8 * n)];
+        int labelBytes = 0;
+        for (int i = 0; i < 2 * n; i++) {
+            String label = i < n ? graph.name(i) : graph.locode(i - n);
+            byte[] bytes = label == null ? new byte[0] : label.getBytes(StandardCharsets.UTF_8);
+            if (labelBytes + bytes.length > labels.length) {
+                labels = Arrays.copyOf(labels, Math.max(labels.length * 2, labelBytes + bytes.length));
+            }
+            System.arraycopy(bytes, 0, labels, labelBytes, bytes.length);
+            labelBytes += bytes.length;
+            labelStarts[i + 1] = labelBytes;
+        }
+
+        long size = HEADER_BYTES + 16L * n + 4L * (n + 1 + 2L * m + labelStarts.length) + labelBytes;
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Network of " + size + " bytes is too large for a single mapping");
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(n).putInt(m);
+            buffer.putInt(labelBytes).putInt(0).putLong(graph.fingerprint());
+            DoubleBuffer doubles = buffer.asDoubleBuffer();
+            for (int node = 0; node < n; node++) {
+                doubles.put(graph.latitude(node));
+            }
+            for (int node = 0; node < n; node++) {
+                doubles.put(graph.longitude(node));
+            }
+            buffer.position(HEADER_BYTES + 16 * n);
+            IntBuffer ints = buffer.asIntBuffer();
+            ints.put(graph.offsets).put(graph.targets).put(graph.weights.toArray()).put(labelStarts);
+            buffer.position(buffer.position() + 4 * ints.position());
+            buffer.put(labels, 0, labelBytes);
+            buffer.force();
+        }
+    }
+
+    static PortGraph read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(file + " is too large for a single mapping");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC) {
+                throw new IOException(file + " is not a port network file");
+            }
+            int version = buffer.getInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException(file + " has unsupported port network format version " + version);
+            }
+            int n = buffer.getInt();
+            int m = buffer.getInt();
+            int labelBytes = buffer.getInt();
+            buffer.getInt(); // reserved
+            long fingerprint = buffer.getLong();
+            long expectedSize = HEADER_BYTES + 16L * n + 4L * (n + 1 + 2L * m + 2L * n + 1) + labelBytes;
+            if (n < 0 || m < 0 || labelBytes < 0 || channel.size() != expectedSize) {
+                throw new IOException(file + " is truncated or corrupt");
+            }
+
+            DoubleBuffer doubles = buffer.asDoubleBuffer();
+            double[] latitudes = new double[n];
+            double[] longitudes = new double[n];
+            doubles.get(latitudes).get(longitudes);
+
+            int intsStart = HEADER_BYTES + 16 * n;
+            IntBuffer ints = buffer.position(intsStart).asIntBuffer();
+            int[] offsets = take(ints, n + 1);
+            int[] targets = take(ints, m);
+            int[] weights = take(ints, m);
+            int startsIndex = ints.position();
+            checkOffsets(file, "edge", offsets, m);
+            checkNodes(file, "edge target", targets, n);
+            checkNonNegative(file, "edge weight", weights);
+            for (int u = 0; u < n; u++) {
+                for (int e = offsets[u] + 1; e < offsets[u + 1]; e++) {
+                    if (targets[e] <= targets[e - 1]) {
+                        throw new IOException(file + " is corrupt: edges of node " + u + " are not sorted by target");
+                    }
+                }
+            }
+            int[] labelStarts = new int[2 * n + 1];
+            ints.get(labelStarts);
+            checkOffsets(file, "label", labelStarts, labelBytes);
+            ByteBuffer utf8 = buffer.slice(intsStart + 4 * (startsIndex + 2 * n + 1), labelBytes);
+            LabelTable names = LabelTable.mapped(utf8, ints.slice(startsIndex, n + 1), false);
+            LabelTable locodes = LabelTable.mapped(utf8, ints.slice(startsIndex + n, n + 1), true);
+
+            PortGraph graph = new PortGraph(offsets, targets, weights, names, locodes, latitudes, longitudes);
+            if (graph.fingerprint() != fingerprint) {
+                throw new IOException(file + " is corrupt: graph fingerprint does not match");
+            }
+            return graph;
+        }
+    }
+
+    // Checks that CSR offsets start at 0, never decrease and end at count.
+    static void checkOffsets(Path file, String what, int[] offsets, int count) throws IOException {
+        if (offsets[0] != 0 || offsets[offsets.length - 1] != count) {
+            throw new IOException(file + " is corrupt: " + what + " offsets do not span 0 .. " + count);
+        }
+        for (int i = 1; i < offsets.length; i++) {
+            if (offsets[i] < offsets[i - 1]) {
+                throw new IOException(file + " is corrupt: " + what + " offsets decrease at " + i);
+            }
+        }
+    }
+
+    static void checkNodes(Path file, String what, int[] nodes, int nodeCount) throws IOException {
+        for (int i = 0; i < nodes.length; i++) {
+            if (nodes[i] < 0 || nodes[i] >= nodeCount) {
+                throw new IOException(file + " is corrupt: " + what + " " + i + " is node " + nodes[i]
+                        + " of " + nodeCount);
+            }
+        }
+    }
+
+    static void checkNonNegative(Path file, String what, int[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] < 0) {
+                throw new IOException(file + " is corrupt: " + what + " " + i + " is negative");
+            }
+        }
+    }
+
+    private static int[] take(IntBuffer ints, int length) {
+        int[] values = new int[length];
+        ints.get(values);
+        return values;
+    }
+}
@@ -0,0 +1,19 @@
+package Shipping;
+
+/**
+ * One route of a Pareto frontier: no other route found is at least as good in
+ * distance, fuel and time and better in one of them.
+ */
+final class ParetoRoute {
+    final int[] nodes;
+    final int distance;
+    final int fuel;
+    final int time;
+
+    ParetoRoute(int[] nodes, int distance, int fuel, int time) {
+        this.nodes = nodes;
+        this.distance = distance;
+        this.fuel = fuel;
+        this.time = time;
+    }
+}
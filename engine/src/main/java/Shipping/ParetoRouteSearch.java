@@ -0,0 +1,233 @@
+package Shipping;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Multi-criteria label-setting search (Martins' algorithm) over distance,
+ * fuel and time. Each node keeps a set of mutually non-dominated labels, and
+ * labels leave the queue in order of distance plus its great-circle bound.
+ *
+ * Three rules keep it tractable on large graphs:
+ * - epsilon-dominance: a label is dropped when a label at the same node is
+ *   within a factor (1 + epsilon) of it in every criterion, so the frontier is
+ *   (1 + epsilon)-approximate but its size is bounded;
+ * - target pruning: a label is dropped when it plus the per-criterion
+ *   great-circle lower bounds to the target is dominated at the target;
+ * - caps on the labels per node and on the labels per query.
+ *
+ * Safe for concurrent use: each query borrows a label store from a pool, so
+ * concurrent queries get one each and a thread only reuses one a finished
+ * query returned. Stores reset in O(1) by stamping their per-node lists with
+ * an epoch, like {@link SearchContext}.
+ */
+final class ParetoRouteSearch {
+    private static final int NONE = -1;
+
+    private final EdgeCriteria criteria;
+    private final PortGraph graph;
+    private final int maxLabelsPerNode;
+    private final double slack;
+    private final int maxLabels;
+    private final ConcurrentLinkedQueue<Labels> pool = new ConcurrentLinkedQueue<>();
+
+    ParetoRouteSearch(EdgeCriteria criteria) {
+        this(criteria, 16, 0.01, 1 << 21);
+    }
+
+    ParetoRouteSearch(EdgeCriteria criteria, int maxLabelsPerNode, double epsilon, int maxLabels) {
+        if (maxLabelsPerNode < 1 || epsilon < 0 || maxLabels < 1) {
+            throw new IllegalArgumentException("Invalid Pareto search limits");
+        }
+        this.criteria = criteria;
+        this.graph = criteria.graph;
+        this.maxLabelsPerNode = maxLabelsPerNode;
+        this.slack = 1 + epsilon;
+        this.maxLabels = maxLabels;
+    }
+
+    PortGraph graph() {
+        return graph;
+    }
+
+    // Returns the Pareto frontier from source to target ordered by distance, or an empty list if unreachable.
+    List<ParetoRoute> frontier(int source, int target) {
+        Labels labels = pool.poll();
+        if (labels == null) {
+            labels = new Labels(graph.nodeCount());
+        }
+        try {
+            return frontier(labels, source, target);
+        } finally {
+            pool.offer(labels);
+        }
+    }
+
+    private List<ParetoRoute> frontier(Labels labels, int source, int target) {
+        int[] offsets = graph.offsets;
+        int[] targets = graph.targets;
+        EdgeWeights weights = graph.weights;
+        int[] edgeFuel = criteria.fuel;
+        int[] edgeTime = criteria.time;
+        GreatCircleHeuristic distanceBound = graph.heuristic();
+        GreatCircleHeuristic fuelBound = criteria.fuelBound;
+        GreatCircleHeuristic timeBound = criteria.timeBound;
+
+        labels.begin();
+        LongMinHeap queue = labels.queue;
+        int first = labels.insert(source, 0, 0, 0, NONE);
+        queue.add(LongMinHeap.pack(distanceBound.lowerBound(source, target), first));
+        // Settled labels, relaxed edges and queue operations, for instrumentation.
+        long settled = 0;
+        long relaxed = 0;
+        long queueOperations = 1;
+        while (!queue.isEmpty() && labels.count < maxLabels) {
+            int label = LongMinHeap.node(queue.poll());
+            int node = labels.nodes[label];
+            queueOperations++;
+            if (labels.dead[label] || node == target) {
+                continue;
+            }
+            settled++;
+            relaxed += offsets[node + 1] - offsets[node];
+            for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                int neighbor = targets[e];
+                int distance = labels.distances[label] + weights.get(e);
+                int fuel = labels.fuels[label] + edgeFuel[e];
+                int time = labels.times[label] + edgeTime[e];
+                int distanceToGo = distanceBound.lowerBound(neighbor, target);
+                if (labels.dominatedAt(target, (long) distance + distanceToGo,
+                        (long) fuel + fuelBound.lowerBound(neighbor, target),
+                        (long) time + timeBound.lowerBound(neighbor, target))) {
+                    continue;
+                }
+                int added = labels.insert(neighbor, distance, fuel, time, label);
+                if (added != NONE) {
+                    queue.add(LongMinHeap.pack(distance + distanceToGo, added));
+                    queueOperations++;
+                }
+            }
+        }
+
+        SearchContext.current(graph.nodeCount()).addWork(settled, relaxed, queueOperations);
+        List<ParetoRoute> frontier = new ArrayList<>();
+        for (int label = labels.head(target); label != NONE; label = labels.nextAtNode[label]) {
+            frontier.add(new ParetoRoute(labels.path(label), labels.distances[label], labels.fuels[label],
+                    labels.times[label]));
+        }
+        frontier.sort(Comparator.comparingInt((ParetoRoute route) -> route.distance)
+                .thenComparingInt(route -> route.fuel).thenComparingInt(route -> route.time));
+        return frontier;
+    }
+
+    // One query's labels, as parallel arrays indexed by label id, with a list of live labels per node.
+    private final class Labels {
+        int[] distances = new int[1024];
+        int[] fuels = new int[1024];
+        int[] times = new int[1024];
+        int[] nodes = new int[1024];
+        int[] parents = new int[1024];
+        int[] nextAtNode = new int[1024];
+        boolean[] dead = new boolean[1024];
+        int count;
+        final LongMinHeap queue = new LongMinHeap(64);
+        // A node's list head and size are only valid when stamped with the current epoch.
+        private final int[] heads;
+        private final int[] counts;
+        private final int[] stamps;
+        private int epoch;
+
+        Labels(int nodeCount) {
+            heads = new int[nodeCount];
+            counts = new int[nodeCount];
+            stamps = new int[nodeCount];
+        }
+
+        void begin() {
+            count = 0;
+            queue.clear();
+            if (++epoch == 0) {
+                Arrays.fill(stamps, 0);
+                epoch = 1;
+            }
+        }
+
+        int head(int node) {
+            return stamps[node] == epoch ? heads[node] : NONE;
+        }
+
+        // Whether a label at the node within slack of (distance, fuel, time) already exists.
+        boolean dominatedAt(int node, long distance, long fuel, long time) {
+            for (int label = head(node); label != NONE; label = nextAtNode[label]) {
+                if (distances[label] <= slack * distance && fuels[label] <= slack * fuel && times[label] <= slack * time) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // Adds a label unless it is epsilon-dominated or the node is full; removes the labels it dominates.
+        int insert(int node, int distance, int fuel, int time, int parent) {
+            if (stamps[node] != epoch) {
+                stamps[node] = epoch;
+                heads[node] = NONE;
+                counts[node] = 0;
+            } else if (dominatedAt(node, distance, fuel, time)) {
+                return NONE;
+            }
+            int previous = NONE;
+            for (int label = heads[node]; label != NONE; label = nextAtNode[label]) {
+                if (distance <= distances[label] && fuel <= fuels[label] && time <= times[label]) {
+                    dead[label] = true;
+                    counts[node]--;
+                    if (previous == NONE) {
+                        heads[node] = nextAtNode[label];
+                    } else {
+                        nextAtNode[previous] = nextAtNode[label];
+                    }
+                } else {
+                    previous = label;
+                }
+            }
+            if (counts[node] == maxLabelsPerNode) {
+                return NONE;
+            }
+            if (count == nodes.length) {
+                int capacity = count * 2;
+                distances = Arrays.copyOf(distances, capacity);
+                fuels = Arrays.copyOf(fuels, capacity);
+                times = Arrays.copyOf(times, capacity);
+                nodes = Arrays.copyOf(nodes, capacity);
+                parents = Arrays.copyOf(parents, capacity);
+                nextAtNode = Arrays.copyOf(nextAtNode, capacity);
+                dead = Arrays.copyOf(dead, capacity);
+            }
+            int label = count++;
+            distances[label] = distance;
+            fuels[label] = fuel;
+            times[label] = time;
+            nodes[label] = node;
+            parents[label] = parent;
+            dead[label] = false;
+            nextAtNode[label] = heads[node];
+            heads[node] = label;
+            counts[node]++;
+            return label;
+        }
+
+        int[] path(int label) {
+            int length = 0;
+            for (int at = label; at != NONE; at = parents[at]) {
+                length++;
+            }
+            int[] path = new int[length];
+            for (int at = label; at != NONE; at = parents[at]) {
+                path[--length] = nodes[at];
+            }
+            return path;
+        }
+    }
+}
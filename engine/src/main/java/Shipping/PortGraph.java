@@ -0,0 +1,555 @@
+package Shipping;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Frozen, int-indexed port graph in compressed sparse row (CSR) form.
+ * The outgoing edges of node u are the slots offsets[u] .. offsets[u + 1] - 1
+ * of the targets array and the weights, sorted by target id. Versions made by
+ * reweighting share the topology and all weight blocks they do not change.
+ */
+final class PortGraph {
+    static final int NO_EDGE = -1;
+    // Contracts hierarchies off the request path, one at a time.
+    private static final ExecutorService HIERARCHY_BUILDER = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "contraction-hierarchy");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    final int[] offsets;
+    final int[] targets;
+    final EdgeWeights weights;
+    private final LabelTable names;
+    private final LabelTable locodes;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final long version;
+    private volatile PortGraph reverse;
+    private volatile GreatCircleHeuristic heuristic;
+    private volatile ContractionHierarchy contractionHierarchy;
+    private final AtomicBoolean hierarchyScheduled = new AtomicBoolean();
+    // Set once a newer version has been made from this one.
+    private volatile boolean superseded;
+    private volatile PortRegistry registry;
+    private volatile SpatialIndex spatialIndex;
+    // Structures other components derive from this version, by their key.
+    private final ConcurrentHashMap<Object, CompletableFuture<Object>> derived = new ConcurrentHashMap<>();
+
+    PortGraph(int[] offsets, int[] targets, int[] weights,
+              LabelTable names, LabelTable locodes, double[] latitudes, double[] longitudes) {
+        this(offsets, targets, new EdgeWeights(weights), names, locodes, latitudes, longitudes, 0);
+    }
+
+    private PortGraph(int[] offsets, int[] targets, EdgeWeights weights, LabelTable names, LabelTable locodes,
+                      double[] latitudes, double[] longitudes, long version) {
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.names = names;
+        this.locodes = locodes;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.version = version;
+    }
+
+    int nodeCount() {
+        return latitudes.length;
+    }
+
+    int edgeCount() {
+        return targets.length;
+    }
+
+    String name(int node) {
+        return names.get(node);
+    }
+
+    // UN/LOCODE of a port, or null for sea waypoints and ports without one.
+    String locode(int node) {
+        return locodes.get(node);
+    }
+
+    double latitude(int node) {
+        return latitudes[node];
+    }
+
+    double longitude(int node) {
+        return longitudes[node];
+    }
+
+    // Number of edits, or edit batches, between the originally frozen graph and this one.
+    long version() {
+        return version;
+    }
+
+    int degree(int node) {
+        return offsets[node + 1] - offsets[node];
+    }
+
+    // Returns the transposed graph, built on first use.
+    PortGraph reverse() {
+        PortGraph result = reverse;
+        if (result == null) {
+            int n = nodeCount();
+            int[] reverseOffsets = new int[n + 1];
+            for (int e = 0; e < targets.length; e++) {
+                reverseOffsets[targets[e] + 1]++;
+            }
+            for (int u = 0; u < n; u++) {
+                reverseOffsets[u + 1] += reverseOffsets[u];
+            }
+            int[] cursor = Arrays.copyOf(reverseOffsets, n);
+            int[] reverseTargets = new int[targets.length];
+            int[] reverseWeights = new int[targets.length];
+            // Sources are visited in increasing order, so each reversed adjacency stays sorted.
+            for (int u = 0; u < n; u++) {
+                for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                    int slot = cursor[targets[e]]++;
+                    reverseTargets[slot] = u;
+                    reverseWeights[slot] = weights.get(e);
+                }
+            }
+            result = new PortGraph(reverseOffsets, reverseTargets, new EdgeWeights(reverseWeights),
+                    names, locodes, latitudes, longitudes, version);
+            result.reverse = this;
+            reverse = result;
+        }
+        return result;
+    }
+
+    // Returns the great-circle lower bound for this graph, built on first use.
+    GreatCircleHeuristic heuristic() {
+        GreatCircleHeuristic result = heuristic;
+        if (result == null) {
+            result = new GreatCircleHeuristic(this);
+            heuristic = result;
+        }
+        return result;
+    }
+
+    // Returns the name, UN/LOCODE and position index of this graph, built on first use.
+    PortRegistry registry() {
+        PortRegistry result = registry;
+        if (result == null) {
+            result = new PortRegistry(this);
+            registry = result;
+        }
+        return result;
+    }
+
+    // Returns the k-d tree over node positions, built on first use.
+    SpatialIndex spatialIndex() {
+        SpatialIndex result = spatialIndex;
+        if (result == null) {
+            result = new SpatialIndex(this);
+            spatialIndex = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns what build makes of this version for key, building it on first
+     * use. Concurrent callers for the same key wait for that one build rather
+     * than repeat it, callers for other keys or versions never wait, and no
+     * monitor is held while building. The result lives as long as the version.
+     */
+    @SuppressWarnings("unchecked")
+    <T> T derived(Object key, Function<PortGraph, T> build) {
+        CompletableFuture<Object> future = derived.get(key);
+        if (future == null) {
+            CompletableFuture<Object> created = new CompletableFuture<>();
+            future = derived.putIfAbsent(key, created);
+            if (future == null) {
+                try {
+                    T result = build.apply(this);
+                    created.complete(result);
+                    return result;
+                } catch (RuntimeException | Error e) {
+                    // Lets a later caller try again.
+                    derived.remove(key, created);
+                    created.completeExceptionally(e);
+                    throw e;
+                }
+            }
+        }
+        try {
+            return (T) future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the next version of this graph with the edge from -> to set to
+     * weight, added if missing, or removed if weight is NO_EDGE.
+     */
+    PortGraph withEdge(int from, int to, int weight) {
+        return withEdges(new int[] {from}, new int[] {to}, new int[] {weight});
+    }
+
+    /**
+     * Returns the next version of this graph with each edge from[i] -> to[i]
+     * set to weights[i], added if missing, or removed if weights[i] is NO_EDGE;
+     * each edge may appear once. All edits land in one copy of the CSR arrays.
+     * Node data and the indexes over it are shared, as are the heuristic while
+     * every new weight is admissible for it and, for reweights only, the
+     * topology and the reversed graph. Returns this graph if nothing changes.
+     */
+    PortGraph withEdges(int[] from, int[] to, int[] weights) {
+        if (from.length != to.length || from.length != weights.length) {
+            throw new IllegalArgumentException("Edge and weight arrays differ in length");
+        }
+        boolean structural = false;
+        int reweights = 0;
+        for (int i = 0; i < from.length; i++) {
+            checkEdge(from[i], to[i], weights[i]);
+            boolean exists = edgeIndex(from[i], to[i]) != NO_EDGE;
+            if (exists && weights[i] != NO_EDGE) {
+                reweights++;
+            } else if (exists || weights[i] != NO_EDGE) {
+                structural = true;
+            }
+        }
+        if (!structural && reweights < from.length) {
+            // Only removals of missing edges to drop.
+            int[] keptFrom = new int[reweights];
+            int[] keptTo = new int[reweights];
+            int[] keptWeights = new int[reweights];
+            for (int i = 0, j = 0; i < from.length; i++) {
+                if (weights[i] != NO_EDGE) {
+                    keptFrom[j] = from[i];
+                    keptTo[j] = to[i];
+                    keptWeights[j++] = weights[i];
+                }
+            }
+            return reweights == 0 ? this : withWeights(keptFrom, keptTo, keptWeights);
+        }
+        if (!structural) {
+            return withWeights(from, to, weights);
+        }
+
+        // Edits grouped by source node and sorted by target, to merge with each adjacency run.
+        Integer[] order = new Integer[from.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> from[a] != from[b] ? Integer.compare(from[a], from[b]) : Integer.compare(to[a], to[b]));
+        int n = nodeCount();
+        int[] newOffsets = new int[n + 1];
+        for (int u = 0, k = 0; u < n; u++) {
+            int degree = offsets[u + 1] - offsets[u];
+            for (; k < order.length && from[order[k]] == u; k++) {
+                int i = order[k];
+                if (k > 0 && from[order[k - 1]] == u && to[order[k - 1]] == to[i]) {
+                    throw new IllegalArgumentException("Edge " + u + " -> " + to[i] + " is edited twice");
+                }
+                boolean exists = edgeIndex(u, to[i]) != NO_EDGE;
+                degree += exists == (weights[i] != NO_EDGE) ? 0 : exists ? -1 : 1;
+            }
+            newOffsets[u + 1] = newOffsets[u] + degree;
+        }
+        int[] newTargets = new int[newOffsets[n]];
+        int[] newWeights = new int[newOffsets[n]];
+        GreatCircleHeuristic currentHeuristic = heuristic;
+        boolean keepHeuristic = currentHeuristic != null;
+        for (int u = 0, k = 0; u < n; u++) {
+            int slot = offsets[u];
+            int end = offsets[u + 1];
+            int out = newOffsets[u];
+            if (k == order.length || from[order[k]] != u) {
+                System.arraycopy(targets, slot, newTargets, out, end - slot);
+                this.weights.copyTo(slot, newWeights, out, end - slot);
+                continue;
+            }
+            while (slot < end || (k < order.length && from[order[k]] == u)) {
+                int i = k < order.length && from[order[k]] == u ? order[k] : -1;
+                if (i < 0 || (slot < end && targets[slot] < to[i])) {
+                    newTargets[out] = targets[slot];
+                    newWeights[out++] = this.weights.get(slot++);
+                    continue;
+                }
+                if (slot < end && targets[slot] == to[i]) {
+                    slot++;
+                }
+                if (weights[i] != NO_EDGE) {
+                    newTargets[out] = to[i];
+                    newWeights[out++] = weights[i];
+                    keepHeuristic = keepHeuristic && currentHeuristic.admits(u, to[i], weights[i]);
+                }
+                k++;
+            }
+        }
+        PortGraph result = nextVersion(newOffsets, newTargets, new EdgeWeights(newWeights));
+        if (keepHeuristic) {
+            result.heuristic = currentHeuristic;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the next version of this graph with the weights of existing edges
+     * from[i] -> to[i] set to weights[i], copying only the weight blocks they
+     * fall in. The topology, and the reversed graph if built, are shared.
+     */
+    PortGraph withWeights(int[] from, int[] to, int[] weights) {
+        int[] slots = new int[from.length];
+        GreatCircleHeuristic currentHeuristic = heuristic;
+        boolean keepHeuristic = currentHeuristic != null;
+        for (int i = 0; i < from.length; i++) {
+            checkEdge(from[i], to[i], weights[i]);
+            slots[i] = edgeIndex(from[i], to[i]);
+            if (slots[i] == NO_EDGE || weights[i] == NO_EDGE) {
+                throw new IllegalArgumentException("No edge " + from[i] + " -> " + to[i] + " to reweight");
+            }
+            keepHeuristic = keepHeuristic && currentHeuristic.admits(from[i], to[i], weights[i]);
+        }
+        PortGraph result = nextVersion(offsets, targets, this.weights.with(slots, weights));
+        if (keepHeuristic) {
+            result.heuristic = currentHeuristic;
+        }
+        PortGraph currentReverse = reverse;
+        if (currentReverse != null) {
+            // Same topology: patch the reversed weights instead of transposing again.
+            int[] reverseSlots = new int[from.length];
+            for (int i = 0; i < from.length; i++) {
+                reverseSlots[i] = currentReverse.edgeIndex(to[i], from[i]);
+            }
+            PortGraph reversed = new PortGraph(currentReverse.offsets, currentReverse.targets,
+                    currentReverse.weights.with(reverseSlots, weights),
+                    names, locodes, latitudes, longitudes, version + 1);
+            reversed.reverse = result;
+            result.reverse = reversed;
+        }
+        return result;
+    }
+
+    private PortGraph nextVersion(int[] newOffsets, int[] newTargets, EdgeWeights newWeights) {
+        superseded = true;
+        PortGraph result = new PortGraph(newOffsets, newTargets, newWeights,
+                names, locodes, latitudes, longitudes, version + 1);
+        result.registry = registry;
+        result.spatialIndex = spatialIndex;
+        return result;
+    }
+
+    // Rejects edits naming unknown nodes or negative weights; NO_EDGE removes the edge.
+    void checkEdge(int from, int to, int weight) {
+        if (from < 0 || from >= nodeCount() || to < 0 || to >= nodeCount()) {
+            throw new IllegalArgumentException("Unknown node in edge " + from + " -> " + to);
+        }
+        if (weight < 0 && weight != NO_EDGE) {
+            throw new IllegalArgumentException("Negative weight on edge " + from + " -> " + to);
+        }
+    }
+
+    // Sums the edge weights along a node path; the path must follow existing edges.
+    Route route(int[] nodes) {
+        if (nodes.length == 0) {
+            return Route.NONE;
+        }
+        int distance = 0;
+        for (int i = 1; i < nodes.length; i++) {
+            int edge = edgeIndex(nodes[i - 1], nodes[i]);
+            if (edge == NO_EDGE) {
+                throw new IllegalArgumentException("No edge " + nodes[i - 1] + " -> " + nodes[i]);
+            }
+            distance += weights.get(edge);
+        }
+        return new Route(nodes, distance);
+    }
+
+    // Returns the contraction hierarchy of this graph, contracted on first use unless one was attached.
+    ContractionHierarchy contractionHierarchy() {
+        ContractionHierarchy result = contractionHierarchy;
+        if (result == null) {
+            synchronized (this) {
+                result = contractionHierarchy;
+                if (result == null) {
+                    result = new ContractionHierarchyBuilder(this).build();
+                    contractionHierarchy = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the contraction hierarchy if it is ready, or else null after
+     * scheduling its contraction in the background, so that queries on a
+     * fresh version need not wait for it. Versions superseded before their
+     * turn comes are skipped.
+     */
+    ContractionHierarchy readyContractionHierarchy() {
+        ContractionHierarchy result = contractionHierarchy;
+        if (result == null && hierarchyScheduled.compareAndSet(false, true)) {
+            HIERARCHY_BUILDER.execute(() -> {
+                try {
+                    if (!superseded) {
+                        contractionHierarchy();
+                    }
+                } finally {
+                    if (contractionHierarchy == null) {
+                        hierarchyScheduled.set(false);
+                    }
+                }
+            });
+        }
+        return result;
+    }
+
+    // Attaches a precomputed hierarchy, e.g. one read from disk, after checking it belongs to this graph.
+    void attachContractionHierarchy(ContractionHierarchy hierarchy) {
+        if (hierarchy.nodeCount() != nodeCount() || hierarchy.graphFingerprint != fingerprint()) {
+            throw new IllegalArgumentException("Contraction hierarchy was built for a different graph");
+        }
+        contractionHierarchy = hierarchy;
+    }
+
+    // Hash of the topology and weights, used to match precomputed data to its graph.
+    long fingerprint() {
+        long hash = 0xcbf29ce484222325L;
+        hash = mix(hash, nodeCount());
+        for (int value : offsets) {
+            hash = mix(hash, value);
+        }
+        for (int value : targets) {
+            hash = mix(hash, value);
+        }
+        for (int e = 0; e < weights.length(); e++) {
+            hash = mix(hash, weights.get(e));
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, int value) {
+        return (hash ^ value) * 0x100000001b3L;
+    }
+
+    // Returns the slot of the edge from -> to, or NO_EDGE if there is none.
+    int edgeIndex(int from, int to) {
+        int index = Arrays.binarySearch(targets, offsets[from], offsets[from + 1], to);
+        return index >= 0 ? index : NO_EDGE;
+    }
+
+    // Returns the weight of the edge from -> to, or NO_EDGE if there is none.
+    int weight(int from, int to) {
+        int index = edgeIndex(from, to);
+        return index == NO_EDGE ? NO_EDGE : weights.get(index);
+    }
+
+    static final class Builder {
+        private String[] names = new String[16];
+        private String[] locodes = new String[16];
+        private double[] latitudes = new double[16];
+        private double[] longitudes = new double[16];
+        private int nodeCount;
+
+        private int[] edgeFrom = new int[16];
+        private int[] edgeTo = new int[16];
+        private int[] edgeWeight = new int[16];
+        private int edgeCount;
+
+        int addNode(String name, double latitude, double longitude) {
+            return addNode(name, null, latitude, longitude);
+        }
+
+        int addNode(String name, String locode, double latitude, double longitude) {
+            if (locode != null && PortRegistry.normalizeLocode(locode) == null) {
+                throw new IllegalArgumentException("Malformed UN/LOCODE '" + locode + "' for " + name);
+            }
+            if (nodeCount == names.length) {
+                names = Arrays.copyOf(names, nodeCount * 2);
+                locodes = Arrays.copyOf(locodes, nodeCount * 2);
+                latitudes = Arrays.copyOf(latitudes, nodeCount * 2);
+                longitudes = Arrays.copyOf(longitudes, nodeCount * 2);
+            }
+            names[nodeCount] = name;
+            locodes[nodeCount] = PortRegistry.normalizeLocode(locode);
+            latitudes[nodeCount] = latitude;
+            longitudes[nodeCount] = longitude;
+            return nodeCount++;
+        }
+
+        // Adding the same edge twice keeps the last weight, like Map.put did.
+        void addEdge(int from, int to, int weight) {
+            if (from < 0 || from >= nodeCount || to < 0 || to >= nodeCount) {
+                throw new IllegalArgumentException("Unknown node in edge " + from + " -> " + to);
+            }
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight on edge " + from + " -> " + to);
+            }
+            if (edgeCount == edgeFrom.length) {
+                edgeFrom = Arrays.copyOf(edgeFrom, edgeCount * 2);
+                edgeTo = Arrays.copyOf(edgeTo, edgeCount * 2);
+                edgeWeight = Arrays.copyOf(edgeWeight, edgeCount * 2);
+            }
+            edgeFrom[edgeCount] = from;
+            edgeTo[edgeCount] = to;
+            edgeWeight[edgeCount] = weight;
+            edgeCount++;
+        }
+
+        PortGraph build() {
+            // Counting sort of the edges by source keeps insertion order per node.
+            int[] offsets = new int[nodeCount + 1];
+            for (int i = 0; i < edgeCount; i++) {
+                offsets[edgeFrom[i] + 1]++;
+            }
+            for (int u = 0; u < nodeCount; u++) {
+                offsets[u + 1] += offsets[u];
+            }
+            int[] order = new int[edgeCount];
+            int[] cursor = Arrays.copyOf(offsets, nodeCount);
+            for (int i = 0; i < edgeCount; i++) {
+                order[cursor[edgeFrom[i]]++] = i;
+            }
+
+            // Sort each adjacency by target, dropping all but the last duplicate.
+            int[] targets = new int[edgeCount];
+            int[] weights = new int[edgeCount];
+            int[] compactOffsets = new int[nodeCount + 1];
+            int size = 0;
+            long[] keys = new long[0];
+            for (int u = 0; u < nodeCount; u++) {
+                int begin = offsets[u];
+                int degree = offsets[u + 1] - begin;
+                if (keys.length < degree) {
+                    keys = new long[degree];
+                }
+                for (int j = 0; j < degree; j++) {
+                    keys[j] = ((long) edgeTo[order[begin + j]] << 32) | j;
+                }
+                Arrays.sort(keys, 0, degree);
+                for (int j = 0; j < degree; j++) {
+                    int target = (int) (keys[j] >>> 32);
+                    if (j + 1 < degree && (int) (keys[j + 1] >>> 32) == target) {
+                        continue;
+                    }
+                    targets[size] = target;
+                    weights[size] = edgeWeight[order[begin + (int) keys[j]]];
+                    size++;
+                }
+                compactOffsets[u + 1] = size;
+            }
+
+            return new PortGraph(compactOffsets,
+                    Arrays.copyOf(targets, size),
+                    Arrays.copyOf(weights, size),
+                    LabelTable.of(Arrays.copyOf(names, nodeCount)),
+                    LabelTable.of(Arrays.copyOf(locodes, nodeCount)),
+                    Arrays.copyOf(latitudes, nodeCount),
+                    Arrays.copyOf(longitudes, nodeCount));
+        }
+    }
+}
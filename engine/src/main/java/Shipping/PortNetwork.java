@@ -0,0 +1,179 @@
+package Shipping;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Editable handle on the current {@link PortGraph}. Graphs stay frozen: each
+ * edit publishes a new graph whose version is one higher, then tells the
+ * listeners which edges changed so that caches and shortest-path trees can
+ * repair only what the edit affects. Readers take {@link #graph()} once per
+ * query and keep using that graph, so they never see a half-applied edit.
+ *
+ * The current graph is published through an atomic reference, so readers
+ * never block. Writers serialize on the network, which keeps versions and
+ * listener calls in order; a {@link Batch} publishes many edits as a single
+ * version. Versions share node data, labels and indexes, and reweights share
+ * the topology too, so a version costs about one copy of the edited arrays.
+ */
+final class PortNetwork {
+    interface EdgeListener {
+        // Called after the graph is published; edge i is from[i] -> to[i], with before.weight and after.weight.
+        void edgesChanged(PortGraph before, PortGraph after, int[] from, int[] to);
+    }
+
+    private final List<EdgeListener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicReference<PortGraph> graph;
+
+    PortNetwork(PortGraph graph) {
+        this.graph = new AtomicReference<>(graph);
+    }
+
+    PortGraph graph() {
+        return graph.get();
+    }
+
+    long version() {
+        return graph.get().version();
+    }
+
+    // Starts a batch of edits to publish together.
+    Batch batch() {
+        return new Batch();
+    }
+
+    void addListener(EdgeListener listener) {
+        listeners.add(listener);
+    }
+
+    void removeListener(EdgeListener listener) {
+        listeners.remove(listener);
+    }
+
+    // Adds the edge or changes its weight; setting the current weight is a no-op.
+    void setEdge(int from, int to, int weight) {
+        commit(new int[] {from}, new int[] {to}, new int[] {weight});
+    }
+
+    void removeEdge(int from, int to) {
+        setEdge(from, to, PortGraph.NO_EDGE);
+    }
+
+    /**
+     * Reweights existing edges from[i] -> to[i] as one edit, e.g. a weather or
+     * congestion update covering many lanes. Unchanged weights are skipped.
+     */
+    synchronized void updateWeights(int[] from, int[] to, int[] weights) {
+        if (from.length != to.length || from.length != weights.length) {
+            throw new IllegalArgumentException("Edge and weight arrays differ in length");
+        }
+        PortGraph before = graph.get();
+        for (int i = 0; i < from.length; i++) {
+            before.checkEdge(from[i], to[i], weights[i]);
+        }
+        int[] changedFrom = new int[from.length];
+        int[] changedTo = new int[from.length];
+        int[] changedWeights = new int[from.length];
+        int changed = 0;
+        for (int i = 0; i < from.length; i++) {
+            if (before.weight(from[i], to[i]) != weights[i]) {
+                changedFrom[changed] = from[i];
+                changedTo[changed] = to[i];
+                changedWeights[changed] = weights[i];
+                changed++;
+            }
+        }
+        if (changed == 0) {
+            return;
+        }
+        changedFrom = Arrays.copyOf(changedFrom, changed);
+        changedTo = Arrays.copyOf(changedTo, changed);
+        publish(before, before.withWeights(changedFrom, changedTo, Arrays.copyOf(changedWeights, changed)),
+                changedFrom, changedTo);
+    }
+
+    // Publishes the edits as one version; the last edit of an edge wins and unchanged edges are skipped.
+    private synchronized PortGraph commit(int[] from, int[] to, int[] weights) {
+        PortGraph before = graph.get();
+        Map<Long, Integer> lastEdit = new HashMap<>();
+        for (int i = 0; i < from.length; i++) {
+            before.checkEdge(from[i], to[i], weights[i]);
+            lastEdit.put((long) from[i] << 32 | to[i], i);
+        }
+        int[] changedFrom = new int[lastEdit.size()];
+        int[] changedTo = new int[lastEdit.size()];
+        int[] changedWeights = new int[lastEdit.size()];
+        int changed = 0;
+        for (int i = 0; i < from.length; i++) {
+            if (lastEdit.get((long) from[i] << 32 | to[i]) == i && before.weight(from[i], to[i]) != weights[i]) {
+                changedFrom[changed] = from[i];
+                changedTo[changed] = to[i];
+                changedWeights[changed] = weights[i];
+                changed++;
+            }
+        }
+        if (changed == 0) {
+            return before;
+        }
+        changedFrom = Arrays.copyOf(changedFrom, changed);
+        changedTo = Arrays.copyOf(changedTo, changed);
+        PortGraph after = before.withEdges(changedFrom, changedTo, Arrays.copyOf(changedWeights, changed));
+        publish(before, after, changedFrom, changedTo);
+        return after;
+    }
+
+    private void publish(PortGraph before, PortGraph after, int[] from, int[] to) {
+        graph.set(after);
+        for (EdgeListener listener : listeners) {
+            listener.edgesChanged(before, after, from, to);
+        }
+    }
+
+    /**
+     * Edge edits collected to be published as one version, so that readers see
+     * all of them or none and the graph arrays are copied once. A batch is not
+     * thread-safe; it is applied to whatever graph is current at commit. Edits
+ * naming unknown nodes or negative weights are rejected as they are added.
+     */
+    final class Batch {
+        private int[] from = new int[8];
+        private int[] to = new int[8];
+        private int[] weights = new int[8];
+        private int size;
+
+        private Batch() {
+        }
+
+        // Adds the edge or changes its weight; a later edit of the same edge in the batch wins.
+        Batch setEdge(int from, int to, int weight) {
+            // Versions share their nodes, so any version can check the edit.
+            graph().checkEdge(from, to, weight);
+            if (size == this.from.length) {
+                this.from = Arrays.copyOf(this.from, size * 2);
+                this.to = Arrays.copyOf(this.to, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            this.from[size] = from;
+            this.to[size] = to;
+            weights[size++] = weight;
+            return this;
+        }
+
+        Batch removeEdge(int from, int to) {
+            return setEdge(from, to, PortGraph.NO_EDGE);
+        }
+
+        int size() {
+            return size;
+        }
+
+        // Publishes the edits, unless none changes a weight, and returns the network's graph afterwards.
+        PortGraph commit() {
+            return PortNetwork.this.commit(Arrays.copyOf(from, size), Arrays.copyOf(to, size), Arrays.copyOf(weights, size));
+        }
+    }
+}
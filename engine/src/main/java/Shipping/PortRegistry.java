@@ -0,0 +1,155 @@
+package Shipping;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Lookup of graph nodes by name, UN/LOCODE or coordinates, so that callers
+ * never scan the whole port list. Node ids are the graph's dense int ids.
+ *
+ * Coordinates are indexed by a 40-bit geohash (cells of roughly 40 x 20 m).
+ * Each node is packed as (hash << 24 | id) into one sorted long array, so an
+ * exact position is found by binary search and all nodes sharing a hash
+ * prefix, i.e. one coarser geohash cell, form a contiguous range. Hashes of
+ * the western hemisphere set the top bit, so entries are stored with the
+ * sign bit flipped to make signed order the unsigned order of the hashes.
+ */
+final class PortRegistry {
+    static final int NOT_FOUND = -1;
+    static final int GEOHASH_BITS = 40;
+    private static final int NODE_BITS = 24;
+    private static final long NODE_MASK = (1L << NODE_BITS) - 1;
+    private static final Pattern LOCODE = Pattern.compile("[A-Z]{2}[A-Z2-9]{3}");
+
+    private final PortGraph graph;
+    private final Map<String, Integer> byName;
+    private final Map<String, Integer> byLocode;
+    private final long[] entries;
+
+    PortRegistry(PortGraph graph) {
+        int n = graph.nodeCount();
+        if (n > NODE_MASK + 1) {
+            throw new IllegalArgumentException("Too many nodes for the registry: " + n);
+        }
+        this.graph = graph;
+        byName = new HashMap<>(n * 4 / 3 + 1);
+        byLocode = new HashMap<>();
+        entries = new long[n];
+        for (int node = 0; node < n; node++) {
+            byName.putIfAbsent(graph.name(node), node);
+            String locode = graph.locode(node);
+            if (locode != null) {
+                byLocode.putIfAbsent(locode, node);
+            }
+            entries[node] = pack(geohash(graph.latitude(node), graph.longitude(node), GEOHASH_BITS), node);
+        }
+        Arrays.sort(entries);
+    }
+
+    int byName(String name) {
+        Integer node = byName.get(name);
+        return node == null ? NOT_FOUND : node;
+    }
+
+    // Accepts codes with or without the space after the country, in any case.
+    int byLocode(String locode) {
+        String normalized = normalizeLocode(locode);
+        Integer node = normalized == null ? null : byLocode.get(normalized);
+        return node == null ? NOT_FOUND : node;
+    }
+
+    int byPosition(double latitude, double longitude) {
+        long hash = geohash(latitude, longitude, GEOHASH_BITS);
+        for (int i = lowerBound(hash); i < entries.length && hash(entries[i]) == hash; i++) {
+            int node = (int) (entries[i] & NODE_MASK);
+            if (graph.latitude(node) == latitude && graph.longitude(node) == longitude) {
+                return node;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    // Returns all nodes in the geohash cell of the given precision that contains the position.
+    int[] inCell(double latitude, double longitude, int precisionBits) {
+        if (precisionBits < 1 || precisionBits > GEOHASH_BITS) {
+            throw new IllegalArgumentException("Geohash precision must be 1.." + GEOHASH_BITS + " bits");
+        }
+        int shift = GEOHASH_BITS - precisionBits;
+        long prefix = geohash(latitude, longitude, GEOHASH_BITS) >>> shift;
+        int from = lowerBound(prefix << shift);
+        // The last cell of a precision runs to the end of the entries.
+        int to = prefix + 1 == 1L << precisionBits ? entries.length : lowerBound((prefix + 1) << shift);
+        to = Math.max(from, to);
+        int[] nodes = new int[to - from];
+        for (int i = from; i < to; i++) {
+            nodes[i - from] = (int) (entries[i] & NODE_MASK);
+        }
+        return nodes;
+    }
+
+    // Interleaves longitude and latitude bisection bits, longitude first, as geohash does.
+    static long geohash(double latitude, double longitude, int bits) {
+        double minLat = -90;
+        double maxLat = 90;
+        double minLon = -180;
+        double maxLon = 180;
+        long hash = 0;
+        for (int i = 0; i < bits; i++) {
+            hash <<= 1;
+            if ((i & 1) == 0) {
+                double mid = (minLon + maxLon) / 2;
+                if (longitude >= mid) {
+                    hash |= 1;
+                    minLon = mid;
+                } else {
+                    maxLon = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (latitude >= mid) {
+                    hash |= 1;
+                    minLat = mid;
+                } else {
+                    maxLat = mid;
+                }
+            }
+        }
+        return hash;
+    }
+
+    // Returns the canonical five-letter UN/LOCODE, or null if the code is malformed.
+    static String normalizeLocode(String locode) {
+        if (locode == null) {
+            return null;
+        }
+        String code = locode.replace(" ", "").toUpperCase(Locale.ROOT);
+        return LOCODE.matcher(code).matches() ? code : null;
+    }
+
+    private static long pack(long hash, int node) {
+        return (hash << NODE_BITS | node) ^ Long.MIN_VALUE;
+    }
+
+    private static long hash(long entry) {
+        return (entry ^ Long.MIN_VALUE) >>> NODE_BITS;
+    }
+
+    // Index of the first entry whose hash is at least the given one.
+    private int lowerBound(long hash) {
+        long key = pack(hash, 0);
+        int low = 0;
+        int high = entries.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (entries[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,32 @@
+package Shipping;
+
+/**
+ * JMX view of one kind of routing query; see {@link RoutingMetrics}. Public
+ * because JMX only exposes public interfaces.
+ */
+public interface QueryMetricsMBean {
+    long getCount();
+
+    double getMeanMillis();
+
+    double getP50Millis();
+
+    double getP90Millis();
+
+    double getP99Millis();
+
+    double getP999Millis();
+
+    double getMaxMillis();
+
+    double getMeanSettledNodes();
+
+    double getMeanRelaxedEdges();
+
+    double getMeanHeapOperations();
+
+    // Per query on platform threads; virtual threads do not report allocation.
+    double getMeanAllocatedBytes();
+
+    void reset();
+}
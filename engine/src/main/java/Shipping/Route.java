@@ -0,0 +1,20 @@
+package Shipping;
+
+/**
+ * A path through a {@link PortGraph} as node ids, with its total weight.
+ */
+final class Route {
+    static final Route NONE = new Route(new int[0], SearchContext.UNREACHABLE);
+
+    final int[] nodes;
+    final int distance;
+
+    Route(int[] nodes, int distance) {
+        this.nodes = nodes;
+        this.distance = distance;
+    }
+
+    boolean isEmpty() {
+        return nodes.length == 0;
+    }
+}
@@ -0,0 +1,216 @@
+package Shipping;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of route query results keyed by (start, end, strategy,
+ * graph version). A null strategy stands for an alternative route query.
+ *
+ * Entries are not dropped wholesale when the graph changes. On each edit the
+ * entries of the previous version are checked against every changed edge and
+ * either removed or moved to the new version:
+ * - a heavier or removed edge affects an entry only if one of its routes uses it;
+ * - a lighter or new edge u -> v affects an entry only if a path through it
+ *   could beat the entry's cost bound. Great-circle lower bounds rule most
+ *   entries out, LB(start, u) + w + LB(v, end) > bound; the rest are decided
+ *   exactly by one backward search from u and one forward search from v, both
+ *   cut off at the largest remaining bound.
+ */
+final class RouteCache implements PortNetwork.EdgeListener {
+    private final int capacity;
+    private final LinkedHashMap<Key, Entry> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    RouteCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Cache capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<Key, Entry>(capacity * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > RouteCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // Returns the cached routes computed on this version of the graph, or null.
+    synchronized List<Route> get(PortGraph graph, int start, int end, RoutingStrategy strategy) {
+        Entry entry = entries.get(new Key(start, end, strategy));
+        if (entry != null && entry.version == graph.version()) {
+            hits++;
+            return entry.routes;
+        }
+        misses++;
+        return null;
+    }
+
+    /**
+     * Caches routes computed on graph. costBound is the cost below which another
+     * path could change the result: the shortest distance for a shortest route
+     * query, the detour limit for an alternative route query, and
+     * SearchContext.UNREACHABLE when nothing was found.
+     */
+    synchronized void put(PortGraph graph, int start, int end, RoutingStrategy strategy,
+                          List<Route> routes, int costBound) {
+        Key key = new Key(start, end, strategy);
+        Entry existing = entries.get(key);
+        if (existing == null || existing.version <= graph.version()) {
+            entries.put(key, new Entry(routes, costBound, graph.version()));
+        }
+    }
+
+    @Override
+    public synchronized void edgesChanged(PortGraph before, PortGraph after, int[] from, int[] to) {
+        List<Map.Entry<Key, Entry>> current = new ArrayList<>();
+        for (Map.Entry<Key, Entry> mapEntry : entries.entrySet()) {
+            if (mapEntry.getValue().version == before.version()) {
+                current.add(mapEntry);
+            }
+        }
+        for (int i = 0; i < from.length && !current.isEmpty(); i++) {
+            int oldWeight = before.weight(from[i], to[i]);
+            int newWeight = after.weight(from[i], to[i]);
+            if (newWeight == PortGraph.NO_EDGE || (oldWeight != PortGraph.NO_EDGE && newWeight > oldWeight)) {
+                for (Iterator<Map.Entry<Key, Entry>> it = current.iterator(); it.hasNext(); ) {
+                    Map.Entry<Key, Entry> mapEntry = it.next();
+                    if (mapEntry.getValue().uses(from[i], to[i])) {
+                        invalidate(mapEntry.getKey());
+                        it.remove();
+                    }
+                }
+            } else if (newWeight != oldWeight) {
+                invalidateImproved(current, after, from[i], to[i], newWeight);
+            }
+        }
+        for (Map.Entry<Key, Entry> mapEntry : current) {
+            mapEntry.getValue().version = after.version();
+        }
+    }
+
+    // Drops the entries a lighter or new edge u -> v can improve on; the distances are taken in after.
+    private void invalidateImproved(List<Map.Entry<Key, Entry>> current, PortGraph after, int u, int v, int weight) {
+        GreatCircleHeuristic heuristic = after.heuristic();
+        List<Map.Entry<Key, Entry>> suspects = new ArrayList<>();
+        long maxBound = 0;
+        for (Map.Entry<Key, Entry> mapEntry : current) {
+            Key key = mapEntry.getKey();
+            int costBound = mapEntry.getValue().costBound;
+            if ((long) heuristic.lowerBound(key.start, u) + weight + heuristic.lowerBound(v, key.end) <= costBound) {
+                suspects.add(mapEntry);
+                maxBound = Math.max(maxBound, costBound);
+            }
+        }
+        if (suspects.isEmpty()) {
+            return;
+        }
+
+        // A shortest path to u or from v never uses u -> v itself, so both searches may run on after.
+        int limit = (int) Math.max(0, maxBound - weight);
+        SearchContext toU = SearchContext.currentBackward(after.nodeCount());
+        SearchContext fromV = SearchContext.current(after.nodeCount());
+        new DijkstraSearch(after.reverse()).run(toU, u, DijkstraSearch.ALL_NODES, limit);
+        new DijkstraSearch(after).run(fromV, v, DijkstraSearch.ALL_NODES, limit);
+        for (Map.Entry<Key, Entry> mapEntry : suspects) {
+            Key key = mapEntry.getKey();
+            // Nodes beyond the limit are unreached or only labelled with a distance above it.
+            long viaEdge = (long) toU.distance(key.start) + weight + fromV.distance(key.end);
+            if (viaEdge <= mapEntry.getValue().costBound) {
+                invalidate(key);
+                current.remove(mapEntry);
+            }
+        }
+    }
+
+    private void invalidate(Key key) {
+        entries.remove(key);
+        invalidations++;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    synchronized void clear() {
+        entries.clear();
+    }
+
+    synchronized long hits() {
+        return hits;
+    }
+
+    synchronized long misses() {
+        return misses;
+    }
+
+    synchronized double hitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%d/%d entries, %d hits, %d misses (%.0f%% hit rate), %d evicted, %d invalidated",
+                entries.size(), capacity, hits, misses, 100 * hitRate(), evictions, invalidations);
+    }
+
+    private static final class Key {
+        private final int start;
+        private final int end;
+        private final RoutingStrategy strategy;
+
+        Key(int start, int end, RoutingStrategy strategy) {
+            this.start = start;
+            this.end = end;
+            this.strategy = strategy;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return start == key.start && end == key.end && strategy == key.strategy;
+        }
+
+        @Override
+        public int hashCode() {
+            return (start * 31 + end) * 31 + (strategy == null ? -1 : strategy.ordinal());
+        }
+    }
+
+    private static final class Entry {
+        final List<Route> routes;
+        final int costBound;
+        long version;
+
+        Entry(List<Route> routes, int costBound, long version) {
+            this.routes = routes;
+            this.costBound = costBound;
+            this.version = version;
+        }
+
+        boolean uses(int from, int to) {
+            for (Route route : routes) {
+                for (int i = 1; i < route.nodes.length; i++) {
+                    if (route.nodes[i - 1] == from && route.nodes[i] == to) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+}
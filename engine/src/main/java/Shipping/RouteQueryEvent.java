@@ -0,0 +1,43 @@
+package Shipping;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event of one routing query, committed by {@link RoutingMetrics} while a
+ * recording enables it, e.g. with -XX:StartFlightRecording or jcmd JFR.start.
+ */
+@Name("Shipping.RouteQuery")
+@Label("Route Query")
+@Category({"Shipping", "Routing"})
+@Description("A routing query with the work it did")
+@StackTrace(false)
+final class RouteQueryEvent extends Event {
+    @Label("Query")
+    String query;
+
+    @Label("Source")
+    int source;
+
+    @Label("Target")
+    int target;
+
+    @Label("Settled Nodes")
+    long settledNodes;
+
+    @Label("Relaxed Edges")
+    long relaxedEdges;
+
+    @Label("Heap Operations")
+    long heapOperations;
+
+    @Label("Allocated")
+    @Description("Bytes allocated by the querying thread, or -1 where the JVM does not report it")
+    @DataAmount(DataAmount.BYTES)
+    long allocatedBytes;
+}
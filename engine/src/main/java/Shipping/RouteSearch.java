@@ -0,0 +1,12 @@
+package Shipping;
+
+/**
+ * A point-to-point shortest path query over a {@link PortGraph}.
+ */
+interface RouteSearch {
+    // Returns the node ids from source to target, or an empty array if unreachable.
+    int[] shortestPath(int source, int target);
+
+    // Returns the shortest distance, or SearchContext.UNREACHABLE.
+    int distance(int source, int target);
+}
@@ -0,0 +1,113 @@
+package Shipping;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Headless routing over one {@link PortNetwork}: shortest routes by strategy,
+ * alternatives, earliest arrival and distance/fuel/time trade-offs, with
+ * results cached across network versions. It has no UI dependencies, so the
+ * Swing client and the HTTP server share it.
+ *
+ * Every query takes the graph snapshot it runs on: callers read
+ * network().graph() once per request and get consistent answers while edits
+ * publish new versions. Safe for concurrent use. Queries are instrumented
+ * by {@link RoutingMetrics}.
+ */
+final class RoutingEngine {
+    static final int ALTERNATIVE_ROUTE_COUNT = 3;
+    static final double MAX_ROUTE_OVERLAP = 0.6;
+    static final double MAX_DETOUR_RATIO = 1.5;
+    static final long ALTERNATIVE_ROUTE_BUDGET_MILLIS = 250;
+    static final int ROUTE_CACHE_CAPACITY = 256;
+    static final int COST_PERIOD_MINUTES = LaneConditions.PERIOD_MINUTES;
+    static final double CRUISING_SPEED_KNOTS = 14;
+    static final double FUEL_KG_PER_NM = 300; // nominal burn of a mid-size container ship at cruising speed
+
+    private final PortNetwork network;
+    private final LaneConditions conditions;
+    private final RouteCache routeCache;
+    // Keys of this engine's searches among those derived from each graph version.
+    private final Object earliestArrivalKey = new Object();
+    private final Object paretoKey = new Object();
+
+    RoutingEngine(PortNetwork network) {
+        this(network, LaneConditions.NONE);
+    }
+
+    // Earliest-arrival and Pareto queries sail under the given lane conditions instead of cruising speed everywhere.
+    RoutingEngine(PortNetwork network, LaneConditions conditions) {
+        this.network = network;
+        this.conditions = conditions;
+        this.routeCache = new RouteCache(ROUTE_CACHE_CAPACITY);
+        network.addListener(routeCache);
+    }
+
+    PortNetwork network() {
+        return network;
+    }
+
+    LaneConditions conditions() {
+        return conditions;
+    }
+
+    RouteCache routeCache() {
+        return routeCache;
+    }
+
+    Route shortestRoute(PortGraph graph, int start, int end, RoutingStrategy strategy) {
+        return RoutingMetrics.measure(RoutingMetrics.SHORTEST_ROUTE, start, end,
+                () -> findShortestRoute(graph, start, end, strategy));
+    }
+
+    // The alternative routes, without the shortest one the finder returns first.
+    List<Route> alternativeRoutes(PortGraph graph, int start, int end) {
+        return RoutingMetrics.measure(RoutingMetrics.ALTERNATIVE_ROUTES, start, end,
+                () -> findAlternativeRoutes(graph, start, end));
+    }
+
+    // Fastest route leaving at the given minute of the year, under departure-dependent edge costs.
+    Route earliestArrival(PortGraph graph, int start, int end, int departure) {
+        return RoutingMetrics.measure(RoutingMetrics.EARLIEST_ARRIVAL, start, end,
+                () -> earliestArrivalSearch(graph).earliestArrival(start, end, departure));
+    }
+
+    // The Pareto frontier over distance, fuel and time, ordered by distance.
+    List<ParetoRoute> paretoRoutes(PortGraph graph, int start, int end) {
+        return RoutingMetrics.measure(RoutingMetrics.PARETO_ROUTES, start, end,
+                () -> paretoRouteSearch(graph).frontier(start, end));
+    }
+
+    private Route findShortestRoute(PortGraph graph, int start, int end, RoutingStrategy strategy) {
+        List<Route> cached = routeCache.get(graph, start, end, strategy);
+        if (cached != null) {
+            return cached.get(0);
+        }
+        Route route = graph.route(strategy.create(graph).shortestPath(start, end));
+        routeCache.put(graph, start, end, strategy, Collections.singletonList(route), route.distance);
+        return route;
+    }
+
+    private List<Route> findAlternativeRoutes(PortGraph graph, int start, int end) {
+        List<Route> routes = routeCache.get(graph, start, end, null);
+        if (routes == null) {
+            routes = new AlternativeRouteFinder(graph, ALTERNATIVE_ROUTE_COUNT, MAX_ROUTE_OVERLAP,
+                    MAX_DETOUR_RATIO, ALTERNATIVE_ROUTE_BUDGET_MILLIS).find(start, end);
+            int detourLimit = routes.isEmpty() ? SearchContext.UNREACHABLE
+                    : (int) Math.min(SearchContext.UNREACHABLE, Math.floor(routes.get(0).distance * MAX_DETOUR_RATIO));
+            routeCache.put(graph, start, end, null, routes, detourLimit);
+        }
+        return routes.isEmpty() ? routes : routes.subList(1, routes.size());
+    }
+
+    // Searches are built once per graph version, by the first query on it, and kept with the version.
+    private EarliestArrivalSearch earliestArrivalSearch(PortGraph graph) {
+        return graph.derived(earliestArrivalKey, version -> new EarliestArrivalSearch(
+                conditions.timeCosts(version, COST_PERIOD_MINUTES, CRUISING_SPEED_KNOTS)));
+    }
+
+    private ParetoRouteSearch paretoRouteSearch(PortGraph graph) {
+        return graph.derived(paretoKey, version -> new ParetoRouteSearch(
+                conditions.criteria(version, COST_PERIOD_MINUTES, CRUISING_SPEED_KNOTS, FUEL_KG_PER_NM)));
+    }
+}
@@ -0,0 +1,266 @@
+package Shipping;
+
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanServer;
+import javax.management.NotCompliantMBeanException;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Instrumentation of the {@link RoutingEngine} queries: latency histograms
+ * and the mean work per query, i.e. settled nodes, relaxed edges, heap
+ * operations and bytes allocated, per kind of query. They are exposed as JMX
+ * MBeans under "Shipping:type=RoutingMetrics", and every query is a
+ * {@link RouteQueryEvent} in JFR recordings.
+ *
+ * Metrics are off unless -Dshipping.metrics=true or the Enabled attribute is
+ * set over JMX. Off and without a recording, a query pays one volatile read
+ * and JFR's enabled check; the work counters are plain increments the
+ * searches always make on their per-thread state.
+ *
+ * Work and allocation are those of the querying thread, plus the spur
+ * searches the alternative route finder runs on pool threads. The JVM does
+ * not report allocation on virtual threads, so queries served by the
+ * {@link RoutingServer} have no allocation; the MBean attribute says so.
+ */
+final class RoutingMetrics {
+    static final Query SHORTEST_ROUTE = new Query("shortestRoute");
+    static final Query ALTERNATIVE_ROUTES = new Query("alternativeRoutes");
+    static final Query EARLIEST_ARRIVAL = new Query("earliestArrival");
+    static final Query PARETO_ROUTES = new Query("paretoRoutes");
+    private static final Query[] QUERIES = {SHORTEST_ROUTE, ALTERNATIVE_ROUTES, EARLIEST_ARRIVAL, PARETO_ROUTES};
+    private static final String DOMAIN = "Shipping:type=RoutingMetrics";
+
+    private static volatile boolean enabled = Boolean.getBoolean("shipping.metrics");
+    private static boolean registered;
+
+    private RoutingMetrics() {
+    }
+
+    /** Statistics of one kind of query. */
+    static final class Query implements QueryMetricsMBean {
+        private final String name;
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        private final LongAdder settledNodes = new LongAdder();
+        private final LongAdder relaxedEdges = new LongAdder();
+        private final LongAdder heapOperations = new LongAdder();
+        private final LongAdder allocatedBytes = new LongAdder();
+        private final LongAdder allocationSamples = new LongAdder();
+
+        private Query(String name) {
+            this.name = name;
+        }
+
+        String name() {
+            return name;
+        }
+
+        private void record(long nanos, long settled, long relaxed, long operations, long allocated) {
+            latencies.record(nanos);
+            settledNodes.add(settled);
+            relaxedEdges.add(relaxed);
+            heapOperations.add(operations);
+            if (allocated >= 0) {
+                allocatedBytes.add(allocated);
+                allocationSamples.increment();
+            }
+        }
+
+        @Override
+        public long getCount() {
+            return latencies.count();
+        }
+
+        @Override
+        public double getMeanMillis() {
+            return latencies.meanNanos() / 1e6;
+        }
+
+        @Override
+        public double getP50Millis() {
+            return latencies.percentileNanos(50) / 1e6;
+        }
+
+        @Override
+        public double getP90Millis() {
+            return latencies.percentileNanos(90) / 1e6;
+        }
+
+        @Override
+        public double getP99Millis() {
+            return latencies.percentileNanos(99) / 1e6;
+        }
+
+        @Override
+        public double getP999Millis() {
+            return latencies.percentileNanos(99.9) / 1e6;
+        }
+
+        @Override
+        public double getMaxMillis() {
+            return latencies.maxNanos() / 1e6;
+        }
+
+        @Override
+        public double getMeanSettledNodes() {
+            return mean(settledNodes.sum(), latencies.count());
+        }
+
+        @Override
+        public double getMeanRelaxedEdges() {
+            return mean(relaxedEdges.sum(), latencies.count());
+        }
+
+        @Override
+        public double getMeanHeapOperations() {
+            return mean(heapOperations.sum(), latencies.count());
+        }
+
+        @Override
+        public double getMeanAllocatedBytes() {
+            return mean(allocatedBytes.sum(), allocationSamples.sum());
+        }
+
+        @Override
+        public void reset() {
+            latencies.reset();
+            settledNodes.reset();
+            relaxedEdges.reset();
+            heapOperations.reset();
+            allocatedBytes.reset();
+            allocationSamples.reset();
+        }
+
+        private static double mean(long total, long count) {
+            return count == 0 ? 0 : (double) total / count;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d queries, p50 %.2f ms, p99 %.2f ms, max %.2f ms, %.0f settled, %.0f relaxed,"
+                            + " %.0f heap ops, %.0f B allocated per query", getCount(), getP50Millis(), getP99Millis(),
+                    getMaxMillis(), getMeanSettledNodes(), getMeanRelaxedEdges(), getMeanHeapOperations(),
+                    getMeanAllocatedBytes());
+        }
+    }
+
+    // Describes the attributes whose value is not what their name alone suggests.
+    private static final class QueryBean extends StandardMBean {
+        QueryBean(Query query) throws NotCompliantMBeanException {
+            super(query, QueryMetricsMBean.class);
+        }
+
+        @Override
+        protected String getDescription(MBeanAttributeInfo info) {
+            if (info.getName().equals("MeanAllocatedBytes")) {
+                return "Mean bytes allocated per query run on a platform thread; queries on virtual threads,"
+                        + " such as those of the routing server, report no allocation and are left out,"
+                        + " so this stays 0 when all queries run on them";
+            }
+            return super.getDescription(info);
+        }
+    }
+
+    private static final class Control implements RoutingMetricsMBean {
+        @Override
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        @Override
+        public void setEnabled(boolean enabled) {
+            RoutingMetrics.setEnabled(enabled);
+        }
+
+        @Override
+        public void reset() {
+            for (Query query : QUERIES) {
+                query.reset();
+            }
+        }
+    }
+
+    // Loaded on first measurement, so the management classes cost nothing while metrics are off.
+    private static final class Threads {
+        static final ThreadMXBean BEAN = ManagementFactory.getThreadMXBean();
+    }
+
+    static boolean isEnabled() {
+        return enabled;
+    }
+
+    static void setEnabled(boolean enabled) {
+        RoutingMetrics.enabled = enabled;
+    }
+
+    // Registers the MBeans with the platform MBean server, once.
+    static synchronized void register() {
+        if (registered) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(new StandardMBean(new Control(), RoutingMetricsMBean.class), new ObjectName(DOMAIN));
+            for (Query query : QUERIES) {
+                server.registerMBean(new QueryBean(query),
+                        new ObjectName(DOMAIN + ",query=" + query.name));
+            }
+            registered = true;
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register routing metrics", e);
+        }
+    }
+
+    /**
+     * Runs search, the query from source to target, and records it when
+     * metrics are enabled or a JFR recording takes its events.
+     */
+    static <T> T measure(Query query, int source, int target, Supplier<T> search) {
+        RouteQueryEvent event = new RouteQueryEvent();
+        boolean recording = event.isEnabled();
+        if (!enabled && !recording) {
+            return search.get();
+        }
+        long[] before = new long[3];
+        long[] after = new long[3];
+        SearchContext.work(before);
+        long allocatedBefore = allocatedBytes();
+        event.begin();
+        long started = System.nanoTime();
+        T result = search.get();
+        long nanos = System.nanoTime() - started;
+        event.end();
+        long allocatedAfter = allocatedBytes();
+        SearchContext.work(after);
+        long settled = after[0] - before[0];
+        long relaxed = after[1] - before[1];
+        long operations = after[2] - before[2];
+        long allocated = allocatedBefore < 0 || allocatedAfter < 0 ? -1 : allocatedAfter - allocatedBefore;
+        if (enabled) {
+            query.record(nanos, settled, relaxed, operations, allocated);
+        }
+        if (recording && event.shouldCommit()) {
+            event.query = query.name;
+            event.source = source;
+            event.target = target;
+            event.settledNodes = settled;
+            event.relaxedEdges = relaxed;
+            event.heapOperations = operations;
+            event.allocatedBytes = allocated;
+            event.commit();
+        }
+        return result;
+    }
+
+    // Bytes allocated by this thread so far, or -1 where the JVM does not report it, as for virtual threads.
+    private static long allocatedBytes() {
+        ThreadMXBean threads = Threads.BEAN;
+        return threads instanceof com.sun.management.ThreadMXBean
+                ? ((com.sun.management.ThreadMXBean) threads).getCurrentThreadAllocatedBytes() : -1;
+    }
+}
@@ -0,0 +1,14 @@
+package Shipping;
+
+/**
+ * JMX switch of {@link RoutingMetrics}. Public because JMX only exposes
+ * public interfaces.
+ */
+public interface RoutingMetricsMBean {
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    // Clears the statistics of every query kind.
+    void reset();
+}
@@ -0,0 +1,286 @@
+package Shipping;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Local HTTP/JSON front end of a {@link RoutingEngine}, on the JDK's built-in
+ * server. Every request runs on its own virtual thread (Java 21) and reads the
+ * network's current graph once, so it answers from one immutable snapshot
+ * shared by all requests, even while edits publish new versions.
+ *
+ * Endpoints, all GET, with ports given by UN/LOCODE, name or node id:
+ *   /network                               node and edge counts, version
+ *   /route?from=&to=[&strategy=A_STAR]     shortest route
+ *   /alternatives?from=&to=                alternatives to the shortest route
+ *   /earliest-arrival?from=&to=[&departure=minute of year, default now]
+ *   /pareto?from=&to=                      distance, fuel and time trade-offs
+ */
+final class RoutingServer {
+    private static final int DEFAULT_PORT = 8080;
+    private static final Logger LOG = Logger.getLogger(RoutingServer.class.getName());
+
+    private final RoutingEngine engine;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    RoutingServer(RoutingEngine engine, InetSocketAddress address) throws IOException {
+        this.engine = engine;
+        // The server writes headers and body separately; without TCP_NODELAY, Nagle's algorithm and delayed
+        // ACKs hold each small response back by about 40 ms. The JDK reads this once, at its first server.
+        System.getProperties().putIfAbsent("sun.net.httpserver.nodelay", "true");
+        this.server = HttpServer.create(address, 0);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/network", exchange -> handle(exchange, this::network));
+        server.createContext("/route", exchange -> handle(exchange, this::route));
+        server.createContext("/alternatives", exchange -> handle(exchange, this::alternatives));
+        server.createContext("/earliest-arrival", exchange -> handle(exchange, this::earliestArrival));
+        server.createContext("/pareto", exchange -> handle(exchange, this::pareto));
+    }
+
+    void start() {
+        server.start();
+    }
+
+    void stop() {
+        server.stop(0);
+        executor.close();
+    }
+
+    // The bound port, e.g. when the server was created on port 0.
+    int port() {
+        return server.getAddress().getPort();
+    }
+
+    private interface Endpoint {
+        String respond(PortGraph graph, Map<String, String> query);
+    }
+
+    // Thrown for bad requests; the message is returned to the client.
+    private static final class RequestException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        RequestException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    // Answers one exchange and always closes it; a client that went away while it was written is ignored.
+    private void handle(HttpExchange exchange, Endpoint endpoint) {
+        try {
+            int status = 200;
+            String body;
+            try {
+                if (!exchange.getRequestMethod().equals("GET")) {
+                    throw new RequestException(405, "Only GET is supported");
+                }
+                Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+                PortGraph graph = engine.network().graph();
+                body = SearchContext.pooled(() -> endpoint.respond(graph, query));
+            } catch (RequestException e) {
+                status = e.status;
+                body = "{\"error\":" + quote(e.getMessage()) + "}";
+            } catch (RuntimeException e) {
+                // Failures stay in the server's log; clients learn nothing about its internals.
+                LOG.log(Level.SEVERE, "Failed to answer " + exchange.getRequestURI(), e);
+                status = 500;
+                body = "{\"error\":\"Internal server error\"}";
+            }
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } catch (IOException e) {
+            // The connection is gone; there is no one left to answer.
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private String network(PortGraph graph, Map<String, String> query) {
+        return "{\"nodes\":" + graph.nodeCount() + ",\"edges\":" + graph.edgeCount()
+                + ",\"version\":" + graph.version() + "}";
+    }
+
+    private String route(PortGraph graph, Map<String, String> query) {
+        RoutingStrategy strategy;
+        try {
+            strategy = RoutingStrategy.valueOf(query.getOrDefault("strategy", "A_STAR").toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new RequestException(400, "Unknown strategy " + query.get("strategy"));
+        }
+        Route route = engine.shortestRoute(graph, port(graph, query, "from"), port(graph, query, "to"), strategy);
+        if (route.isEmpty()) {
+            throw new RequestException(404, "No route found");
+        }
+        return toJson(graph, route.nodes, "{\"distance\":" + route.distance);
+    }
+
+    private String alternatives(PortGraph graph, Map<String, String> query) {
+        List<Route> routes = engine.alternativeRoutes(graph, port(graph, query, "from"), port(graph, query, "to"));
+        StringBuilder json = new StringBuilder("[");
+        for (Route route : routes) {
+            json.append(json.length() > 1 ? "," : "").append(toJson(graph, route.nodes, "{\"distance\":" + route.distance));
+        }
+        return json.append(']').toString();
+    }
+
+    private String earliestArrival(PortGraph graph, Map<String, String> query) {
+        int departure;
+        if (query.containsKey("departure")) {
+            departure = integer(query, "departure");
+        } else {
+            ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+            departure = (int) ChronoUnit.MINUTES.between(now.withDayOfYear(1).truncatedTo(ChronoUnit.DAYS), now);
+        }
+        if (departure < 0) {
+            throw new RequestException(400, "Departure must not be negative");
+        }
+        Route route = engine.earliestArrival(graph, port(graph, query, "from"), port(graph, query, "to"), departure);
+        if (route.isEmpty()) {
+            throw new RequestException(404, "No route found");
+        }
+        return toJson(graph, route.nodes, "{\"departure\":" + departure + ",\"minutes\":" + route.distance);
+    }
+
+    private String pareto(PortGraph graph, Map<String, String> query) {
+        List<ParetoRoute> routes = engine.paretoRoutes(graph, port(graph, query, "from"), port(graph, query, "to"));
+        StringBuilder json = new StringBuilder("[");
+        for (ParetoRoute route : routes) {
+            json.append(json.length() > 1 ? "," : "").append(toJson(graph, route.nodes,
+                    "{\"distance\":" + route.distance + ",\"fuelKg\":" + route.fuel + ",\"minutes\":" + route.time));
+        }
+        return json.append(']').toString();
+    }
+
+    // Resolves a port parameter as a UN/LOCODE, then an exact name, then a node id.
+    private static int port(PortGraph graph, Map<String, String> query, String parameter) {
+        String value = query.get(parameter);
+        if (value == null) {
+            throw new RequestException(400, "Missing parameter " + parameter);
+        }
+        PortRegistry registry = graph.registry();
+        int node = registry.byLocode(value);
+        if (node == PortRegistry.NOT_FOUND) {
+            node = registry.byName(value);
+        }
+        if (node == PortRegistry.NOT_FOUND) {
+            try {
+                node = Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                node = PortRegistry.NOT_FOUND;
+            }
+        }
+        if (node < 0 || node >= graph.nodeCount()) {
+            throw new RequestException(404, "Unknown port " + value);
+        }
+        return node;
+    }
+
+    private static int integer(Map<String, String> query, String parameter) {
+        try {
+            return Integer.parseInt(query.get(parameter));
+        } catch (NumberFormatException e) {
+            throw new RequestException(400, "Parameter " + parameter + " must be an integer");
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0) {
+                query.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return query;
+    }
+
+    // Closes the object opened by prefix with the route's ports.
+    private static String toJson(PortGraph graph, int[] nodes, String prefix) {
+        StringBuilder json = new StringBuilder(prefix).append(",\"ports\":[");
+        for (int i = 0; i < nodes.length; i++) {
+            int node = nodes[i];
+            json.append(i > 0 ? "," : "").append("{\"id\":").append(node)
+                    .append(",\"name\":").append(quote(graph.name(node)))
+                    .append(",\"locode\":").append(graph.locode(node) == null ? "null" : quote(graph.locode(node)))
+                    .append(",\"lat\":").append(graph.latitude(node))
+                    .append(",\"lon\":").append(graph.longitude(node)).append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    /**
+     * Serves the built-in network, or one read from a network file, on localhost, with metrics over JMX.
+     * Earliest arrivals sail under the lane conditions of --conditions, by default the sample ones.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = DEFAULT_PORT;
+        String file = null;
+        String conditionsFile = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--port") && i + 1 < args.length) {
+                port = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--conditions") && i + 1 < args.length) {
+                conditionsFile = args[++i];
+            } else if (file == null && !args[i].startsWith("--")) {
+                file = args[i];
+            } else {
+                System.err.println("Usage: java Shipping.RoutingServer [--port <port>] [--conditions <lanes.txt>] [network.snet]");
+                System.exit(2);
+            }
+        }
+        PortGraph graph = file == null ? SampleNetwork.graph() : NetworkFile.read(Paths.get(file));
+        LaneConditions conditions = conditionsFile == null ? SampleNetwork.conditions(graph)
+                : LaneConditions.read(Paths.get(conditionsFile), graph);
+        RoutingMetrics.register();
+        RoutingServer server = new RoutingServer(new RoutingEngine(new PortNetwork(graph), conditions),
+                new InetSocketAddress("localhost", port));
+        server.start();
+        System.out.printf("Serving %d nodes, %d edges on http://localhost:%d%n",
+                graph.nodeCount(), graph.edgeCount(), server.port());
+    }
+}
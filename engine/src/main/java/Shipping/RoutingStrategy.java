@@ -0,0 +1,46 @@
+package Shipping;
+
+/**
+ * The selectable shortest-route algorithms.
+ */
+enum RoutingStrategy {
+    DIJKSTRA("Dijkstra") {
+        @Override
+        RouteSearch create(PortGraph graph) {
+            return new DijkstraSearch(graph);
+        }
+    },
+    A_STAR("A* (great-circle)") {
+        @Override
+        RouteSearch create(PortGraph graph) {
+            return new AStarSearch(graph);
+        }
+    },
+    BIDIRECTIONAL("Bidirectional A*") {
+        @Override
+        RouteSearch create(PortGraph graph) {
+            return new BidirectionalSearch(graph);
+        }
+    },
+    CONTRACTION_HIERARCHY("Contraction hierarchy") {
+        @Override
+        RouteSearch create(PortGraph graph) {
+            // Until the hierarchy of a new version is contracted, bidirectional A* answers just as exactly.
+            ContractionHierarchy hierarchy = graph.readyContractionHierarchy();
+            return hierarchy != null ? new ContractionHierarchySearch(hierarchy) : new BidirectionalSearch(graph);
+        }
+    };
+
+    private final String label;
+
+    RoutingStrategy(String label) {
+        this.label = label;
+    }
+
+    abstract RouteSearch create(PortGraph graph);
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
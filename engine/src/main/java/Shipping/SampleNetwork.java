@@ -0,0 +1,157 @@
+package Shipping;
+
+/**
+ * The built-in demonstration network: major ports of India, Brazil, the USA
+ * and Canada, joined by a chain of sea waypoints round the Cape of Good Hope.
+ * Distances are in nautical miles.
+ */
+final class SampleNetwork {
+    private SampleNetwork() {
+    }
+
+    static PortGraph graph() {
+        PortGraph.Builder builder = new PortGraph.Builder();
+
+        // Adding ports in India (sea shores)
+        int indiaMain = builder.addNode("India - Mumbai", "INBOM", 18.9647, 72.8258); // Mumbai
+        int indiaPort1 = builder.addNode("India - Chennai", "INMAA", 13.0827, 80.2707); // Chennai
+        int indiaPort2 = builder.addNode("India - Kolkata", "INCCU", 22.5726, 88.3639); // Kolkata
+        int indiaPort3 = builder.addNode("India - Cochin", "INCOK", 9.9312, 76.2673); // Cochin
+        int indiaPort4 = builder.addNode("India - Kandla", "INIXY", 23.0324, 70.2228); // Kandla
+
+        // Adding ports in Brazil (sea shores)
+        int brazilMain = builder.addNode("Brazil - Rio de Janeiro", "BRRIO", -22.9068, -43.1729); // Rio de Janeiro
+        int brazilPort1 = builder.addNode("Brazil - Santos", "BRSSZ", -23.9536, -46.3322); // Santos
+        int brazilPort2 = builder.addNode("Brazil - Salvador", "BRSSA", -12.9714, -38.5014); // Salvador
+        int brazilPort3 = builder.addNode("Brazil - Recife", "BRREC", -8.0476, -34.8770); // Recife
+        int brazilPort4 = builder.addNode("Brazil - Fortaleza", "BRFOR", -3.7172, -38.5434); // Fortaleza
+
+        // Adding ports in America (sea shores)
+        int americaMain = builder.addNode("USA - New York", "USNYC", 40.7128, -74.0060); // New York
+        int americaPort1 = builder.addNode("USA - Los Angeles", "USLAX", 33.9416, -118.4085); // Los Angeles
+        int americaPort2 = builder.addNode("USA - Miami", "USMIA", 25.7617, -80.1918); // Miami
+        int americaPort3 = builder.addNode("USA - Houston", "USHOU", 29.7604, -95.3698); // Houston
+        int americaPort4 = builder.addNode("USA - Seattle", "USSEA", 47.6062, -122.3321); // Seattle
+
+        // Adding ports in Canada (sea shores)
+        int canadaMain = builder.addNode("Canada - Vancouver", "CAVAN", 49.2827, -123.1207); // Vancouver
+        int canadaPort1 = builder.addNode("Canada - Halifax", "CAHAL", 44.6488, -63.5752); // Halifax
+        int canadaPort2 = builder.addNode("Canada - Montreal", "CAMTR", 45.5017, -73.5673); // Montreal
+        int canadaPort3 = builder.addNode("Canada - Toronto", "CATOR", 43.651070, -79.347015); // Toronto
+        int canadaPort4 = builder.addNode("Canada - Quebec City", "CAQUE", 46.8139, -71.2082); // Quebec City
+
+        // Adding intermediate sea waypoints to avoid land
+        int waypoint1 = builder.addNode("Waypoint 1", 12.0, 70.0);
+        int waypoint2 = builder.addNode("Waypoint 2", 5.0, 50.0);
+        int waypoint3 = builder.addNode("Waypoint 3", -5.0, 40.0);
+        int waypoint4 = builder.addNode("Waypoint 4 - Cape Town", "ZACPT", -33.9258, 18.4232); // Cape Town
+        int waypoint5 = builder.addNode("Waypoint 5", -25.0, 10.0);
+        int waypoint6 = builder.addNode("Waypoint 6", -20.0, -10.0);
+        int waypoint7 = builder.addNode("Waypoint 7", -10.0, -20.0);
+        int waypoint8 = builder.addNode("Waypoint 8", 0.0, -30.0);
+        int waypoint9 = builder.addNode("Waypoint 9", 10.0, -40.0);
+        int waypoint10 = builder.addNode("Waypoint 10", 0.0, -50.0);
+        int waypoint11 = builder.addNode("Waypoint 11", -10.0, -60.0);
+        int waypoint12 = builder.addNode("Waypoint 12", -25.0, -70.0);
+
+        // Adding predefined distances
+        builder.addEdge(indiaMain, indiaPort1, 660);
+        builder.addEdge(indiaMain, indiaPort2, 860);
+        builder.addEdge(indiaMain, indiaPort3, 720);
+        builder.addEdge(indiaMain, indiaPort4, 940);
+
+        builder.addEdge(brazilMain, brazilPort1, 210);
+        builder.addEdge(brazilMain, brazilPort2, 610);
+        builder.addEdge(brazilMain, brazilPort3, 1220);
+        builder.addEdge(brazilMain, brazilPort4, 1860);
+
+        builder.addEdge(americaMain, americaPort1, 2450);
+        builder.addEdge(americaMain, americaPort2, 1090);
+        builder.addEdge(americaMain, americaPort3, 1630);
+        builder.addEdge(americaMain, americaPort4, 2420);
+
+        builder.addEdge(canadaMain, canadaPort1, 3030);
+        builder.addEdge(canadaMain, canadaPort2, 2320);
+        builder.addEdge(canadaMain, canadaPort3, 2090);
+        builder.addEdge(canadaMain, canadaPort4, 2410);
+
+        // Define international sea routes with intermediate waypoints
+        builder.addEdge(indiaMain, waypoint1, 1100);
+        builder.addEdge(waypoint1, waypoint2, 1300);
+        builder.addEdge(waypoint2, waypoint3, 1400);
+        builder.addEdge(waypoint3, waypoint4, 1500); // Cape Town
+        builder.addEdge(waypoint4, waypoint5, 1600);
+        builder.addEdge(waypoint5, waypoint6, 1700);
+        builder.addEdge(waypoint6, waypoint7, 1800);
+        builder.addEdge(waypoint7, waypoint8, 1900);
+        builder.addEdge(waypoint8, waypoint9, 2000);
+        builder.addEdge(waypoint9, waypoint10, 2100);
+        builder.addEdge(waypoint10, waypoint11, 2200);
+        builder.addEdge(waypoint11, waypoint12, 2300);
+        builder.addEdge(waypoint12, brazilMain, 2400);
+
+        // Add connections from sub-ports to main ports for international connections
+        builder.addEdge(indiaPort1, indiaMain, 660);
+        builder.addEdge(indiaPort2, indiaMain, 860);
+        builder.addEdge(indiaPort3, indiaMain, 720);
+        builder.addEdge(indiaPort4, indiaMain, 940);
+
+        builder.addEdge(brazilPort1, brazilMain, 210);
+        builder.addEdge(brazilPort2, brazilMain, 610);
+        builder.addEdge(brazilPort3, brazilMain, 1220);
+        builder.addEdge(brazilPort4, brazilMain, 1860);
+
+        builder.addEdge(americaPort1, americaMain, 2450);
+        builder.addEdge(americaPort2, americaMain, 1090);
+        builder.addEdge(americaPort3, americaMain, 1630);
+        builder.addEdge(americaPort4, americaMain, 2420);
+
+        builder.addEdge(canadaPort1, canadaMain, 3030);
+        builder.addEdge(canadaPort2, canadaMain, 2320);
+        builder.addEdge(canadaPort3, canadaMain, 2090);
+        builder.addEdge(canadaPort4, canadaMain, 2410);
+
+        return builder.build();
+    }
+
+    /**
+     * Seasonal conditions on the lanes of the sample network, for graph: the
+     * south-west monsoon slowing the Arabian Sea from June to September, the
+     * Agulhas current pushing towards the Cape and winter storms south of it,
+     * which also raise the fuel burn. Lanes whose ports graph lacks are left
+     * out, so any network can take them.
+     */
+    static LaneConditions conditions(PortGraph graph) {
+        LaneConditions.Builder builder = new LaneConditions.Builder();
+        int[] monsoonDays = {0, 152, 166, 258, 273};
+        int[] monsoonPercents = {100, 100, 80, 80, 100};
+        condition(graph, "India - Mumbai", "Waypoint 1",
+                (from, to) -> builder.season(from, to, minutes(monsoonDays), monsoonPercents));
+        condition(graph, "Waypoint 1", "Waypoint 2",
+                (from, to) -> builder.season(from, to, minutes(monsoonDays), monsoonPercents));
+        condition(graph, "Waypoint 3", "Waypoint 4 - Cape Town", (from, to) -> builder.current(from, to, 1.5));
+        condition(graph, "Waypoint 4 - Cape Town", "Waypoint 5", (from, to) -> builder.season(from, to,
+                minutes(new int[] {0, 135, 152, 243, 258}), new int[] {100, 100, 75, 75, 100}).fuel(from, to, 1.15));
+        return builder.build();
+    }
+
+    private static void condition(PortGraph graph, String fromName, String toName, IntBinaryConsumer apply) {
+        int from = graph.registry().byName(fromName);
+        int to = graph.registry().byName(toName);
+        if (from != PortRegistry.NOT_FOUND && to != PortRegistry.NOT_FOUND) {
+            apply.accept(from, to);
+        }
+    }
+
+    private static int[] minutes(int[] days) {
+        int[] minutes = new int[days.length];
+        for (int i = 0; i < days.length; i++) {
+            minutes[i] = days[i] * LaneConditions.MINUTES_PER_DAY;
+        }
+        return minutes;
+    }
+
+    private interface IntBinaryConsumer {
+        void accept(int from, int to);
+    }
+}
@@ -0,0 +1,147 @@
+package Shipping;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+/**
+ * Reusable per-thread search state. Distances and predecessors are only valid
+ * for nodes stamped with the current epoch, so starting a new query is O(1)
+ * instead of clearing O(V) arrays.
+ *
+ * Virtual threads usually serve a single request, so their thread-local
+ * contexts would be allocated at O(V) per query; {@link #pooled} lends them
+ * contexts from a shared pool instead.
+ *
+ * Contexts also count the work of the searches run on them, for
+ * instrumentation: nodes settled, edges relaxed and heap operations. The
+ * counters only grow, so a query's work is their difference across it.
+ */
+final class SearchContext {
+    static final int UNREACHABLE = Integer.MAX_VALUE;
+    private static final int[] NO_PATH = new int[0];
+
+    private static final ThreadLocal<SearchContext> LOCAL = ThreadLocal.withInitial(() -> new SearchContext(0));
+    private static final ThreadLocal<SearchContext> LOCAL_BACKWARD = ThreadLocal.withInitial(() -> new SearchContext(0));
+    private static final ConcurrentLinkedQueue<SearchContext[]> POOL = new ConcurrentLinkedQueue<>();
+
+    private int[] distances;
+    private int[] previous;
+    private int[] stamps;
+    private int epoch;
+    final IndexedMinHeap heap;
+    // Edges scanned from settled nodes; searches add each node's out-degree as they scan it.
+    long relaxedEdges;
+    private long otherSettledNodes;
+    private long otherHeapOperations;
+
+    SearchContext(int nodeCount) {
+        distances = new int[nodeCount];
+        previous = new int[nodeCount];
+        stamps = new int[nodeCount];
+        heap = new IndexedMinHeap(nodeCount);
+    }
+
+    // Returns this thread's context, sized for at least nodeCount nodes.
+    static SearchContext current(int nodeCount) {
+        SearchContext context = LOCAL.get();
+        context.ensureCapacity(nodeCount);
+        return context;
+    }
+
+    // Returns this thread's second context, for the reverse side of bidirectional searches.
+    static SearchContext currentBackward(int nodeCount) {
+        SearchContext context = LOCAL_BACKWARD.get();
+        context.ensureCapacity(nodeCount);
+        return context;
+    }
+
+    // Runs query with a pooled forward and backward context as this thread's contexts, then returns them.
+    static <T> T pooled(Supplier<T> query) {
+        SearchContext[] pair = POOL.poll();
+        if (pair == null) {
+            pair = new SearchContext[] {new SearchContext(0), new SearchContext(0)};
+        }
+        LOCAL.set(pair[0]);
+        LOCAL_BACKWARD.set(pair[1]);
+        try {
+            return query.get();
+        } finally {
+            LOCAL.remove();
+            LOCAL_BACKWARD.remove();
+            POOL.offer(pair);
+        }
+    }
+
+    /**
+     * Stores this thread's work so far, forward and backward contexts
+     * together, as settled nodes, relaxed edges and heap operations.
+     */
+    static void work(long[] totals) {
+        SearchContext forward = LOCAL.get();
+        SearchContext backward = LOCAL_BACKWARD.get();
+        totals[0] = forward.heap.polls + forward.otherSettledNodes + backward.heap.polls + backward.otherSettledNodes;
+        totals[1] = forward.relaxedEdges + backward.relaxedEdges;
+        totals[2] = forward.heap.operations + forward.otherHeapOperations
+                + backward.heap.operations + backward.otherHeapOperations;
+    }
+
+    // Counts work done without this context's heap, e.g. on other threads or with another queue.
+    void addWork(long settledNodes, long relaxedEdges, long heapOperations) {
+        otherSettledNodes += settledNodes;
+        this.relaxedEdges += relaxedEdges;
+        otherHeapOperations += heapOperations;
+    }
+
+    void ensureCapacity(int nodeCount) {
+        if (stamps.length < nodeCount) {
+            distances = Arrays.copyOf(distances, nodeCount);
+            previous = Arrays.copyOf(previous, nodeCount);
+            stamps = Arrays.copyOf(stamps, nodeCount);
+            heap.ensureNodeCapacity(nodeCount);
+        }
+    }
+
+    // Invalidates all labels of the previous query.
+    void begin() {
+        heap.clear();
+        if (++epoch == 0) {
+            Arrays.fill(stamps, 0);
+            epoch = 1;
+        }
+    }
+
+    boolean reached(int node) {
+        return stamps[node] == epoch;
+    }
+
+    int distance(int node) {
+        return stamps[node] == epoch ? distances[node] : UNREACHABLE;
+    }
+
+    int previous(int node) {
+        return stamps[node] == epoch ? previous[node] : -1;
+    }
+
+    void label(int node, int distance, int predecessor) {
+        distances[node] = distance;
+        previous[node] = predecessor;
+        stamps[node] = epoch;
+    }
+
+    // Returns the node ids from the search root to target, or an empty array if unreached.
+    int[] path(int target) {
+        if (!reached(target)) {
+            return NO_PATH;
+        }
+        int length = 0;
+        for (int at = target; at != -1; at = previous[at]) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int at = target; at != -1; at = previous[at]) {
+            path[--length] = at;
+        }
+        return path;
+    }
+}
@@ -0,0 +1,188 @@
+package Shipping;
+
+import java.util.Arrays;
+
+/**
+ * A standing shortest-path tree from one source, e.g. a fleet's home port,
+ * kept up to date as a {@link PortNetwork} is edited instead of being
+ * recomputed from scratch (dynamic SSSP in the style of Ramalingam and Reps).
+ *
+ * On each edit only the affected part of the tree is repaired:
+ * - a heavier or removed tree edge u -> v orphans the subtree under v; each
+ *   orphan is seeded with its best entry from a non-orphaned in-neighbour;
+ * - a lighter or new edge u -> v seeds v if it now beats v's distance.
+ * One Dijkstra pass from the seeded nodes then settles everything that
+ * changed, so the cost follows the size of the change, not of the graph.
+ */
+final class ShortestPathTree implements PortNetwork.EdgeListener {
+    static final int UNREACHABLE = SearchContext.UNREACHABLE;
+    private static final int NO_PARENT = -1;
+
+    private final int source;
+    private final int[] distances;
+    private final int[] parents;
+    private final IndexedMinHeap heap;
+    private final boolean[] orphaned;
+    private int[] orphans = new int[16];
+    private PortGraph graph;
+    private int lastRepairSize;
+
+    ShortestPathTree(PortGraph graph, int source) {
+        int n = graph.nodeCount();
+        this.source = source;
+        this.graph = graph;
+        distances = new int[n];
+        parents = new int[n];
+        heap = new IndexedMinHeap(n);
+        orphaned = new boolean[n];
+        Arrays.fill(distances, UNREACHABLE);
+        Arrays.fill(parents, NO_PARENT);
+        distances[source] = 0;
+        heap.insertOrDecrease(source, 0);
+        lastRepairSize = settle();
+    }
+
+    // Builds the tree on the network's current graph and keeps it repaired on every edit.
+    static ShortestPathTree attach(PortNetwork network, int source) {
+        synchronized (network) {
+            ShortestPathTree tree = new ShortestPathTree(network.graph(), source);
+            network.addListener(tree);
+            return tree;
+        }
+    }
+
+    int source() {
+        return source;
+    }
+
+    synchronized PortGraph graph() {
+        return graph;
+    }
+
+    synchronized int distance(int target) {
+        return distances[target];
+    }
+
+    synchronized int[] path(int target) {
+        if (distances[target] == UNREACHABLE) {
+            return new int[0];
+        }
+        int length = 1;
+        for (int node = target; node != source; node = parents[node]) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int node = target, i = length - 1; i >= 0; node = parents[node], i--) {
+            path[i] = node;
+        }
+        return path;
+    }
+
+    synchronized Route route(int target) {
+        int[] path = path(target);
+        return path.length == 0 ? Route.NONE : new Route(path, distances[target]);
+    }
+
+    // Nodes whose distance was settled again by the last repair; the initial build counts every reached node.
+    synchronized int lastRepairSize() {
+        return lastRepairSize;
+    }
+
+    @Override
+    public synchronized void edgesChanged(PortGraph before, PortGraph after, int[] from, int[] to) {
+        if (before != graph) {
+            throw new IllegalStateException("Shortest-path tree missed an edit of its network");
+        }
+        graph = after;
+
+        // Orphan the subtrees hanging off tree edges that became heavier or disappeared.
+        int orphanCount = 0;
+        for (int i = 0; i < from.length; i++) {
+            int oldWeight = before.weight(from[i], to[i]);
+            int newWeight = after.weight(from[i], to[i]);
+            boolean heavier = newWeight == PortGraph.NO_EDGE || (oldWeight != PortGraph.NO_EDGE && newWeight > oldWeight);
+            if (heavier && parents[to[i]] == from[i] && !orphaned[to[i]]) {
+                orphanCount = orphanSubtree(before, to[i], orphanCount);
+            }
+        }
+        // Each orphan re-enters through its cheapest in-edge from the intact part of the tree.
+        PortGraph reverse = orphanCount > 0 ? after.reverse() : null;
+        for (int i = 0; i < orphanCount; i++) {
+            int node = orphans[i];
+            for (int e = reverse.offsets[node]; e < reverse.offsets[node + 1]; e++) {
+                int neighbor = reverse.targets[e];
+                if (!orphaned[neighbor] && distances[neighbor] != UNREACHABLE) {
+                    relax(neighbor, node, distances[neighbor] + reverse.weights.get(e));
+                }
+            }
+        }
+        for (int i = 0; i < orphanCount; i++) {
+            orphaned[orphans[i]] = false;
+        }
+
+        // Edges that became lighter or appeared may shortcut into any part of the tree.
+        for (int i = 0; i < from.length; i++) {
+            int weight = after.weight(from[i], to[i]);
+            if (weight != PortGraph.NO_EDGE && distances[from[i]] != UNREACHABLE) {
+                relax(from[i], to[i], distances[from[i]] + weight);
+            }
+        }
+        lastRepairSize = settle();
+    }
+
+    // Detaches the subtree rooted at root, marking its nodes unreached; returns the new orphan count.
+    private int orphanSubtree(PortGraph before, int root, int orphanCount) {
+        // Tree edges are looked up in the graph the tree was built on; the edit may have removed some.
+        int[] offsets = before.offsets;
+        int[] targets = before.targets;
+        int head = orphanCount;
+        orphanCount = addOrphan(root, orphanCount);
+        while (head < orphanCount) {
+            int node = orphans[head++];
+            for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                int child = targets[e];
+                if (parents[child] == node && !orphaned[child]) {
+                    orphanCount = addOrphan(child, orphanCount);
+                }
+            }
+        }
+        return orphanCount;
+    }
+
+    private int addOrphan(int node, int orphanCount) {
+        if (orphanCount == orphans.length) {
+            orphans = Arrays.copyOf(orphans, orphanCount * 2);
+        }
+        orphans[orphanCount] = node;
+        orphaned[node] = true;
+        distances[node] = UNREACHABLE;
+        parents[node] = NO_PARENT;
+        heap.remove(node);
+        return orphanCount + 1;
+    }
+
+    private void relax(int from, int to, int distance) {
+        if (distance < distances[to]) {
+            distances[to] = distance;
+            parents[to] = from;
+            heap.insertOrDecrease(to, distance);
+        }
+    }
+
+    // Dijkstra from the queued nodes over the current graph; returns the number of nodes settled.
+    private int settle() {
+        int[] offsets = graph.offsets;
+        int[] targets = graph.targets;
+        EdgeWeights weights = graph.weights;
+        int settled = 0;
+        while (!heap.isEmpty()) {
+            int distance = heap.peekKey();
+            int node = heap.poll();
+            settled++;
+            for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                relax(node, targets[e], distance + weights.get(e));
+            }
+        }
+        return settled;
+    }
+}
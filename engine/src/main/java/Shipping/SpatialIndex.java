@@ -0,0 +1,346 @@
+package Shipping;
+
+import java.util.Arrays;
+
+/**
+ * Static k-d tree over the nodes of a {@link PortGraph}, built on their unit
+ * vectors on the sphere so that straight-line (chord) distance orders points
+ * exactly like great-circle distance, with no trouble at the antimeridian or
+ * the poles. The tree is implicit: each range [lo, hi) of the arrays is a
+ * subtree whose splitting point sits at its midpoint.
+ */
+final class SpatialIndex {
+    static final int NOT_FOUND = -1;
+
+    private final PortGraph graph;
+    private final int[] nodes;
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] zs;
+    private final byte[] axes;
+
+    SpatialIndex(PortGraph graph) {
+        this.graph = graph;
+        int n = graph.nodeCount();
+        nodes = new int[n];
+        xs = new double[n];
+        ys = new double[n];
+        zs = new double[n];
+        axes = new byte[n];
+        for (int i = 0; i < n; i++) {
+            nodes[i] = i;
+            double lat = Math.toRadians(graph.latitude(i));
+            double lon = Math.toRadians(graph.longitude(i));
+            xs[i] = Math.cos(lat) * Math.cos(lon);
+            ys[i] = Math.cos(lat) * Math.sin(lon);
+            zs[i] = Math.sin(lat);
+        }
+        build(0, n);
+    }
+
+    int size() {
+        return nodes.length;
+    }
+
+    // Returns the node closest to the position, e.g. to snap a click or an AIS fix onto the graph.
+    int nearest(double latitude, double longitude) {
+        int[] result = kNearest(latitude, longitude, 1);
+        return result.length == 0 ? NOT_FOUND : result[0];
+    }
+
+    // Returns up to k nodes ordered from nearest to farthest.
+    int[] kNearest(double latitude, double longitude, int k) {
+        if (k <= 0 || nodes.length == 0) {
+            return new int[0];
+        }
+        double[] q = unitVector(latitude, longitude);
+        Neighbours best = new Neighbours(Math.min(k, nodes.length));
+        searchNearest(0, nodes.length, q[0], q[1], q[2], best);
+        return best.sortedNodes();
+    }
+
+    // Returns every node within the given great-circle distance.
+    int[] withinNm(double latitude, double longitude, double radiusNm) {
+        double angle = Math.min(Math.PI, radiusNm / GreatCircleHeuristic.EARTH_RADIUS_NM);
+        double chord = 2 * Math.sin(angle / 2);
+        double[] q = unitVector(latitude, longitude);
+        IntList slots = new IntList();
+        searchBallSlots(0, nodes.length, q[0], q[1], q[2], chord * chord, slots);
+        int[] result = new int[slots.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = nodes[slots.get(i)];
+        }
+        return result;
+    }
+
+    /**
+     * Returns every node inside a lat/lon box such as the map viewport. A box
+     * with minLongitude > maxLongitude wraps across the antimeridian.
+     */
+    int[] inBounds(double minLatitude, double maxLatitude, double minLongitude, double maxLongitude) {
+        double lonSpan = maxLongitude - minLongitude;
+        if (lonSpan < 0) {
+            lonSpan += 360;
+        }
+        IntList candidates = new IntList();
+        if (lonSpan > 180) {
+            for (int i = 0; i < nodes.length; i++) {
+                candidates.add(i);
+            }
+        } else {
+            // The farthest point of a box of at most 180 degrees from its centre is a corner,
+            // so a ball through the corners covers it.
+            double centerLat = (minLatitude + maxLatitude) / 2;
+            double centerLon = minLongitude + lonSpan / 2;
+            double[] c = unitVector(centerLat, centerLon);
+            double radius2 = 0;
+            for (double lat : new double[]{minLatitude, maxLatitude}) {
+                for (double lon : new double[]{minLongitude, maxLongitude}) {
+                    double[] corner = unitVector(lat, lon);
+                    radius2 = Math.max(radius2, distance2(c, corner[0], corner[1], corner[2]));
+                }
+            }
+            searchBallSlots(0, nodes.length, c[0], c[1], c[2], radius2 * (1 + 1e-9) + 1e-12, candidates);
+        }
+
+        IntList result = new IntList();
+        for (int i = 0; i < candidates.size(); i++) {
+            int node = nodes[candidates.get(i)];
+            double lat = graph.latitude(node);
+            double offset = (graph.longitude(node) - minLongitude) % 360;
+            if (offset < 0) {
+                offset += 360;
+            }
+            if (lat >= minLatitude && lat <= maxLatitude && offset <= lonSpan) {
+                result.add(node);
+            }
+        }
+        return result.toArray();
+    }
+
+    private void build(int lo, int hi) {
+        if (hi - lo <= 1) {
+            return;
+        }
+        // Split on the axis with the largest extent in this subtree.
+        double[][] coordinates = {xs, ys, zs};
+        int axis = 0;
+        double widest = -1;
+        for (int a = 0; a < 3; a++) {
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = lo; i < hi; i++) {
+                min = Math.min(min, coordinates[a][i]);
+                max = Math.max(max, coordinates[a][i]);
+            }
+            if (max - min > widest) {
+                widest = max - min;
+                axis = a;
+            }
+        }
+        int mid = (lo + hi) >>> 1;
+        select(coordinates[axis], lo, hi - 1, mid);
+        axes[mid] = (byte) axis;
+        build(lo, mid);
+        build(mid + 1, hi);
+    }
+
+    // Quickselect: puts the k-th smallest value on the axis at index k.
+    private void select(double[] values, int lo, int hi, int k) {
+        while (hi > lo) {
+            double pivot = values[(lo + hi) >>> 1];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (values[i] < pivot) {
+                    i++;
+                }
+                while (values[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void swap(int a, int b) {
+        int node = nodes[a];
+        nodes[a] = nodes[b];
+        nodes[b] = node;
+        double t = xs[a];
+        xs[a] = xs[b];
+        xs[b] = t;
+        t = ys[a];
+        ys[a] = ys[b];
+        ys[b] = t;
+        t = zs[a];
+        zs[a] = zs[b];
+        zs[b] = t;
+    }
+
+    private void searchNearest(int lo, int hi, double x, double y, double z, Neighbours best) {
+        if (lo >= hi) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        best.offer(nodes[mid], distance2(mid, x, y, z));
+        double delta = axisDelta(mid, x, y, z);
+        if (delta < 0) {
+            searchNearest(lo, mid, x, y, z, best);
+            if (delta * delta < best.worst()) {
+                searchNearest(mid + 1, hi, x, y, z, best);
+            }
+        } else {
+            searchNearest(mid + 1, hi, x, y, z, best);
+            if (delta * delta < best.worst()) {
+                searchNearest(lo, mid, x, y, z, best);
+            }
+        }
+    }
+
+    private void searchBallSlots(int lo, int hi, double x, double y, double z, double radius2, IntList slots) {
+        if (lo >= hi) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        if (distance2(mid, x, y, z) <= radius2) {
+            slots.add(mid);
+        }
+        double delta = axisDelta(mid, x, y, z);
+        if (delta < 0 || delta * delta <= radius2) {
+            searchBallSlots(lo, mid, x, y, z, radius2, slots);
+        }
+        if (delta >= 0 || delta * delta <= radius2) {
+            searchBallSlots(mid + 1, hi, x, y, z, radius2, slots);
+        }
+    }
+
+    // Signed distance of the query from the splitting plane at slot.
+    private double axisDelta(int slot, double x, double y, double z) {
+        switch (axes[slot]) {
+            case 0:
+                return x - xs[slot];
+            case 1:
+                return y - ys[slot];
+            default:
+                return z - zs[slot];
+        }
+    }
+
+    private double distance2(int slot, double x, double y, double z) {
+        double dx = xs[slot] - x;
+        double dy = ys[slot] - y;
+        double dz = zs[slot] - z;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    private static double distance2(double[] a, double x, double y, double z) {
+        double dx = a[0] - x;
+        double dy = a[1] - y;
+        double dz = a[2] - z;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    private static double[] unitVector(double latitude, double longitude) {
+        double lat = Math.toRadians(latitude);
+        double lon = Math.toRadians(longitude);
+        return new double[]{Math.cos(lat) * Math.cos(lon), Math.cos(lat) * Math.sin(lon), Math.sin(lat)};
+    }
+
+    /**
+     * The k best candidates so far, as a max-heap on squared chord distance.
+     */
+    private static final class Neighbours {
+        private final int[] nodes;
+        private final double[] distances;
+        private int size;
+
+        Neighbours(int k) {
+            nodes = new int[k];
+            distances = new double[k];
+        }
+
+        double worst() {
+            return size < nodes.length ? Double.POSITIVE_INFINITY : distances[0];
+        }
+
+        void offer(int node, double distance) {
+            if (size < nodes.length) {
+                int i = size++;
+                while (i > 0 && distances[(i - 1) >>> 1] < distance) {
+                    int parent = (i - 1) >>> 1;
+                    nodes[i] = nodes[parent];
+                    distances[i] = distances[parent];
+                    i = parent;
+                }
+                nodes[i] = node;
+                distances[i] = distance;
+            } else if (distance < distances[0]) {
+                int i = 0;
+                while (true) {
+                    int child = 2 * i + 1;
+                    if (child >= size) {
+                        break;
+                    }
+                    if (child + 1 < size && distances[child + 1] > distances[child]) {
+                        child++;
+                    }
+                    if (distances[child] <= distance) {
+                        break;
+                    }
+                    nodes[i] = nodes[child];
+                    distances[i] = distances[child];
+                    i = child;
+                }
+                nodes[i] = node;
+                distances[i] = distance;
+            }
+        }
+
+        int[] sortedNodes() {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Double.compare(distances[a], distances[b]));
+            int[] result = new int[size];
+            for (int i = 0; i < size; i++) {
+                result[i] = nodes[order[i]];
+            }
+            return result;
+        }
+    }
+
+    private static final class IntList {
+        private int[] values = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package Shipping;
+
+import java.util.Arrays;
+
+/**
+ * Departure-time-dependent travel times, in minutes, for the edges of one
+ * {@link PortGraph}. Time is periodic, e.g. a year for seasonal currents or a
+ * week for canal convoy schedules, and measured in minutes from the start of
+ * the period.
+ *
+ * Each profile is a periodic piecewise-linear function from departure time to
+ * travel time, given by breakpoints and interpolated linearly, wrapping from
+ * the last breakpoint to the first. Profiles are stored once in shared arrays
+ * and referenced by edge, since many edges follow the same current or
+ * schedule; edges without one take weight / speed. A slot schedule is a
+ * sawtooth: the travel time falls with slope -1 while waiting for the next
+ * slot and jumps back up over one minute after it departs.
+ *
+ * Every profile must be FIFO (leaving later never arrives earlier, i.e. no
+ * slope below -1), which keeps time-dependent Dijkstra and A* exact. For
+ * constant-time evaluation the period is split into buckets, and each profile
+ * remembers the breakpoint at which every bucket starts. Each edge's fastest
+ * time over the period is precomputed as well, for lower bounds.
+ */
+final class TimeDependentCosts {
+    static final int NO_PROFILE = -1;
+    private static final int BUCKETS = 64;
+
+    private final PortGraph graph;
+    private final int period;
+    private final int bucketWidth;
+    private final double minutesPerUnit;
+    private final int[] edgeProfiles;
+    private final int[] profileStarts;
+    private final int[] breakTimes;
+    private final int[] breakDurations;
+    private final int[] bucketBreaks;
+    private final int[] minimums;
+    private volatile int[] reverseMinimums;
+
+    private TimeDependentCosts(PortGraph graph, int period, double minutesPerUnit, int[] edgeProfiles,
+                               int[] profileStarts, int[] breakTimes, int[] breakDurations) {
+        this.graph = graph;
+        this.period = period;
+        this.bucketWidth = (period + BUCKETS - 1) / BUCKETS;
+        this.minutesPerUnit = minutesPerUnit;
+        this.edgeProfiles = edgeProfiles;
+        this.profileStarts = profileStarts;
+        this.breakTimes = breakTimes;
+        this.breakDurations = breakDurations;
+
+        int profileCount = profileStarts.length - 1;
+        bucketBreaks = new int[profileCount * BUCKETS];
+        int[] profileMinimums = new int[profileCount];
+        for (int p = 0; p < profileCount; p++) {
+            int first = profileStarts[p];
+            int last = profileStarts[p + 1] - 1;
+            int breakpoint = first - 1;
+            for (int b = 0; b < BUCKETS; b++) {
+                while (breakpoint < last && breakTimes[breakpoint + 1] <= b * bucketWidth) {
+                    breakpoint++;
+                }
+                bucketBreaks[p * BUCKETS + b] = breakpoint < first ? last : breakpoint;
+            }
+            // Linear pieces take their extremes at breakpoints.
+            profileMinimums[p] = Integer.MAX_VALUE;
+            for (int i = first; i <= last; i++) {
+                profileMinimums[p] = Math.min(profileMinimums[p], breakDurations[i]);
+            }
+        }
+
+        minimums = new int[graph.edgeCount()];
+        for (int e = 0; e < minimums.length; e++) {
+            minimums[e] = edgeProfiles[e] == NO_PROFILE ? constantDuration(e) : profileMinimums[edgeProfiles[e]];
+        }
+    }
+
+    // Every edge takes weight / speed; profiles can be added through the Builder.
+    static TimeDependentCosts constant(PortGraph graph, int period, double speedKnots) {
+        return new Builder(graph, period, speedKnots).build();
+    }
+
+    PortGraph graph() {
+        return graph;
+    }
+
+    int period() {
+        return period;
+    }
+
+    // Fastest travel time along edge slot e over the whole period.
+    int minTravelTime(int e) {
+        return minimums[e];
+    }
+
+    // The minimum travel times aligned with the edge slots of graph().reverse(), built on first use.
+    int[] reverseMinTravelTimes() {
+        int[] result = reverseMinimums;
+        if (result == null) {
+            PortGraph reverse = graph.reverse();
+            result = new int[reverse.edgeCount()];
+            for (int v = 0; v < reverse.nodeCount(); v++) {
+                for (int e = reverse.offsets[v]; e < reverse.offsets[v + 1]; e++) {
+                    result[e] = minimums[graph.edgeIndex(reverse.targets[e], v)];
+                }
+            }
+            reverseMinimums = result;
+        }
+        return result;
+    }
+
+    // Travel time in minutes along edge slot e when departing at the given minute (any non-negative time).
+    int travelTime(int e, int departure) {
+        int p = edgeProfiles[e];
+        if (p == NO_PROFILE) {
+            return constantDuration(e);
+        }
+        int first = profileStarts[p];
+        int last = profileStarts[p + 1] - 1;
+        if (first == last) {
+            return breakDurations[first];
+        }
+        int t = departure % period;
+        int i = bucketBreaks[p * BUCKETS + t / bucketWidth];
+        if (i == last && t >= breakTimes[first] && t < breakTimes[last]) {
+            // The bucket starts in the wrap-around piece, but t is already past the first breakpoint.
+            i = first;
+        }
+        while (i < last && breakTimes[i + 1] <= t) {
+            i++;
+        }
+        int fromTime = breakTimes[i];
+        int toTime;
+        int toDuration;
+        if (i < last) {
+            toTime = breakTimes[i + 1];
+            toDuration = breakDurations[i + 1];
+        } else {
+            toTime = breakTimes[first] + period;
+            toDuration = breakDurations[first];
+            if (t < fromTime) {
+                t += period;
+            }
+        }
+        long span = toTime - fromTime;
+        return breakDurations[i] + (int) Math.floorDiv((long) (toDuration - breakDurations[i]) * (t - fromTime), span);
+    }
+
+    private int constantDuration(int e) {
+        return (int) Math.round(graph.weights.get(e) * minutesPerUnit);
+    }
+
+    static final class Builder {
+        private final PortGraph graph;
+        private final int period;
+        private final double minutesPerUnit;
+        private final int[] edgeProfiles;
+        private int[] profileStarts = new int[8];
+        private int profileCount;
+        private int[] breakTimes = new int[32];
+        private int[] breakDurations = new int[32];
+        private int breakCount;
+
+        // Edges without a profile take their weight, read as nautical miles, at speedKnots.
+        Builder(PortGraph graph, int period, double speedKnots) {
+            if (period <= 0 || !(speedKnots > 0)) {
+                throw new IllegalArgumentException("Period and speed must be positive");
+            }
+            this.graph = graph;
+            this.period = period;
+            this.minutesPerUnit = 60 / speedKnots;
+            this.edgeProfiles = new int[graph.edgeCount()];
+            Arrays.fill(edgeProfiles, NO_PROFILE);
+        }
+
+        /**
+         * Adds a profile with travel time durations[i] when departing at times[i],
+         * which must be strictly increasing within [0, period). Returns its id.
+         */
+        int addProfile(int[] times, int[] durations) {
+            int count = times.length;
+            if (count == 0 || durations.length != count) {
+                throw new IllegalArgumentException("A profile needs matching, non-empty breakpoints");
+            }
+            for (int i = 0; i < count; i++) {
+                if (times[i] < 0 || times[i] >= period || (i > 0 && times[i] <= times[i - 1]) || durations[i] < 0) {
+                    throw new IllegalArgumentException("Breakpoint " + i + " is out of order or out of range");
+                }
+                int nextTime = i + 1 < count ? times[i + 1] : times[0] + period;
+                int nextDuration = durations[(i + 1) % count];
+                if (count > 1 && nextDuration - durations[i] < -(nextTime - times[i])) {
+                    throw new IllegalArgumentException("Profile is not FIFO after breakpoint " + i);
+                }
+            }
+            if (profileCount + 2 > profileStarts.length) {
+                profileStarts = Arrays.copyOf(profileStarts, profileStarts.length * 2);
+            }
+            if (breakCount + count > breakTimes.length) {
+                int capacity = Math.max(breakTimes.length * 2, breakCount + count);
+                breakTimes = Arrays.copyOf(breakTimes, capacity);
+                breakDurations = Arrays.copyOf(breakDurations, capacity);
+            }
+            System.arraycopy(times, 0, breakTimes, breakCount, count);
+            System.arraycopy(durations, 0, breakDurations, breakCount, count);
+            profileStarts[profileCount] = breakCount;
+            breakCount += count;
+            profileStarts[++profileCount] = breakCount;
+            return profileCount - 1;
+        }
+
+        void assign(int from, int to, int profile) {
+            int e = graph.edgeIndex(from, to);
+            if (e == PortGraph.NO_EDGE) {
+                throw new IllegalArgumentException("No edge " + from + " -> " + to);
+            }
+            if (profile != NO_PROFILE && (profile < 0 || profile >= profileCount)) {
+                throw new IllegalArgumentException("Unknown profile " + profile);
+            }
+            edgeProfiles[e] = profile;
+        }
+
+        TimeDependentCosts build() {
+            return new TimeDependentCosts(graph, period, minutesPerUnit, edgeProfiles.clone(),
+                    Arrays.copyOf(profileStarts, profileCount + 1),
+                    Arrays.copyOf(breakTimes, breakCount), Arrays.copyOf(breakDurations, breakCount));
+        }
+    }
+}
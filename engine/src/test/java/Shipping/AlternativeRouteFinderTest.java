@@ -0,0 +1,137 @@
+package Shipping;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AlternativeRouteFinderTest {
+    private static final long NO_DEADLINE = 60_000;
+
+    // Lengths of every loopless path from source to target, shortest first.
+    private static List<Integer> allPathLengths(PortGraph graph, int source, int target) {
+        List<Integer> lengths = new ArrayList<>();
+        enumerate(graph, source, target, new boolean[graph.nodeCount()], 0, lengths);
+        lengths.sort(null);
+        return lengths;
+    }
+
+    private static void enumerate(PortGraph graph, int node, int target, boolean[] onPath, int length,
+                                  List<Integer> lengths) {
+        if (node == target) {
+            lengths.add(length);
+            return;
+        }
+        onPath[node] = true;
+        for (int e = graph.offsets[node]; e < graph.offsets[node + 1]; e++) {
+            if (!onPath[graph.targets[e]]) {
+                enumerate(graph, graph.targets[e], target, onPath, length + graph.weights.get(e), lengths);
+            }
+        }
+        onPath[node] = false;
+    }
+
+    @Test
+    void unconstrainedRoutesAreTheKShortestLooplessPathsInOrder() {
+        Random random = new Random(5);
+        for (long seed = 1; seed <= 20; seed++) {
+            PortGraph graph = TestGraphs.random(12, 3, 10, seed);
+            AlternativeRouteFinder finder = new AlternativeRouteFinder(graph, 4, 1.0, 100, NO_DEADLINE);
+            for (int i = 0; i < 10; i++) {
+                int source = random.nextInt(graph.nodeCount());
+                int target = random.nextInt(graph.nodeCount());
+                List<Integer> expected = allPathLengths(graph, source, target);
+                List<Route> routes = finder.find(source, target);
+                assertEquals(Math.min(5, expected.size()), routes.size(), source + " -> " + target);
+                Set<List<Integer>> distinct = new HashSet<>();
+                for (int j = 0; j < routes.size(); j++) {
+                    Route route = routes.get(j);
+                    assertEquals(expected.get(j).intValue(), route.distance, "route " + j);
+                    assertEquals(route.distance,
+                            ShortestPathSearchTest.checkedLength(graph, route.nodes, source, target));
+                    assertEquals(route.nodes.length, Arrays.stream(route.nodes).distinct().count(), "loop");
+                    assertTrue(distinct.add(Arrays.stream(route.nodes).boxed().toList()), "duplicate route");
+                }
+            }
+        }
+    }
+
+    @Test
+    void acceptedRoutesRespectDetourAndOverlapLimits() {
+        PortGraph graph = TestGraphs.undirected(300, 2, 20, 9);
+        DijkstraSearch dijkstra = new DijkstraSearch(graph);
+        AlternativeRouteFinder finder = new AlternativeRouteFinder(graph, 3, 0.6, 1.5, NO_DEADLINE);
+        Random random = new Random(9);
+        for (int i = 0; i < 30; i++) {
+            int source = random.nextInt(graph.nodeCount());
+            int target = random.nextInt(graph.nodeCount());
+            List<Route> routes = finder.find(source, target);
+            int shortest = dijkstra.distance(source, target);
+            if (shortest == SearchContext.UNREACHABLE) {
+                assertTrue(routes.isEmpty());
+                continue;
+            }
+            assertTrue(routes.size() >= 1 && routes.size() <= 4);
+            assertEquals(shortest, routes.get(0).distance);
+            for (int j = 1; j < routes.size(); j++) {
+                Route route = routes.get(j);
+                assertTrue(route.distance >= routes.get(j - 1).distance, "out of order");
+                assertTrue(route.distance <= shortest * 1.5, "detour too long");
+                for (int earlier = 0; earlier < j; earlier++) {
+                    assertTrue(sharedLength(graph, route, routes.get(earlier)) <= 0.6 * route.distance, "overlap");
+                }
+            }
+        }
+    }
+
+    private static long sharedLength(PortGraph graph, Route route, Route other) {
+        Set<Long> otherEdges = new HashSet<>();
+        for (int i = 1; i < other.nodes.length; i++) {
+            otherEdges.add(((long) other.nodes[i - 1] << 32) | other.nodes[i]);
+        }
+        long shared = 0;
+        for (int i = 1; i < route.nodes.length; i++) {
+            if (otherEdges.contains(((long) route.nodes[i - 1] << 32) | route.nodes[i])) {
+                shared += graph.weight(route.nodes[i - 1], route.nodes[i]);
+            }
+        }
+        return shared;
+    }
+
+    @Test
+    void spentBudgetStopsAfterTheShortestRoute() {
+        PortGraph graph = TestGraphs.undirected(200, 2, 20, 4);
+        AlternativeRouteFinder finder = new AlternativeRouteFinder(graph, 3, 1.0, 100, 0);
+        List<Route> routes = finder.find(0, 1);
+        assertEquals(1, routes.size());
+        assertEquals(new DijkstraSearch(graph).distance(0, 1), routes.get(0).distance);
+    }
+
+    @Test
+    void budgetBoundsTheSearchOnALargeGraph() {
+        PortGraph graph = TestGraphs.undirected(50_000, 2, 20, 4);
+        AlternativeRouteFinder finder = new AlternativeRouteFinder(graph, 50, 0.0, 100, 50);
+        long started = System.nanoTime();
+        List<Route> routes = finder.find(0, graph.nodeCount() - 1);
+        long millis = (System.nanoTime() - started) / 1_000_000;
+        assertTrue(routes.size() < 51);
+        assertTrue(millis < 2_000, "took " + millis + " ms");
+    }
+
+    @Test
+    void unreachableTargetHasNoRoutes() {
+        PortGraph.Builder builder = new PortGraph.Builder();
+        builder.addNode("A", 0, 0);
+        builder.addNode("B", 0, 1);
+        builder.addNode("C", 0, 2);
+        builder.addEdge(0, 1, 1);
+        PortGraph graph = builder.build();
+        assertTrue(new AlternativeRouteFinder(graph, 3, 0.6, 1.5, NO_DEADLINE).find(0, 2).isEmpty());
+    }
+}
@@ -0,0 +1,116 @@
+package Shipping;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContractionHierarchyTest {
+    private static final int QUERIES = 500;
+
+    private static void assertMatchesDijkstra(PortGraph graph, ContractionHierarchy hierarchy, long seed) {
+        DijkstraSearch dijkstra = new DijkstraSearch(graph);
+        ContractionHierarchySearch search = new ContractionHierarchySearch(hierarchy);
+        Random random = new Random(seed);
+        for (int i = 0; i < QUERIES; i++) {
+            int source = random.nextInt(graph.nodeCount());
+            int target = random.nextInt(graph.nodeCount());
+            int expected = dijkstra.distance(source, target);
+            assertEquals(expected, search.distance(source, target), source + " -> " + target);
+            int[] path = search.shortestPath(source, target);
+            if (expected == SearchContext.UNREACHABLE) {
+                assertEquals(0, path.length);
+            } else {
+                // Unpacked shortcuts must leave only original edges.
+                assertEquals(expected, ShortestPathSearchTest.checkedLength(graph, path, source, target));
+            }
+        }
+    }
+
+    @Test
+    void queriesMatchDijkstraOnDirectedGraphs() {
+        for (long seed = 1; seed <= 5; seed++) {
+            PortGraph graph = TestGraphs.random(300, 3, 20, seed);
+            assertMatchesDijkstra(graph, new ContractionHierarchyBuilder(graph).build(), seed);
+        }
+    }
+
+    @Test
+    void queriesMatchDijkstraOnTwoWayGraphs() {
+        for (long seed = 1; seed <= 5; seed++) {
+            PortGraph graph = TestGraphs.undirected(300, 2, 5, seed);
+            assertMatchesDijkstra(graph, new ContractionHierarchyBuilder(graph).build(), seed);
+        }
+    }
+
+    @Test
+    void hierarchyReadBackAnswersTheSame(@TempDir Path directory) throws IOException {
+        PortGraph graph = TestGraphs.random(200, 3, 20, 3);
+        Path file = directory.resolve("graph.ch");
+        new ContractionHierarchyBuilder(graph).build().write(file);
+        ContractionHierarchy read = ContractionHierarchy.read(file);
+        graph.attachContractionHierarchy(read);
+        assertMatchesDijkstra(graph, read, 3);
+    }
+
+    @Test
+    void hierarchyOfAnotherGraphIsRejected() {
+        PortGraph graph = TestGraphs.random(100, 3, 20, 1);
+        ContractionHierarchy other = new ContractionHierarchyBuilder(TestGraphs.random(100, 3, 20, 2)).build();
+        assertThrows(IllegalArgumentException.class, () -> graph.attachContractionHierarchy(other));
+    }
+
+    @Test
+    void editedGraphIsAnsweredWhileItsHierarchyIsContracted() throws InterruptedException {
+        PortNetwork network = new PortNetwork(TestGraphs.random(300, 3, 20, 4));
+        PortGraph before = network.graph();
+        before.contractionHierarchy();
+        int to = before.targets[before.offsets[0]];
+        network.setEdge(0, to, before.weight(0, to) + 15);
+        PortGraph after = network.graph();
+
+        // The old hierarchy is not reused, and the new one is not contracted on the query thread.
+        RouteSearch search = RoutingStrategy.CONTRACTION_HIERARCHY.create(after);
+        assertInstanceOf(BidirectionalSearch.class, search);
+        DijkstraSearch dijkstra = new DijkstraSearch(after);
+        assertEquals(dijkstra.distance(0, 1), search.distance(0, 1));
+
+        long deadline = System.nanoTime() + 30_000_000_000L;
+        while (after.readyContractionHierarchy() == null && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        ContractionHierarchy hierarchy = after.readyContractionHierarchy();
+        assertNotNull(hierarchy, "hierarchy not contracted in the background");
+        assertInstanceOf(ContractionHierarchySearch.class, RoutingStrategy.CONTRACTION_HIERARCHY.create(after));
+        assertMatchesDijkstra(after, hierarchy, 4);
+    }
+
+    @Test
+    void reweightsShareUntouchedWeightBlocks() {
+        int nodes = 3 * EdgeWeights.BLOCK_SIZE;
+        PortGraph.Builder builder = new PortGraph.Builder();
+        for (int i = 0; i < nodes; i++) {
+            builder.addNode("P" + i, 0, i * 0.01);
+            if (i > 0) {
+                builder.addEdge(i - 1, i, 10);
+            }
+        }
+        PortGraph graph = builder.build();
+        graph.reverse();
+        PortGraph edited = graph.withWeights(new int[] {5}, new int[] {6}, new int[] {12});
+        assertEquals(10, graph.weight(5, 6));
+        assertEquals(12, edited.weight(5, 6));
+        assertEquals(12, edited.reverse().weight(6, 5));
+        assertEquals(10, graph.reverse().weight(6, 5));
+        int last = graph.edgeCount() - 1;
+        assertFalse(edited.weights.sharesBlock(graph.weights, 5));
+        assertTrue(edited.weights.sharesBlock(graph.weights, last));
+        assertTrue(edited.reverse().weights.sharesBlock(graph.reverse().weights, last));
+        assertArrayEquals(graph.targets, edited.targets);
+        assertEquals(10 * (nodes - 1) + 2, new DijkstraSearch(edited).distance(0, nodes - 1));
+    }
+}
@@ -0,0 +1,120 @@
+package Shipping;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DistanceMatrixTest {
+    // Random nodes, with repeats, so rows and columns are duplicated.
+    private static int[] randomNodes(Random random, int count, int nodeCount) {
+        int[] nodes = random.ints(count, 0, nodeCount).toArray();
+        nodes[count - 1] = nodes[0];
+        return nodes;
+    }
+
+    @Test
+    void matrixMatchesOneToOneDijkstra() {
+        Random random = new Random(6);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (long seed = 1; seed <= 5; seed++) {
+                // Sparse one-way lanes leave many pairs unreachable.
+                PortGraph graph = TestGraphs.random(300, 2, 20, seed);
+                DijkstraSearch dijkstra = new DijkstraSearch(graph);
+                int[] sources = randomNodes(random, 25, graph.nodeCount());
+                int[] targets = randomNodes(random, 40, graph.nodeCount());
+                targets[1] = sources[0];
+                int[] matrix = new DistanceMatrix(graph, pool).compute(sources, targets);
+                int unreachable = 0;
+                for (int i = 0; i < sources.length; i++) {
+                    for (int j = 0; j < targets.length; j++) {
+                        int expected = dijkstra.distance(sources[i], targets[j]);
+                        assertEquals(expected, matrix[i * targets.length + j], sources[i] + " -> " + targets[j]);
+                        if (expected == DistanceMatrix.UNREACHABLE) {
+                            unreachable++;
+                        }
+                    }
+                }
+                assertEquals(0, matrix[1]);
+                assertTrue(unreachable > 0, "seed " + seed + " has no unreachable pair");
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void streamedRowsMatchTheMatrix() throws IOException {
+        PortGraph graph = TestGraphs.random(200, 2, 20, 8);
+        int[] sources = randomNodes(new Random(8), 30, graph.nodeCount());
+        int[] targets = randomNodes(new Random(9), 12, graph.nodeCount());
+        DistanceMatrix distances = new DistanceMatrix(graph);
+        int[] matrix = distances.compute(sources, targets);
+        int[][] rows = new int[sources.length][];
+        distances.stream(sources, targets, (sourceIndex, row) -> {
+            assertNull(rows[sourceIndex]);
+            rows[sourceIndex] = row.clone();
+        });
+        for (int i = 0; i < sources.length; i++) {
+            for (int j = 0; j < targets.length; j++) {
+                assertEquals(matrix[i * targets.length + j], rows[i][j]);
+            }
+        }
+
+        StringWriter csv = new StringWriter();
+        distances.stream(new int[] {sources[0]}, targets, DistanceMatrix.csvSink(csv, new int[] {sources[0]}));
+        StringBuilder expected = new StringBuilder().append(sources[0]);
+        for (int j = 0; j < targets.length; j++) {
+            expected.append(',').append(matrix[j] == DistanceMatrix.UNREACHABLE ? "" : String.valueOf(matrix[j]));
+        }
+        assertEquals(expected.append('\n').toString(), csv.toString());
+    }
+
+    @Test
+    void failingSinkStopsTheOtherWorkers() {
+        PortGraph graph = TestGraphs.undirected(500, 3, 20, 4);
+        int[] sources = randomNodes(new Random(4), 2_000, graph.nodeCount());
+        int[] targets = randomNodes(new Random(5), 50, graph.nodeCount());
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            AtomicInteger rows = new AtomicInteger();
+            IOException e = assertThrows(IOException.class, () -> new DistanceMatrix(graph, pool)
+                    .stream(sources, targets, (sourceIndex, row) -> {
+                        if (rows.incrementAndGet() == 3) {
+                            throw new IOException("disk full");
+                        }
+                    }));
+            assertEquals("disk full", e.getMessage());
+            // Each worker finishes at most the row it is on.
+            assertTrue(rows.get() <= 3 + pool.getParallelism(), rows.get() + " rows written");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void workOnPoolThreadsIsCountedForTheCaller() {
+        PortGraph graph = TestGraphs.undirected(300, 3, 20, 2);
+        int[] nodes = randomNodes(new Random(2), 20, graph.nodeCount());
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            long[] before = new long[3];
+            long[] after = new long[3];
+            SearchContext.work(before);
+            new DistanceMatrix(graph, pool).compute(nodes, nodes);
+            SearchContext.work(after);
+            // Every settled node but the last of each row is scanned, so edges relaxed exceed the rows.
+            assertTrue(after[0] - before[0] >= nodes.length, "settled " + (after[0] - before[0]));
+            assertTrue(after[1] - before[1] > nodes.length, "relaxed " + (after[1] - before[1]));
+            assertTrue(after[2] - before[2] >= nodes.length, "heap operations " + (after[2] - before[2]));
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package Shipping;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EarliestArrivalSearchTest {
+    private static final int PERIOD = 5_000;
+
+    @TempDir
+    Path directory;
+
+    // Costs with a random FIFO profile, smooth or a slot sawtooth, on about half the edges.
+    private static TimeDependentCosts randomCosts(PortGraph graph, Random random) {
+        TimeDependentCosts.Builder builder = new TimeDependentCosts.Builder(graph, PERIOD, 1);
+        for (int u = 0; u < graph.nodeCount(); u++) {
+            for (int e = graph.offsets[u]; e < graph.offsets[u + 1]; e++) {
+                if (random.nextBoolean()) {
+                    builder.assign(u, graph.targets[e], random.nextBoolean()
+                            ? sawtooth(builder, random) : smooth(builder, random));
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    // Slots every gap minutes from offset on: the wait for the next one falls with slope -1, then the sail.
+    private static int sawtooth(TimeDependentCosts.Builder builder, Random random) {
+        int gap = 200 + random.nextInt(800);
+        int sail = 30 + random.nextInt(600);
+        int slots = PERIOD / gap;
+        int offset = random.nextInt(PERIOD - slots * gap + 1);
+        int[] times = new int[slots * 2];
+        int[] durations = new int[slots * 2];
+        for (int i = 0; i < slots; i++) {
+            times[2 * i] = offset + i * gap;
+            durations[2 * i] = sail;
+            times[2 * i + 1] = offset + i * gap + 1;
+            durations[2 * i + 1] = sail + gap - 1;
+        }
+        return builder.addProfile(times, durations);
+    }
+
+    private static int smooth(TimeDependentCosts.Builder builder, Random random) {
+        while (true) {
+            int count = 1 + random.nextInt(5);
+            int[] times = random.ints(0, PERIOD).distinct().limit(count).sorted().toArray();
+            int[] durations = random.ints(count, 20, 1500).toArray();
+            try {
+                return builder.addProfile(times, durations);
+            } catch (IllegalArgumentException notFifo) {
+                // Draw again.
+            }
+        }
+    }
+
+    // Plain time-dependent Dijkstra, without potentials or shared state.
+    private static int[] arrivalTimes(TimeDependentCosts costs, int source, int departure) {
+        PortGraph graph = costs.graph();
+        int[] arrivals = new int[graph.nodeCount()];
+        Arrays.fill(arrivals, SearchContext.UNREACHABLE);
+        arrivals[source] = departure;
+        PriorityQueue<int[]> queue = new PriorityQueue<>((a, b) -> Integer.compare(a[0], b[0]));
+        queue.add(new int[] {departure, source});
+        while (!queue.isEmpty()) {
+            int[] entry = queue.poll();
+            int u = entry[1];
+            if (entry[0] > arrivals[u]) {
+                continue;
+            }
+            for (int e = graph.offsets[u]; e < graph.offsets[u + 1]; e++) {
+                int arrival = arrivals[u] + costs.travelTime(e, arrivals[u]);
+                if (arrival < arrivals[graph.targets[e]]) {
+                    arrivals[graph.targets[e]] = arrival;
+                    queue.add(new int[] {arrival, graph.targets[e]});
+                }
+            }
+        }
+        return arrivals;
+    }
+
+    // Arrival time when sailing route leaving at departure.
+    private static int sail(TimeDependentCosts costs, int[] route, int departure) {
+        int time = departure;
+        for (int i = 1; i < route.length; i++) {
+            int e = costs.graph().edgeIndex(route[i - 1], route[i]);
+            assertNotEquals(PortGraph.NO_EDGE, e, "route leaves the graph");
+            time += costs.travelTime(e, time);
+        }
+        return time;
+    }
+
+    @Test
+    void earliestArrivalsMatchTimeDependentDijkstra() {
+        Random random = new Random(12);
+        for (long seed = 1; seed <= 5; seed++) {
+            PortGraph graph = TestGraphs.random(200, 3, 20, seed);
+            TimeDependentCosts costs = randomCosts(graph, random);
+            EarliestArrivalSearch search = new EarliestArrivalSearch(costs);
+            for (int i = 0; i < 40; i++) {
+                int source = random.nextInt(graph.nodeCount());
+                int target = random.nextInt(graph.nodeCount());
+                int departure = random.nextInt(3 * PERIOD);
+                int expected = arrivalTimes(costs, source, departure)[target];
+                String query = source + " -> " + target + " at " + departure;
+                assertEquals(expected, search.arrivalTime(source, target, departure), query);
+                Route route = search.earliestArrival(source, target, departure);
+                if (expected == SearchContext.UNREACHABLE) {
+                    assertSame(Route.NONE, route, query);
+                } else {
+                    assertEquals(expected - departure, route.distance, query);
+                    assertEquals(source, route.nodes[0]);
+                    assertEquals(target, route.nodes[route.nodes.length - 1]);
+                    assertEquals(expected, sail(costs, route.nodes, departure), query);
+                }
+            }
+        }
+    }
+
+    @Test
+    void landmarkBoundsAreAdmissible() {
+        Random random = new Random(3);
+        PortGraph graph = TestGraphs.random(300, 3, 20, 3);
+        LandmarkBounds bounds = new LandmarkBounds(graph, graph.weights.toArray(),
+                graph.reverse().weights.toArray(), 6);
+        assertEquals(6, bounds.landmarkCount());
+        DijkstraSearch dijkstra = new DijkstraSearch(graph);
+        for (int i = 0; i < 300; i++) {
+            int node = random.nextInt(graph.nodeCount());
+            int target = random.nextInt(graph.nodeCount());
+            int distance = dijkstra.distance(node, target);
+            int bound = bounds.lowerBound(node, target);
+            if (bound == SearchContext.UNREACHABLE) {
+                assertEquals(SearchContext.UNREACHABLE, distance, node + " -> " + target + " is reachable");
+            } else {
+                assertTrue(bound <= distance, node + " -> " + target + ": " + bound + " > " + distance);
+            }
+        }
+    }
+
+    @Test
+    void departureChangesTheArrivalUnderSeasonalConditions() {
+        PortGraph graph = SampleNetwork.graph();
+        int mumbai = graph.registry().byLocode("INBOM");
+        int capeTown = graph.registry().byLocode("ZACPT");
+        EarliestArrivalSearch search = new EarliestArrivalSearch(SampleNetwork.conditions(graph)
+                .timeCosts(graph, RoutingEngine.COST_PERIOD_MINUTES, RoutingEngine.CRUISING_SPEED_KNOTS));
+        int january = search.earliestArrival(mumbai, capeTown, 10 * LaneConditions.MINUTES_PER_DAY).distance;
+        int july = search.earliestArrival(mumbai, capeTown, 200 * LaneConditions.MINUTES_PER_DAY).distance;
+        assertTrue(july > january, "monsoon " + july + " vs " + january);
+
+        TimeDependentCosts timeless = LaneConditions.NONE.timeCosts(graph, RoutingEngine.COST_PERIOD_MINUTES,
+                RoutingEngine.CRUISING_SPEED_KNOTS);
+        int still = new EarliestArrivalSearch(timeless).earliestArrival(mumbai, capeTown, 0).distance;
+        // The Agulhas current makes the last lane faster than in still water.
+        assertTrue(january < still, january + " vs " + still);
+    }
+
+    @Test
+    void unreachableTargetHasNoRoute() {
+        PortGraph graph = SampleNetwork.graph();
+        EarliestArrivalSearch search = new EarliestArrivalSearch(
+                TimeDependentCosts.constant(graph, PERIOD, RoutingEngine.CRUISING_SPEED_KNOTS));
+        int mumbai = graph.registry().byLocode("INBOM");
+        int newYork = graph.registry().byLocode("USNYC");
+        assertSame(Route.NONE, search.earliestArrival(mumbai, newYork, 0));
+        assertEquals(SearchContext.UNREACHABLE, search.arrivalTime(newYork, mumbai, 0));
+    }
+
+    @Test
+    void conditionsAreReadFromAFile() throws IOException {
+        PortGraph graph = SampleNetwork.graph();
+        Path file = directory.resolve("lanes.txt");
+        Files.writeString(file, """
+                # Monsoon and a slow canal
+                INBOM 20 season=0:100,160:80,270:100
+                ZACPT 24 speed=7 current=-0.5
+                """);
+        LaneConditions conditions = LaneConditions.read(file, graph);
+        assertEquals(2, conditions.laneCount());
+        TimeDependentCosts costs = conditions.timeCosts(graph, RoutingEngine.COST_PERIOD_MINUTES, 14);
+        int capeTown = graph.registry().byLocode("ZACPT");
+        int slow = costs.minTravelTime(graph.edgeIndex(capeTown, 24));
+        assertEquals(Math.round(graph.weight(capeTown, 24) * 60 / 6.5), slow);
+
+        Files.writeString(file, "INBOM XXXXX speed=10\n");
+        IOException e = assertThrows(IOException.class, () -> LaneConditions.read(file, graph));
+        assertTrue(e.getMessage().contains(file + ":1"), e.getMessage());
+    }
+}
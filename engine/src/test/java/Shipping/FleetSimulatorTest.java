@@ -0,0 +1,157 @@
+package Shipping;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FleetSimulatorTest {
+    // Three ports along the equator, 600 nm apart one way and 1200 nm the other.
+    private static PortGraph line() {
+        PortGraph.Builder builder = new PortGraph.Builder();
+        int a = builder.addNode("A", 0, 0);
+        int b = builder.addNode("B", 0, 10);
+        int c = builder.addNode("C", 0, 20);
+        builder.addEdge(a, b, 600);
+        builder.addEdge(b, c, 600);
+        builder.addEdge(c, b, 1200);
+        builder.addEdge(b, a, 1200);
+        return builder.build();
+    }
+
+    @Test
+    void legsEndExactlyOnTheirEventTimes() {
+        FleetSimulator fleet = new FleetSimulator(line());
+        // 600 nm at 10 knots: 60 hours a leg.
+        int ship = fleet.addShip(new int[] {0, 1, 2}, 10, 3600, false);
+        FleetSimulator.Snapshot waiting = fleet.advance(3599);
+        assertEquals(0, waiting.latitudes[ship]);
+        assertEquals(0, waiting.longitudes[ship]);
+
+        FleetSimulator.Snapshot halfway = fleet.advance(1 + 30 * 3600);
+        assertEquals(5, halfway.longitudes[ship], 1e-4);
+        FleetSimulator.Snapshot atB = fleet.advance(30 * 3600);
+        assertEquals(10, atB.longitudes[ship], 1e-4);
+        assertEquals(1, atB.activeCount);
+
+        FleetSimulator.Snapshot beforeC = fleet.advance(60 * 3600 - 1);
+        assertEquals(20, beforeC.longitudes[ship], 1e-3);
+        assertEquals(1, beforeC.activeCount);
+        FleetSimulator.Snapshot atC = fleet.advance(1);
+        assertTrue(Float.isNaN(atC.latitudes[ship]));
+        assertEquals(0, atC.activeCount);
+    }
+
+    @Test
+    void stepSizeDoesNotChangeTheOutcome() {
+        Random random = new Random(5);
+        PortGraph graph = TestGraphs.undirected(60, 2, 400, 5);
+        DijkstraSearch dijkstra = new DijkstraSearch(graph);
+        FleetSimulator fine = new FleetSimulator(graph);
+        FleetSimulator coarse = new FleetSimulator(graph);
+        for (int added = 0; added < 40; ) {
+            int[] route = dijkstra.shortestPath(random.nextInt(60), random.nextInt(60));
+            if (route.length < 2) {
+                continue;
+            }
+            double speed = 5 + random.nextInt(20);
+            double departure = random.nextInt(24 * 3600);
+            boolean roundTrip = random.nextBoolean();
+            assertEquals(fine.addShip(route, speed, departure, roundTrip),
+                    coarse.addShip(route, speed, departure, roundTrip));
+            added++;
+        }
+        // Many legs pass within one coarse step, so their events must still be handled in time order.
+        FleetSimulator.Snapshot expected = null;
+        for (int i = 0; i < 1000; i++) {
+            expected = fine.advance(600);
+        }
+        FleetSimulator.Snapshot actual = coarse.advance(1000 * 600);
+        assertEquals(expected.time, actual.time);
+        assertEquals(expected.activeCount, actual.activeCount);
+        assertEquals(expected.shipCount, actual.shipCount);
+        for (int ship = 0; ship < expected.shipCount; ship++) {
+            assertEquals(expected.latitudes[ship], actual.latitudes[ship], 1e-3, "ship " + ship);
+            assertEquals(expected.longitudes[ship], actual.longitudes[ship], 1e-3, "ship " + ship);
+        }
+    }
+
+    @Test
+    void arrivedShipsGiveTheirIdsToNewOnes() {
+        FleetSimulator fleet = new FleetSimulator(line());
+        int first = fleet.addShip(new int[] {0, 1}, 10, 0, false);
+        int second = fleet.addShip(new int[] {1, 0}, 10, 0, false);
+        // The first ship arrives after 60 hours; the snapshot of that step still shows it arrived.
+        FleetSimulator.Snapshot arrived = fleet.advance(61 * 3600);
+        assertTrue(Float.isNaN(arrived.latitudes[first]));
+        assertFalse(Float.isNaN(arrived.latitudes[second]));
+
+        int third = fleet.addShip(new int[] {1, 2}, 10, 0, false);
+        assertEquals(first, third);
+        FleetSimulator.Snapshot next = fleet.advance(1);
+        assertEquals(2, next.shipCount);
+        assertEquals(2, next.activeCount);
+        // Its departure lies in the past, so it left B when admitted, a second ago.
+        float longitude = next.longitudes[third];
+        assertTrue(longitude > 10 && longitude < 10.001, "at " + longitude);
+    }
+
+    @Test
+    void copiesOutliveTheFramesTheyWereTakenFrom() {
+        FleetSimulator fleet = new FleetSimulator(line());
+        int ship = fleet.addShip(new int[] {0, 1, 2}, 10, 0, false);
+        fleet.advance(30 * 3600);
+        FleetSimulator.Snapshot shared = fleet.snapshot();
+        FleetSimulator.Snapshot copy = fleet.copySnapshot(null);
+        assertEquals(5, copy.longitudes[ship], 1e-4);
+        assertEquals(shared.time, copy.time);
+
+        // Two frames later the shared arrays hold a new frame, the copy does not.
+        fleet.advance(30 * 3600);
+        fleet.advance(30 * 3600);
+        assertEquals(15, shared.longitudes[ship], 1e-3);
+        assertEquals(5, copy.longitudes[ship], 1e-4);
+
+        FleetSimulator.Snapshot next = fleet.copySnapshot(copy);
+        assertSame(copy.latitudes, next.latitudes);
+        assertSame(copy.longitudes, next.longitudes);
+        assertEquals(15, next.longitudes[ship], 1e-3);
+        // Published frames are never reused as copies.
+        assertNotSame(shared.latitudes, fleet.copySnapshot(fleet.snapshot()).latitudes);
+    }
+
+    @Test
+    void copiesTakenWhileTheClockRunsHoldOneFrame() throws InterruptedException {
+        FleetSimulator fleet = new FleetSimulator(line());
+        int ships = 2000;
+        for (int i = 0; i < ships; i++) {
+            fleet.addShip(new int[] {0, 1, 2}, 10 + i * 0.001, 0, false);
+        }
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<String> torn = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            FleetSimulator.Snapshot copy = null;
+            while (!done.get() && torn.get() == null) {
+                copy = fleet.copySnapshot(copy);
+                for (int ship = 0; ship < copy.shipCount; ship++) {
+                    // 60 nm a degree along the equator.
+                    double expected = copy.time / 3600 * (10 + ship * 0.001) / 60;
+                    if (Math.abs(copy.longitudes[ship] - expected) > 1e-3) {
+                        torn.set("ship " + ship + " at " + copy.longitudes[ship] + " in the frame of " + copy.time + " s");
+                    }
+                }
+            }
+        });
+        reader.start();
+        // Each frame moves every ship about 0.17 degrees; none reaches C.
+        for (int i = 0; i < 100 && torn.get() == null; i++) {
+            fleet.advance(3600);
+        }
+        done.set(true);
+        reader.join();
+        assertNull(torn.get(), torn.get());
+    }
+}
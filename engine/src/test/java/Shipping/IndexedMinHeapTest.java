@@ -0,0 +1,128 @@
+package Shipping;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexedMinHeapTest {
+    private static final int NODES = 200;
+
+    // Checks the heap against the model: same size, members and smallest key.
+    private static void assertMatches(Map<Integer, Integer> model, IndexedMinHeap heap) {
+        assertEquals(model.size(), heap.size());
+        assertEquals(model.isEmpty(), heap.isEmpty());
+        for (int node = 0; node < NODES; node++) {
+            assertEquals(model.containsKey(node), heap.contains(node), "node " + node);
+        }
+        if (!model.isEmpty()) {
+            assertEquals(Collections.min(model.values()), heap.peekKey());
+            assertEquals(heap.peekKey(), model.get(heap.peekNode()));
+        }
+    }
+
+    @Test
+    void randomOperationsMatchAMapModel() {
+        Random random = new Random(2);
+        IndexedMinHeap heap = new IndexedMinHeap(NODES);
+        Map<Integer, Integer> model = new HashMap<>();
+        for (int step = 0; step < 50_000; step++) {
+            int node = random.nextInt(NODES);
+            int key = random.nextInt(1_000);
+            switch (random.nextInt(10)) {
+                case 0, 1, 2 -> {
+                    heap.insertOrDecrease(node, key);
+                    model.merge(node, key, Math::min);
+                }
+                case 3, 4 -> {
+                    heap.update(node, key);
+                    model.put(node, key);
+                }
+                case 5 -> {
+                    heap.remove(node);
+                    model.remove(node);
+                }
+                case 6, 7, 8 -> {
+                    if (!model.isEmpty()) {
+                        int smallest = heap.peekKey();
+                        int polled = heap.poll();
+                        assertEquals(smallest, model.remove(polled), "polled " + polled);
+                    }
+                }
+                default -> {
+                    if (random.nextInt(50) == 0) {
+                        heap.clear();
+                        model.clear();
+                    }
+                }
+            }
+            assertMatches(model, heap);
+        }
+    }
+
+    @Test
+    void pollsComeOutInKeyOrderAndAreCounted() {
+        Random random = new Random(3);
+        IndexedMinHeap heap = new IndexedMinHeap(1_000);
+        for (int node = 0; node < 1_000; node++) {
+            heap.insertOrDecrease(node, random.nextInt(100));
+        }
+        // Lowering keys and raising others moves them both ways.
+        for (int node = 0; node < 1_000; node += 3) {
+            heap.update(node, node % 2 == 0 ? -node : 100 + node);
+        }
+        long operations = heap.operations;
+        int previous = Integer.MIN_VALUE;
+        for (int i = 0; i < 1_000; i++) {
+            int key = heap.peekKey();
+            assertTrue(key >= previous, key + " after " + previous);
+            previous = key;
+            heap.poll();
+        }
+        assertTrue(heap.isEmpty());
+        assertEquals(operations + 1_000, heap.operations);
+        assertTrue(heap.polls >= 1_000);
+    }
+
+    @Test
+    void contextsForgetEarlierQueriesAndReuseTheirHeap() {
+        SearchContext context = new SearchContext(10);
+        context.begin();
+        context.label(3, 7, 2);
+        context.label(2, 4, -1);
+        context.heap.insertOrDecrease(3, 7);
+        context.heap.insertOrDecrease(5, 9);
+        assertEquals(7, context.distance(3));
+        assertArrayEquals(new int[] {2, 3}, context.path(3));
+
+        // A new query sees none of the old labels or queued nodes.
+        context.begin();
+        assertFalse(context.reached(3));
+        assertEquals(SearchContext.UNREACHABLE, context.distance(3));
+        assertEquals(-1, context.previous(3));
+        assertEquals(0, context.path(3).length);
+        assertTrue(context.heap.isEmpty());
+        assertFalse(context.heap.contains(5));
+        context.heap.insertOrDecrease(5, 1);
+        assertEquals(1, context.heap.peekKey());
+
+        // Growing keeps working for the larger node range, in this query and the next.
+        context.ensureCapacity(100);
+        context.label(99, 1, 5);
+        context.heap.insertOrDecrease(99, 0);
+        assertEquals(99, context.heap.poll());
+        assertEquals(5, context.heap.poll());
+        context.begin();
+        assertFalse(context.reached(99));
+        for (int query = 0; query < 1_000; query++) {
+            context.begin();
+            context.label(query % 100, query, -1);
+            assertEquals(query, context.distance(query % 100));
+            assertFalse(context.reached((query + 1) % 100));
+        }
+    }
+}
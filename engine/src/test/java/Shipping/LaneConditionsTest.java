@@ -0,0 +1,100 @@
+package Shipping;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LaneConditionsTest {
+    @TempDir
+    Path directory;
+
+    // Two ports 1000 nm apart, both ways.
+    private static PortGraph strait() {
+        PortGraph.Builder builder = new PortGraph.Builder();
+        int a = builder.addNode("Alpha", "AAALP", 0, 0);
+        int b = builder.addNode("Beta", "BBBET", 0, 16);
+        builder.addEdge(a, b, 1000);
+        builder.addEdge(b, a, 1000);
+        return builder.build();
+    }
+
+    private IOException readFails(String lines) throws IOException {
+        Path file = directory.resolve("lanes.txt");
+        Files.writeString(file, lines);
+        return assertThrows(IOException.class, () -> LaneConditions.read(file, strait()));
+    }
+
+    @Test
+    void validFileGivesProfilesTheEngineAccepts() throws IOException {
+        PortGraph graph = strait();
+        Path file = directory.resolve("lanes.txt");
+        Files.writeString(file, """
+                AAALP BBBET season=0:100,100:90,200:100 # mild
+                1 0 current=1 fuel=1.2
+                """);
+        LaneConditions conditions = LaneConditions.read(file, graph);
+        assertEquals(2, conditions.laneCount());
+        TimeDependentCosts costs = conditions.timeCosts(graph, RoutingEngine.COST_PERIOD_MINUTES,
+                RoutingEngine.CRUISING_SPEED_KNOTS);
+        assertEquals(Math.round(1000 * 60 / 15.0), costs.minTravelTime(graph.edgeIndex(1, 0)));
+        assertEquals(Math.round(1000 * 60 / 14.0), costs.travelTime(graph.edgeIndex(0, 1), 0));
+        int slow = costs.travelTime(graph.edgeIndex(0, 1), 100 * LaneConditions.MINUTES_PER_DAY);
+        assertEquals(Math.round(1000 * 60 / 12.6), slow);
+    }
+
+    @Test
+    void seasonsMustLieWithinTheYear() throws IOException {
+        IOException e = readFails("AAALP BBBET season=0:100,365:80\n");
+        assertTrue(e.getMessage().contains("lanes.txt:1"), e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> new LaneConditions.Builder()
+                .season(0, 1, new int[] {0, LaneConditions.PERIOD_MINUTES}, new int[] {100, 90}));
+        assertThrows(IllegalArgumentException.class, () -> new LaneConditions.Builder()
+                .season(0, 1, new int[] {0, 10, 5}, new int[] {100, 90, 80}));
+    }
+
+    @Test
+    void profilesThatOvertakeLaterDeparturesAreRejected() throws IOException {
+        // At 10% the lane takes 30 days, at full speed three; leaving a day later must not arrive 26 days sooner.
+        IOException e = readFails("""
+                # Slow in winter
+                AAALP BBBET season=0:10,1:100,200:100
+                """);
+        assertTrue(e.getMessage().contains("lanes.txt:2"), e.getMessage());
+        assertTrue(e.getMessage().contains("FIFO"), e.getMessage());
+    }
+
+    @Test
+    void lanesMustMakeHeadway() throws IOException {
+        IOException e = readFails("""
+                AAALP BBBET season=0:100,100:50
+                BBBET AAALP speed=10
+                AAALP BBBET current=-8
+                """);
+        // The lane is checked with all its lines in, and reported at the last one.
+        assertTrue(e.getMessage().contains("lanes.txt:3"), e.getMessage());
+        assertTrue(e.getMessage().contains("headway"), e.getMessage());
+    }
+
+    @Test
+    void malformedLinesNameTheirRow() throws IOException {
+        assertTrue(readFails("AAALP\n").getMessage().contains("lanes.txt:1"));
+        assertTrue(readFails("\nAAALP BBBET speed=-3\n").getMessage().contains("lanes.txt:2"));
+        assertTrue(readFails("AAALP BBBET season=10\n").getMessage().contains("<day>:<percent>"));
+        assertTrue(readFails("AAALP BBBET wind=3\n").getMessage().contains("unknown condition"));
+        assertTrue(readFails("AAALP 7 speed=10\n").getMessage().contains("unknown port '7'"));
+    }
+
+    @Test
+    void lanesMissingFromTheGraphAreSkipped() throws IOException {
+        PortGraph graph = strait();
+        LaneConditions conditions = new LaneConditions.Builder().speed(0, 0, 5).speed(0, 1, 7).build();
+        TimeDependentCosts costs = conditions.timeCosts(graph, RoutingEngine.COST_PERIOD_MINUTES, 14);
+        assertEquals(Math.round(1000 * 60 / 7.0), costs.minTravelTime(graph.edgeIndex(0, 1)));
+        assertEquals(Math.round(1000 * 60 / 14.0), costs.minTravelTime(graph.edgeIndex(1, 0)));
+    }
+}
@@ -0,0 +1,80 @@
+package Shipping;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+    private static final int LAST_INDEX = LatencyHistogram.index(LatencyHistogram.MAX_VALUE);
+
+    @Test
+    void slotsAreExactBelow128AndSplitInPairsAbove() {
+        assertEquals(0, LatencyHistogram.index(0));
+        assertEquals(127, LatencyHistogram.index(127));
+        assertEquals(127, LatencyHistogram.highestValue(127));
+        assertEquals(128, LatencyHistogram.index(128));
+        assertEquals(128, LatencyHistogram.index(129));
+        assertEquals(129, LatencyHistogram.highestValue(128));
+        assertEquals(129, LatencyHistogram.index(130));
+        assertEquals(255, LatencyHistogram.highestValue(LatencyHistogram.index(255)));
+        assertEquals(LatencyHistogram.index(256), LatencyHistogram.index(259));
+        assertNotEquals(LatencyHistogram.index(259), LatencyHistogram.index(260));
+    }
+
+    @Test
+    void slotsTileTheRangeUpToTheLargestValue() {
+        assertEquals(LatencyHistogram.MAX_VALUE, LatencyHistogram.highestValue(LAST_INDEX));
+        assertEquals((1L << 43) - 1, LatencyHistogram.MAX_VALUE);
+        assertEquals(38 * 64 - 1, LAST_INDEX);
+        for (int i = 0; i < LAST_INDEX; i++) {
+            long highest = LatencyHistogram.highestValue(i);
+            assertEquals(i, LatencyHistogram.index(highest), "slot " + i);
+            assertEquals(i + 1, LatencyHistogram.index(highest + 1), "after slot " + i);
+            // Each slot is at most 1/64 of its values wide.
+            long lowest = i == 0 ? 0 : LatencyHistogram.highestValue(i - 1) + 1;
+            assertTrue(highest - lowest <= lowest / 64, "slot " + i + " spans " + lowest + ".." + highest);
+        }
+    }
+
+    @Test
+    void outOfRangeValuesAreClamped() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(2, histogram.count());
+        assertEquals(LatencyHistogram.MAX_VALUE, histogram.maxNanos());
+        assertEquals(0, histogram.percentileNanos(50));
+        assertEquals(LatencyHistogram.MAX_VALUE, histogram.percentileNanos(100));
+        assertEquals(LatencyHistogram.MAX_VALUE / 2.0, histogram.meanNanos(), 1);
+    }
+
+    @Test
+    void percentilesMatchASortedList() {
+        Random random = new Random(11);
+        LatencyHistogram histogram = new LatencyHistogram();
+        long[] values = new long[10_000];
+        for (int i = 0; i < values.length; i++) {
+            // Spread over nanoseconds to seconds, as latencies are.
+            values[i] = (long) Math.pow(10, random.nextDouble() * 9.5);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+        for (double percentile : new double[] {0, 1, 25, 50, 90, 99, 99.9, 99.99, 100}) {
+            long expected = values[(int) Math.max(1, Math.ceil(percentile / 100 * values.length)) - 1];
+            long actual = histogram.percentileNanos(percentile);
+            assertEquals(LatencyHistogram.index(expected), LatencyHistogram.index(actual), "p" + percentile);
+            assertTrue(actual >= expected && actual - expected <= expected / 64,
+                    "p" + percentile + ": " + actual + " for " + expected);
+        }
+        assertEquals(values[values.length - 1], histogram.maxNanos());
+        assertEquals(values[values.length - 1], histogram.percentileNanos(100));
+
+        histogram.reset();
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.percentileNanos(50));
+        assertEquals(0, histogram.maxNanos());
+    }
+}
@@ -0,0 +1,97 @@
+package Shipping;
+
+import java.util.*;
+
+/**
+ * The original HashMap/PriorityQueue Dijkstra from ShipRouting, kept verbatim
+ * over boxed node objects: the reference the tests check the engine's
+ * searches against, and the baseline of ShortestPathBenchmark.
+ */
+final class LegacyDijkstra {
+    static final class Node {
+        final int id;
+        final Map<Node, Integer> neighbors = new HashMap<>();
+
+        Node(int id) {
+            this.id = id;
+        }
+    }
+
+    private final List<Node> ports;
+
+    LegacyDijkstra(PortGraph graph) {
+        ports = new ArrayList<>(graph.nodeCount());
+        for (int u = 0; u < graph.nodeCount(); u++) {
+            ports.add(new Node(u));
+        }
+        for (int u = 0; u < graph.nodeCount(); u++) {
+            for (int e = graph.offsets[u]; e < graph.offsets[u + 1]; e++) {
+                ports.get(u).neighbors.put(ports.get(graph.targets[e]), graph.weights.get(e));
+            }
+        }
+    }
+
+    Node node(int id) {
+        return ports.get(id);
+    }
+
+    /**
+     * Length of the shortest route, or Integer.MAX_VALUE if target is unreachable.
+     * The queue's keys change while nodes are queued, so stopping at the target
+     * can stop early on a longer route; this runs to exhaustion instead, which
+     * settles every improved node again and makes the distances exact.
+     */
+    int distance(int source, int target) {
+        List<Node> path = findShortestRoute(node(source), node(target), null);
+        if (path.get(0).id != source) {
+            return Integer.MAX_VALUE;
+        }
+        int distance = 0;
+        for (int i = 1; i < path.size(); i++) {
+            distance += path.get(i - 1).neighbors.get(path.get(i));
+        }
+        return distance;
+    }
+
+    List<Node> findShortestRoute(Node startPort, Node endPort) {
+        return findShortestRoute(startPort, endPort, endPort);
+    }
+
+    // Searches until stopPort is polled, or until the queue runs empty if it is null.
+    private List<Node> findShortestRoute(Node startPort, Node endPort, Node stopPort) {
+        Map<Node, Integer> distances = new HashMap<>();
+        Map<Node, Node> previousNodes = new HashMap<>();
+        PriorityQueue<Node> queue = new PriorityQueue<>(Comparator.comparingInt(distances::get));
+
+        for (Node port : ports) {
+            distances.put(port, Integer.MAX_VALUE);
+        }
+        distances.put(startPort, 0);
+        queue.add(startPort);
+
+        while (!queue.isEmpty()) {
+            Node current = queue.poll();
+
+            if (current.equals(stopPort)) {
+                break;
+            }
+
+            for (Map.Entry<Node, Integer> neighborEntry : current.neighbors.entrySet()) {
+                Node neighbor = neighborEntry.getKey();
+                int newDist = distances.get(current) + neighborEntry.getValue();
+                if (newDist < distances.get(neighbor)) {
+                    distances.put(neighbor, newDist);
+                    previousNodes.put(neighbor, current);
+                    queue.add(neighbor);
+                }
+            }
+        }
+
+        List<Node> path = new ArrayList<>();
+        for (Node at = endPort; at != null; at = previousNodes.get(at)) {
+            path.add(at);
+        }
+        Collections.reverse(path);
+        return path;
+    }
+}
@@ -0,0 +1,113 @@
+package Shipping;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NetworkFileTest {
+    @TempDir
+    Path directory;
+
+    private static PortGraph sample() {
+        PortGraph.Builder builder = new PortGraph.Builder();
+        builder.addNode("Mumbai", "INBOM", 18.95, 72.84);
+        builder.addNode("Waypoint", 10, 60);
+        builder.addNode("Rotterdam", "NLRTM", 51.95, 4.14);
+        builder.addEdge(0, 1, 1200);
+        builder.addEdge(1, 0, 1200);
+        builder.addEdge(1, 2, 5000);
+        return builder.build();
+    }
+
+    private static void overwriteInt(Path file, long position, int value) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ByteBuffer bytes = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(0, value);
+            channel.write(bytes, position);
+        }
+    }
+
+    private static void assertRejected(Path file, IoAction read) {
+        IOException e = assertThrows(IOException.class, read::run);
+        assertTrue(e.getMessage().contains(file.toString()), e.getMessage());
+    }
+
+    private interface IoAction {
+        void run() throws IOException;
+    }
+
+    @Test
+    void networkRoundTrips() throws IOException {
+        PortGraph graph = sample();
+        Path file = directory.resolve("sample.snet");
+        NetworkFile.write(graph, file);
+        PortGraph read = NetworkFile.read(file);
+        assertEquals(graph.fingerprint(), read.fingerprint());
+        assertEquals("Rotterdam", read.name(2));
+        assertEquals("INBOM", read.locode(0));
+        assertNull(read.locode(1));
+        assertEquals(51.95, read.latitude(2));
+    }
+
+    @Test
+    void truncatedNetworkIsRejected() throws IOException {
+        Path file = directory.resolve("truncated.snet");
+        NetworkFile.write(sample(), file);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+        assertRejected(file, () -> NetworkFile.read(file));
+        Files.write(file, Arrays.copyOf(bytes, 20));
+        assertRejected(file, () -> NetworkFile.read(file));
+    }
+
+    @Test
+    void corruptNetworkCountsAndOffsetsAreRejected() throws IOException {
+        Path file = directory.resolve("corrupt.snet");
+        NetworkFile.write(sample(), file);
+        byte[] original = Files.readAllBytes(file);
+        int offsetsStart = 32 + 16 * 3;
+
+        overwriteInt(file, 8, -1); // node count
+        assertRejected(file, () -> NetworkFile.read(file));
+
+        Files.write(file, original);
+        overwriteInt(file, offsetsStart + 4, 4); // offsets 0, 4, 3, 3
+        assertRejected(file, () -> NetworkFile.read(file));
+
+        Files.write(file, original);
+        overwriteInt(file, offsetsStart + 4 * 4, 7); // first target beyond the nodes
+        assertRejected(file, () -> NetworkFile.read(file));
+    }
+
+    @Test
+    void corruptHierarchyIsRejected() throws IOException {
+        PortGraph graph = TestGraphs.random(50, 3, 20, 1);
+        Path file = directory.resolve("graph.ch");
+        new ContractionHierarchyBuilder(graph).build().write(file);
+        byte[] original = Files.readAllBytes(file);
+
+        Files.write(file, Arrays.copyOf(original, original.length - 8));
+        assertRejected(file, () -> ContractionHierarchy.read(file));
+
+        Files.write(file, original);
+        overwriteInt(file, 20, Integer.MAX_VALUE); // up edge count
+        assertRejected(file, () -> ContractionHierarchy.read(file));
+
+        Files.write(file, original);
+        overwriteInt(file, 32, 50); // rank out of range
+        assertRejected(file, () -> ContractionHierarchy.read(file));
+
+        Files.write(file, original);
+        overwriteInt(file, 32 + 4 * 50 + 4, -5); // decreasing up offsets
+        assertRejected(file, () -> ContractionHierarchy.read(file));
+    }
+}
@@ -0,0 +1,189 @@
+package Shipping;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParetoRouteSearchTest {
+    // Random fuel and time per edge, independent of the distance.
+    private static EdgeCriteria randomCriteria(PortGraph graph, Random random) {
+        EdgeCriteria.Builder builder = new EdgeCriteria.Builder(graph, 14, 300);
+        for (int u = 0; u < graph.nodeCount(); u++) {
+            for (int e = graph.offsets[u]; e < graph.offsets[u + 1]; e++) {
+                builder.set(u, graph.targets[e], 1 + random.nextInt(20), 1 + random.nextInt(20));
+            }
+        }
+        return builder.build();
+    }
+
+    private static boolean dominates(int[] a, int[] b) {
+        return a[0] <= b[0] && a[1] <= b[1] && a[2] <= b[2];
+    }
+
+    // Costs of every loopless path from source to target, without the ones another path dominates.
+    private static List<int[]> bruteForceFrontier(EdgeCriteria criteria, int source, int target) {
+        List<int[]> all = new ArrayList<>();
+        enumerate(criteria, source, target, new boolean[criteria.graph.nodeCount()], new int[3], all);
+        List<int[]> frontier = new ArrayList<>();
+        for (int[] costs : all) {
+            boolean dominated = false;
+            for (int[] other : all) {
+                if (dominates(other, costs) && !Arrays.equals(other, costs)) {
+                    dominated = true;
+                    break;
+                }
+            }
+            if (!dominated && frontier.stream().noneMatch(kept -> Arrays.equals(kept, costs))) {
+                frontier.add(costs);
+            }
+        }
+        frontier.sort((a, b) -> a[0] != b[0] ? Integer.compare(a[0], b[0])
+                : a[1] != b[1] ? Integer.compare(a[1], b[1]) : Integer.compare(a[2], b[2]));
+        return frontier;
+    }
+
+    private static void enumerate(EdgeCriteria criteria, int node, int target, boolean[] onPath, int[] costs,
+                                  List<int[]> all) {
+        if (node == target) {
+            all.add(costs.clone());
+            return;
+        }
+        PortGraph graph = criteria.graph;
+        onPath[node] = true;
+        for (int e = graph.offsets[node]; e < graph.offsets[node + 1]; e++) {
+            if (!onPath[graph.targets[e]]) {
+                int[] next = {costs[0] + graph.weights.get(e), costs[1] + criteria.fuel[e], costs[2] + criteria.time[e]};
+                enumerate(criteria, graph.targets[e], target, onPath, next, all);
+            }
+        }
+        onPath[node] = false;
+    }
+
+    @Test
+    void exactFrontierMatchesBruteForce() {
+        Random random = new Random(13);
+        for (long seed = 1; seed <= 20; seed++) {
+            PortGraph graph = TestGraphs.random(10, 3, 20, seed);
+            EdgeCriteria criteria = randomCriteria(graph, random);
+            ParetoRouteSearch search = new ParetoRouteSearch(criteria, 1_000, 0, 1 << 20);
+            for (int i = 0; i < 10; i++) {
+                int source = random.nextInt(graph.nodeCount());
+                int target = random.nextInt(graph.nodeCount());
+                if (source == target) {
+                    continue;
+                }
+                List<int[]> expected = bruteForceFrontier(criteria, source, target);
+                List<ParetoRoute> frontier = search.frontier(source, target);
+                String query = "seed " + seed + ": " + source + " -> " + target;
+                assertEquals(expected.size(), frontier.size(), query);
+                for (int j = 0; j < frontier.size(); j++) {
+                    ParetoRoute route = frontier.get(j);
+                    assertArrayEquals(expected.get(j), new int[] {route.distance, route.fuel, route.time}, query);
+                    ParetoRoute recosted = criteria.cost(route.nodes);
+                    assertEquals(route.distance, recosted.distance);
+                    assertEquals(route.fuel, recosted.fuel);
+                    assertEquals(route.time, recosted.time);
+                    assertEquals(source, route.nodes[0]);
+                    assertEquals(target, route.nodes[route.nodes.length - 1]);
+                }
+            }
+        }
+    }
+
+    @Test
+    void approximateFrontierIsMutuallyNonDominated() {
+        Random random = new Random(7);
+        PortGraph graph = TestGraphs.undirected(500, 2, 20, 7);
+        EdgeCriteria criteria = randomCriteria(graph, random);
+        ParetoRouteSearch search = new ParetoRouteSearch(criteria);
+        DijkstraSearch dijkstra = new DijkstraSearch(graph);
+        for (int i = 0; i < 30; i++) {
+            int source = random.nextInt(graph.nodeCount());
+            int target = random.nextInt(graph.nodeCount());
+            List<ParetoRoute> frontier = search.frontier(source, target);
+            int shortest = dijkstra.distance(source, target);
+            if (shortest == SearchContext.UNREACHABLE || source == target) {
+                continue;
+            }
+            assertFalse(frontier.isEmpty());
+            // Within epsilon of the shortest distance, which some route of the exact frontier has.
+            assertTrue(frontier.get(0).distance <= shortest * 1.01, frontier.get(0).distance + " vs " + shortest);
+            for (ParetoRoute a : frontier) {
+                for (ParetoRoute b : frontier) {
+                    if (a != b) {
+                        assertFalse(dominates(new int[] {a.distance, a.fuel, a.time},
+                                new int[] {b.distance, b.fuel, b.time}), "dominated route in the frontier");
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void longerButFasterLegGivesTwoRoutes() {
+        PortGraph.Builder builder = new PortGraph.Builder();
+        int a = builder.addNode("A", 0, 0);
+        int slow = builder.addNode("Slow", 1, 5);
+        int fast = builder.addNode("Fast", -2, 5);
+        int b = builder.addNode("B", 0, 10);
+        builder.addEdge(a, slow, 320);
+        builder.addEdge(slow, b, 320);
+        builder.addEdge(a, fast, 400);
+        builder.addEdge(fast, b, 400);
+        PortGraph graph = builder.build();
+        LaneConditions conditions = new LaneConditions.Builder()
+                .speed(a, fast, 20).speed(fast, b, 20)
+                .build();
+        EdgeCriteria criteria = conditions.criteria(graph, RoutingEngine.COST_PERIOD_MINUTES,
+                RoutingEngine.CRUISING_SPEED_KNOTS, RoutingEngine.FUEL_KG_PER_NM);
+
+        List<ParetoRoute> frontier = new ParetoRouteSearch(criteria).frontier(a, b);
+        assertEquals(2, frontier.size());
+        ParetoRoute shorter = frontier.get(0);
+        ParetoRoute faster = frontier.get(1);
+        assertArrayEquals(new int[] {a, slow, b}, shorter.nodes);
+        assertArrayEquals(new int[] {a, fast, b}, faster.nodes);
+        assertTrue(faster.time < shorter.time && faster.fuel > shorter.fuel);
+        assertEquals(2 * Math.round(320 * 60 / 14.0), shorter.time);
+        assertEquals(800 * 60 / 20, faster.time);
+    }
+
+    @Test
+    void concurrentQueriesMatchSerialOnes() throws Exception {
+        Random random = new Random(21);
+        PortGraph graph = TestGraphs.undirected(400, 2, 20, 21);
+        ParetoRouteSearch search = new ParetoRouteSearch(randomCriteria(graph, random));
+        int[][] queries = new int[64][2];
+        List<List<ParetoRoute>> serial = new ArrayList<>();
+        for (int[] query : queries) {
+            query[0] = random.nextInt(graph.nodeCount());
+            query[1] = random.nextInt(graph.nodeCount());
+            serial.add(search.frontier(query[0], query[1]));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<ParetoRoute>>> futures = new ArrayList<>();
+            for (int[] query : queries) {
+                futures.add(executor.submit(() -> search.frontier(query[0], query[1])));
+            }
+            for (int i = 0; i < queries.length; i++) {
+                List<ParetoRoute> expected = serial.get(i);
+                List<ParetoRoute> actual = futures.get(i).get();
+                assertEquals(expected.size(), actual.size(), "query " + i);
+                for (int j = 0; j < expected.size(); j++) {
+                    assertArrayEquals(expected.get(j).nodes, actual.get(j).nodes, "query " + i);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
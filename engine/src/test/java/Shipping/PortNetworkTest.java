@@ -0,0 +1,174 @@
+package Shipping;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PortNetworkTest {
+    // Ports 0 -> 1 -> ... -> nodes - 1, each leg of the given weight.
+    private static PortGraph chain(int nodes, int weight) {
+        PortGraph.Builder builder = new PortGraph.Builder();
+        for (int i = 0; i < nodes; i++) {
+            builder.addNode("P" + i, 0, i * 0.01);
+            if (i > 0) {
+                builder.addEdge(i - 1, i, weight);
+            }
+        }
+        return builder.build();
+    }
+
+    @Test
+    void unknownNodesAreRejectedWhenTheEditIsMade() {
+        PortNetwork network = new PortNetwork(chain(5, 10));
+        AtomicInteger calls = new AtomicInteger();
+        network.addListener((before, after, from, to) -> calls.incrementAndGet());
+
+        PortNetwork.Batch batch = network.batch().setEdge(0, 2, 7);
+        assertThrows(IllegalArgumentException.class, () -> batch.setEdge(0, 5, 7));
+        assertThrows(IllegalArgumentException.class, () -> batch.setEdge(-1, 2, 7));
+        assertThrows(IllegalArgumentException.class, () -> batch.setEdge(1, 2, -3));
+        assertEquals(1, batch.size());
+        assertThrows(IllegalArgumentException.class, () -> network.setEdge(9, 0, 7));
+        assertThrows(IllegalArgumentException.class, () -> network.removeEdge(0, 9));
+        assertThrows(IllegalArgumentException.class,
+                () -> network.updateWeights(new int[] {0}, new int[] {Integer.MAX_VALUE}, new int[] {7}));
+        assertEquals(0, network.version());
+        assertEquals(0, calls.get());
+
+        // The valid edit left in the batch still commits.
+        assertEquals(7, batch.commit().weight(0, 2));
+        assertEquals(1, network.version());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void failedCommitPublishesNothing() {
+        PortNetwork network = new PortNetwork(chain(5, 10));
+        PortGraph before = network.graph();
+        AtomicInteger calls = new AtomicInteger();
+        network.addListener((b, a, from, to) -> calls.incrementAndGet());
+
+        // The first lane exists, the second does not, so neither is reweighted.
+        assertThrows(IllegalArgumentException.class,
+                () -> network.updateWeights(new int[] {0, 0}, new int[] {1, 3}, new int[] {4, 4}));
+        assertSame(before, network.graph());
+        assertEquals(10, network.graph().weight(0, 1));
+        assertEquals(0, calls.get());
+    }
+
+    @Test
+    void readersSeeWholeBatchesOnly() throws InterruptedException {
+        // Spans several weight blocks, so a batch edits more than one of them.
+        int nodes = 2 * EdgeWeights.BLOCK_SIZE + 10;
+        PortGraph.Builder builder = new PortGraph.Builder();
+        for (int i = 0; i < nodes; i++) {
+            builder.addNode("P" + i, 0, i * 0.01);
+            if (i > 0) {
+                builder.addEdge(i - 1, i, 2);
+            }
+        }
+        builder.addEdge(nodes - 1, 0, 1);
+        PortNetwork network = new PortNetwork(builder.build());
+        int[] edited = {0, 1, EdgeWeights.BLOCK_SIZE, nodes - 2};
+
+        // Batch k sets the edited legs to k + 2, and has the closing edge only when k is even.
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<String> torn = new AtomicReference<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < 3; r++) {
+            Thread reader = new Thread(() -> {
+                while (!done.get() && torn.get() == null) {
+                    PortGraph graph = network.graph();
+                    int weight = graph.weight(0, 1);
+                    for (int from : edited) {
+                        if (graph.weight(from, from + 1) != weight) {
+                            torn.set("version " + graph.version() + ": leg " + from + " has "
+                                    + graph.weight(from, from + 1) + ", leg 0 has " + weight);
+                        }
+                    }
+                    boolean closed = graph.weight(nodes - 1, 0) != PortGraph.NO_EDGE;
+                    if (closed != (weight % 2 == 0)) {
+                        torn.set("version " + graph.version() + ": closing edge does not match weight " + weight);
+                    }
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+        for (int k = 1; k <= 300 && torn.get() == null; k++) {
+            PortNetwork.Batch batch = network.batch();
+            for (int from : edited) {
+                batch.setEdge(from, from + 1, k + 2);
+            }
+            if (k % 2 == 0) {
+                batch.setEdge(nodes - 1, 0, 1);
+            } else {
+                batch.removeEdge(nodes - 1, 0);
+            }
+            assertEquals(k, batch.commit().version());
+        }
+        done.set(true);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertNull(torn.get(), torn.get());
+    }
+
+    @Test
+    void versionsShareTheBlocksAnEditLeavesAlone() {
+        int nodes = 3 * EdgeWeights.BLOCK_SIZE;
+        PortNetwork network = new PortNetwork(chain(nodes, 10));
+        PortGraph before = network.graph();
+        before.reverse();
+        int last = before.edgeCount() - 1;
+
+        network.updateWeights(new int[] {5}, new int[] {6}, new int[] {12});
+        PortGraph after = network.graph();
+        assertEquals(1, after.version());
+        assertFalse(after.weights.sharesBlock(before.weights, 5));
+        assertTrue(after.weights.sharesBlock(before.weights, EdgeWeights.BLOCK_SIZE + 5));
+        assertTrue(after.weights.sharesBlock(before.weights, last));
+        assertTrue(after.reverse().weights.sharesBlock(before.reverse().weights, last));
+        assertEquals(10, before.weight(5, 6));
+        assertEquals(12, after.weight(5, 6));
+
+        // A batch that reweights two blocks copies just those two.
+        PortGraph next = network.batch()
+                .setEdge(5, 6, 13)
+                .setEdge(last, last + 1, 14)
+                .commit();
+        assertFalse(next.weights.sharesBlock(after.weights, 5));
+        assertFalse(next.weights.sharesBlock(after.weights, last));
+        assertTrue(next.weights.sharesBlock(after.weights, EdgeWeights.BLOCK_SIZE + 5));
+        assertEquals(14, next.weight(last, last + 1));
+        assertEquals(10, after.weight(last, last + 1));
+    }
+
+    @Test
+    void supersededVersionsAreNotContractedInTheBackground() throws InterruptedException {
+        PortNetwork network = new PortNetwork(TestGraphs.random(300, 3, 20, 8));
+        PortGraph first = network.graph();
+        int to = first.targets[first.offsets[0]];
+        network.setEdge(0, to, first.weight(0, to) + 5);
+        PortGraph second = network.graph();
+        network.setEdge(0, to, first.weight(0, to) + 9);
+        PortGraph third = network.graph();
+
+        // Both builds queue on the one builder thread, so the superseded one is reached first.
+        assertNull(second.readyContractionHierarchy());
+        assertNull(third.readyContractionHierarchy());
+        long deadline = System.nanoTime() + 30_000_000_000L;
+        while (third.readyContractionHierarchy() == null && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertNotNull(third.readyContractionHierarchy(), "current version not contracted in the background");
+        assertNull(second.readyContractionHierarchy(), "superseded version was contracted");
+        assertSame(third, network.graph());
+    }
+}
@@ -0,0 +1,98 @@
+package Shipping;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PortRegistryTest {
+    // Ports on both sides of the prime meridian and the antimeridian.
+    private static PortGraph ports() {
+        PortGraph.Builder builder = new PortGraph.Builder();
+        builder.addNode("New York", "USNYC", 40.7, -74.0);
+        builder.addNode("London", "GBLON", 51.5, -0.1);
+        builder.addNode("Le Havre", "FRLEH", 49.5, 0.1);
+        builder.addNode("Suva", "FJSUV", -18.1, 178.4);
+        builder.addNode("Apia", "WSAPW", -13.8, -171.8);
+        builder.addNode("Auckland", "NZAKL", -36.8, 174.8);
+        builder.addNode("Anchorage", "USANC", 61.2, -149.9);
+        builder.addNode("Petropavlovsk", "RUPKC", 53.0, 158.6);
+        builder.addNode("Mid-Atlantic", 0, 0);
+        builder.addNode("Dateline", 0, -180);
+        builder.addNode("Dateline east", 0, 179.99);
+        return builder.build();
+    }
+
+    private static int[] bruteForceCell(PortGraph graph, double latitude, double longitude, int bits) {
+        int shift = PortRegistry.GEOHASH_BITS - bits;
+        long prefix = PortRegistry.geohash(latitude, longitude, PortRegistry.GEOHASH_BITS) >>> shift;
+        return IntStream.range(0, graph.nodeCount())
+                .filter(node -> PortRegistry.geohash(graph.latitude(node), graph.longitude(node),
+                        PortRegistry.GEOHASH_BITS) >>> shift == prefix)
+                .toArray();
+    }
+
+    @Test
+    void findsPortsByNameAndLocode() {
+        PortGraph graph = ports();
+        PortRegistry registry = graph.registry();
+        assertEquals(0, registry.byName("New York"));
+        assertEquals(3, registry.byName("Suva"));
+        assertEquals(PortRegistry.NOT_FOUND, registry.byName("Atlantis"));
+        assertEquals(4, registry.byLocode("WS APW"));
+        assertEquals(2, registry.byLocode("frleh"));
+        assertEquals(PortRegistry.NOT_FOUND, registry.byLocode("XXXXX"));
+        assertEquals(PortRegistry.NOT_FOUND, registry.byLocode("NYC"));
+        assertEquals(PortRegistry.NOT_FOUND, registry.byLocode(null));
+    }
+
+    @Test
+    void findsEveryPortByItsPosition() {
+        PortGraph graph = ports();
+        PortRegistry registry = graph.registry();
+        for (int node = 0; node < graph.nodeCount(); node++) {
+            assertEquals(node, registry.byPosition(graph.latitude(node), graph.longitude(node)), graph.name(node));
+        }
+        assertEquals(PortRegistry.NOT_FOUND, registry.byPosition(40.7, -74.00001));
+        assertEquals(PortRegistry.NOT_FOUND, registry.byPosition(0, 180));
+    }
+
+    @Test
+    void cellsMatchBruteForceOnEveryPrecision() {
+        PortGraph graph = ports();
+        PortRegistry registry = graph.registry();
+        for (int node = 0; node < graph.nodeCount(); node++) {
+            for (int bits = 1; bits <= PortRegistry.GEOHASH_BITS; bits++) {
+                int[] cell = registry.inCell(graph.latitude(node), graph.longitude(node), bits);
+                Arrays.sort(cell);
+                assertArrayEquals(bruteForceCell(graph, graph.latitude(node), graph.longitude(node), bits), cell,
+                        graph.name(node) + " at " + bits + " bits");
+            }
+        }
+        // New York's one-bit cell is the western hemisphere, with Apia, Anchorage and the dateline.
+        int[] west = registry.inCell(40, -74, 1);
+        Arrays.sort(west);
+        assertArrayEquals(new int[] {0, 1, 4, 6, 9}, west);
+        assertEquals(0, registry.inCell(-89, 179.9, 8).length);
+        assertThrows(IllegalArgumentException.class, () -> registry.inCell(0, 0, 0));
+    }
+
+    @Test
+    void randomCellsMatchBruteForce() {
+        Random random = new Random(9);
+        PortGraph graph = TestGraphs.random(2_000, 0, 1, 9);
+        PortRegistry registry = graph.registry();
+        for (int i = 0; i < 500; i++) {
+            double latitude = random.nextDouble() * 180 - 90;
+            double longitude = random.nextDouble() * 360 - 180;
+            int bits = 1 + random.nextInt(20);
+            int[] cell = registry.inCell(latitude, longitude, bits);
+            Arrays.sort(cell);
+            assertArrayEquals(bruteForceCell(graph, latitude, longitude, bits), cell,
+                    latitude + ", " + longitude + " at " + bits + " bits");
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package Shipping;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteCacheTest {
+    private static void cacheShortest(RouteCache cache, PortGraph graph, int start, int end) {
+        DijkstraSearch search = new DijkstraSearch(graph);
+        int[] path = search.shortestPath(start, end);
+        if (path.length == 0) {
+            cache.put(graph, start, end, RoutingStrategy.DIJKSTRA, List.of(), SearchContext.UNREACHABLE);
+        } else {
+            Route route = graph.route(path);
+            cache.put(graph, start, end, RoutingStrategy.DIJKSTRA, List.of(route), route.distance);
+        }
+    }
+
+    @Test
+    void survivingEntriesStayShortestAfterRandomEdits() {
+        Random random = new Random(11);
+        PortNetwork network = new PortNetwork(TestGraphs.random(150, 3, 20, 11));
+        RouteCache cache = new RouteCache(100_000);
+        network.addListener(cache);
+        int kept = 0;
+        int dropped = 0;
+        int[][] pairs = new int[200][2];
+        for (int round = 0; round < 60; round++) {
+            PortGraph before = network.graph();
+            for (int[] pair : pairs) {
+                pair[0] = random.nextInt(before.nodeCount());
+                pair[1] = random.nextInt(before.nodeCount());
+                cacheShortest(cache, before, pair[0], pair[1]);
+            }
+
+            PortNetwork.Batch batch = network.batch();
+            for (int i = 1 + random.nextInt(4); i > 0; i--) {
+                int from = random.nextInt(before.nodeCount());
+                int to = random.nextInt(before.nodeCount());
+                int weight = random.nextInt(5) == 0 ? PortGraph.NO_EDGE : 1 + random.nextInt(30);
+                if (from != to) {
+                    batch.setEdge(from, to, weight);
+                }
+            }
+            PortGraph after = batch.commit();
+
+            DijkstraSearch search = new DijkstraSearch(after);
+            for (int[] pair : pairs) {
+                List<Route> cached = cache.get(after, pair[0], pair[1], RoutingStrategy.DIJKSTRA);
+                if (cached == null) {
+                    dropped++;
+                    continue;
+                }
+                kept++;
+                int distance = search.distance(pair[0], pair[1]);
+                if (cached.isEmpty()) {
+                    assertEquals(SearchContext.UNREACHABLE, distance, pair[0] + " -> " + pair[1]);
+                } else {
+                    Route route = cached.get(0);
+                    assertEquals(distance, route.distance, pair[0] + " -> " + pair[1] + " in round " + round);
+                    assertEquals(distance, after.route(route.nodes).distance);
+                }
+            }
+        }
+        assertTrue(kept > 0 && dropped > 0, kept + " kept, " + dropped + " dropped");
+    }
+
+    @Test
+    void heavierEdgeDropsOnlyRoutesUsingIt() {
+        PortGraph.Builder builder = new PortGraph.Builder();
+        for (int i = 0; i < 4; i++) {
+            builder.addNode("P" + i, 0, i);
+        }
+        builder.addEdge(0, 1, 5);
+        builder.addEdge(1, 2, 5);
+        builder.addEdge(2, 3, 5);
+        PortNetwork network = new PortNetwork(builder.build());
+        RouteCache cache = new RouteCache(16);
+        network.addListener(cache);
+        cacheShortest(cache, network.graph(), 0, 1);
+        cacheShortest(cache, network.graph(), 2, 3);
+
+        network.setEdge(0, 1, 9);
+        assertNull(cache.get(network.graph(), 0, 1, RoutingStrategy.DIJKSTRA));
+        assertEquals(5, cache.get(network.graph(), 2, 3, RoutingStrategy.DIJKSTRA).get(0).distance);
+    }
+
+    @Test
+    void shortcutDropsRoutesItImproves() {
+        PortGraph.Builder builder = new PortGraph.Builder();
+        for (int i = 0; i < 4; i++) {
+            builder.addNode("P" + i, 0, i);
+        }
+        builder.addEdge(0, 1, 5);
+        builder.addEdge(1, 2, 5);
+        builder.addEdge(2, 3, 5);
+        PortNetwork network = new PortNetwork(builder.build());
+        RouteCache cache = new RouteCache(16);
+        network.addListener(cache);
+        cacheShortest(cache, network.graph(), 0, 3);
+        cacheShortest(cache, network.graph(), 3, 0);
+
+        network.setEdge(0, 2, 6);
+        assertNull(cache.get(network.graph(), 0, 3, RoutingStrategy.DIJKSTRA));
+        // Still unreachable: the new edge cannot help.
+        assertTrue(cache.get(network.graph(), 3, 0, RoutingStrategy.DIJKSTRA).isEmpty());
+    }
+
+    @Test
+    void entriesOfOtherVersionsMiss() {
+        PortGraph graph = TestGraphs.random(20, 3, 20, 2);
+        RouteCache cache = new RouteCache(4);
+        cacheShortest(cache, graph, 0, 1);
+        // Edited without telling the cache.
+        PortGraph edited = graph.withEdge(0, 1, 1);
+        assertNull(cache.get(edited, 0, 1, RoutingStrategy.DIJKSTRA));
+        assertNotNull(cache.get(graph, 0, 1, RoutingStrategy.DIJKSTRA));
+    }
+}
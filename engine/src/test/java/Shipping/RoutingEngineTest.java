@@ -0,0 +1,86 @@
+package Shipping;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoutingEngineTest {
+    @Test
+    void derivedStructuresAreBuiltOncePerVersion() throws Exception {
+        PortGraph graph = TestGraphs.random(50, 3, 20, 1);
+        Object key = new Object();
+        AtomicInteger builds = new AtomicInteger();
+        CountDownLatch building = new CountDownLatch(1);
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                results.add(executor.submit(() -> graph.derived(key, version -> {
+                    builds.incrementAndGet();
+                    building.countDown();
+                    sleep(100);
+                    return new Object();
+                })));
+            }
+            // Another key on the same version is not held up by the slow build.
+            building.await();
+            assertEquals("other", graph.derived(new Object(), version -> "other"));
+            Object first = results.get(0).get();
+            for (Future<Object> result : results) {
+                assertSame(first, result.get());
+            }
+            assertEquals(1, builds.get());
+        } finally {
+            executor.shutdown();
+        }
+        PortGraph next = graph.withEdge(0, 1, 7);
+        assertNotSame(graph.derived(key, version -> new Object()), next.derived(key, version -> new Object()));
+    }
+
+    @Test
+    void failedBuildIsRetried() {
+        PortGraph graph = TestGraphs.random(10, 2, 20, 2);
+        Object key = new Object();
+        assertThrows(IllegalStateException.class, () -> graph.derived(key, version -> {
+            throw new IllegalStateException("no");
+        }));
+        assertEquals("built", graph.derived(key, version -> "built"));
+    }
+
+    @Test
+    void queriesFollowEditedVersions() {
+        PortNetwork network = new PortNetwork(SampleNetwork.graph());
+        RoutingEngine engine = new RoutingEngine(network, SampleNetwork.conditions(network.graph()));
+        PortGraph before = network.graph();
+        int mumbai = before.registry().byLocode("INBOM");
+        int capeTown = before.registry().byLocode("ZACPT");
+        Route first = engine.earliestArrival(before, mumbai, capeTown, 0);
+        assertNotSame(Route.NONE, first);
+        int[] nodes = first.nodes;
+        network.setEdge(nodes[0], nodes[1], before.weight(nodes[0], nodes[1]) * 2);
+        PortGraph after = network.graph();
+        Route slower = engine.earliestArrival(after, mumbai, capeTown, 0);
+        assertTrue(slower.distance > first.distance, slower.distance + " vs " + first.distance);
+        // The older snapshot keeps its own search and answers.
+        assertEquals(first.distance, engine.earliestArrival(before, mumbai, capeTown, 0).distance);
+        assertEquals(before.route(nodes).distance,
+                engine.paretoRoutes(before, mumbai, capeTown).get(0).distance);
+        assertEquals(after.route(nodes).distance, engine.paretoRoutes(after, mumbai, capeTown).get(0).distance);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package Shipping;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanAttributeInfo;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoutingMetricsTest {
+    private final boolean wasEnabled = RoutingMetrics.isEnabled();
+    private final PortGraph graph = TestGraphs.random(200, 3, 20, 6);
+
+    @AfterEach
+    void restore() {
+        RoutingMetrics.setEnabled(wasEnabled);
+        RoutingMetrics.SHORTEST_ROUTE.reset();
+    }
+
+    // The path array it returns is allocated by the measured search.
+    private int[] query() {
+        DijkstraSearch search = new DijkstraSearch(graph);
+        return RoutingMetrics.measure(RoutingMetrics.SHORTEST_ROUTE, 0, 1, () -> search.shortestPath(0, 1));
+    }
+
+    @Test
+    void disabledMetricsRecordNothing() {
+        RoutingMetrics.SHORTEST_ROUTE.reset();
+        RoutingMetrics.setEnabled(false);
+        assertArrayEquals(new DijkstraSearch(graph).shortestPath(0, 1), query());
+        assertEquals(0, RoutingMetrics.SHORTEST_ROUTE.getCount());
+        assertEquals(0, RoutingMetrics.SHORTEST_ROUTE.getMeanSettledNodes());
+        assertEquals(0, RoutingMetrics.SHORTEST_ROUTE.getMaxMillis());
+    }
+
+    @Test
+    void enabledMetricsRecordEachQueryAndItsWork() {
+        RoutingMetrics.SHORTEST_ROUTE.reset();
+        RoutingMetrics.setEnabled(true);
+        query();
+        query();
+        RoutingMetrics.Query metrics = RoutingMetrics.SHORTEST_ROUTE;
+        assertEquals(2, metrics.getCount());
+        assertTrue(metrics.getMeanSettledNodes() > 0);
+        assertTrue(metrics.getMeanRelaxedEdges() >= metrics.getMeanSettledNodes());
+        assertTrue(metrics.getMeanHeapOperations() > 0);
+        assertTrue(metrics.getMaxMillis() > 0);
+        assertTrue(metrics.getP50Millis() <= metrics.getMaxMillis());
+        // This thread is a platform thread, so its allocation is measured.
+        assertTrue(metrics.getMeanAllocatedBytes() > 0);
+
+        metrics.reset();
+        assertEquals(0, metrics.getCount());
+        assertEquals(0, metrics.getMeanAllocatedBytes());
+    }
+
+    @Test
+    void queriesOnVirtualThreadsReportNoAllocation() throws Exception {
+        RoutingMetrics.SHORTEST_ROUTE.reset();
+        RoutingMetrics.setEnabled(true);
+        AtomicReference<int[]> path = new AtomicReference<>();
+        Thread.ofVirtual().start(() -> path.set(query())).join();
+        assertTrue(path.get().length > 0);
+        assertEquals(1, RoutingMetrics.SHORTEST_ROUTE.getCount());
+        assertTrue(RoutingMetrics.SHORTEST_ROUTE.getMeanSettledNodes() > 0);
+        assertEquals(0, RoutingMetrics.SHORTEST_ROUTE.getMeanAllocatedBytes());
+
+        // And the MBean says so.
+        RoutingMetrics.register();
+        ObjectName name = new ObjectName("Shipping:type=RoutingMetrics,query=shortestRoute");
+        String description = null;
+        for (MBeanAttributeInfo attribute : ManagementFactory.getPlatformMBeanServer().getMBeanInfo(name).getAttributes()) {
+            if (attribute.getName().equals("MeanAllocatedBytes")) {
+                description = attribute.getDescription();
+            }
+        }
+        assertNotNull(description);
+        assertTrue(description.contains("virtual threads"), description);
+    }
+}
@@ -0,0 +1,118 @@
+package Shipping;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Timeout(60)
+class RoutingServerTest {
+    // Long enough that a route along it does not fit in the socket buffers.
+    private static final int PORTS = 20_000;
+
+    private RoutingServer server;
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void start() throws IOException {
+        // One-way chain P0 -> P1 -> ... with a LOCODE on the first port.
+        PortGraph.Builder builder = new PortGraph.Builder();
+        builder.addNode("First", "XXFST", 0, 0);
+        for (int i = 1; i < PORTS; i++) {
+            builder.addNode("P" + i, 0, i * 0.001);
+            builder.addEdge(i - 1, i, 1);
+        }
+        server = new RoutingServer(new RoutingEngine(new PortNetwork(builder.build())),
+                new InetSocketAddress("localhost", 0));
+        server.start();
+    }
+
+    @AfterEach
+    void stop() {
+        // Waits for every exchange, so a handler stuck on a lost client fails the test by its timeout.
+        server.stop();
+    }
+
+    private HttpResponse<String> send(String method, String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.port() + path))
+                .method(method, HttpRequest.BodyPublishers.noBody())
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        return send("GET", path);
+    }
+
+    @Test
+    void answersQueries() throws Exception {
+        HttpResponse<String> network = get("/network");
+        assertEquals(200, network.statusCode());
+        assertEquals("{\"nodes\":" + PORTS + ",\"edges\":" + (PORTS - 1) + ",\"version\":0}", network.body());
+        assertTrue(network.headers().firstValue("Content-Type").orElse("").startsWith("application/json"));
+
+        HttpResponse<String> route = get("/route?from=XXFST&to=P2&strategy=dijkstra");
+        assertEquals(200, route.statusCode());
+        assertTrue(route.body().startsWith("{\"distance\":2,\"ports\":[{\"id\":0,\"name\":\"First\",\"locode\":\"XXFST\""),
+                route.body());
+    }
+
+    @Test
+    void rejectsBadRequests() throws Exception {
+        HttpResponse<String> missing = get("/route?from=0");
+        assertEquals(400, missing.statusCode());
+        assertEquals("{\"error\":\"Missing parameter to\"}", missing.body());
+        assertEquals(400, get("/route?from=0&to=1&strategy=teleport").statusCode());
+        assertEquals(400, get("/earliest-arrival?from=0&to=1&departure=soon").statusCode());
+        assertEquals(400, get("/earliest-arrival?from=0&to=1&departure=-5").statusCode());
+
+        HttpResponse<String> unknown = get("/route?from=0&to=Atlantis");
+        assertEquals(404, unknown.statusCode());
+        assertEquals("{\"error\":\"Unknown port Atlantis\"}", unknown.body());
+        assertEquals(404, get("/route?from=0&to=" + PORTS).statusCode());
+        // The chain runs one way only.
+        HttpResponse<String> noRoute = get("/route?from=5&to=0");
+        assertEquals(404, noRoute.statusCode());
+        assertEquals("{\"error\":\"No route found\"}", noRoute.body());
+
+        HttpResponse<String> post = send("POST", "/route?from=0&to=1");
+        assertEquals(405, post.statusCode());
+        assertEquals("{\"error\":\"Only GET is supported\"}", post.body());
+        assertEquals(405, send("DELETE", "/network").statusCode());
+    }
+
+    @Test
+    void keepsServingAfterClientsLeaveMidResponse() throws Exception {
+        String request = "GET /route?from=0&to=" + (PORTS - 1) + " HTTP/1.1\r\nHost: localhost\r\n\r\n";
+        for (int i = 0; i < 3; i++) {
+            try (Socket socket = new Socket("localhost", server.port())) {
+                OutputStream out = socket.getOutputStream();
+                out.write(request.getBytes(StandardCharsets.US_ASCII));
+                out.flush();
+                InputStream in = socket.getInputStream();
+                byte[] start = in.readNBytes(12);
+                assertEquals("HTTP/1.1 200", new String(start, StandardCharsets.US_ASCII));
+                // Reset the connection rather than closing it politely, with most of the body unread.
+                socket.setSoLinger(true, 0);
+            }
+        }
+        HttpResponse<String> route = get("/route?from=0&to=" + (PORTS - 1));
+        assertEquals(200, route.statusCode());
+        assertTrue(route.body().startsWith("{\"distance\":" + (PORTS - 1) + ","));
+        assertTrue(route.body().length() > 1_000_000, "body of " + route.body().length() + " chars");
+        assertEquals(200, get("/network").statusCode());
+    }
+}
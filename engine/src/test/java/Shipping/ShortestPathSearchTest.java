@@ -0,0 +1,70 @@
+package Shipping;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShortestPathSearchTest {
+    private static final int QUERIES = 300;
+
+    // Returns the length of path after checking it runs from source to target over existing edges.
+    static int checkedLength(PortGraph graph, int[] path, int source, int target) {
+        assertTrue(path.length > 0, "no path " + source + " -> " + target);
+        assertEquals(source, path[0]);
+        assertEquals(target, path[path.length - 1]);
+        return graph.route(path).distance;
+    }
+
+    private static void assertMatchesLegacy(PortGraph graph, RouteSearch search, long seed) {
+        LegacyDijkstra legacy = new LegacyDijkstra(graph);
+        Random random = new Random(seed);
+        for (int i = 0; i < QUERIES; i++) {
+            int source = random.nextInt(graph.nodeCount());
+            int target = random.nextInt(graph.nodeCount());
+            int expected = legacy.distance(source, target);
+            assertEquals(expected, search.distance(source, target), source + " -> " + target);
+            int[] path = search.shortestPath(source, target);
+            if (expected == SearchContext.UNREACHABLE) {
+                assertEquals(0, path.length);
+            } else {
+                assertEquals(expected, checkedLength(graph, path, source, target), source + " -> " + target);
+            }
+        }
+    }
+
+    @Test
+    void dijkstraMatchesLegacySearch() {
+        for (long seed = 1; seed <= 5; seed++) {
+            PortGraph graph = TestGraphs.random(400, 3, 20, seed);
+            assertMatchesLegacy(graph, new DijkstraSearch(graph), seed);
+        }
+    }
+
+    @Test
+    void aStarMatchesLegacySearch() {
+        for (long seed = 1; seed <= 5; seed++) {
+            PortGraph graph = TestGraphs.random(400, 3, 20, seed);
+            assertMatchesLegacy(graph, new AStarSearch(graph), seed);
+        }
+    }
+
+    @Test
+    void bidirectionalMatchesLegacySearch() {
+        for (long seed = 1; seed <= 5; seed++) {
+            PortGraph graph = TestGraphs.random(400, 3, 20, seed);
+            assertMatchesLegacy(graph, new BidirectionalSearch(graph), seed);
+        }
+    }
+
+    @Test
+    void sourceIsItsOwnRoute() {
+        PortGraph graph = TestGraphs.random(50, 3, 20, 1);
+        for (RouteSearch search : new RouteSearch[] {
+                new DijkstraSearch(graph), new AStarSearch(graph), new BidirectionalSearch(graph)}) {
+            assertEquals(0, search.distance(7, 7));
+            assertArrayEquals(new int[] {7}, search.shortestPath(7, 7));
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package Shipping;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShortestPathTreeTest {
+    private static void assertMatchesRecompute(ShortestPathTree tree, PortGraph graph, String when) {
+        assertSame(graph, tree.graph());
+        ShortestPathTree recomputed = new ShortestPathTree(graph, tree.source());
+        for (int node = 0; node < graph.nodeCount(); node++) {
+            int expected = recomputed.distance(node);
+            assertEquals(expected, tree.distance(node), "node " + node + " " + when);
+            int[] path = tree.path(node);
+            if (expected == ShortestPathTree.UNREACHABLE) {
+                assertEquals(0, path.length);
+            } else {
+                assertEquals(expected, ShortestPathSearchTest.checkedLength(graph, path, tree.source(), node));
+            }
+        }
+    }
+
+    private static void assertRepairsLikeRecompute(long seed, boolean increases, boolean decreases) {
+        Random random = new Random(seed);
+        PortNetwork network = new PortNetwork(TestGraphs.random(300, 3, 20, seed));
+        ShortestPathTree tree = ShortestPathTree.attach(network, 0);
+        assertMatchesRecompute(tree, network.graph(), "initially");
+        for (int round = 0; round < 80; round++) {
+            PortGraph graph = network.graph();
+            PortNetwork.Batch batch = network.batch();
+            for (int i = 1 + random.nextInt(6); i > 0; i--) {
+                int from;
+                int to;
+                int weight;
+                if (random.nextBoolean() && graph.edgeCount() > 0) {
+                    // Bias towards tree edges, where increases matter.
+                    to = 1 + random.nextInt(graph.nodeCount() - 1);
+                    int[] path = tree.path(to);
+                    if (path.length < 2) {
+                        continue;
+                    }
+                    from = path[path.length - 2];
+                } else {
+                    from = random.nextInt(graph.nodeCount());
+                    to = random.nextInt(graph.nodeCount());
+                }
+                int current = graph.weight(from, to);
+                if (current == PortGraph.NO_EDGE) {
+                    weight = decreases ? 1 + random.nextInt(30) : PortGraph.NO_EDGE;
+                } else if (increases && (!decreases || random.nextBoolean())) {
+                    weight = random.nextInt(4) == 0 ? PortGraph.NO_EDGE : current + 1 + random.nextInt(30);
+                } else {
+                    weight = random.nextInt(current + 1);
+                }
+                if (from != to && weight != current) {
+                    batch.setEdge(from, to, weight);
+                }
+            }
+            batch.commit();
+            assertMatchesRecompute(tree, network.graph(), "after round " + round);
+        }
+    }
+
+    @Test
+    void repairAfterIncreasesMatchesRecompute() {
+        for (long seed = 1; seed <= 3; seed++) {
+            assertRepairsLikeRecompute(seed, true, false);
+        }
+    }
+
+    @Test
+    void repairAfterDecreasesMatchesRecompute() {
+        for (long seed = 1; seed <= 3; seed++) {
+            assertRepairsLikeRecompute(seed, false, true);
+        }
+    }
+
+    @Test
+    void repairAfterMixedEditsMatchesRecompute() {
+        for (long seed = 1; seed <= 3; seed++) {
+            assertRepairsLikeRecompute(seed, true, true);
+        }
+    }
+
+    @Test
+    void repairTouchesOnlyTheAffectedPart() {
+        PortGraph.Builder builder = new PortGraph.Builder();
+        for (int i = 0; i < 100; i++) {
+            builder.addNode("P" + i, 0, i);
+            if (i > 0) {
+                builder.addEdge(i - 1, i, 10);
+            }
+        }
+        PortNetwork network = new PortNetwork(builder.build());
+        ShortestPathTree tree = ShortestPathTree.attach(network, 0);
+        network.setEdge(97, 98, 11);
+        assertEquals(2, tree.lastRepairSize());
+        assertEquals(991, tree.distance(99));
+    }
+}
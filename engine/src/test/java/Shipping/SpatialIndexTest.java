@@ -0,0 +1,139 @@
+package Shipping;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpatialIndexTest {
+    // Nodes spread over the globe, with clusters around both poles and across the antimeridian.
+    private static PortGraph points(long seed) {
+        Random random = new Random(seed);
+        PortGraph.Builder builder = new PortGraph.Builder();
+        for (int i = 0; i < 1_500; i++) {
+            double latitude;
+            double longitude;
+            switch (i % 4) {
+                case 0 -> {
+                    latitude = 80 + random.nextDouble() * 10;
+                    longitude = random.nextDouble() * 360 - 180;
+                }
+                case 1 -> {
+                    latitude = -90 + random.nextDouble() * 10;
+                    longitude = random.nextDouble() * 360 - 180;
+                }
+                case 2 -> {
+                    latitude = random.nextDouble() * 40 - 20;
+                    longitude = random.nextBoolean() ? 175 + random.nextDouble() * 5 : -180 + random.nextDouble() * 5;
+                }
+                default -> {
+                    latitude = random.nextDouble() * 180 - 90;
+                    longitude = random.nextDouble() * 360 - 180;
+                }
+            }
+            builder.addNode("Node " + i, latitude, longitude);
+        }
+        builder.addNode("North Pole", 90, 0);
+        builder.addNode("South Pole", -90, 123);
+        builder.addNode("Dateline", 0, 180);
+        return builder.build();
+    }
+
+    // Great-circle angle in radians, by the haversine formula.
+    private static double angle(PortGraph graph, int node, double latitude, double longitude) {
+        double lat1 = Math.toRadians(graph.latitude(node));
+        double lat2 = Math.toRadians(latitude);
+        double dLat = lat2 - lat1;
+        double dLon = Math.toRadians(longitude - graph.longitude(node));
+        double h = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(lat1) * Math.cos(lat2) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * Math.asin(Math.min(1, Math.sqrt(h)));
+    }
+
+    // A query position, often in the awkward places.
+    private static double[] query(Random random) {
+        return switch (random.nextInt(4)) {
+            case 0 -> new double[] {85 + random.nextDouble() * 5, random.nextDouble() * 360 - 180};
+            case 1 -> new double[] {-90 + random.nextDouble() * 5, random.nextDouble() * 360 - 180};
+            case 2 -> new double[] {random.nextDouble() * 20 - 10, random.nextBoolean() ? 179.9 : -179.9};
+            default -> new double[] {random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180};
+        };
+    }
+
+    @Test
+    void nearestNeighboursMatchBruteForce() {
+        PortGraph graph = points(1);
+        SpatialIndex index = graph.spatialIndex();
+        assertEquals(graph.nodeCount(), index.size());
+        Random random = new Random(2);
+        for (int i = 0; i < 400; i++) {
+            double[] q = query(random);
+            int k = 1 + random.nextInt(12);
+            double[] expected = IntStream.range(0, graph.nodeCount())
+                    .mapToDouble(node -> angle(graph, node, q[0], q[1])).sorted().limit(k).toArray();
+            int[] nearest = index.kNearest(q[0], q[1], k);
+            assertEquals(k, nearest.length);
+            for (int j = 0; j < k; j++) {
+                assertEquals(expected[j], angle(graph, nearest[j], q[0], q[1]), 1e-9, Arrays.toString(q) + " #" + j);
+            }
+            assertEquals(expected[0], angle(graph, index.nearest(q[0], q[1]), q[0], q[1]), 1e-9);
+        }
+        assertEquals(graph.registry().byName("North Pole"), index.nearest(90, -77));
+        assertEquals(graph.registry().byName("Dateline"), index.nearest(0, -180));
+        assertEquals(graph.nodeCount(), index.kNearest(0, 0, graph.nodeCount() + 5).length);
+        assertEquals(0, index.kNearest(0, 0, 0).length);
+    }
+
+    @Test
+    void radiusQueriesMatchBruteForce() {
+        PortGraph graph = points(3);
+        SpatialIndex index = graph.spatialIndex();
+        Random random = new Random(4);
+        for (int i = 0; i < 300; i++) {
+            double[] q = query(random);
+            double radiusNm = random.nextDouble() * 1_500;
+            double radius = radiusNm / GreatCircleHeuristic.EARTH_RADIUS_NM;
+            int[] found = index.withinNm(q[0], q[1], radiusNm);
+            Arrays.sort(found);
+            int[] expected = IntStream.range(0, graph.nodeCount())
+                    .filter(node -> angle(graph, node, q[0], q[1]) <= radius).toArray();
+            // Nodes within rounding of the circle may fall either way.
+            int[] unsure = IntStream.range(0, graph.nodeCount())
+                    .filter(node -> Math.abs(angle(graph, node, q[0], q[1]) - radius) < 1e-9).toArray();
+            if (unsure.length == 0) {
+                assertArrayEquals(expected, found, Arrays.toString(q) + " within " + radiusNm);
+            }
+        }
+        assertEquals(graph.nodeCount(), index.withinNm(12, 34, 20_000).length);
+    }
+
+    @Test
+    void boxQueriesMatchBruteForce() {
+        PortGraph graph = points(5);
+        SpatialIndex index = graph.spatialIndex();
+        Random random = new Random(6);
+        for (int i = 0; i < 300; i++) {
+            double minLatitude = random.nextDouble() * 180 - 90;
+            double maxLatitude = Math.min(90, minLatitude + random.nextDouble() * 60);
+            double minLongitude = random.nextDouble() * 360 - 180;
+            double span = random.nextInt(5) == 0 ? 180 + random.nextDouble() * 180 : random.nextDouble() * 60;
+            double maxLongitude = minLongitude + span > 180 ? minLongitude + span - 360 : minLongitude + span;
+            int[] found = index.inBounds(minLatitude, maxLatitude, minLongitude, maxLongitude);
+            Arrays.sort(found);
+            int[] expected = IntStream.range(0, graph.nodeCount()).filter(node -> {
+                double latitude = graph.latitude(node);
+                double offset = ((graph.longitude(node) - minLongitude) % 360 + 360) % 360;
+                return latitude >= minLatitude && latitude <= maxLatitude && offset <= span;
+            }).toArray();
+            assertArrayEquals(expected, found, minLatitude + ".." + maxLatitude + ", " + minLongitude + " +" + span);
+        }
+        // A box across the antimeridian and one around the north pole.
+        int dateline = graph.registry().byName("Dateline");
+        assertTrue(Arrays.stream(index.inBounds(-1, 1, 179, -179)).anyMatch(node -> node == dateline));
+        int pole = graph.registry().byName("North Pole");
+        assertTrue(Arrays.stream(index.inBounds(89, 90, -180, 180)).anyMatch(node -> node == pole));
+    }
+}
@@ -0,0 +1,51 @@
+package Shipping;
+
+import java.util.Random;
+
+/**
+ * Seeded random graphs for the tests: nodes scattered over the globe, each
+ * with a few directed edges to random other nodes. Weights come from a small
+ * range, so equal-length routes are common and one-way lanes leave some
+ * nodes unreachable from others.
+ */
+final class TestGraphs {
+    private TestGraphs() {
+    }
+
+    static PortGraph random(int nodeCount, int edgesPerNode, int maxWeight, long seed) {
+        Random random = new Random(seed);
+        PortGraph.Builder builder = new PortGraph.Builder();
+        for (int u = 0; u < nodeCount; u++) {
+            builder.addNode("Node " + u, random.nextDouble() * 140 - 70, random.nextDouble() * 360 - 180);
+        }
+        for (int u = 0; u < nodeCount; u++) {
+            for (int i = 0; i < edgesPerNode; i++) {
+                int v = random.nextInt(nodeCount);
+                if (v != u) {
+                    builder.addEdge(u, v, 1 + random.nextInt(maxWeight));
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    // The same graph with every edge also added the other way round, at the same weight.
+    static PortGraph undirected(int nodeCount, int edgesPerNode, int maxWeight, long seed) {
+        Random random = new Random(seed);
+        PortGraph.Builder builder = new PortGraph.Builder();
+        for (int u = 0; u < nodeCount; u++) {
+            builder.addNode("Node " + u, random.nextDouble() * 140 - 70, random.nextDouble() * 360 - 180);
+        }
+        for (int u = 0; u < nodeCount; u++) {
+            for (int i = 0; i < edgesPerNode; i++) {
+                int v = random.nextInt(nodeCount);
+                if (v != u) {
+                    int weight = 1 + random.nextInt(maxWeight);
+                    builder.addEdge(u, v, weight);
+                    builder.addEdge(v, u, weight);
+                }
+            }
+        }
+        return builder.build();
+    }
+}
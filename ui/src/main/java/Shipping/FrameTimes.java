@@ -0,0 +1,51 @@
+package Shipping;
+
+import java.util.Arrays;
+
+/**
+ * Durations of the most recent frames, for measuring rendering changes:
+ * record each frame's paint time and read the mean, p50, p99 and worst case.
+ */
+final class FrameTimes {
+    private final long[] nanos;
+    private int count;
+    private int next;
+
+    FrameTimes(int window) {
+        nanos = new long[window];
+    }
+
+    synchronized void record(long frameNanos) {
+        nanos[next] = frameNanos;
+        next = (next + 1) % nanos.length;
+        count = Math.min(count + 1, nanos.length);
+    }
+
+    synchronized int count() {
+        return count;
+    }
+
+    // Percentile of the recorded frames in milliseconds, e.g. 0.99 for p99.
+    synchronized double percentileMillis(double fraction) {
+        if (count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(nanos, count);
+        Arrays.sort(sorted);
+        return sorted[(int) Math.min(count - 1, Math.max(0, Math.ceil(fraction * count) - 1))] / 1e6;
+    }
+
+    synchronized double meanMillis() {
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            total += nanos[i];
+        }
+        return count == 0 ? 0 : total / 1e6 / count;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("frame %.1f ms mean, p50 %.1f, p99 %.1f, max %.1f (last %d)",
+                meanMillis(), percentileMillis(0.5), percentileMillis(0.99), percentileMillis(1), count());
+    }
+}
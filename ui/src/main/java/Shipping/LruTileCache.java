@@ -0,0 +1,50 @@
+package Shipping;
+
+import org.jxmapviewer.viewer.TileCache;
+
+import java.awt.image.BufferedImage;
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In-memory cache of decoded tile images, bounded to the most recently used
+ * tiles. The default cache keeps raw bytes without a bound as well; here
+ * the disk store holds the bytes, so only decoded images are kept.
+ */
+final class LruTileCache extends TileCache {
+    private final Map<URI, BufferedImage> images;
+
+    LruTileCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Tile cache capacity must be positive");
+        }
+        images = new LinkedHashMap<URI, BufferedImage>(capacity * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<URI, BufferedImage> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    @Override
+    public synchronized void put(URI uri, byte[] bytes, BufferedImage image) {
+        if (image != null) {
+            images.put(uri, image);
+        }
+    }
+
+    @Override
+    public synchronized BufferedImage get(URI uri) {
+        return images.get(uri);
+    }
+
+    @Override
+    public synchronized void needMoreMemory() {
+        images.clear();
+    }
+
+    synchronized int size() {
+        return images.size();
+    }
+}
@@ -0,0 +1,871 @@
+package Shipping;
+
+import org.jxmapviewer.JXMapViewer;
+import org.jxmapviewer.input.CenterMapListener;
+import org.jxmapviewer.input.PanKeyListener;
+import org.jxmapviewer.input.PanMouseInputListener;
+import org.jxmapviewer.input.ZoomMouseWheelListenerCenter;
+import org.jxmapviewer.painter.CompoundPainter;
+import org.jxmapviewer.painter.Painter;
+import org.jxmapviewer.viewer.DefaultTileFactory;
+import org.jxmapviewer.viewer.GeoPosition;
+import org.jxmapviewer.viewer.TileFactoryInfo;
+import org.jxmapviewer.viewer.Waypoint;
+import org.jxmapviewer.viewer.WaypointPainter;
+import org.jxmapviewer.viewer.DefaultWaypoint;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.geom.Path2D;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+class PortNode {
+    String name;
+    String locode;
+    GeoPosition position;
+    int id = -1;
+    PortNetwork network;
+    private List<PortNode> pendingNeighbors = new ArrayList<>();
+    private int[] pendingDistances = new int[4];
+
+    public PortNode(String name, GeoPosition position) {
+        this(name, null, position);
+    }
+
+    public PortNode(String name, String locode, GeoPosition position) {
+        this.name = name;
+        this.locode = locode;
+        this.position = position;
+    }
+
+    // Before freezing the edge is buffered; afterwards it is applied as a new network version.
+    public void addNeighbor(PortNode neighbor, int distance) {
+        if (network != null) {
+            network.setEdge(id, neighbor.id, distance);
+            return;
+        }
+        if (pendingNeighbors.size() == pendingDistances.length) {
+            pendingDistances = Arrays.copyOf(pendingDistances, pendingDistances.length * 2);
+        }
+        pendingDistances[pendingNeighbors.size()] = distance;
+        pendingNeighbors.add(neighbor);
+    }
+
+    public void removeNeighbor(PortNode neighbor) {
+        if (network == null) {
+            throw new IllegalStateException("Port graph is not frozen yet");
+        }
+        network.removeEdge(id, neighbor.id);
+    }
+
+    // Freezes the ports into a CSR graph; each port's id becomes its index in the list.
+    static PortNetwork freeze(List<PortNode> ports) {
+        PortGraph.Builder builder = new PortGraph.Builder();
+        for (PortNode port : ports) {
+            port.id = builder.addNode(port.name, port.locode, port.position.getLatitude(), port.position.getLongitude());
+        }
+        for (PortNode port : ports) {
+            for (int i = 0; i < port.pendingNeighbors.size(); i++) {
+                builder.addEdge(port.id, port.pendingNeighbors.get(i).id, port.pendingDistances[i]);
+            }
+        }
+        PortNetwork network = new PortNetwork(builder.build());
+        for (PortNode port : ports) {
+            port.network = network;
+            port.pendingNeighbors = null;
+            port.pendingDistances = null;
+        }
+        return network;
+    }
+
+    // Wraps the nodes of an already frozen graph, e.g. one read from a network file.
+    static List<PortNode> fromGraph(PortGraph graph) {
+        PortNetwork network = new PortNetwork(graph);
+        List<PortNode> ports = new ArrayList<>(graph.nodeCount());
+        for (int node = 0; node < graph.nodeCount(); node++) {
+            PortNode port = new PortNode(graph.name(node), graph.locode(node),
+                    new GeoPosition(graph.latitude(node), graph.longitude(node)));
+            port.id = node;
+            port.network = network;
+            port.pendingNeighbors = null;
+            port.pendingDistances = null;
+            ports.add(port);
+        }
+        return ports;
+    }
+}
+
+public class ShipRouting extends JPanel {
+    private static final int FLEET_SIZE = 10_000;
+    private static final int FRAMES_PER_SECOND = 30;
+    private static final String[] TIME_ACCELERATION_LABELS = {"1 min/s", "10 min/s", "1 h/s", "6 h/s", "1 day/s"};
+    private static final double[] TIME_ACCELERATIONS = {60, 600, 3600, 6 * 3600, 24 * 3600};
+    // The viewer counts zoom levels down from TOTAL_MAP_ZOOM; tile servers count up from 0.
+    private static final int TOTAL_MAP_ZOOM = 17;
+    private static final int MAX_MAP_ZOOM = 15;
+    private static final int TILE_MEMORY_CACHE_SIZE = 256;
+    private static final int PREFETCH_CORRIDOR_TILES = 1;
+    private static final int PREFETCH_MAX_TILES = 4_000;
+    private static final int PREFETCH_CONNECTIONS = 2;
+
+    private JXMapViewer mapViewer;
+    private List<PortNode> ports;
+    private PortNetwork network;
+    private RoutingEngine engine;
+    private Route journeyRoute;
+    private FleetSimulator fleet;
+    private FleetPainter fleetPainter;
+    private JTextArea shipDetailsArea;
+    private JComboBox<String> startPortComboBox;
+    private JComboBox<String> endPortComboBox;
+    private JComboBox<RoutingStrategy> strategyComboBox;
+    private List<Painter<JXMapViewer>> painters = new ArrayList<>();
+    private Map<List<GeoPosition>, RoutePainter> routePainters = new HashMap<>();
+    private WaypointPainter<Waypoint> waypointPainter;
+    private Set<GeoPosition> waypointPositions;
+    private final FrameTimes frameTimes = new FrameTimes(256);
+    private final boolean showFrameTimes = Boolean.getBoolean("shipping.frameTimes");
+    private TilePrefetcher tilePrefetcher;
+    private CompletableFuture<TilePrefetcher.Result> tilePrefetch;
+    private SwingWorker<?, ?> pathsWorker;
+
+    public ShipRouting() {
+        this(createPortsAndRoutes());
+    }
+
+    public ShipRouting(List<PortNode> ports) {
+        this(ports, null, TilePrefetcher.DEFAULT_SOURCE);
+    }
+
+    /**
+     * With a tile store, tiles fetched from tileServer are kept on disk and the
+     * corridors of shown routes are prefetched into it. A null tileServer runs
+     * offline: tiles are read from the store alone, which must then be given.
+     */
+    public ShipRouting(List<PortNode> ports, TileStore tileStore, String tileServer) {
+        this(ports, tileStore, tileServer, SampleNetwork.conditions(ports.get(0).network.graph()));
+    }
+
+    // Earliest arrivals sail under the given lane conditions.
+    ShipRouting(List<PortNode> ports, TileStore tileStore, String tileServer, LaneConditions conditions) {
+        if (tileStore == null && tileServer == null) {
+            throw new IllegalArgumentException("Offline maps need a tile store; pass a tile server or a store");
+        }
+        setLayout(new BorderLayout());
+        // Times every full repaint, tiles included; -Dshipping.frameTimes=true shows the statistics in the corner.
+        mapViewer = new JXMapViewer() {
+            @Override
+            protected void paintComponent(Graphics g) {
+                long started = System.nanoTime();
+                super.paintComponent(g);
+                frameTimes.record(System.nanoTime() - started);
+                if (showFrameTimes) {
+                    g.setColor(Color.BLACK);
+                    g.drawString(frameTimes.toString(), 10, 20);
+                }
+            }
+        };
+
+        TileFactoryInfo info = new TileFactoryInfo(
+                "OpenStreetMap", 1, MAX_MAP_ZOOM, TOTAL_MAP_ZOOM, 256, true, true,
+                tileServer != null ? tileServer : tileStore.baseUrl(), "x", "y", "z") {
+            public String getTileUrl(int x, int y, int zoom) {
+                zoom = TOTAL_MAP_ZOOM - zoom;
+                return this.baseURL + "/" + zoom + "/" + x + "/" + y + ".png";
+            }
+        };
+        DefaultTileFactory tileFactory = new DefaultTileFactory(info);
+        tileFactory.setTileCache(new LruTileCache(TILE_MEMORY_CACHE_SIZE));
+        if (tileStore != null) {
+            // Offline the base URL is the store itself; online the store answers first and keeps what is fetched.
+            if (tileServer != null) {
+                tileFactory.setLocalCache(tileStore);
+            }
+            tilePrefetcher = new TilePrefetcher(tileStore, tileServer, PREFETCH_CONNECTIONS);
+        }
+        mapViewer.setTileFactory(tileFactory);
+
+        GeoPosition startPosition = new GeoPosition(20.5937, 78.9629); // Centered on India
+        mapViewer.setZoom(3);
+        mapViewer.setAddressLocation(startPosition);
+
+        // Add interaction listeners
+        MouseAdapter mouseAdapter = new PanMouseInputListener(mapViewer);
+        mapViewer.addMouseListener(mouseAdapter);
+        mapViewer.addMouseMotionListener(mouseAdapter);
+        mapViewer.addMouseWheelListener(new ZoomMouseWheelListenerCenter(mapViewer));
+        mapViewer.addMouseListener(new CenterMapListener(mapViewer));
+        mapViewer.addKeyListener(new PanKeyListener(mapViewer));
+
+        // Shift-click picks the nearest node as start port, Ctrl-click as end port
+        mapViewer.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.isShiftDown() || e.isControlDown()) {
+                    GeoPosition clicked = mapViewer.convertPointToGeoPosition(e.getPoint());
+                    selectNearestPort(clicked, e.isShiftDown() ? startPortComboBox : endPortComboBox);
+                }
+            }
+        });
+
+        this.ports = ports;
+        network = ports.get(0).network;
+        engine = new RoutingEngine(network, conditions);
+
+        // The fleet runs on its own thread; each frame only asks the map to repaint.
+        fleet = new FleetSimulator(network.graph());
+        fleet.setTimeAcceleration(TIME_ACCELERATIONS[2]);
+        fleetPainter = new FleetPainter(fleet);
+        painters.add(fleetPainter);
+        mapViewer.setOverlayPainter(new CompoundPainter<>(painters));
+        fleet.start(FRAMES_PER_SECOND, mapViewer::repaint);
+
+        // UI components for user input
+        JPanel inputPanel = new JPanel();
+        inputPanel.setLayout(new GridLayout(6, 2));
+
+        JLabel startPortLabel = new JLabel("Start Port:");
+        JLabel endPortLabel = new JLabel("End Port:");
+        JLabel strategyLabel = new JLabel("Strategy:");
+
+        startPortComboBox = new JComboBox<>();
+        endPortComboBox = new JComboBox<>();
+
+        for (PortNode port : ports) {
+            startPortComboBox.addItem(port.name);
+            endPortComboBox.addItem(port.name);
+        }
+        strategyComboBox = new JComboBox<>(RoutingStrategy.values());
+
+        JButton showPathsButton = new JButton("Show Paths");
+        showPathsButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                showPaths();
+            }
+        });
+
+        JButton startJourneyButton = new JButton("Start Shortest Journey");
+        startJourneyButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                startShortestJourney();
+            }
+        });
+
+        inputPanel.add(startPortLabel);
+        inputPanel.add(startPortComboBox);
+        inputPanel.add(endPortLabel);
+        inputPanel.add(endPortComboBox);
+        inputPanel.add(strategyLabel);
+        inputPanel.add(strategyComboBox);
+        JButton launchFleetButton = new JButton("Launch " + FLEET_SIZE + " Ships");
+        launchFleetButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                launchFleet();
+            }
+        });
+
+        JComboBox<String> accelerationComboBox = new JComboBox<>(TIME_ACCELERATION_LABELS);
+        accelerationComboBox.setSelectedIndex(2);
+        accelerationComboBox.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                fleet.setTimeAcceleration(TIME_ACCELERATIONS[accelerationComboBox.getSelectedIndex()]);
+            }
+        });
+
+        inputPanel.add(showPathsButton);
+        inputPanel.add(startJourneyButton);
+        inputPanel.add(new JLabel("Time Acceleration:"));
+        inputPanel.add(accelerationComboBox);
+        inputPanel.add(new JLabel("Fleet:"));
+        inputPanel.add(launchFleetButton);
+
+        shipDetailsArea = new JTextArea(5, 20);
+        shipDetailsArea.setEditable(false);
+
+        add(mapViewer, BorderLayout.CENTER);
+        add(inputPanel, BorderLayout.NORTH);
+        add(new JScrollPane(shipDetailsArea), BorderLayout.SOUTH);
+    }
+
+    static List<PortNode> createPortsAndRoutes() {
+        return PortNode.fromGraph(SampleNetwork.graph());
+    }
+
+    private PortNode getPortByName(String name) {
+        int id = network.graph().registry().byName(name);
+        return id == PortRegistry.NOT_FOUND ? null : ports.get(id);
+    }
+
+    private List<GeoPosition> toPositions(int[] nodes) {
+        List<GeoPosition> path = new ArrayList<>(nodes.length);
+        for (int node : nodes) {
+            path.add(ports.get(node).position);
+        }
+        return path;
+    }
+
+    // Snaps an arbitrary position, such as a click or an AIS fix, to the closest graph node.
+    private PortNode snapToNode(GeoPosition position) {
+        int id = network.graph().spatialIndex().nearest(position.getLatitude(), position.getLongitude());
+        return id == SpatialIndex.NOT_FOUND ? null : ports.get(id);
+    }
+
+    private void selectNearestPort(GeoPosition position, JComboBox<String> comboBox) {
+        PortNode port = snapToNode(position);
+        if (port == null) {
+            return;
+        }
+        comboBox.setSelectedItem(port.name);
+        double offsetNm = GreatCircleHeuristic.distanceNm(position.getLatitude(), position.getLongitude(),
+                port.position.getLatitude(), port.position.getLongitude());
+        shipDetailsArea.setText(String.format("Snapped to %s, %.0f nm from the clicked point%n", port.name, offsetNm));
+        shipDetailsArea.append(visibleNodes().length + " ports and waypoints in view\n");
+    }
+
+    // Graph nodes inside the current map viewport.
+    private int[] visibleNodes() {
+        Rectangle viewport = mapViewer.getViewportBounds();
+        int zoom = mapViewer.getZoom();
+        GeoPosition topLeft = mapViewer.getTileFactory().pixelToGeo(new Point2D.Double(viewport.getMinX(), viewport.getMinY()), zoom);
+        GeoPosition bottomRight = mapViewer.getTileFactory().pixelToGeo(new Point2D.Double(viewport.getMaxX(), viewport.getMaxY()), zoom);
+        return network.graph().spatialIndex().inBounds(bottomRight.getLatitude(), topLeft.getLatitude(),
+                topLeft.getLongitude(), bottomRight.getLongitude());
+    }
+
+    // Routes found for one Show Paths request, with the tracks to draw.
+    private static final class PathResults {
+        Route shortestRoute;
+        List<Route> alternativeRoutes;
+        List<ParetoRoute> paretoRoutes;
+        ZonedDateTime departure;
+        Route fastestRoute;
+        List<GeoPosition> shortestPositions;
+        List<List<GeoPosition>> alternativePositions = new ArrayList<>();
+        List<List<GeoPosition>> paretoPositions = new ArrayList<>();
+    }
+
+    // Runs the searches off the EDT; only the results of the latest request are shown.
+    private void showPaths() {
+        String startPortName = (String) startPortComboBox.getSelectedItem();
+        String endPortName = (String) endPortComboBox.getSelectedItem();
+
+        if (startPortName == null || endPortName == null || startPortName.equals(endPortName)) {
+            JOptionPane.showMessageDialog(this, "Please select valid start and end ports.", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        PortNode startPort = getPortByName(startPortName);
+        PortNode endPort = getPortByName(endPortName);
+        RoutingStrategy strategy = (RoutingStrategy) strategyComboBox.getSelectedItem();
+        PortGraph graph = network.graph();
+
+        SwingWorker<PathResults, Void> worker = new SwingWorker<>() {
+            @Override
+            protected PathResults doInBackground() {
+                return findPaths(graph, startPort, endPort, strategy);
+            }
+
+            @Override
+            protected void done() {
+                if (pathsWorker != this) {
+                    return;
+                }
+                pathsWorker = null;
+                try {
+                    showPaths(get(), startPortName, endPortName, strategy);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    shipDetailsArea.setText("Routing failed: " + e.getCause() + "\n");
+                }
+            }
+        };
+        pathsWorker = worker;
+        shipDetailsArea.setText("Finding routes from " + startPortName + " to " + endPortName + "...\n");
+        worker.execute();
+    }
+
+    // The searches of showPaths, on a worker thread; the results go no further when there is no route.
+    private PathResults findPaths(PortGraph graph, PortNode startPort, PortNode endPort, RoutingStrategy strategy) {
+        PathResults results = new PathResults();
+        results.shortestRoute = engine.shortestRoute(graph, startPort.id, endPort.id, strategy);
+        if (results.shortestRoute.isEmpty()) {
+            return results;
+        }
+        results.alternativeRoutes = engine.alternativeRoutes(graph, startPort.id, endPort.id);
+        results.shortestPositions = toPositions(results.shortestRoute.nodes);
+        for (Route alternativeRoute : results.alternativeRoutes) {
+            results.alternativePositions.add(toPositions(alternativeRoute.nodes));
+        }
+        // Routes trading off distance, fuel and time; the first is usually the shortest route.
+        results.paretoRoutes = engine.paretoRoutes(graph, startPort.id, endPort.id);
+        for (ParetoRoute paretoRoute : results.paretoRoutes) {
+            // The shortest route is drawn already.
+            if (!Arrays.equals(paretoRoute.nodes, results.shortestRoute.nodes)) {
+                results.paretoPositions.add(toPositions(paretoRoute.nodes));
+            }
+        }
+        ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        ZonedDateTime yearStart = now.withDayOfYear(1).truncatedTo(ChronoUnit.DAYS);
+        results.departure = now;
+        results.fastestRoute = engine.earliestArrival(graph, startPort.id, endPort.id,
+                (int) ChronoUnit.MINUTES.between(yearStart, now));
+        return results;
+    }
+
+    // Shows the results of findPaths, on the EDT.
+    private void showPaths(PathResults results, String startPortName, String endPortName, RoutingStrategy strategy) {
+        Route shortestRoute = results.shortestRoute;
+        if (shortestRoute.isEmpty()) {
+            shipDetailsArea.setText("");
+            JOptionPane.showMessageDialog(this, "No route found between the selected ports.", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        List<Route> alternativeRoutes = results.alternativeRoutes;
+        journeyRoute = shortestRoute;
+
+        // Display ship details
+        shipDetailsArea.setText("Ship Details:\n");
+        shipDetailsArea.append("From: " + startPortName + "\n");
+        shipDetailsArea.append("To: " + endPortName + "\n");
+        shipDetailsArea.append("Strategy: " + strategy + "\n");
+        shipDetailsArea.append("Shortest Distance: " + shortestRoute.distance + " units\n");
+        for (int i = 0; i < alternativeRoutes.size(); i++) {
+            shipDetailsArea.append("Alternative " + (i + 1) + " Distance: " + alternativeRoutes.get(i).distance + " units\n");
+        }
+        if (alternativeRoutes.isEmpty()) {
+            shipDetailsArea.append("No alternative route within the detour and overlap limits\n");
+        }
+        for (ParetoRoute paretoRoute : results.paretoRoutes) {
+            shipDetailsArea.append(String.format("Trade-off: %d units, %.1f t fuel, %d h %02d min%s%n", paretoRoute.distance,
+                    paretoRoute.fuel / 1000.0, paretoRoute.time / 60, paretoRoute.time % 60,
+                    Arrays.equals(paretoRoute.nodes, shortestRoute.nodes) ? " (shortest route)" : ""));
+        }
+        Route fastestRoute = results.fastestRoute;
+        if (!fastestRoute.isEmpty()) {
+            shipDetailsArea.append(String.format("Earliest arrival leaving now at %.0f kn: %s (%d h %02d min)%n",
+                    RoutingEngine.CRUISING_SPEED_KNOTS,
+                    results.departure.plusMinutes(fastestRoute.distance).truncatedTo(ChronoUnit.MINUTES),
+                    fastestRoute.distance / 60, fastestRoute.distance % 60));
+        }
+        shipDetailsArea.append("Route cache: " + engine.routeCache() + "\n");
+        if (RoutingMetrics.isEnabled()) {
+            shipDetailsArea.append("Shortest route queries: " + RoutingMetrics.SHORTEST_ROUTE + "\n");
+        }
+
+        // Draw route lines
+        drawRouteLines(results.shortestPositions, results.alternativePositions, results.paretoPositions);
+
+        List<List<GeoPosition>> shownRoutes = new ArrayList<>(results.alternativePositions);
+        shownRoutes.addAll(results.paretoPositions);
+        shownRoutes.add(results.shortestPositions);
+        prefetchTiles(shownRoutes);
+    }
+
+    // Warms the store with the shown corridors, from the coarsest zoom level down to the one in view.
+    private void prefetchTiles(List<List<GeoPosition>> routes) {
+        if (tilePrefetcher == null) {
+            return;
+        }
+        CompletableFuture<TilePrefetcher.Result> prefetch = tilePrefetcher.prefetch(routes,
+                TOTAL_MAP_ZOOM - MAX_MAP_ZOOM, TOTAL_MAP_ZOOM - mapViewer.getZoom(), PREFETCH_CORRIDOR_TILES, PREFETCH_MAX_TILES);
+        tilePrefetch = prefetch;
+        prefetch.thenAccept(result -> SwingUtilities.invokeLater(() -> {
+            if (tilePrefetch == prefetch) {
+                shipDetailsArea.append("Chart tiles: " + result + "\n");
+                mapViewer.repaint();
+            }
+        }));
+    }
+
+    // Painters are kept across calls, so that routes shown again keep their projection caches.
+    private void drawRouteLines(List<GeoPosition> shortestRoute, List<List<GeoPosition>> alternativeRoutes,
+                                List<List<GeoPosition>> paretoRoutes) {
+        Set<GeoPosition> positions = new HashSet<>(shortestRoute);
+        for (List<GeoPosition> alternativeRoute : alternativeRoutes) {
+            positions.addAll(alternativeRoute);
+        }
+        for (List<GeoPosition> paretoRoute : paretoRoutes) {
+            positions.addAll(paretoRoute);
+        }
+        if (!positions.equals(waypointPositions)) {
+            Set<Waypoint> waypoints = new HashSet<>();
+            for (GeoPosition position : positions) {
+                waypoints.add(new DefaultWaypoint(position));
+            }
+            waypointPainter = new WaypointPainter<>();
+            waypointPainter.setWaypoints(waypoints);
+            waypointPositions = positions;
+        }
+
+        Map<List<GeoPosition>, RoutePainter> previousPainters = routePainters;
+        routePainters = new HashMap<>();
+        painters.clear();
+        painters.add(waypointPainter);
+        for (List<GeoPosition> alternativeRoute : alternativeRoutes) {
+            painters.add(routePainter(previousPainters, alternativeRoute, Color.BLUE));
+        }
+        for (List<GeoPosition> paretoRoute : paretoRoutes) {
+            painters.add(routePainter(previousPainters, paretoRoute, Color.GREEN));
+        }
+        painters.add(routePainter(previousPainters, shortestRoute, Color.RED));
+        painters.add(fleetPainter);
+
+        mapViewer.setOverlayPainter(new CompoundPainter<>(painters));
+    }
+
+    private RoutePainter routePainter(Map<List<GeoPosition>, RoutePainter> previousPainters,
+                                      List<GeoPosition> track, Color color) {
+        RoutePainter painter = previousPainters.get(track);
+        if (painter == null || !painter.color().equals(color)) {
+            painter = new RoutePainter(track, color);
+        }
+        routePainters.put(track, painter);
+        return painter;
+    }
+
+    // Sends one ship along the shown shortest route, highlighted among the fleet.
+    private void startShortestJourney() {
+        if (journeyRoute == null) {
+            JOptionPane.showMessageDialog(this, "Please show paths first.", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        int ship = fleet.addShip(journeyRoute.nodes, RoutingEngine.CRUISING_SPEED_KNOTS, fleet.snapshot().time, false);
+        fleetPainter.setHighlightedShip(ship);
+    }
+
+    // Routes ships between random ports off the EDT, departing over the next simulated day, sailing to and fro.
+    private void launchFleet() {
+        PortGraph graph = network.graph();
+        List<Integer> harbours = new ArrayList<>();
+        for (int node = 0; node < graph.nodeCount(); node++) {
+            if (graph.locode(node) != null) {
+                harbours.add(node);
+            }
+        }
+        if (harbours.size() < 2) {
+            JOptionPane.showMessageDialog(this, "The network needs two ports with a UN/LOCODE.", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        double now = fleet.snapshot().time;
+        new Thread(() -> {
+            Random random = new Random();
+            for (int launched = 0, attempts = 0; launched < FLEET_SIZE && attempts < FLEET_SIZE * 4; attempts++) {
+                int start = harbours.get(random.nextInt(harbours.size()));
+                int end = harbours.get(random.nextInt(harbours.size()));
+                Route route = start == end ? Route.NONE : engine.shortestRoute(graph, start, end, RoutingStrategy.A_STAR);
+                if (route.nodes.length >= 2) {
+                    fleet.addShip(route.nodes, 10 + random.nextDouble() * 10, now + random.nextDouble() * 24 * 3600, true);
+                    launched++;
+                }
+            }
+        }, "fleet-launch").start();
+    }
+
+    /**
+     * With a network file argument the ports are memory-mapped from it instead of the built-in network.
+     * Tiles are kept under ~/.shiprouting/tiles, or -Dshipping.tiles=<dir>, and fetched from
+     * -Dshipping.tileServer=<url>, e.g. a local one; -Dshipping.offline=true reads the store alone.
+     * Query metrics are registered over JMX and on with -Dshipping.metrics=true. Earliest arrivals sail
+     * under the sample lane conditions, or those of -Dshipping.conditions=<file>. Map repaint times
+     * are shown with -Dshipping.frameTimes=true.
+     */
+    public static void main(String[] args) throws IOException {
+        List<PortNode> ports = args.length > 0
+                ? PortNode.fromGraph(NetworkFile.read(Paths.get(args[0])))
+                : createPortsAndRoutes();
+        PortGraph graph = ports.get(0).network.graph();
+        String conditionsFile = System.getProperty("shipping.conditions");
+        LaneConditions conditions = conditionsFile == null ? SampleNetwork.conditions(graph)
+                : LaneConditions.read(Paths.get(conditionsFile), graph);
+        TileStore tileStore = new TileStore(Paths.get(System.getProperty("shipping.tiles",
+                Paths.get(System.getProperty("user.home"), ".shiprouting", "tiles").toString())));
+        String tileServer = Boolean.getBoolean("shipping.offline") ? null
+                : System.getProperty("shipping.tileServer", TilePrefetcher.DEFAULT_SOURCE);
+        RoutingMetrics.register();
+        SwingUtilities.invokeLater(() -> {
+            JFrame frame = new JFrame("Ship Routing System");
+            frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+            frame.add(new ShipRouting(ports, tileStore, tileServer, conditions));
+            frame.setSize(800, 600);
+            frame.setVisible(true);
+        });
+    }
+}
+
+/**
+ * Draws one route as a single Path2D. The projected world-pixel points are
+ * cached per zoom level and simplified with Douglas-Peucker to half a pixel
+ * at that zoom, so repaints while panning project nothing. Segments outside
+ * the viewport are left out of the path.
+ */
+class RoutePainter implements Painter<JXMapViewer> {
+    private static final double SIMPLIFY_TOLERANCE_PIXELS = 0.5;
+    private static final BasicStroke STROKE = new BasicStroke(2);
+
+    private final List<GeoPosition> track;
+    private final Color color;
+    private final Map<Integer, Projection> projections = new HashMap<>();
+
+    // The track in world pixels at one zoom level, after simplification.
+    private static final class Projection {
+        final double[] xs;
+        final double[] ys;
+        final Rectangle2D bounds;
+        final Path2D path;
+
+        Projection(double[] xs, double[] ys) {
+            this.xs = xs;
+            this.ys = ys;
+            path = new Path2D.Double(Path2D.WIND_NON_ZERO, xs.length);
+            for (int i = 0; i < xs.length; i++) {
+                if (i == 0) {
+                    path.moveTo(xs[i], ys[i]);
+                } else {
+                    path.lineTo(xs[i], ys[i]);
+                }
+            }
+            bounds = path.getBounds2D();
+        }
+    }
+
+    public RoutePainter(List<GeoPosition> track, Color color) {
+        this.track = track;
+        this.color = color;
+    }
+
+    public Color color() {
+        return color;
+    }
+
+    @Override
+    public void paint(Graphics2D g, JXMapViewer map, int w, int h) {
+        if (track.size() < 2) {
+            return;
+        }
+        Projection projection = projections.computeIfAbsent(map.getZoom(), zoom -> project(map, zoom));
+        Rectangle viewport = map.getViewportBounds();
+        // Grown by the stroke width so lines ending just outside still show their caps.
+        Rectangle2D visible = new Rectangle2D.Double(viewport.x - STROKE.getLineWidth(), viewport.y - STROKE.getLineWidth(),
+                viewport.width + 2 * STROKE.getLineWidth(), viewport.height + 2 * STROKE.getLineWidth());
+        Rectangle2D bounds = projection.bounds;
+        if (!overlaps(visible, bounds.getMinX(), bounds.getMinY(), bounds.getMaxX(), bounds.getMaxY())) {
+            return;
+        }
+
+        g = (Graphics2D) g.create();
+        // Convert from viewport to world bitmap
+        g.translate(-viewport.x, -viewport.y);
+        g.setColor(color);
+        g.setStroke(STROKE);
+        boolean inside = bounds.getMinX() >= visible.getMinX() && bounds.getMaxX() <= visible.getMaxX()
+                && bounds.getMinY() >= visible.getMinY() && bounds.getMaxY() <= visible.getMaxY();
+        g.draw(inside ? projection.path : visiblePath(projection, visible));
+        g.dispose();
+    }
+
+    private Projection project(JXMapViewer map, int zoom) {
+        int n = track.size();
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        for (int i = 0; i < n; i++) {
+            Point2D point = map.getTileFactory().geoToPixel(track.get(i), zoom);
+            xs[i] = point.getX();
+            ys[i] = point.getY();
+        }
+        boolean[] keep = simplify(xs, ys, SIMPLIFY_TOLERANCE_PIXELS);
+        int kept = 0;
+        for (int i = 0; i < n; i++) {
+            if (keep[i]) {
+                xs[kept] = xs[i];
+                ys[kept++] = ys[i];
+            }
+        }
+        return new Projection(Arrays.copyOf(xs, kept), Arrays.copyOf(ys, kept));
+    }
+
+    // Douglas-Peucker: marks the points to keep so that no dropped point is further than tolerance from the line.
+    private static boolean[] simplify(double[] xs, double[] ys, double tolerance) {
+        int n = xs.length;
+        boolean[] keep = new boolean[n];
+        keep[0] = true;
+        keep[n - 1] = true;
+        int[] stack = new int[2 * n];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = n - 1;
+        while (top > 0) {
+            int last = stack[--top];
+            int first = stack[--top];
+            double dx = xs[last] - xs[first];
+            double dy = ys[last] - ys[first];
+            double length = Math.hypot(dx, dy);
+            int farthest = -1;
+            double farthestDistance = tolerance;
+            for (int i = first + 1; i < last; i++) {
+                double distance = length == 0 ? Math.hypot(xs[i] - xs[first], ys[i] - ys[first])
+                        : Math.abs(dy * (xs[i] - xs[first]) - dx * (ys[i] - ys[first])) / length;
+                if (distance > farthestDistance) {
+                    farthest = i;
+                    farthestDistance = distance;
+                }
+            }
+            if (farthest >= 0) {
+                keep[farthest] = true;
+                stack[top++] = first;
+                stack[top++] = farthest;
+                stack[top++] = farthest;
+                stack[top++] = last;
+            }
+        }
+        return keep;
+    }
+
+    // Only the segments whose bounding boxes meet the visible area, as one path.
+    private static Path2D visiblePath(Projection projection, Rectangle2D visible) {
+        double[] xs = projection.xs;
+        double[] ys = projection.ys;
+        Path2D path = new Path2D.Double();
+        boolean connected = false;
+        for (int i = 0; i + 1 < xs.length; i++) {
+            if (!overlaps(visible, Math.min(xs[i], xs[i + 1]), Math.min(ys[i], ys[i + 1]),
+                    Math.max(xs[i], xs[i + 1]), Math.max(ys[i], ys[i + 1]))) {
+                connected = false;
+                continue;
+            }
+            if (!connected) {
+                path.moveTo(xs[i], ys[i]);
+                connected = true;
+            }
+            path.lineTo(xs[i + 1], ys[i + 1]);
+        }
+        return path;
+    }
+
+    // Unlike Rectangle2D.intersects, also true for the flat boxes of horizontal and vertical lines.
+    private static boolean overlaps(Rectangle2D visible, double minX, double minY, double maxX, double maxY) {
+        return maxX >= visible.getMinX() && minX <= visible.getMaxX() && maxY >= visible.getMinY() && minY <= visible.getMaxY();
+    }
+}
+
+/**
+ * Draws the whole fleet in one pass: every ship is plotted straight into the
+ * pixels of one reused image, which is then drawn once, instead of one shape
+ * per ship. Positions come from a copy of the simulator's latest finished
+ * snapshot, so painting never waits for the simulation, and a paint that
+ * takes longer than a frame still draws one consistent frame.
+ */
+class FleetPainter implements Painter<JXMapViewer> {
+    private static final int SHIP_ARGB = 0xff0a3d91;
+    private static final double MAX_LATITUDE = 85;
+
+    private final FleetSimulator fleet;
+    private volatile int highlightedShip = -1;
+    // Simulated time of the frame out when the ship was highlighted; only later frames can show it.
+    private volatile double highlightedSince;
+    // The frame painted last; its arrays are reused for the next copy.
+    private FleetSimulator.Snapshot frame;
+    private BufferedImage image;
+    private int[] pixels;
+
+    public FleetPainter(FleetSimulator fleet) {
+        this.fleet = fleet;
+    }
+
+    public void setHighlightedShip(int ship) {
+        highlightedSince = fleet.snapshot().time;
+        highlightedShip = ship;
+    }
+
+    @Override
+    public void paint(Graphics2D g, JXMapViewer map, int w, int h) {
+        FleetSimulator.Snapshot snapshot = frame = fleet.copySnapshot(frame);
+        if (snapshot.activeCount == 0 || w <= 0 || h <= 0) {
+            return;
+        }
+        if (image == null || image.getWidth() != w || image.getHeight() != h) {
+            image = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+            pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        } else {
+            Arrays.fill(pixels, 0);
+        }
+
+        // Longitude maps linearly to x and the Mercator ordinate to y; two projected points fix both scales.
+        Rectangle viewport = map.getViewportBounds();
+        int zoom = map.getZoom();
+        Point2D origin = map.getTileFactory().geoToPixel(new GeoPosition(0, 0), zoom);
+        Point2D reference = map.getTileFactory().geoToPixel(new GeoPosition(45, 90), zoom);
+        double xScale = (reference.getX() - origin.getX()) / 90;
+        double yScale = (reference.getY() - origin.getY()) / mercator(45);
+        double xOffset = origin.getX() - viewport.x;
+        double yOffset = origin.getY() - viewport.y;
+
+        float[] latitudes = snapshot.latitudes;
+        float[] longitudes = snapshot.longitudes;
+        for (int ship = 0; ship < snapshot.shipCount; ship++) {
+            float latitude = latitudes[ship];
+            if (Float.isNaN(latitude)) {
+                continue;
+            }
+            int x = (int) (xOffset + longitudes[ship] * xScale);
+            int y = (int) (yOffset + mercator(latitude) * yScale);
+            if (x < 1 || y < 1 || x >= w - 1 || y >= h - 1) {
+                continue;
+            }
+            int row = (y - 1) * w + x;
+            pixels[row - 1] = SHIP_ARGB;
+            pixels[row] = SHIP_ARGB;
+            pixels[row + 1] = SHIP_ARGB;
+            pixels[row + w - 1] = SHIP_ARGB;
+            pixels[row + w] = SHIP_ARGB;
+            pixels[row + w + 1] = SHIP_ARGB;
+            pixels[row + 2 * w - 1] = SHIP_ARGB;
+            pixels[row + 2 * w] = SHIP_ARGB;
+            pixels[row + 2 * w + 1] = SHIP_ARGB;
+        }
+        g.drawImage(image, 0, 0, null);
+
+        int ship = highlightedShip;
+        if (ship >= 0 && ship < snapshot.shipCount && Float.isNaN(latitudes[ship])) {
+            if (snapshot.time > highlightedSince) {
+                // Arrived; its id goes to the next ship added, which is not the one to follow.
+                highlightedShip = -1;
+            }
+        } else if (ship >= 0 && ship < snapshot.shipCount) {
+            int x = (int) (xOffset + longitudes[ship] * xScale);
+            int y = (int) (yOffset + mercator(latitudes[ship]) * yScale);
+            g.setColor(Color.RED);
+            g.fillOval(x - 6, y - 6, 12, 12);
+        }
+
+        long minutes = (long) (snapshot.time / 60);
+        g.setColor(Color.BLACK);
+        g.drawString(String.format("%d ships at sea - day %d, %02d:%02d", snapshot.activeCount,
+                minutes / (24 * 60) + 1, minutes / 60 % 24, minutes % 60), 10, h - 10);
+    }
+
+    private static double mercator(double latitude) {
+        double radians = Math.toRadians(Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, latitude)));
+        return Math.log(Math.tan(Math.PI / 4 + radians / 2));
+    }
+}
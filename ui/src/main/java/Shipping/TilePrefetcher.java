@@ -0,0 +1,275 @@
+package Shipping;
+
+import org.jxmapviewer.viewer.GeoPosition;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Warms a {@link TileStore} with the tiles along route corridors, so a chart
+ * opened later, e.g. at sea without a connection, finds them on disk.
+ *
+ * A corridor is every tile a route's drawn line crosses, widened by a number
+ * of tiles on each side, at each zoom level from coarse to fine until a tile
+ * budget is spent. Zoom levels are slippy-map levels, as stored. Tiles already
+ * stored are skipped; the rest are fetched from a tile server, a public one or
+ * one on the local network, with few connections, as public servers ask. A
+ * prefetcher without a server only counts what is missing.
+ *
+ * Starting a prefetch abandons the previous one, so only the latest routes
+ * are fetched.
+ */
+final class TilePrefetcher {
+    static final String DEFAULT_SOURCE = "http://tile.openstreetmap.org";
+    private static final double MAX_LATITUDE = 85.0511;
+    private static final Duration TIMEOUT = Duration.ofSeconds(20);
+    private static final String USER_AGENT = "ShipRoutingSystem tile prefetcher";
+
+    private final TileStore store;
+    private final String sourceUrl;
+    private final HttpClient client;
+    private final ExecutorService workers;
+    private final int connections;
+    private final AtomicInteger generation = new AtomicInteger();
+
+    // Fetches from sourceUrl, laid out as base/zoom/x/y.png, or only counts missing tiles if it is null.
+    TilePrefetcher(TileStore store, String sourceUrl, int connections) {
+        if (connections < 1) {
+            throw new IllegalArgumentException("A prefetcher needs at least one connection");
+        }
+        this.store = store;
+        this.sourceUrl = sourceUrl;
+        this.connections = connections;
+        this.client = sourceUrl == null ? null
+                : HttpClient.newBuilder().connectTimeout(TIMEOUT).followRedirects(HttpClient.Redirect.NORMAL).build();
+        this.workers = Executors.newFixedThreadPool(connections, runnable -> {
+            Thread thread = new Thread(runnable, "tile-prefetch");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** Tile counts of one prefetch. */
+    static final class Result {
+        final int tiles;
+        final int stored;
+        final int fetched;
+        final int missing;
+
+        Result(int tiles, int stored, int fetched, int missing) {
+            this.tiles = tiles;
+            this.stored = stored;
+            this.fetched = fetched;
+            this.missing = missing;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d corridor tiles: %d stored, %d fetched, %d missing", tiles, stored, fetched, missing);
+        }
+    }
+
+    static long pack(int zoom, int x, int y) {
+        return (long) zoom << 56 | (long) x << 28 | y;
+    }
+
+    static int zoom(long tile) {
+        return (int) (tile >>> 56);
+    }
+
+    static int x(long tile) {
+        return (int) (tile >>> 28) & 0xfffffff;
+    }
+
+    static int y(long tile) {
+        return (int) tile & 0xfffffff;
+    }
+
+    /**
+     * The tiles of every route's corridor, packed, coarse zoom levels first. A
+     * zoom level that would take the total over maxTiles ends the list.
+     */
+    static List<Long> corridors(Collection<List<GeoPosition>> routes, int minZoom, int maxZoom, int radius, int maxTiles) {
+        List<Long> tiles = new ArrayList<>();
+        for (int zoom = minZoom; zoom <= maxZoom; zoom++) {
+            LinkedHashSet<Long> level = new LinkedHashSet<>();
+            for (List<GeoPosition> route : routes) {
+                addCorridor(level, route, zoom, radius);
+            }
+            if (tiles.size() + level.size() > maxTiles) {
+                break;
+            }
+            tiles.addAll(level);
+        }
+        return tiles;
+    }
+
+    /**
+     * Walks each leg in Mercator tile units, half a tile at a time, as the route
+     * painter draws it. A leg goes the shorter way in x, so one crossing the
+     * antimeridian wraps round instead of spanning the whole world.
+     */
+    private static void addCorridor(LinkedHashSet<Long> level, List<GeoPosition> route, int zoom, int radius) {
+        int size = 1 << zoom;
+        for (int i = 0; i < route.size(); i++) {
+            double fromX = tileX(route.get(i), size);
+            double fromY = tileY(route.get(i), size);
+            double toX = i + 1 < route.size() ? tileX(route.get(i + 1), size) : fromX;
+            double toY = i + 1 < route.size() ? tileY(route.get(i + 1), size) : fromY;
+            double deltaX = toX - fromX;
+            if (deltaX > size / 2.0) {
+                deltaX -= size;
+            } else if (deltaX < -size / 2.0) {
+                deltaX += size;
+            }
+            int steps = (int) Math.ceil(Math.max(Math.abs(deltaX), Math.abs(toY - fromY)) * 2);
+            for (int step = 0; step <= steps; step++) {
+                double fraction = steps == 0 ? 0 : (double) step / steps;
+                int x = Math.floorMod((int) Math.floor(fromX + deltaX * fraction), size);
+                int y = (int) Math.min(size - 1, fromY + (toY - fromY) * fraction);
+                for (int dy = Math.max(0, y - radius); dy <= Math.min(size - 1, y + radius); dy++) {
+                    for (int dx = x - radius; dx <= x + radius; dx++) {
+                        level.add(pack(zoom, Math.floorMod(dx, size), dy));
+                    }
+                }
+            }
+        }
+    }
+
+    private static double tileX(GeoPosition position, int size) {
+        return (position.getLongitude() + 180) / 360 * size;
+    }
+
+    private static double tileY(GeoPosition position, int size) {
+        double latitude = Math.toRadians(Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, position.getLatitude())));
+        return (1 - Math.log(Math.tan(latitude) + 1 / Math.cos(latitude)) / Math.PI) / 2 * size;
+    }
+
+    /**
+     * Fetches the corridors' missing tiles in the background, abandoning any
+     * prefetch still running. The result completes when all tiles are tried,
+     * or with the counts so far when a newer prefetch takes over.
+     */
+    CompletableFuture<Result> prefetch(Collection<List<GeoPosition>> routes, int minZoom, int maxZoom, int radius, int maxTiles) {
+        List<Long> tiles = corridors(routes, minZoom, maxZoom, radius, maxTiles);
+        int current = generation.incrementAndGet();
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger stored = new AtomicInteger();
+        AtomicInteger fetched = new AtomicInteger();
+        AtomicInteger missing = new AtomicInteger();
+        List<CompletableFuture<Void>> runs = new ArrayList<>(connections);
+        for (int i = 0; i < connections; i++) {
+            runs.add(CompletableFuture.runAsync(() -> {
+                for (int index = next.getAndIncrement(); index < tiles.size() && generation.get() == current;
+                     index = next.getAndIncrement()) {
+                    long tile = tiles.get(index);
+                    if (store.contains(zoom(tile), x(tile), y(tile))) {
+                        stored.incrementAndGet();
+                    } else if (fetch(tile)) {
+                        fetched.incrementAndGet();
+                    } else {
+                        missing.incrementAndGet();
+                    }
+                }
+            }, workers));
+        }
+        return CompletableFuture.allOf(runs.toArray(new CompletableFuture<?>[0]))
+                .thenApply(done -> new Result(tiles.size(), stored.get(), fetched.get(), missing.get()));
+    }
+
+    void shutdown() {
+        generation.incrementAndGet();
+        workers.shutdownNow();
+    }
+
+    private boolean fetch(long tile) {
+        if (client == null) {
+            return false;
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(sourceUrl + "/" + zoom(tile) + "/" + x(tile) + "/" + y(tile) + ".png"))
+                .timeout(TIMEOUT).header("User-Agent", USER_AGENT).build();
+        try {
+            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() != 200 || response.body().length == 0) {
+                return false;
+            }
+            store.write(zoom(tile), x(tile), y(tile), response.body());
+            return true;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Seeds a tile store for offline use with the corridors of every sea lane
+     * in the built-in network, or one read from a network file; any route
+     * follows these lanes, so it is covered too.
+     */
+    public static void main(String[] args) throws Exception {
+        String directory = null;
+        String file = null;
+        String source = DEFAULT_SOURCE;
+        int minZoom = 2;
+        int maxZoom = 8;
+        int radius = 1;
+        int maxTiles = 20_000;
+        int connections = 2;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--source") && i + 1 < args.length) {
+                source = args[++i];
+            } else if (args[i].equals("--zooms") && i + 1 < args.length) {
+                String[] range = args[++i].split("-");
+                minZoom = Integer.parseInt(range[0]);
+                maxZoom = Integer.parseInt(range[range.length - 1]);
+            } else if (args[i].equals("--corridor") && i + 1 < args.length) {
+                radius = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--max-tiles") && i + 1 < args.length) {
+                maxTiles = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--connections") && i + 1 < args.length) {
+                connections = Integer.parseInt(args[++i]);
+            } else if (directory == null && !args[i].startsWith("--")) {
+                directory = args[i];
+            } else if (file == null && !args[i].startsWith("--")) {
+                file = args[i];
+            } else {
+                directory = null;
+                break;
+            }
+        }
+        if (directory == null) {
+            System.err.println("Usage: java Shipping.TilePrefetcher <tile directory> [--source <url>] [--zooms 2-8]"
+                    + " [--corridor <tiles>] [--max-tiles <n>] [--connections <n>] [network.snet]");
+            System.exit(2);
+        }
+        PortGraph graph = file == null ? SampleNetwork.graph() : NetworkFile.read(Paths.get(file));
+        List<List<GeoPosition>> lanes = new ArrayList<>();
+        for (int u = 0; u < graph.nodeCount(); u++) {
+            for (int e = graph.offsets[u]; e < graph.offsets[u + 1]; e++) {
+                int v = graph.targets[e];
+                if (u < v || graph.weight(v, u) == PortGraph.NO_EDGE) {
+                    lanes.add(List.of(new GeoPosition(graph.latitude(u), graph.longitude(u)),
+                            new GeoPosition(graph.latitude(v), graph.longitude(v))));
+                }
+            }
+        }
+        TilePrefetcher prefetcher = new TilePrefetcher(new TileStore(Paths.get(directory)), source, connections);
+        System.out.println(prefetcher.prefetch(lanes, minZoom, maxZoom, radius, maxTiles).get());
+        prefetcher.shutdown();
+    }
+}
@@ -0,0 +1,99 @@
+package Shipping;
+
+import org.jxmapviewer.cache.LocalCache;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Map tiles on local disk as a directory tree, root/zoom/x/y.png, in the
+ * standard slippy-map numbering. The same tree can be seeded on shore and
+ * copied aboard, or served by any static web server.
+ *
+ * As the tile factory's LocalCache it reads through: a tile URL ending in
+ * zoom/x/y.png is answered from disk when present, and tiles downloaded
+ * online are kept. Offline, the factory's base URL is pointed at
+ * {@link #baseUrl()} instead, so the network is never tried.
+ */
+final class TileStore implements LocalCache {
+    private final Path root;
+
+    TileStore(Path root) throws IOException {
+        this.root = Files.createDirectories(root);
+    }
+
+    // A file: URL of the tree, to use as a tile server base URL.
+    String baseUrl() {
+        String url = root.toUri().toString();
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+
+    Path path(int zoom, int x, int y) {
+        return root.resolve(Integer.toString(zoom)).resolve(Integer.toString(x)).resolve(y + ".png");
+    }
+
+    boolean contains(int zoom, int x, int y) {
+        return Files.isRegularFile(path(zoom, x, y));
+    }
+
+    byte[] read(int zoom, int x, int y) throws IOException {
+        Path path = path(zoom, x, y);
+        return Files.isRegularFile(path) ? Files.readAllBytes(path) : null;
+    }
+
+    // Writes through a temporary file, so a reader or a crash never leaves a partial tile.
+    void write(int zoom, int x, int y, byte[] data) throws IOException {
+        Path path = path(zoom, x, y);
+        Files.createDirectories(path.getParent());
+        Path temporary = Files.createTempFile(path.getParent(), "tile", ".tmp");
+        try {
+            Files.write(temporary, data);
+            try {
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    @Override
+    public InputStream get(URL url) throws IOException {
+        int[] tile = parse(url);
+        byte[] data = tile == null ? null : read(tile[0], tile[1], tile[2]);
+        return data == null ? null : new ByteArrayInputStream(data);
+    }
+
+    @Override
+    public void put(URL url, InputStream data) throws IOException {
+        int[] tile = parse(url);
+        if (tile != null) {
+            write(tile[0], tile[1], tile[2], data.readAllBytes());
+        }
+    }
+
+    // The zoom, x and y of a URL ending in zoom/x/y.ext, or null.
+    static int[] parse(URL url) {
+        String[] segments = url.getPath().split("/");
+        if (segments.length < 3) {
+            return null;
+        }
+        String last = segments[segments.length - 1];
+        int dot = last.indexOf('.');
+        try {
+            int zoom = Integer.parseInt(segments[segments.length - 3]);
+            int x = Integer.parseInt(segments[segments.length - 2]);
+            int y = Integer.parseInt(dot < 0 ? last : last.substring(0, dot));
+            return zoom < 0 || x < 0 || y < 0 ? null : new int[] {zoom, x, y};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package Shipping;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.net.URI;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LruTileCacheTest {
+    private static URI tile(int x) {
+        return URI.create("http://tile.example.org/3/" + x + "/0.png");
+    }
+
+    @Test
+    void keepsOnlyTheMostRecentlyUsedTiles() {
+        LruTileCache cache = new LruTileCache(3);
+        BufferedImage image = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+        for (int x = 0; x < 3; x++) {
+            cache.put(tile(x), null, image);
+        }
+        // Using tile 0 makes tile 1 the eldest.
+        assertSame(image, cache.get(tile(0)));
+        cache.put(tile(3), null, image);
+        assertEquals(3, cache.size());
+        assertNull(cache.get(tile(1)));
+        assertSame(image, cache.get(tile(0)));
+        assertSame(image, cache.get(tile(2)));
+        assertSame(image, cache.get(tile(3)));
+
+        for (int x = 10; x < 100; x++) {
+            cache.put(tile(x), null, image);
+        }
+        assertEquals(3, cache.size());
+        cache.put(tile(200), null, null);
+        assertNull(cache.get(tile(200)));
+        cache.needMoreMemory();
+        assertEquals(0, cache.size());
+        assertThrows(IllegalArgumentException.class, () -> new LruTileCache(0));
+    }
+}
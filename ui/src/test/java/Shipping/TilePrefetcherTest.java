@@ -0,0 +1,115 @@
+package Shipping;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.jxmapviewer.viewer.GeoPosition;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TilePrefetcherTest {
+    @TempDir
+    Path directory;
+
+    private static Set<Long> corridor(List<GeoPosition> route, int zoom, int radius) {
+        return new HashSet<>(TilePrefetcher.corridors(List.of(route), zoom, zoom, radius, Integer.MAX_VALUE));
+    }
+
+    @Test
+    void legAcrossTheAntimeridianTakesTheShortWay() {
+        List<GeoPosition> route = List.of(new GeoPosition(0, 179), new GeoPosition(0, -179));
+        assertEquals(Set.of(TilePrefetcher.pack(3, 7, 4), TilePrefetcher.pack(3, 0, 4)), corridor(route, 3, 0));
+        // At zoom 10 the leg covers a handful of tiles, not a band around the world.
+        Set<Long> fine = corridor(route, 10, 1);
+        assertTrue(fine.size() < 30, fine.size() + " tiles");
+        for (long tile : fine) {
+            int x = TilePrefetcher.x(tile);
+            assertTrue(x < 10 || x > 1013, "x " + x);
+        }
+        // Widening wraps as well.
+        assertTrue(corridor(List.of(new GeoPosition(0, -179.9)), 3, 1).contains(TilePrefetcher.pack(3, 7, 4)));
+    }
+
+    @Test
+    void corridorFollowsTheLegAndStopsAtTheBudget() {
+        List<GeoPosition> route = List.of(new GeoPosition(0, 0), new GeoPosition(0, 90));
+        Set<Long> tiles = corridor(route, 3, 0);
+        // Longitudes 0 to 90 are tiles 4 to 6 at zoom 3, on row 4, with 90 degrees the start of tile 6.
+        assertEquals(Set.of(TilePrefetcher.pack(3, 4, 4), TilePrefetcher.pack(3, 5, 4), TilePrefetcher.pack(3, 6, 4)),
+                tiles);
+        List<Long> budgeted = TilePrefetcher.corridors(List.of(route), 2, 8, 1, 40);
+        assertTrue(budgeted.size() <= 40);
+        assertEquals(2, TilePrefetcher.zoom(budgeted.get(0)));
+        int lastZoom = TilePrefetcher.zoom(budgeted.get(budgeted.size() - 1));
+        assertTrue(lastZoom < 8, "zoom " + lastZoom);
+        assertTrue(TilePrefetcher.corridors(List.of(route), 2, lastZoom + 1, 1, Integer.MAX_VALUE).size() > 40);
+    }
+
+    @Test
+    void offlinePrefetchOnlyCountsWhatIsMissing() throws Exception {
+        TileStore store = new TileStore(directory);
+        List<GeoPosition> route = List.of(new GeoPosition(10, 60), new GeoPosition(-30, 20));
+        List<Long> tiles = TilePrefetcher.corridors(List.of(route), 2, 4, 1, 1_000);
+        for (long tile : tiles.subList(1, tiles.size())) {
+            store.write(TilePrefetcher.zoom(tile), TilePrefetcher.x(tile), TilePrefetcher.y(tile), new byte[] {1});
+        }
+        TilePrefetcher prefetcher = new TilePrefetcher(store, null, 2);
+        try {
+            TilePrefetcher.Result result = prefetcher.prefetch(List.of(route), 2, 4, 1, 1_000).get();
+            assertEquals(tiles.size(), result.tiles);
+            assertEquals(tiles.size() - 1, result.stored);
+            assertEquals(0, result.fetched);
+            assertEquals(1, result.missing);
+        } finally {
+            prefetcher.shutdown();
+        }
+    }
+
+    @Test
+    void missingTilesAreFetchedIntoTheStore() throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            byte[] body = exchange.getRequestURI().getPath().getBytes();
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        TileStore store = new TileStore(directory);
+        TilePrefetcher prefetcher = new TilePrefetcher(store,
+                "http://127.0.0.1:" + server.getAddress().getPort() + "/tiles", 2);
+        try {
+            List<GeoPosition> route = List.of(new GeoPosition(50, -5), new GeoPosition(40, -70));
+            TilePrefetcher.Result result = prefetcher.prefetch(List.of(route), 2, 3, 0, 100).get();
+            assertEquals(result.tiles, result.fetched);
+            assertEquals(result.tiles, requests.get());
+            long tile = TilePrefetcher.corridors(List.of(route), 2, 3, 0, 100).get(0);
+            int zoom = TilePrefetcher.zoom(tile);
+            int x = TilePrefetcher.x(tile);
+            int y = TilePrefetcher.y(tile);
+            assertEquals("/tiles/" + zoom + "/" + x + "/" + y + ".png", new String(store.read(zoom, x, y)));
+
+            // A second prefetch finds everything stored and asks the server for nothing.
+            TilePrefetcher.Result again = prefetcher.prefetch(List.of(route), 2, 3, 0, 100).get();
+            assertEquals(again.tiles, again.stored);
+            assertEquals(result.tiles, requests.get());
+        } finally {
+            prefetcher.shutdown();
+            server.stop(0);
+        }
+        assertFalse(Files.list(directory.resolve("2")).anyMatch(path -> path.toString().endsWith(".tmp")));
+    }
+}
@@ -0,0 +1,68 @@
+package Shipping;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TileStoreTest {
+    @TempDir
+    Path directory;
+
+    private static URL url(String text) throws IOException {
+        return URI.create(text).toURL();
+    }
+
+    @Test
+    void parsesTileUrls() throws IOException {
+        assertArrayEquals(new int[] {5, 17, 11}, TileStore.parse(url("http://tile.example.org/5/17/11.png")));
+        assertArrayEquals(new int[] {0, 0, 0}, TileStore.parse(url("file:/data/tiles/0/0/0.png")));
+        assertArrayEquals(new int[] {3, 2, 1}, TileStore.parse(url("http://example.org/a/3/2/1")));
+        assertNull(TileStore.parse(url("http://example.org/5/x/11.png")));
+        assertNull(TileStore.parse(url("http://example.org/11.png")));
+        assertNull(TileStore.parse(url("http://example.org/5/-1/11.png")));
+    }
+
+    @Test
+    void writesAndReadsTilesOnDisk() throws IOException {
+        TileStore store = new TileStore(directory.resolve("tiles"));
+        assertFalse(store.contains(4, 3, 2));
+        assertNull(store.read(4, 3, 2));
+        store.write(4, 3, 2, new byte[] {1, 2, 3});
+        assertTrue(store.contains(4, 3, 2));
+        assertArrayEquals(new byte[] {1, 2, 3}, store.read(4, 3, 2));
+        assertEquals(directory.resolve("tiles").resolve("4").resolve("3").resolve("2.png"), store.path(4, 3, 2));
+        store.write(4, 3, 2, new byte[] {9});
+        assertArrayEquals(new byte[] {9}, store.read(4, 3, 2));
+        try (var files = Files.list(store.path(4, 3, 2).getParent())) {
+            assertEquals(1, files.count(), "temporary files left behind");
+        }
+    }
+
+    @Test
+    void servesTilesOfflineThroughItsOwnBaseUrl() throws IOException {
+        TileStore store = new TileStore(directory);
+        store.write(6, 40, 22, new byte[] {7, 7});
+        // Offline the tile factory asks for base/zoom/x/y.png, with the store as base.
+        URL tile = url(store.baseUrl() + "/6/40/22.png");
+        try (InputStream in = store.get(tile)) {
+            assertArrayEquals(new byte[] {7, 7}, in.readAllBytes());
+        }
+        try (InputStream in = tile.openStream()) {
+            assertArrayEquals(new byte[] {7, 7}, in.readAllBytes());
+        }
+        assertNull(store.get(url(store.baseUrl() + "/6/40/23.png")));
+
+        // Online, tiles the factory downloads are kept under the same numbering.
+        store.put(url("http://tile.example.org/6/41/22.png"), new ByteArrayInputStream(new byte[] {5}));
+        assertArrayEquals(new byte[] {5}, store.read(6, 41, 22));
+    }
+}